@@ -12,6 +12,7 @@ import net.ocheyedan.ply.props.Props;
 import java.io.File;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static net.ocheyedan.ply.props.PropFile.Prop;
@@ -65,7 +66,9 @@ import static net.ocheyedan.ply.props.PropFile.Prop;
  * This script, run without arguments will resolve all the dependencies listed in
  * {@literal dependencies[.scope].properties} and store the values in file {@literal resolved-deps[.scope].properties}
  * under the {@literal project.build.dir}.  This file will contain local file references (local to the {@literal localRepo})
- * for dependencies and transitive dependencies so that compilation and packaging may succeed.
+ * for dependencies and transitive dependencies so that compilation and packaging may succeed.  The resolution is also
+ * recorded as a {@link DependencyLock} ({@literal resolved-deps[.scope].lock} under the {@literal project.build.dir})
+ * so that subsequent invocations with unchanged dependencies, exclusions and repositories need not resolve again.
  *
  * The dependency script's usage is:
  * <pre>dep [--usage] [add|rm|exclude|exclude-min|list|tree]</pre>
@@ -156,8 +159,12 @@ public class DependencyManager {
                 }
                 Output.print("Resolving ^b^%d^r^ %sdependenc%s for ^b^%s^r^%s.", size, scope.getPrettyPrint(), (size == 1 ? "y" : "ies"),
                         Props.get("name", projectContext).value(), exclusionsDescription);
-                PropFile dependencyFiles = resolveDependencies(dependencies, exclusions, null, true);
-                storeResolvedDependenciesFile(dependencyFiles, scope);
+                File lockFile = new File(getBuildDirStorePath("resolved-deps", scope, ".lock"));
+                AtomicBoolean locked = new AtomicBoolean(false);
+                PropFile dependencyFiles = resolveDependencies(dependencies, exclusions, null, true, lockFile, locked);
+                if (!locked.get() || !new File(getBuildDirStorePath("resolved-deps", scope)).exists()) {
+                    storeResolvedDependenciesFile(dependencyFiles, scope);
+                }
             }
         } else {
             usage();
@@ -320,7 +327,7 @@ public class DependencyManager {
                         (lower == diffVersionDep.dependencyAtom ? resolvedDep.dependencyAtom.getPropertyValue() : diffVersionDep.dependencyAtom.getPropertyValue()));
                 foundExclusions.add(lower);
             }
-        });
+        }, null, null);
         PropFile exclusionsPropFile = loadExclusionsFile(scope);
         for (DependencyAtom foundExclusion : foundExclusions) {
             exclude(foundExclusion, exclusionsPropFile);
@@ -347,28 +354,54 @@ public class DependencyManager {
         }
     }
 
-    private static PropFile resolveDependencies(final PropFile dependencies, final PropFile exclusions, final String classifier, final boolean failMissingDependency) {
+    private static PropFile resolveDependencies(PropFile dependencies, PropFile exclusions, String classifier, boolean failMissingDependency) {
+        return resolveDependencies(dependencies, exclusions, classifier, failMissingDependency, null, null);
+    }
+
+    /**
+     * @param lockFile the {@link DependencyLock} to consult and update, or null to resolve without a lock
+     * @param locked set to true if the resolved dependencies were loaded from {@code lockFile}
+     */
+    private static PropFile resolveDependencies(final PropFile dependencies, final PropFile exclusions, final String classifier,
+                                                final boolean failMissingDependency, final File lockFile,
+                                                final AtomicBoolean locked) {
         return invokeWithSlowResolutionThread(new Callable<PropFile>() {
             @Override public PropFile call() throws Exception {
-                return resolveDependenciesImmediately(dependencies, exclusions, classifier, failMissingDependency, null);
+                return resolveDependenciesImmediately(dependencies, exclusions, classifier, failMissingDependency, null,
+                                                      lockFile, locked);
             }
         }, "^b^Hang tight,^r^ your project needs a lot of dependencies. ^b^Ply^r^'s downloading them...");
     }
 
     private static PropFile resolveDependenciesImmediately(PropFile dependencies, PropFile exclusions,
                                                            String classifier, boolean failMissingDependency,
-                                                           ConflictingVersionVisitor conflictingVersionVisitor) {
+                                                           ConflictingVersionVisitor conflictingVersionVisitor,
+                                                           File lockFile, AtomicBoolean locked) {
         DependencyAtom self = Deps.getProjectDep();
         List<DependencyAtom> dependencyAtoms = Deps.parse(dependencies, classifier);
         Set<DependencyAtom> exclusionAtoms = new HashSet<DependencyAtom>(Deps.parseExclusions(exclusions, classifier));
         RepositoryRegistry repositoryRegistry = createRepositoryList(self, dependencyAtoms);
+        String lockHash = null;
+        if (lockFile != null) {
+            lockHash = DependencyLock.hash(dependencyAtoms, exclusionAtoms, repositoryRegistry, classifier);
+            PropFile lockedDependencies = DependencyLock.load(lockFile, lockHash);
+            if (lockedDependencies != null) {
+                Output.print("^dbug^ Dependencies are unchanged since last resolved, using ^b^%s^r^.", lockFile.getPath());
+                locked.set(true);
+                return lockedDependencies;
+            }
+        }
         DirectedAcyclicGraph<Dep> dependencyGraph;
         if (conflictingVersionVisitor != null) {
             dependencyGraph = Deps.getDependencyGraph(dependencyAtoms, exclusionAtoms, repositoryRegistry, classifier, failMissingDependency, conflictingVersionVisitor);
         } else {
             dependencyGraph = Deps.getDependencyGraph(dependencyAtoms, exclusionAtoms, repositoryRegistry, classifier, failMissingDependency);
         }
-        return Deps.convertToResolvedPropertiesFile(dependencyGraph);
+        PropFile resolved = Deps.convertToResolvedPropertiesFile(dependencyGraph);
+        if (lockFile != null) {
+            DependencyLock.store(lockFile, lockHash, resolved);
+        }
+        return resolved;
     }
 
     private static <T> T invokeWithSlowResolutionThread(Callable<T> callable, String message) {
@@ -456,9 +489,13 @@ public class DependencyManager {
     }
 
     private static String getBuildDirStorePath(String name, Scope scope) {
+        return getBuildDirStorePath(name, scope, ".properties");
+    }
+
+    private static String getBuildDirStorePath(String name, Scope scope, String extension) {
         String buildDirPath = Props.get("build.dir", Context.named("project")).value();
         return buildDirPath + (buildDirPath.endsWith(File.separator) ? "" : File.separator)
-                + name + scope.getFileSuffix() + ".properties";
+                + name + scope.getFileSuffix() + extension;
     }
 
     private static void printDependencyGraph(List<Vertex<Dep>> vertices, String indent, int depth, Set<Vertex<Dep>> encountered) {
@@ -49,7 +49,7 @@ class CompilableFiles {
         // if in test-scope, need to add default-scope-compiled dependent files
         if (!Scope.Default.equals(scope) && "test".equals(scope.name)) {
             File compiledSinceTest = FileUtil.fromParts(buildDirPath, "default-scope-compiled.properties");
-            PropFile compiledSinceTestProps = PropFiles.load(compiledSinceTest.getAbsolutePath(), false, false);
+            PropFile compiledSinceTestProps = PropFiles.load(compiledSinceTest.getAbsolutePath(), false, false, PropFileReader.Uncommented);
             for (PropFile.Prop compiledSinceTestProp : compiledSinceTestProps.props()) {
                 String defaultSrcDirPath = compiledSinceTestProp.value();
                 int index = compiledSinceTestProp.name.indexOf(defaultSrcDirPath);
@@ -62,7 +62,7 @@ class CompilableFiles {
         // for any changed-dep-jar, find any file depending upon files within the jar and add
         File changedDepsFile = FileUtil.fromParts(buildDirPath, "changed-deps" + scope.getFileSuffix() + ".properties");
         if (changedDepsFile.exists()) {
-            PropFile changedDeps = PropFiles.load(changedDepsFile.getPath(), false, false);
+            PropFile changedDeps = PropFiles.load(changedDepsFile.getPath(), false, false, PropFileReader.Uncommented);
             for (PropFile.Prop changedDep : changedDeps.props()) {
                 String jarFile = changedDep.value();
                 ClassDeps classDeps = new ClassDeps();
@@ -88,7 +88,7 @@ class CompilableFiles {
             return;
         }
         // load the class's dependent classes and mark those as needing compiling
-        PropFile dependentClasses = PropFiles.load(classDep.getPath(), false, false);
+        PropFile dependentClasses = PropFiles.load(classDep.getPath(), false, false, PropFileReader.Uncommented);
         for (PropFile.Prop dependentClass : dependentClasses.props()) {
             propFile.add(getSourceFile(dependentClass, srcDirPath), "");
         }
@@ -112,7 +112,7 @@ class CompilableFiles {
         if (!existingErrors.exists()) {
             return;
         }
-        PropFile errors = PropFiles.load(existingErrors.getPath(), false, false);
+        PropFile errors = PropFiles.load(existingErrors.getPath(), false, false, PropFileReader.Uncommented);
         for (PropFile.Prop error : errors.props()) {
             into.add(error.name, "");
         }
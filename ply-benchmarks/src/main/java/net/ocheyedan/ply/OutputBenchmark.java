@@ -0,0 +1,53 @@
+package net.ocheyedan.ply;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:44 PM
+ *
+ * Benchmarks {@link Output#resolve(String, Object[])} for the typical shapes of messages; plain, formatted, with
+ * (colored) markup and debug statements (which are discarded as debug logging is disabled, as by default).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OutputBenchmark {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private Object[] args;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Output.init("true", "true", "warn,info");
+        args = new Object[] { "ply-util", "/home/user/projects/ply/ply-util/target/classes", 42 };
+    }
+
+    @Benchmark
+    public String plain() {
+        return Output.resolve("Compiling sources of the project.", NO_ARGS);
+    }
+
+    @Benchmark
+    public String formatted() {
+        return Output.resolve("Compiling %s into %s (%d sources).", args);
+    }
+
+    @Benchmark
+    public String markup() {
+        return Output.resolve("^ply^ Compiling ^b^%s^r^ into ^b^%s^r^ (^green^%d^r^ sources).", args);
+    }
+
+    @Benchmark
+    public String debug() {
+        return Output.resolve("^dbug^ Resolved ^b^%s^r^ from ^b^%s^r^ [ %d ].", args);
+    }
+
+}
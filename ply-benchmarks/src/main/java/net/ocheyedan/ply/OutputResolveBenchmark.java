@@ -0,0 +1,100 @@
+package net.ocheyedan.ply;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 7:05 PM
+ *
+ * Compares {@link Output#resolve(String, Object[])} against the previous implementation which applied a
+ * {@link Pattern} replacement per markup token, for the lines forwarded from scripts (i.e., those resolved via
+ * {@literal [^green^%s^r^] %s}).  Output is non-colored and all log levels are enabled so that both implementations
+ * render identically (which is checked upon setup).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OutputResolveBenchmark {
+
+    private static final Map<Pattern, String> PATTERNS = new LinkedHashMap<Pattern, String>();
+    static {
+        String[][] codes = {
+            { "ply", "[ply]" }, { "error", "[err!]" }, { "warn", "[warn]" }, { "info", "[info]" }, { "dbug", "[dbug]" },
+            { "r", "" }, { "b", "" }, { "n", "" }, { "i", "" }, { "black", "" }, { "grey", "" }, { "red", "" },
+            { "green", "" }, { "yellow", "" }, { "blue", "" }, { "magenta", "" }, { "cyan", "" }, { "white", "" }
+        };
+        for (String[] code : codes) {
+            PATTERNS.put(Pattern.compile("\\^" + code[0] + "\\^"), code[1]);
+        }
+    }
+
+    private static final String EXEC_MESSAGE = "[^green^%s^r^] %s";
+
+    /**
+     * The previous implementation of {@link Output#resolve(String, Object[])} (with non-colored output and all log
+     * levels enabled).
+     */
+    static String resolveWithPatterns(String message, Object[] args) {
+        String formatted = String.format(message, args);
+        for (Map.Entry<Pattern, String> entry : PATTERNS.entrySet()) {
+            Matcher matcher = entry.getKey().matcher(formatted);
+            if (matcher.find()) {
+                formatted = matcher.replaceAll(entry.getValue());
+            }
+        }
+        return formatted;
+    }
+
+    private Object[] plainArgs;
+
+    private Object[] markupArgs;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Output.reset();
+        Output.init("false", "true", "warn,info,debug");
+        plainArgs = new Object[] { "test", "[INFO] Running net.ocheyedan.ply.example.ExampleTest with a plain line of output" };
+        markupArgs = new Object[] { "test", "^dbug^ invoking ^b^ply-compiler-1.0.jar^r^ for ^b^example^r^ and scope ^b^test^r^" };
+        for (Object[] args : new Object[][] { plainArgs, markupArgs }) {
+            if (!resolveWithPatterns(EXEC_MESSAGE, args).equals(Output.resolve(EXEC_MESSAGE, args))) {
+                throw new AssertionError(String.format("Implementations differ for %s", args[1]));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Output.reset();
+    }
+
+    @Benchmark
+    public String plainPatterns() {
+        return resolveWithPatterns(EXEC_MESSAGE, plainArgs);
+    }
+
+    @Benchmark
+    public String plainScanner() {
+        return Output.resolve(EXEC_MESSAGE, plainArgs);
+    }
+
+    @Benchmark
+    public String markupPatterns() {
+        return resolveWithPatterns(EXEC_MESSAGE, markupArgs);
+    }
+
+    @Benchmark
+    public String markupScanner() {
+        return Output.resolve(EXEC_MESSAGE, markupArgs);
+    }
+
+}
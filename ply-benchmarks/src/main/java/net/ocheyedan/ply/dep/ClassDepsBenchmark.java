@@ -0,0 +1,133 @@
+package net.ocheyedan.ply.dep;
+
+import net.ocheyedan.ply.FileUtil;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:44 PM
+ *
+ * Benchmarks {@link ClassDeps#getDependencies(String, File)} (and the {@link ClassDeps#collectDependencies(String, Set)}
+ * built upon it) over {@link #CLASSES} generated class files, each referencing up to {@link #REFERENCES} others via
+ * its fields, method signatures and method invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ClassDepsBenchmark {
+
+    static final int CLASSES = 5000;
+
+    static final int REFERENCES = 8;
+
+    private static final int PACKAGES = 100;
+
+    private File classesDir;
+
+    private String[] classNames;
+
+    private File[] classFiles;
+
+    private Set<String> classPaths;
+
+    private ClassDeps classDeps;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        classesDir = File.createTempFile("ply-benchmarks", "classes");
+        classesDir.delete();
+        classesDir.mkdirs();
+        Random random = new Random(19L);
+        classNames = new String[CLASSES];
+        for (int i = 0; i < CLASSES; i++) {
+            classNames[i] = "org.example.pkg" + (i % PACKAGES) + ".Class" + i;
+        }
+        classFiles = new File[CLASSES];
+        classPaths = new HashSet<String>(CLASSES);
+        for (int i = 0; i < CLASSES; i++) {
+            classFiles[i] = new File(classesDir, classNames[i].replace('.', File.separatorChar) + ".class");
+            classFiles[i].getParentFile().mkdirs();
+            write(classFiles[i], generate(i, random));
+            classPaths.add(classFiles[i].getPath());
+        }
+        classDeps = new ClassDeps();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtil.delete(classesDir);
+    }
+
+    @Benchmark
+    public void getDependencies(Blackhole blackhole) {
+        for (int i = 0; i < CLASSES; i++) {
+            blackhole.consume(classDeps.getDependencies(classNames[i], classFiles[i]));
+        }
+    }
+
+    @Benchmark
+    public Object collectDependencies() {
+        return classDeps.collectDependencies(classesDir.getPath(), classPaths);
+    }
+
+    private byte[] generate(int index, Random random) {
+        String internalName = internalName(index);
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null);
+        int references = 1 + random.nextInt(REFERENCES);
+        for (int i = 0; i < references; i++) {
+            String referenced = internalName(random.nextInt(CLASSES));
+            writer.visitField(Opcodes.ACC_PRIVATE, "field" + i, "L" + referenced + ";", null, null).visitEnd();
+        }
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(1, 1);
+        constructor.visitEnd();
+        String argument = internalName(random.nextInt(CLASSES));
+        String returned = internalName(random.nextInt(CLASSES));
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "run", "(L" + argument + ";)L" + returned + ";", null, null);
+        method.visitCode();
+        method.visitTypeInsn(Opcodes.NEW, returned);
+        method.visitInsn(Opcodes.DUP);
+        method.visitMethodInsn(Opcodes.INVOKESPECIAL, returned, "<init>", "()V", false);
+        method.visitInsn(Opcodes.ARETURN);
+        method.visitMaxs(2, 2);
+        method.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private String internalName(int index) {
+        return classNames[index].replace('.', '/');
+    }
+
+    private static void write(File file, byte[] bytes) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package net.ocheyedan.ply.dep;
+
+import net.ocheyedan.ply.mvn.VersionBenchmark;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:44 PM
+ *
+ * Benchmarks {@link Deps#getMinimumVersion(DependencyAtom, DependencyAtom)} as invoked while mediating the conflicting
+ * versions of a 2k node dependency graph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DepsBenchmark {
+
+    private DependencyAtom[] atoms;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] versions = VersionBenchmark.versions(VersionBenchmark.VERSIONS, new Random(19L));
+        atoms = new DependencyAtom[versions.length];
+        for (int i = 0; i < versions.length; i++) {
+            atoms[i] = new DependencyAtom("org.example.group" + (i % 50), "artifact" + (i % 200), versions[i]);
+        }
+    }
+
+    @Benchmark
+    public void getMinimumVersion(Blackhole blackhole) {
+        for (int i = 1; i < atoms.length; i++) {
+            blackhole.consume(Deps.getMinimumVersion(atoms[i - 1], atoms[i]));
+        }
+    }
+
+}
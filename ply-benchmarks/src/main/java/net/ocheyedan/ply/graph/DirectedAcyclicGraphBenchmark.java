@@ -0,0 +1,92 @@
+package net.ocheyedan.ply.graph;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:44 PM
+ *
+ * Benchmarks {@link DirectedAcyclicGraph#addEdge(Vertex, Vertex)} building a 2k node dependency graph in which each
+ * node depends upon up to {@link #EDGES_PER_NODE} previously added nodes (as transitive dependencies are resolved) and
+ * rejecting edges which would introduce a cycle.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DirectedAcyclicGraphBenchmark {
+
+    static final int NODES = 2000;
+
+    static final int EDGES_PER_NODE = 4;
+
+    /**
+     * Pairs of (from, to) node indices; every {@literal from} is greater than its {@literal to}.
+     */
+    private int[] edges;
+
+    private DirectedAcyclicGraph<String> built;
+
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(19L);
+        names = new String[NODES];
+        for (int i = 0; i < NODES; i++) {
+            names[i] = "org.example.group" + (i % 50) + ":artifact" + i + ":1." + (i % 10);
+        }
+        edges = new int[(NODES - 1) * EDGES_PER_NODE * 2];
+        int index = 0;
+        for (int from = 1; from < NODES; from++) {
+            for (int edge = 0; edge < EDGES_PER_NODE; edge++) {
+                edges[index++] = from;
+                // favor nearby nodes, as with the transitive dependencies of a library
+                edges[index++] = Math.max(0, from - 1 - random.nextInt(Math.min(from, 64)));
+            }
+        }
+        built = build();
+    }
+
+    @Benchmark
+    public DirectedAcyclicGraph<String> addEdges() {
+        return build();
+    }
+
+    /**
+     * Adds (and has rejected) the reverse of an edge of a fully built graph.
+     */
+    @Benchmark
+    public boolean addCyclicEdge() {
+        try {
+            built.addEdge(built.getVertex(names[0]), built.getVertex(names[NODES - 1]));
+            return false;
+        } catch (Graph.CycleException ce) {
+            return true;
+        }
+    }
+
+    private DirectedAcyclicGraph<String> build() {
+        DirectedAcyclicGraph<String> graph = new DirectedAcyclicGraph<String>();
+        Vertex<?>[] vertices = new Vertex<?>[NODES];
+        for (int i = 0; i < NODES; i++) {
+            vertices[i] = graph.addVertex(names[i]);
+        }
+        for (int i = 0; i < edges.length; i += 2) {
+            graph.addEdge(vertex(vertices, edges[i]), vertex(vertices, edges[i + 1]));
+        }
+        return graph;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Vertex<String> vertex(Vertex<?>[] vertices, int index) {
+        return (Vertex<String>) vertices[index];
+    }
+
+}
@@ -0,0 +1,72 @@
+package net.ocheyedan.ply.mvn;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:44 PM
+ *
+ * Benchmarks {@link Version#MAVEN_VERSION_COMPARATOR} comparing, and sorting, the versions of a 2k node dependency graph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VersionBenchmark {
+
+    public static final int VERSIONS = 2000;
+
+    private static final String[] QUALIFIERS = { "", "", "", "-SNAPSHOT", "-alpha-1", "-beta", "-rc", "-jre" };
+
+    private String[] versions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        versions = versions(VERSIONS, new Random(19L));
+    }
+
+    @Benchmark
+    public int compare() {
+        int sum = 0;
+        for (int i = 1; i < versions.length; i++) {
+            sum += Version.MAVEN_VERSION_COMPARATOR.compare(versions[i - 1], versions[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public String[] sort() {
+        String[] sorted = versions.clone();
+        Arrays.sort(sorted, Version.MAVEN_VERSION_COMPARATOR);
+        return sorted;
+    }
+
+    /**
+     * @param count of versions
+     * @param random from which to generate
+     * @return {@code count} versions of the forms found within maven repositories (i.e., {@literal 1.2}, {@literal 3.0.1},
+     *         {@literal 2.4-SNAPSHOT})
+     */
+    public static String[] versions(int count, Random random) {
+        String[] versions = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder version = new StringBuilder();
+            version.append(random.nextInt(5));
+            version.append('.').append(random.nextInt(20));
+            if (random.nextBoolean()) {
+                version.append('.').append(random.nextInt(12));
+            }
+            version.append(QUALIFIERS[random.nextInt(QUALIFIERS.length)]);
+            versions[i] = version.toString();
+        }
+        return versions;
+    }
+
+}
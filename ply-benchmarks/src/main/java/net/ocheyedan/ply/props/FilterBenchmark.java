@@ -0,0 +1,76 @@
+package net.ocheyedan.ply.props;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:44 PM
+ *
+ * Benchmarks {@link Filter} over the unfiltered values of a {@link PropsFixture}; cold (the templates, filtered values
+ * and chain indices of a new fixture) and warm (everything cached, as for the repeated lookups of a build).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    @State(org.openjdk.jmh.annotations.Scope.Thread)
+    public static class Cold {
+
+        PropsFixture fixture;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            Filter.clearAllCaches();
+            fixture = new PropsFixture();
+        }
+    }
+
+    @State(org.openjdk.jmh.annotations.Scope.Thread)
+    public static class Warm {
+
+        PropsFixture fixture;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            Filter.clearAllCaches();
+            fixture = new PropsFixture();
+            filterAll(fixture, null);
+        }
+    }
+
+    @Benchmark
+    public void cold(Cold state, Blackhole blackhole) {
+        filterAll(state.fixture, blackhole);
+    }
+
+    @Benchmark
+    public void warm(Warm state, Blackhole blackhole) {
+        filterAll(state.fixture, blackhole);
+    }
+
+    private static void filterAll(PropsFixture fixture, Blackhole blackhole) {
+        for (Context context : fixture.contexts) {
+            List<PropFile.Prop> props = new ArrayList<PropFile.Prop>(PropsFixture.PROPS_PER_CONTEXT);
+            for (PropFile.Prop prop : fixture.consultant.get(context).props()) {
+                props.add(prop);
+            }
+            for (PropFile.Prop prop : props) {
+                String filtered = Filter.filter(prop.unfilteredValue, context, PropsFixture.UNIQUE_IDENTIFIER,
+                        fixture.consultant);
+                if (blackhole != null) {
+                    blackhole.consume(filtered);
+                }
+            }
+        }
+    }
+
+}
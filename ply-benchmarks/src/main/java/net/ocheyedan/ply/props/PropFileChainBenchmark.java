@@ -0,0 +1,81 @@
+package net.ocheyedan.ply.props;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:44 PM
+ *
+ * Benchmarks lookups within, and iteration of, the {@link PropFileChain} of a {@link PropsFixture} context as well as
+ * re-indexing the chain after one of its files is modified.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(org.openjdk.jmh.annotations.Scope.Thread)
+public class PropFileChainBenchmark {
+
+    private PropsFixture fixture;
+
+    private PropFileChain chain;
+
+    private PropFile adHoc;
+
+    private String[] missing;
+
+    private int modification;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Filter.clearAllCaches();
+        fixture = new PropsFixture();
+        Context context = fixture.contexts.get(fixture.contexts.size() - 1);
+        chain = fixture.consultant.get(context);
+        adHoc = new PropFile(context, PropFile.Loc.AdHoc);
+        chain.set(adHoc, PropFile.Loc.AdHoc);
+        missing = new String[fixture.names.size()];
+        for (int i = 0; i < missing.length; i++) {
+            missing[i] = fixture.names.get(i) + ".missing";
+        }
+        for (PropFile.Prop prop : chain.props()) {
+            prop.value(); // filter once, lookups are of the cached values
+        }
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (String name : fixture.names) {
+            blackhole.consume(chain.get(name));
+        }
+    }
+
+    @Benchmark
+    public void getMissing(Blackhole blackhole) {
+        for (String name : missing) {
+            blackhole.consume(chain.get(name));
+        }
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (PropFile.Prop prop : chain.props()) {
+            blackhole.consume(prop);
+        }
+    }
+
+    /**
+     * Modifies the ad-hoc file (as with {@literal -P} properties) and looks up a property, re-indexing the chain.
+     */
+    @Benchmark
+    public PropFile.Prop modifyAndGet() {
+        adHoc.set(fixture.names.get(0), String.valueOf(modification++));
+        return chain.get(fixture.names.get(1));
+    }
+
+}
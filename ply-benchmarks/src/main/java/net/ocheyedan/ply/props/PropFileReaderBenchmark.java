@@ -0,0 +1,72 @@
+package net.ocheyedan.ply.props;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:44 PM
+ *
+ * Benchmarks {@link PropFileReader#Default} and {@link PropFileReader#Uncommented} parsing a properties file of
+ * {@link PropsFixture#PROPS_PER_CONTEXT} (commented, and occasionally escaped or continued) properties against the
+ * baseline of the previous, line based, reader ({@link LineBasedPropFileReader}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(org.openjdk.jmh.annotations.Scope.Thread)
+public class PropFileReaderBenchmark {
+
+    private final PropFileReader lineBased = new LineBasedPropFileReader();
+
+    private String contents;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < PropsFixture.PROPS_PER_CONTEXT; i++) {
+            if ((i % 5) == 0) {
+                buffer.append("# the comments of property ").append(i).append('\n');
+            }
+            buffer.append("group").append(i % 20).append(".prop").append(i).append('=');
+            if ((i % 50) == 0) {
+                buffer.append("first\\\n    second-").append(i);
+            } else if ((i % 25) == 0) {
+                buffer.append("escaped\\=").append(i);
+            } else {
+                buffer.append("${project.build.dir}/value-").append(i);
+            }
+            buffer.append('\n');
+        }
+        contents = buffer.toString();
+    }
+
+    @Benchmark
+    public PropFile lineBased() throws IOException {
+        return load(lineBased);
+    }
+
+    @Benchmark
+    public PropFile commented() throws IOException {
+        return load(PropFileReader.Default);
+    }
+
+    @Benchmark
+    public PropFile uncommented() throws IOException {
+        return load(PropFileReader.Uncommented);
+    }
+
+    private PropFile load(PropFileReader reader) throws IOException {
+        PropFile into = new PropFile(Context.named("benchmark"), PropFile.Loc.Local);
+        reader.load(new BufferedReader(new StringReader(contents)), into);
+        return into;
+    }
+
+}
@@ -0,0 +1,81 @@
+package net.ocheyedan.ply.props;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:44 PM
+ *
+ * Synthetic configuration at the scale of a large multi-module build; {@link #CONTEXTS} contexts each with
+ * {@link #PROPS_PER_CONTEXT} properties.  A third of the values are literals, a third reference a property of the same
+ * context and a third reference a property of the previous context and one of the same context.  Every tenth property
+ * is overridden locally and every hundredth ad-hoc.
+ */
+final class PropsFixture {
+
+    static final int CONTEXTS = 10;
+
+    static final int PROPS_PER_CONTEXT = 1000;
+
+    static final String UNIQUE_IDENTIFIER = "benchmark";
+
+    final Map<Context, PropFileChain> consultant;
+
+    final List<Context> contexts;
+
+    /**
+     * The names of every property, in order, per context.
+     */
+    final List<String> names;
+
+    PropsFixture() {
+        this.consultant = new HashMap<Context, PropFileChain>(CONTEXTS);
+        this.contexts = new ArrayList<Context>(CONTEXTS);
+        this.names = new ArrayList<String>(PROPS_PER_CONTEXT);
+        for (int i = 0; i < PROPS_PER_CONTEXT; i++) {
+            names.add(name(i));
+        }
+        for (int context = 0; context < CONTEXTS; context++) {
+            Context named = Context.named("context" + context);
+            contexts.add(named);
+            PropFile system = new PropFile(named, PropFile.Loc.System);
+            PropFile local = new PropFile(named, PropFile.Loc.Local);
+            PropFile adHoc = new PropFile(named, PropFile.Loc.AdHoc);
+            for (int i = 0; i < PROPS_PER_CONTEXT; i++) {
+                system.add(name(i), value(context, i));
+                if ((i % 10) == 0) {
+                    local.add(name(i), value(context, i) + "-local");
+                }
+                if ((i % 100) == 0) {
+                    adHoc.add(name(i), value(context, i) + "-adhoc");
+                }
+            }
+            PropFileChain chain = new PropFileChain(consultant);
+            chain.set(system, PropFile.Loc.System);
+            chain.set(local, PropFile.Loc.Local);
+            chain.set(adHoc, PropFile.Loc.AdHoc);
+            consultant.put(named, chain);
+        }
+    }
+
+    private static String name(int index) {
+        return "group" + (index % 20) + ".prop" + index;
+    }
+
+    private static String value(int context, int index) {
+        switch (index % 3) {
+            case 0:
+                return "value-" + context + "-" + index;
+            case 1:
+                return "${" + name(index - 1) + "}/child";
+            default:
+                return (context == 0 ? "${" + name(index - 2) + "}" :
+                        "${context" + (context - 1) + "." + name(index) + "}-${" + name(index - 2) + "}");
+        }
+    }
+
+}
@@ -1,5 +1,8 @@
 package net.ocheyedan.ply;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
@@ -13,6 +16,53 @@ import java.lang.reflect.Method;
  */
 public class JvmPrimer {
 
+    /**
+     * Upon the first read (or check of availability) of the underlying stream, prints {@link #STDIN_REQUEST_TOKEN}
+     * (ply only pipes its own input to the child process after receiving this token).
+     */
+    private static final class StdinRequestingInputStream extends FilterInputStream {
+
+        /**
+         * Must match {@literal net.ocheyedan.ply.exec.StdinProcessPipe#STDIN_REQUEST_TOKEN}.
+         */
+        private static final String STDIN_REQUEST_TOKEN = "^stdin^";
+
+        private volatile boolean requested = false;
+
+        private StdinRequestingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override public int read() throws IOException {
+            request();
+            return super.read();
+        }
+
+        @Override public int read(byte[] into, int offset, int length) throws IOException {
+            request();
+            return super.read(into, offset, length);
+        }
+
+        @Override public int available() throws IOException {
+            request();
+            return super.available();
+        }
+
+        private void request() {
+            if (requested) {
+                return;
+            }
+            synchronized (this) {
+                if (!requested) {
+                    requested = true;
+                    // ends the current line of output (if any); ply prints a partial line without the line break
+                    System.out.println(STDIN_REQUEST_TOKEN);
+                    System.out.flush();
+                }
+            }
+        }
+    }
+
     /**
      * @param args [0] = main-class, rest are arguments to that main-class
      */
@@ -32,7 +82,8 @@ public class JvmPrimer {
             System.exit(read);
         }
 
-        // ok, got go-ahead, invoke main class
+        // ok, got go-ahead, let ply know when the main class first reads its input and invoke main class
+        System.setIn(new StdinRequestingInputStream(System.in));
         Class<?> mainClass = Class.forName(mainClassName);
         Method method = mainClass.getMethod("main", String[].class);
         try {
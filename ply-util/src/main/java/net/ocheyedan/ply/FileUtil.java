@@ -1,5 +1,7 @@
 package net.ocheyedan.ply;
 
+import net.ocheyedan.ply.input.Transports;
+
 import java.io.*;
 import java.net.URL;
 import java.net.URLConnection;
@@ -7,6 +9,7 @@ import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * User: blangel
@@ -182,20 +185,33 @@ public final class FileUtil {
      * @return true if the file was successfully downloaded and saved {@code into}, false otherwise
      */
     public static boolean download(URL remoteUrl, Map<String, String> headers, File into, String name, String intoName, boolean ignoreFNF) {
+        return download(remoteUrl, headers, into, name, intoName, ignoreFNF, null);
+    }
+
+    /**
+     * Downloads the {@code remoteUrl} and saves to {@code into} file.
+     * @param remoteUrl to download
+     * @param headers to use when making a connection to {@code remoteUrl}
+     * @param into the location into which to download
+     * @param name of the file being downloaded
+     * @param intoName of the location into which the file is being downloaded
+     * @param ignoreFNF true to ignore printing exception messages when file is not found
+     * @param notFound if not null, set to true if {@code remoteUrl} does not exist (as opposed to being inaccessible)
+     * @return true if the file was successfully downloaded and saved {@code into}, false otherwise
+     */
+    public static boolean download(URL remoteUrl, Map<String, String> headers, File into, String name, String intoName,
+                                   boolean ignoreFNF, AtomicBoolean notFound) {
         if (remoteUrl == null) {
             return false;
         }
         InputStream stream;
         try {
             // TODO - proxy info (see http://download.oracle.com/javase/6/docs/technotes/guides/net/proxies.html)
-            URLConnection urlConnection = remoteUrl.openConnection();
-            if (headers != null) {
-                for (String key : headers.keySet()) {
-                    urlConnection.addRequestProperty(key, headers.get(key));
-                }
-            }
-            stream = urlConnection.getInputStream();
+            stream = Transports.get().open(remoteUrl, headers);
         } catch (FileNotFoundException fnfe) {
+            if (notFound != null) {
+                notFound.set(true);
+            }
             if (!ignoreFNF) {
                 Output.print(fnfe);
             }
@@ -1,16 +1,13 @@
 package net.ocheyedan.ply;
 
 import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Env;
 import net.ocheyedan.ply.props.Props;
 
 import java.io.*;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * User: blangel
@@ -88,14 +85,14 @@ public final class Output {
     }
 
     /**
-     * A regex {@link java.util.regex.Pattern} paired with its corresponding output string.
+     * A markup token (the text between the enclosing '^' characters) paired with its corresponding output string.
      */
     private static final class TermCode {
-        private final Pattern pattern;
+        private final String token;
         private final String output;
         private final String nonColoredOutput;
-        private TermCode(Pattern pattern, String output, String nonColoredOutput) {
-            this.pattern = pattern;
+        private TermCode(String token, String output, String nonColoredOutput) {
+            this.token = token;
             this.output = output;
             this.nonColoredOutput = nonColoredOutput;
         }
@@ -145,9 +142,26 @@ public final class Output {
     private static final AtomicBoolean beingPiped = new AtomicBoolean(false);
 
     /**
-     * A mapping of easily identifiable words to a {@link TermCode} object for colored output.
+     * The {@link TermCode} objects for colored output; empty until {@link #init()} is called.
      */
-    private static final Map<String, TermCode> TERM_CODES = new HashMap<String, TermCode>();
+    private static volatile TermCode[] TERM_CODES = new TermCode[0];
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /**
+     * A reusable buffer (per thread) into which {@link #resolve(String, Object[])} renders markup.
+     */
+    private static final ThreadLocal<StringBuilder> RENDER_BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    /**
+     * The (resolved) prefix, if any, applied to every line printed by the current thread (i.e., the module name when
+     * submodules are being built in parallel).
+     */
+    private static final ThreadLocal<String> linePrefix = new ThreadLocal<String>();
 
     /**
      * Set to true when {@link #init()} has been called.
@@ -155,7 +169,7 @@ public final class Output {
     private static AtomicBoolean inited = new AtomicBoolean(false);
     static {
         // if this is not ply itself - init straight-away
-        if ("ply".equals(System.getenv("ply_ply.invoker"))) {
+        if ("ply".equals(Env.get("ply_ply.invoker"))) {
             init();
         }
     }
@@ -206,27 +220,57 @@ public final class Output {
         Output.coloredOutput.set(useColor);
         // TODO - what are the range of terminal values and what looks best for each?
         String terminalBold = ("xterm".equals(terminal) ? "1" : "0");
-        TERM_CODES.put("ply", new TermCode(Pattern.compile("\\^ply\\^"), "[\u001b[0;33mply\u001b[0m]", "[ply]"));
-        TERM_CODES.put("error", new TermCode(Pattern.compile("\\^error\\^"), "[\u001b[1;31merr!\u001b[0m]", "[err!]"));
-        TERM_CODES.put("warn", new TermCode(Pattern.compile("\\^warn\\^"), "[\u001b[1;33mwarn\u001b[0m]", "[warn]"));
-        TERM_CODES.put("info", new TermCode(Pattern.compile("\\^info\\^"), "[\u001b[1;34minfo\u001b[0m]", "[info]"));
-        TERM_CODES.put("dbug", new TermCode(Pattern.compile("\\^dbug\\^"), "[\u001b[1;30mdbug\u001b[0m]", "[dbug]"));
-        TERM_CODES.put("reset", new TermCode(Pattern.compile("\\^r\\^"), "\u001b[0m", ""));
-        TERM_CODES.put("bold", new TermCode(Pattern.compile("\\^b\\^"), "\u001b[1m", ""));
-        TERM_CODES.put("normal", new TermCode(Pattern.compile("\\^n\\^"), "\u001b[2m", ""));
-        TERM_CODES.put("inverse", new TermCode(Pattern.compile("\\^i\\^"), "\u001b[7m", ""));
-        TERM_CODES.put("black", new TermCode(Pattern.compile("\\^black\\^"), "\u001b[" + terminalBold + ";30m", ""));
-        TERM_CODES.put("grey", new TermCode(Pattern.compile("\\^grey\\^"), "\u001b[1;30m", ""));
-        TERM_CODES.put("red", new TermCode(Pattern.compile("\\^red\\^"),  "\u001b[" + terminalBold + ";31m", ""));
-        TERM_CODES.put("green", new TermCode(Pattern.compile("\\^green\\^"), "\u001b[" + terminalBold + ";32m", ""));
-        TERM_CODES.put("yellow", new TermCode(Pattern.compile("\\^yellow\\^"), "\u001b[" + terminalBold + ";33m", ""));
-        TERM_CODES.put("blue", new TermCode(Pattern.compile("\\^blue\\^"), "\u001b[" + terminalBold + ";34m", ""));
-        TERM_CODES.put("magenta", new TermCode(Pattern.compile("\\^magenta\\^"), "\u001b[" + terminalBold + ";35m", ""));
-        TERM_CODES.put("cyan", new TermCode(Pattern.compile("\\^cyan\\^"), "\u001b[" + terminalBold + ";36m", ""));
-        TERM_CODES.put("white", new TermCode(Pattern.compile("\\^white\\^"), "\u001b[" + terminalBold + ";37m", ""));
+        TERM_CODES = new TermCode[] {
+            new TermCode("ply", "[\u001b[0;33mply\u001b[0m]", "[ply]"),
+            new TermCode("error", "[\u001b[1;31merr!\u001b[0m]", "[err!]"),
+            new TermCode("warn", "[\u001b[1;33mwarn\u001b[0m]", "[warn]"),
+            new TermCode("info", "[\u001b[1;34minfo\u001b[0m]", "[info]"),
+            new TermCode("dbug", "[\u001b[1;30mdbug\u001b[0m]", "[dbug]"),
+            new TermCode("r", "\u001b[0m", ""),
+            new TermCode("b", "\u001b[1m", ""),
+            new TermCode("n", "\u001b[2m", ""),
+            new TermCode("i", "\u001b[7m", ""),
+            new TermCode("black", "\u001b[" + terminalBold + ";30m", ""),
+            new TermCode("grey", "\u001b[1;30m", ""),
+            new TermCode("red", "\u001b[" + terminalBold + ";31m", ""),
+            new TermCode("green", "\u001b[" + terminalBold + ";32m", ""),
+            new TermCode("yellow", "\u001b[" + terminalBold + ";33m", ""),
+            new TermCode("blue", "\u001b[" + terminalBold + ";34m", ""),
+            new TermCode("magenta", "\u001b[" + terminalBold + ";35m", ""),
+            new TermCode("cyan", "\u001b[" + terminalBold + ";36m", ""),
+            new TermCode("white", "\u001b[" + terminalBold + ";37m", "")
+        };
         drainQueue();
     }
 
+    /**
+     * Reverts output to its pre-{@link #init()} state so that it may be re-initialized (for instance, so that a
+     * long-lived ply process can service another invocation with differing output settings).
+     */
+    static void reset() {
+        inited.set(false);
+        queue.clear();
+        warnLevel.set(true);
+        infoLevel.set(true);
+        dbugLevel.set(true);
+        coloredOutput.set(true);
+        decorated.set(true);
+        withinTerminal.set(true);
+        beingPiped.set(false);
+        TERM_CODES = new TermCode[0];
+    }
+
+    /**
+     * Reverts output via {@link #reset()} and then, if this is not ply itself, re-initializes it; for instance, so that
+     * a script invoked repeatedly within ply's {@literal JVM} uses the output settings of each invocation.
+     */
+    public static void reinit() {
+        reset();
+        if ("ply".equals(Env.get("ply_ply.invoker"))) {
+            init();
+        }
+    }
+
     /**
      * Takes all the messages from {@link #queue} and calls the appropriate print method based on its {@link Message.Type}
      */
@@ -254,7 +298,7 @@ public final class Output {
         if ((formatted == null) || (!decorated.get() && isPrintFromPly())) {
             return;
         }
-        System.out.println(formatted);
+        System.out.println(prefix(formatted));
     }
 
     public static void printNoLine(String message, Object ... args) {
@@ -266,7 +310,29 @@ public final class Output {
         if ((formatted == null) || (!decorated.get() && isPrintFromPly())) {
             return;
         }
-        System.out.print(formatted);
+        System.out.print(prefix(formatted));
+    }
+
+    /**
+     * @param formatted the resolved message
+     * @return {@code formatted} prefixed with the current thread's {@link #linePrefix}, if any
+     */
+    private static String prefix(String formatted) {
+        String prefix = linePrefix.get();
+        return (prefix == null ? formatted : prefix + formatted);
+    }
+
+    /**
+     * Sets the prefix applied to every line printed by the current thread.  Note, this is only applied to decorated
+     * output.
+     * @param prefix to apply (will be resolved, like any message) or null to clear the current thread's prefix.
+     */
+    static void setLinePrefix(String prefix) {
+        if (prefix == null) {
+            linePrefix.remove();
+        } else {
+            linePrefix.set(resolve("%s", new Object[] { prefix }));
+        }
     }
     
     private static boolean isPrintFromPly() {
@@ -282,28 +348,55 @@ public final class Output {
     }
 
     static void printFromExec(String message, Object ... args) {
+        String rendered = renderFromExec(message, args);
+        if (rendered != null) {
+            System.out.print(rendered);
+        }
+    }
+
+    /**
+     * Renders, but does not print, a line of output from an executed script so that callers may print many lines
+     * at once.
+     * @param message the format of the line (the first argument being the script name and the second the script's output)
+     * @param args the script name and the script's line of output
+     * @return the text to print (including the line separator unless the script requested otherwise) or null if
+     *         there is nothing to print (or output has not been initialized yet, in which case the line is queued).
+     */
+    static String renderFromExec(String message, Object ... args) {
         if (!inited.get()) {
             queue.add(new Message(message, Message.Type.Exec, args));
-            return;
+            return null;
         }
         String scriptArg = (String) args[1];
         if (!decorated.get()) {
-            System.out.println(scriptArg);
-            return;
+            return scriptArg + LINE_SEPARATOR;
         }
         boolean noLine = scriptArg.contains("^no_line^");
         boolean noPrefix = scriptArg.contains("^no_prefix^");
         if (noPrefix && noLine) {
-            printNoLine("%s", scriptArg.replaceFirst("\\^no_line\\^", "").replaceFirst("\\^no_prefix\\^", ""));
+            return render("%s", new Object[] { removeFirst(removeFirst(scriptArg, "^no_line^"), "^no_prefix^") }, false);
         } else if (noPrefix) {
-            print("%s", scriptArg.replaceFirst("\\^no_prefix\\^", ""));
+            return render("%s", new Object[] { removeFirst(scriptArg, "^no_prefix^") }, true);
         } else if (noLine) {
-            printNoLine(message, args[0], scriptArg.replaceFirst("\\^no_line\\^", ""));
+            return render(message, new Object[] { args[0], removeFirst(scriptArg, "^no_line^") }, false);
         } else {
-            print(message, args);
+            return render(message, args, true);
         }
     }
 
+    private static String render(String message, Object[] args, boolean line) {
+        String formatted = resolve(message, args);
+        if (formatted == null) {
+            return null;
+        }
+        return (line ? prefix(formatted) + LINE_SEPARATOR : prefix(formatted));
+    }
+
+    private static String removeFirst(String value, String token) {
+        int index = value.indexOf(token);
+        return (index == -1 ? value : value.substring(0, index) + value.substring(index + token.length()));
+    }
+
     public static void print(Throwable t) {
         print("^error^ %s: ^i^^red^%s^r^", (t == null ? "Message" : t.getClass().getSimpleName()), (t == null ? "" : t.getMessage()));
         if (isDebug()) {
@@ -313,26 +406,69 @@ public final class Output {
         }
     }
 
+    /**
+     * Formats {@code message} with {@code args} and renders its markup (i.e., {@literal ^b^}) in a single pass.
+     * Messages without any markup are returned as formatted (without copying).
+     * @param message to format
+     * @param args with which to format {@code message}
+     * @return the rendered message or null if the message is a log statement for a disabled log-level
+     */
     static String resolve(String message, Object[] args) {
-        String formatted = String.format(message, args);
-        // TODO - fix!  this case fails: ^cyan^warn^r^ if ^warn^ is evaluated first...really meant for ^cyan^ and ^r^
-        // TODO - to be resolved
-        for (String key : TERM_CODES.keySet()) {
-            TermCode termCode = TERM_CODES.get(key);
-            Matcher matcher = termCode.pattern.matcher(formatted);
-            if (matcher.find()) {
-                if (("warn".equals(key) && !warnLevel.get()) || ("info".equals(key) && !infoLevel.get())
-                        || ("dbug".equals(key) && !dbugLevel.get())) {
-                    // this is a log statement for a disabled log-level, skip.
-                    return null;
-                }
-                if (decorated.get()) {
-                    String output = isColoredOutput() ? termCode.output : termCode.nonColoredOutput;
-                    formatted = matcher.replaceAll(output);
-                }
+        String formatted = (((args == null) || (args.length == 0)) && (message.indexOf('%') == -1)
+                ? message : String.format(message, args));
+        int next = formatted.indexOf('^');
+        if (next == -1) {
+            return formatted;
+        }
+        TermCode[] termCodes = TERM_CODES;
+        boolean render = decorated.get();
+        boolean colored = isColoredOutput();
+        StringBuilder buffer = RENDER_BUFFER.get();
+        buffer.setLength(0);
+        int copied = 0;
+        while (next != -1) {
+            int end = formatted.indexOf('^', next + 1);
+            if (end == -1) {
+                break;
+            }
+            TermCode termCode = find(termCodes, formatted, next + 1, end);
+            if (termCode == null) {
+                next = end; // the closing '^' may open a token
+                continue;
+            }
+            if (("warn".equals(termCode.token) && !warnLevel.get()) || ("info".equals(termCode.token) && !infoLevel.get())
+                    || ("dbug".equals(termCode.token) && !dbugLevel.get())) {
+                // this is a log statement for a disabled log-level, skip.
+                return null;
+            }
+            if (render) {
+                buffer.append(formatted, copied, next).append(colored ? termCode.output : termCode.nonColoredOutput);
+                copied = end + 1;
+            }
+            next = formatted.indexOf('^', end + 1);
+        }
+        if (copied == 0) {
+            return formatted;
+        }
+        buffer.append(formatted, copied, formatted.length());
+        return buffer.toString();
+    }
+
+    /**
+     * @param termCodes to search
+     * @param value containing the token
+     * @param start index (inclusive) of the token within {@code value}
+     * @param end index (exclusive) of the token within {@code value}
+     * @return the {@link TermCode} whose token is the given region of {@code value} or null if there is none
+     */
+    private static TermCode find(TermCode[] termCodes, String value, int start, int end) {
+        int length = end - start;
+        for (TermCode termCode : termCodes) {
+            if ((termCode.token.length() == length) && value.regionMatches(start, termCode.token, 0, length)) {
+                return termCode;
             }
         }
-        return formatted;
+        return null;
     }
 
     /**
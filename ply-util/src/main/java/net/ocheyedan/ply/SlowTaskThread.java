@@ -2,6 +2,7 @@ package net.ocheyedan.ply;
 
 import net.ocheyedan.ply.input.InterruptibleInputReader;
 import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Env;
 import net.ocheyedan.ply.props.PropFile;
 
 import java.io.ByteArrayOutputStream;
@@ -212,7 +213,7 @@ public final class SlowTaskThread {
         }
 
         @Override public void run() {
-            final boolean invokedByPly = "ply".equals(System.getenv("ply_ply.invoker"));
+            final boolean invokedByPly = "ply".equals(Env.get("ply_ply.invoker"));
             try {
                 Thread.sleep(wait);
                 // TODO - recheck already-answered state
@@ -60,7 +60,7 @@ final class BasicAuth implements Auth {
         return FileUtil.pathFromParts(remotePathDir, fileName);
     }
 
-    @Override public Map<String, String> getHeaders() {
+    @Override public synchronized Map<String, String> getHeaders() {
         if (headers.isEmpty()) {
             String basicAuth = getBasicAuthenticationProperty(username, PwdUtil.decrypt(encryptedPwd));
             headers.put("Authorization", basicAuth);
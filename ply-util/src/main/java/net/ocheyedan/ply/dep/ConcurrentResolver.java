@@ -0,0 +1,236 @@
+package net.ocheyedan.ply.dep;
+
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Props;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:55 PM
+ *
+ * Resolves the dependencies of a dependency graph level by level, resolving (i.e., downloading the artifacts and
+ * poms of) every dependency of a level concurrently, ahead of {@link Deps#getDependencyGraph(List, Set, RepositoryRegistry, String, boolean, ConflictingVersionVisitor)}
+ * walking the graph.  The walk itself is unchanged (and so the order of the graph's vertices and of any conflicting
+ * version warnings is as well); it simply consults the resolved {@link Dep} objects rather than resolving each
+ * dependency as it is encountered.  Dependencies which could not be resolved concurrently are resolved again by the
+ * walk so that failures are reported as they would otherwise be.
+ *
+ * The number of dependencies resolved concurrently is configured by property {@literal resolve.threads} within the
+ * {@literal depmngr} context; if 1 (or less) dependencies are only resolved by the walk.  Where the {@literal JVM}
+ * supports virtual threads they are used, otherwise daemon threads.
+ */
+final class ConcurrentResolver {
+
+    /**
+     * A dependency as resolved by the walk; whether the pom alone is sufficient depends upon where in the graph the
+     * dependency is encountered.
+     */
+    private static final class Key {
+
+        private final DependencyAtom dependencyAtom;
+
+        private final boolean pomSufficient;
+
+        private Key(DependencyAtom dependencyAtom, boolean pomSufficient) {
+            this.dependencyAtom = dependencyAtom;
+            this.pomSufficient = pomSufficient;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if ((o == null) || (getClass() != o.getClass())) {
+                return false;
+            }
+            Key key = (Key) o;
+            return (pomSufficient == key.pomSufficient) && dependencyAtom.equals(key.dependencyAtom);
+        }
+
+        @Override public int hashCode() {
+            return (31 * dependencyAtom.hashCode()) + (pomSufficient ? 1 : 0);
+        }
+    }
+
+    /**
+     * Resolves nothing; the walk resolves each dependency itself.
+     */
+    static final ConcurrentResolver Sequential = new ConcurrentResolver(Collections.<Key, Dep>emptyMap());
+
+    private static final int DEFAULT_THREADS = 8;
+
+    /**
+     * @param dependencyAtoms the direct dependencies of the graph
+     * @param exclusionAtoms the {@link DependencyAtom} to exclude when resolving transitive dependencies
+     * @param classifier to use when resolving transitive dependencies, or null
+     * @param repositoryRegistry the repositories to consult
+     * @return the resolved dependencies of the graph of {@code dependencyAtoms}
+     */
+    static ConcurrentResolver resolve(List<DependencyAtom> dependencyAtoms, Set<DependencyAtom> exclusionAtoms,
+                                      String classifier, RepositoryRegistry repositoryRegistry) {
+        return resolve(dependencyAtoms, exclusionAtoms, classifier, repositoryRegistry, getThreads());
+    }
+
+    /**
+     * @param threads the number of dependencies to resolve concurrently
+     * @see #resolve(List, Set, String, RepositoryRegistry)
+     */
+    static ConcurrentResolver resolve(List<DependencyAtom> dependencyAtoms, Set<DependencyAtom> exclusionAtoms,
+                                      String classifier, RepositoryRegistry repositoryRegistry, int threads) {
+        if ((threads < 2) || repositoryRegistry.isEmpty() || dependencyAtoms.isEmpty()) {
+            return Sequential;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, getThreadFactory());
+        try {
+            return new ConcurrentResolver(resolve(dependencyAtoms, exclusionAtoms, classifier, repositoryRegistry, executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Map<Key, Dep> resolve(List<DependencyAtom> dependencyAtoms, Set<DependencyAtom> exclusionAtoms,
+                                         final String classifier, final RepositoryRegistry repositoryRegistry,
+                                         ExecutorService executor) {
+        Map<Key, Dep> resolved = new HashMap<Key, Dep>();
+        final ConcurrentMap<String, Object> locks = new ConcurrentHashMap<String, Object>();
+        // the first level; direct dependencies (which are excluded by the walk are left for it to report)
+        List<Key> level = new ArrayList<Key>(dependencyAtoms.size());
+        for (DependencyAtom dependencyAtom : dependencyAtoms) {
+            if (!exclusionAtoms.contains(dependencyAtom)) {
+                level.add(new Key(dependencyAtom, dependencyAtom.transientDep));
+            }
+        }
+        Set<Key> seen = new HashSet<Key>(level);
+        int levels = 0;
+        long start = System.currentTimeMillis();
+        while (!level.isEmpty()) {
+            levels++;
+            List<Future<Dep>> futures = new ArrayList<Future<Dep>>(level.size());
+            for (final Key key : level) {
+                futures.add(executor.submit(new Callable<Dep>() {
+                    @Override public Dep call() throws Exception {
+                        return resolve(key, classifier, repositoryRegistry, locks);
+                    }
+                }));
+            }
+            // the next level, in the order of this level so that resolution is deterministic
+            List<Key> next = new ArrayList<Key>();
+            for (int i = 0; i < level.size(); i++) {
+                Key key = level.get(i);
+                Dep dep = get(futures.get(i));
+                if (dep == null) {
+                    continue;
+                }
+                resolved.put(key, dep);
+                if (key.dependencyAtom.transientDep) {
+                    continue; // as with the walk, transient dependencies are not recurred upon
+                }
+                for (DependencyAtom dependencyAtom : dep.dependencies) {
+                    if (dependencyAtom.transientDep || exclusionAtoms.contains(dependencyAtom.withoutClassifier())
+                            || exclusionAtoms.contains(dependencyAtom)) {
+                        continue;
+                    }
+                    Key dependencyKey = new Key(dependencyAtom, true);
+                    if (seen.add(dependencyKey)) {
+                        next.add(dependencyKey);
+                    }
+                }
+            }
+            level = next;
+        }
+        Output.print("^dbug^ Resolved %d dependencies in %d levels concurrently in %d ms.", resolved.size(), levels,
+                (System.currentTimeMillis() - start));
+        return resolved;
+    }
+
+    /**
+     * Resolves {@code key}, serially with any other dependency sharing its local repository directory (i.e., the
+     * pom-only and artifact resolution of the same dependency) as both write into that directory.
+     * @return the resolved dependency or null if it could not be resolved
+     */
+    private static Dep resolve(Key key, String classifier, RepositoryRegistry repositoryRegistry,
+                               ConcurrentMap<String, Object> locks) {
+        try {
+            String directory = Deps.LocalPaths.get(key.dependencyAtom, repositoryRegistry.localRepository).localDirPath;
+            Object lock = locks.get(directory);
+            if (lock == null) {
+                Object existing = locks.putIfAbsent(directory, (lock = new Object()));
+                lock = (existing == null ? lock : existing);
+            }
+            synchronized (lock) {
+                return Deps.resolveDependency(key.dependencyAtom, classifier, repositoryRegistry, key.pomSufficient, false);
+            }
+        } catch (Throwable t) {
+            Output.print("^dbug^ Could not concurrently resolve %s [ %s ].", key.dependencyAtom.toString(), t.getMessage());
+            return null; // the walk will resolve again and report the failure
+        }
+    }
+
+    private static Dep get(Future<Dep> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ee) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the value of {@literal depmngr.resolve.threads} or {@link #DEFAULT_THREADS} if it is not set
+     */
+    static int getThreads() {
+        String threads = Props.get("resolve.threads", Context.named("depmngr")).value();
+        if (threads.trim().isEmpty()) {
+            return DEFAULT_THREADS;
+        }
+        try {
+            return Integer.parseInt(threads.trim());
+        } catch (NumberFormatException nfe) {
+            Output.print("^warn^ Invalid ^b^resolve.threads^r^ value ^b^%s^r^ within ^b^depmngr^r^, using %d.", threads,
+                    DEFAULT_THREADS);
+            return DEFAULT_THREADS;
+        }
+    }
+
+    /**
+     * @return a factory of virtual threads if the {@literal JVM} supports them, otherwise of daemon threads
+     */
+    private static ThreadFactory getThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            final AtomicInteger count = new AtomicInteger(0);
+            return new ThreadFactory() {
+                @Override public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ply-resolve-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+        }
+    }
+
+    private final Map<Key, Dep> resolved;
+
+    private ConcurrentResolver(Map<Key, Dep> resolved) {
+        this.resolved = resolved;
+    }
+
+    /**
+     * @param dependencyAtom to lookup
+     * @param pomSufficient whether the pom alone is sufficient to resolve {@code dependencyAtom}
+     * @return the resolved {@code dependencyAtom} or null if it was not resolved
+     */
+    Dep get(DependencyAtom dependencyAtom, boolean pomSufficient) {
+        return resolved.get(new Key(dependencyAtom, pomSufficient));
+    }
+
+}
@@ -0,0 +1,198 @@
+package net.ocheyedan.ply.dep;
+
+import net.ocheyedan.ply.BitUtil;
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.PlyUtil;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.PropFile;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:01 PM
+ *
+ * A lock of a project's resolved dependencies (the result of {@link Deps#convertToResolvedPropertiesFile(net.ocheyedan.ply.graph.DirectedAcyclicGraph)}
+ * for a dependency graph) so that unchanged dependencies need not be resolved again; resolving requires consulting
+ * the local repository for every dependency within the graph (and reading each of their dependencies files).
+ *
+ * A lock is keyed by the hash of the resolution's inputs; the direct dependencies, the exclusions, the classifier and
+ * the repositories, including any synthetic repository (see {@link #hash(List, Set, RepositoryRegistry, String)}).  As
+ * the local repository may change independently of the project, the size and modification time of each resolved
+ * artifact is stored as well and a lock is only used if all are unchanged.  The format is (all integers are
+ * big-endian, strings are an int byte-length followed by the UTF-8 bytes):
+ * <pre>
+ *     int magic, int version, string hash, int dependency-count
+ *     dependency-count * [ string dependency, string location, long size, long last-modified ]
+ * </pre>
+ * where a size of -1 denotes an artifact which did not exist (i.e., a transient dependency resolved by its pom alone).
+ */
+public final class DependencyLock {
+
+    private static final int MAGIC = 0x504c594c; // 'PLYL'
+
+    private static final int VERSION = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * @param dependencyAtoms the direct dependencies being resolved
+     * @param exclusionAtoms the exclusions of the resolution
+     * @param repositoryRegistry the repositories of the resolution
+     * @param classifier of the resolution, or null
+     * @return the hash of the inputs of a resolution
+     */
+    public static String hash(List<DependencyAtom> dependencyAtoms, Set<DependencyAtom> exclusionAtoms,
+                              RepositoryRegistry repositoryRegistry, String classifier) {
+        StringBuilder inputs = new StringBuilder();
+        inputs.append(PlyUtil.PLY_VERSION).append('\n').append(classifier).append('\n');
+        // order of the direct dependencies is significant (it determines the order of the resolved dependencies)
+        for (DependencyAtom dependencyAtom : dependencyAtoms) {
+            inputs.append(dependencyAtom.getPropertyName()).append('=').append(dependencyAtom.getPropertyValue()).append('\n');
+        }
+        inputs.append('\n');
+        appendSorted(exclusionAtoms, inputs);
+        inputs.append('\n').append(repositoryRegistry.localRepository).append('\n');
+        if (repositoryRegistry.remoteRepositories != null) {
+            for (RepositoryAtom remoteRepository : repositoryRegistry.remoteRepositories) {
+                inputs.append(remoteRepository).append('\n');
+            }
+        }
+        if (repositoryRegistry.syntheticRepository != null) {
+            for (Map.Entry<DependencyAtom, List<DependencyAtom>> entry : repositoryRegistry.syntheticRepository.entrySet()) {
+                inputs.append('\n').append(entry.getKey().getPropertyName()).append('=')
+                      .append(entry.getKey().getPropertyValue()).append('\n');
+                appendSorted(entry.getValue(), inputs);
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA1");
+            return BitUtil.toHexString(digest.digest(inputs.toString().getBytes(UTF8)));
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new AssertionError(nsae);
+        }
+    }
+
+    /**
+     * @param lockFile the lock
+     * @param hash of the resolution's inputs (see {@link #hash(List, Set, RepositoryRegistry, String)})
+     * @return the locked resolved dependencies if {@code lockFile} exists, was made for {@code hash} and none of the
+     *         resolved artifacts have changed; null otherwise
+     */
+    public static PropFile load(File lockFile, String hash) {
+        if (!lockFile.exists()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(lockFile), 8192));
+            try {
+                long limit = lockFile.length();
+                if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) || !hash.equals(readString(in, limit))) {
+                    return null;
+                }
+                int count = in.readInt();
+                PropFile resolved = new PropFile(Context.named("resolved-deps"), PropFile.Loc.Local);
+                for (int i = 0; i < count; i++) {
+                    String dependency = readString(in, limit);
+                    String location = readString(in, limit);
+                    long size = in.readLong();
+                    long lastModified = in.readLong();
+                    File artifact = new File(location);
+                    if ((size != getSize(artifact)) || ((size != -1) && (lastModified != artifact.lastModified()))) {
+                        Output.print("^dbug^ Dependency lock is stale, ^b^%s^r^ has changed.", dependency);
+                        return null;
+                    }
+                    resolved.add(dependency, location);
+                }
+                return resolved;
+            } finally {
+                in.close();
+            }
+        } catch (IOException ioe) {
+            Output.print("^dbug^ Ignoring the dependency lock ^b^%s^r^ [ %s ].", lockFile.getPath(), ioe.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code resolved} as the lock for {@code hash} into {@code lockFile}.  Failure to store is not an error;
+     * dependencies will simply be resolved again.
+     * @param lockFile the lock
+     * @param hash of the resolution's inputs (see {@link #hash(List, Set, RepositoryRegistry, String)})
+     * @param resolved the resolved dependencies
+     */
+    public static void store(File lockFile, String hash, PropFile resolved) {
+        File temporary = null;
+        try {
+            lockFile.getParentFile().mkdirs();
+            temporary = File.createTempFile(lockFile.getName(), ".tmp", lockFile.getParentFile());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary), 8192));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeString(hash, out);
+                out.writeInt(resolved.size());
+                for (PropFile.Prop prop : resolved.props()) {
+                    File artifact = new File(prop.value());
+                    writeString(prop.name, out);
+                    writeString(prop.value(), out);
+                    out.writeLong(getSize(artifact));
+                    out.writeLong(artifact.lastModified());
+                }
+            } finally {
+                out.close();
+            }
+            if (!temporary.renameTo(lockFile)) {
+                // the destination may need removing first on some platforms
+                lockFile.delete();
+                if (!temporary.renameTo(lockFile)) {
+                    throw new IOException("could not rename " + temporary.getPath());
+                }
+            }
+        } catch (IOException ioe) {
+            Output.print("^dbug^ Could not write the dependency lock ^b^%s^r^ [ %s ].", lockFile.getPath(), ioe.getMessage());
+            if ((temporary != null) && temporary.exists()) {
+                temporary.delete();
+            }
+        }
+    }
+
+    private static void appendSorted(Collection<DependencyAtom> dependencyAtoms, StringBuilder into) {
+        List<String> sorted = new ArrayList<String>(dependencyAtoms.size());
+        for (DependencyAtom dependencyAtom : dependencyAtoms) {
+            sorted.add(dependencyAtom.getPropertyName() + "=" + dependencyAtom.getPropertyValue());
+        }
+        Collections.sort(sorted);
+        for (String dependency : sorted) {
+            into.append(dependency).append('\n');
+        }
+    }
+
+    private static long getSize(File artifact) {
+        return (artifact.exists() ? artifact.length() : -1L);
+    }
+
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, long limit) throws IOException {
+        int length = in.readInt();
+        if ((length < 0) || (length > limit)) {
+            throw new IOException("corrupt lock");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private DependencyLock() { }
+
+}
@@ -8,7 +8,9 @@ import net.ocheyedan.ply.graph.DirectedAcyclicGraph;
 import net.ocheyedan.ply.graph.Graph;
 import net.ocheyedan.ply.graph.Graphs;
 import net.ocheyedan.ply.graph.Vertex;
+import net.ocheyedan.ply.input.Transports;
 import net.ocheyedan.ply.mvn.MavenPom;
+import net.ocheyedan.ply.mvn.MavenPomCache;
 import net.ocheyedan.ply.mvn.MavenPomParser;
 import net.ocheyedan.ply.props.*;
 
@@ -16,6 +18,7 @@ import java.io.File;
 import java.net.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static net.ocheyedan.ply.props.PropFile.Prop;
@@ -81,10 +84,16 @@ public final class Deps {
          */
         final Set<String> unversionedResolvedAlreadyVisited;
 
-        private FillGraphState() {
+        /**
+         * The dependencies of the graph resolved ahead of the walk.
+         */
+        final ConcurrentResolver concurrentResolver;
+
+        private FillGraphState(ConcurrentResolver concurrentResolver) {
             this.resolved = new ConcurrentHashMap<DependencyAtom, Dep>();
             this.unversionedResolved = new ConcurrentHashMap<String, Set<Dep>>();
             this.unversionedResolvedAlreadyVisited = new HashSet<String>();
+            this.concurrentResolver = concurrentResolver;
         }
     }
 
@@ -207,10 +216,33 @@ public final class Deps {
                                                                RepositoryRegistry repositoryRegistry,
                                                                String classifier, boolean failMissingDependency,
                                                                ConflictingVersionVisitor conflictingVersionVisitor) {
+        return getDependencyGraph(dependencyAtoms, exclusionAtoms, repositoryRegistry, classifier, failMissingDependency,
+                                  conflictingVersionVisitor, ConcurrentResolver.getThreads());
+    }
+
+    /**
+     * @param threads the number of dependencies to resolve concurrently ahead of walking the graph (see
+     *                {@link ConcurrentResolver})
+     * @see #getDependencyGraph(List, Set, RepositoryRegistry, String, boolean, ConflictingVersionVisitor)
+     */
+    static DirectedAcyclicGraph<Dep> getDependencyGraph(List<DependencyAtom> dependencyAtoms,
+                                                        Set<DependencyAtom> exclusionAtoms,
+                                                        RepositoryRegistry repositoryRegistry,
+                                                        String classifier, boolean failMissingDependency,
+                                                        ConflictingVersionVisitor conflictingVersionVisitor,
+                                                        int threads) {
         DirectedAcyclicGraph<Dep> dependencyDAG = new DirectedAcyclicGraph<Dep>();
         Set<String> alreadyPrinted = new HashSet<String>((exclusionAtoms == null ? 16 : exclusionAtoms.size()));
-        fillDependencyGraph(null, dependencyAtoms, exclusionAtoms, classifier, repositoryRegistry, dependencyDAG, new FillGraphState(),
-                alreadyPrinted, false, failMissingDependency, conflictingVersionVisitor);
+        try {
+            ConcurrentResolver concurrentResolver = ConcurrentResolver.resolve(dependencyAtoms, exclusionAtoms, classifier,
+                                                                               repositoryRegistry, threads);
+            fillDependencyGraph(null, dependencyAtoms, exclusionAtoms, classifier, repositoryRegistry, dependencyDAG,
+                    new FillGraphState(concurrentResolver), alreadyPrinted, false, failMissingDependency, conflictingVersionVisitor);
+        } finally {
+            if (repositoryRegistry.localRepository != null) {
+                MissingArtifactCache.get(repositoryRegistry.localRepository).flush();
+            }
+        }
         return dependencyDAG;
     }
 
@@ -273,8 +305,12 @@ public final class Deps {
                 if (state.resolved.containsKey(dependencyAtom)) {
                     resolvedDep = state.resolved.get(dependencyAtom);
                 } else {
-                    resolvedDep = resolveDependency(dependencyAtom, classifier, repositoryRegistry, (pomSufficient || dependencyAtom.transientDep),
-                                                failMissingDependency);
+                    boolean depPomSufficient = (pomSufficient || dependencyAtom.transientDep);
+                    resolvedDep = state.concurrentResolver.get(dependencyAtom, depPomSufficient);
+                    if (resolvedDep == null) {
+                        resolvedDep = resolveDependency(dependencyAtom, classifier, repositoryRegistry, depPomSufficient,
+                                                        failMissingDependency);
+                    }
                     if (resolvedDep != null) {
                         state.resolved.put(dependencyAtom, resolvedDep);
                     }
@@ -448,6 +484,8 @@ public final class Deps {
         }
 
         if (failMissingDependency) {
+            // resolution is about to halt (possibly exiting the jvm), persist what was not found
+            MissingArtifactCache.get(localRepo).flush();
             Output.print("^error^ Dependency ^b^%s^r^ not found in any repository; ensure repositories are accessible.", dependencyAtom.toString());
             Output.print("^error^ Project's local repository is ^b^%s^r^.", localRepo.toString());
             int remoteRepoSize = repositoryRegistry.remoteRepositories.size();
@@ -467,9 +505,11 @@ public final class Deps {
         File localDepFile = new File(localPaths.localUrl.getFile());
         File localPomDepFile = new File(localPomPaths.localUrl.getFile());
         if (localDepFile.exists()) {
-            return resolveDependency(dependencyAtom, classifier, localRepo, localPaths.localDirUrlPath, localPaths.localDirPath);
+            return resolveDependency(dependencyAtom, classifier, localRepo, localPaths.localDirUrlPath, localPaths.localDirPath,
+                                     getPomCache(localRepo));
         } else if (pomSufficient && localPomDepFile.exists()) {
-            return resolveDependency(pomDependencyAtom, classifier, localRepo, localPomPaths.localDirUrlPath, localPomPaths.localDirPath);
+            return resolveDependency(pomDependencyAtom, classifier, localRepo, localPomPaths.localDirUrlPath, localPomPaths.localDirPath,
+                                     getPomCache(localRepo));
         }
         // not in the local repository, check each other repository.
         Dep resolved = resolveDependencyFromRemoteRepos(dependencyAtom, classifier, repositoryRegistry, localPaths, localDepFile);
@@ -485,15 +525,18 @@ public final class Deps {
         List<RepositoryAtom> nonLocalRepos = repositoryRegistry.remoteRepositories;
         for (RepositoryAtom remoteRepo : nonLocalRepos) {
             String remotePathDir = getDependencyDirectoryPathForRepo(dependencyAtom, remoteRepo);
-            if (downloadDependencyFromRemoteRepo(remoteRepo, remotePathDir, dependencyAtom, localDepFile)) {
-                return resolveDependency(dependencyAtom, classifier, remoteRepo, remotePathDir, localPaths.localDirPath);
+            if (downloadDependencyFromRemoteRepo(remoteRepo, remotePathDir, dependencyAtom, localDepFile,
+                                                 MissingArtifactCache.get(repositoryRegistry.localRepository))) {
+                return resolveDependency(dependencyAtom, classifier, remoteRepo, remotePathDir, localPaths.localDirPath,
+                                         getPomCache(repositoryRegistry.localRepository));
             }
         }
         return null;
     }
 
     private static boolean downloadDependencyFromRemoteRepo(RepositoryAtom remoteRepo, String remotePathDir,
-                                                            DependencyAtom dependencyAtom, File localDepFile) {
+                                                            DependencyAtom dependencyAtom, File localDepFile,
+                                                            MissingArtifactCache missingArtifactCache) {
         String unauthRemotePath = FileUtil.pathFromParts(remotePathDir, dependencyAtom.getArtifactName());
         Auth auth = remoteRepo.getAuth();
         String remotePath;
@@ -505,9 +548,22 @@ public final class Deps {
             remotePath = unauthRemotePath;
         }
         URL remoteUrl = getUrl(remotePath);
-        if (!FileUtil.download(remoteUrl, headers, localDepFile, dependencyAtom.toString(), remoteRepo.toString(), true)) {
+        if (remoteUrl == null) {
             return false;
         }
+        String remoteUrlPath = remoteUrl.toString();
+        if (missingArtifactCache.isMissing(remoteUrlPath)) {
+            Output.print("^dbug^ Skipping %s, recently not found in %s.", dependencyAtom.toString(), remoteRepo.toString());
+            return false;
+        }
+        AtomicBoolean notFound = new AtomicBoolean(false);
+        if (!FileUtil.download(remoteUrl, headers, localDepFile, dependencyAtom.toString(), remoteRepo.toString(), true, notFound)) {
+            if (notFound.get()) {
+                missingArtifactCache.putMissing(remoteUrlPath);
+            }
+            return false;
+        }
+        missingArtifactCache.putFound(remoteUrlPath);
         // TODO - verify checksum
         return true;
     }
@@ -520,13 +576,14 @@ public final class Deps {
      * @param repositoryAtom from which {@code dependencyAtom} was resolved.
      * @param repoDirPath the directory location of {@code dependencyAtom} within the {@code repositoryAtom}.
      * @param saveToRepoDirPath to save the found dependency property file (should be within the local repository).
+     * @param pomCache from which to retrieve {@code dependencyAtom}'s pom if {@code repositoryAtom} is a maven repository
      * @return the property file associated with {@code dependencyAtom} (could be empty if {@code dependencyAtom}
      *         has no dependencies).
      */
     private static Dep resolveDependency(DependencyAtom dependencyAtom, String classifier, RepositoryAtom repositoryAtom,
-                                         String repoDirPath, String saveToRepoDirPath) {
+                                         String repoDirPath, String saveToRepoDirPath, MavenPomCache pomCache) {
         AtomicReference<String> dependenciesFileName = new AtomicReference<String>("dependencies.properties");
-        PropFile dependenciesFile = getDependenciesFile(dependencyAtom, repositoryAtom, repoDirPath, dependenciesFileName);
+        PropFile dependenciesFile = getDependenciesFile(dependencyAtom, repositoryAtom, repoDirPath, dependenciesFileName, pomCache);
         if (dependenciesFile == null) {
             Output.print("^dbug^ No dependencies file found for %s in repo %s.", dependencyAtom.toString(), repositoryAtom.toString());
             dependenciesFile = new PropFile(Context.named("dependencies"), PropFile.Loc.Local);
@@ -678,7 +735,7 @@ public final class Deps {
         if (!dependenciesFile.exists()) {
             return (nullOnFNF ? null : resolvedDeps);
         }
-        return PropFiles.load(dependenciesFile.getPath(), false, nullOnFNF);
+        return PropFiles.load(dependenciesFile.getPath(), false, nullOnFNF, PropFileReader.Uncommented);
     }
 
     /**
@@ -834,7 +891,8 @@ public final class Deps {
     }
 
     private static PropFile getDependenciesFile(DependencyAtom dependencyAtom, RepositoryAtom repositoryAtom,
-                                                String repoDepDir, AtomicReference<String> dependenciesFileName) {
+                                                String repoDepDir, AtomicReference<String> dependenciesFileName,
+                                                MavenPomCache pomCache) {
         if (repositoryAtom.getResolvedType() == RepositoryAtom.Type.ply) {
             Scope artifactsScope = getArtifactsLabelAsScope(dependencyAtom, repositoryAtom, repoDepDir);
             dependenciesFileName.set(String.format("dependencies%s.properties", artifactsScope.getFileSuffix()));
@@ -844,7 +902,7 @@ public final class Deps {
             // @see 'classifier' under 'dependencies' in 'Pom Relationships' - http://maven.apache.org/pom.html
             DependencyAtom pom = dependencyAtom.withoutClassifier().with("pom");
             String pomName = pom.getArtifactName();
-            return getDependenciesFromMavenRepo(FileUtil.pathFromParts(repoDepDir, pomName), repositoryAtom);
+            return getDependenciesFromMavenRepo(FileUtil.pathFromParts(repoDepDir, pomName), repositoryAtom, pomCache);
         }
     }
 
@@ -880,7 +938,7 @@ public final class Deps {
         if ((localPath == null) || !new File(localPath).exists()) {
             return null;
         }
-        PropFile loaded = PropFiles.load(localPath, false, false);
+        PropFile loaded = PropFiles.load(localPath, false, false, PropFileReader.Uncommented);
         if (loaded.isEmpty()) {
             return null;
         } else {
@@ -888,12 +946,33 @@ public final class Deps {
         }
     }
 
-    private static PropFile getDependenciesFromMavenRepo(String pomUrlPath, RepositoryAtom repositoryAtom) {
-        MavenPomParser mavenPomParser = new MavenPomParser();
+    private static PropFile getDependenciesFromMavenRepo(String pomUrlPath, RepositoryAtom repositoryAtom,
+                                                         MavenPomCache pomCache) {
+        MavenPomParser mavenPomParser = new MavenPomParser(pomCache);
         MavenPom mavenPom = mavenPomParser.parsePom(pomUrlPath, repositoryAtom);
         return (mavenPom == null ? new PropFile(Context.named("dependencies"), PropFile.Loc.Local) : mavenPom.dependencies);
     }
 
+    /**
+     * Discards the dependency resolution state which depends upon properties or local repositories (the missing
+     * artifact caches, poms read from local repositories and the default transport); for instance, so that a
+     * long-lived ply process can service another invocation.
+     */
+    public static void invalidateCaches() {
+        MissingArtifactCache.invalidate();
+        MavenPomCache.invalidateLocal();
+        Transports.invalidate();
+    }
+
+    /**
+     * @param localRepo the local repository
+     * @return the cache of poms persisted within {@code localRepo}, so that parent and imported poms shared by many
+     *         dependencies are fetched once
+     */
+    private static MavenPomCache getPomCache(RepositoryAtom localRepo) {
+        return MavenPomCache.get(new File(Repos.getDirectoryPathForRepo(localRepo), ".mvn-poms"));
+    }
+
     private static void storeDependenciesFile(PropFile transitiveDependencies, String localRepoDepDirPath,
                                               String dependenciesFileName) {
         PropFiles.store(transitiveDependencies, FileUtil.pathFromParts(localRepoDepDirPath, dependenciesFileName).replaceAll("\\\\", "/"), true);
@@ -66,7 +66,7 @@ final class GitHubAuth implements Auth {
         return FileUtil.pathFromParts(remotePathDir, fileName);
     }
 
-    @Override public Map<String, String> getHeaders() {
+    @Override public synchronized Map<String, String> getHeaders() {
         if (headers.isEmpty()) {
             String authToken = getAuthToken(configDir, scope);
             if ((authToken == null) || authToken.isEmpty()) {
@@ -0,0 +1,223 @@
+package net.ocheyedan.ply.dep;
+
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Props;
+
+import java.io.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:04 PM
+ *
+ * A persistent cache of artifacts which were not found within remote ({@literal http}) repositories so that each
+ * repository is not probed again for the same missing artifact (or its pom) by every resolution.  The cache of a
+ * local repository is a file named {@literal .missing-artifacts} within the local repository; each line of which is
+ * the time (in milliseconds) the artifact was found missing followed by a space and the artifact's remote url.
+ *
+ * Entries expire after the number of minutes configured by property {@literal missing.ttl} within the
+ * {@literal depmngr} context (defaulting to a day; 0 disables the cache).  Setting property {@literal update} within
+ * the {@literal depmngr} context to true (i.e., {@literal -Pdepmngr.update=true}) bypasses the cache, probing every
+ * repository again, akin to {@literal maven}'s {@literal -U}.  Both properties are read once per cache; see
+ * {@link #invalidate()}.
+ */
+final class MissingArtifactCache {
+
+    private static final long DEFAULT_TTL_MINUTES = TimeUnit.DAYS.toMinutes(1);
+
+    private static final ConcurrentMap<String, MissingArtifactCache> caches = new ConcurrentHashMap<String, MissingArtifactCache>();
+
+    /**
+     * @param localRepository of which to get the cache
+     * @return the (shared) cache stored within {@code localRepository}
+     */
+    static MissingArtifactCache get(RepositoryAtom localRepository) {
+        String directory = Repos.getDirectoryPathForRepo(localRepository);
+        MissingArtifactCache cache = caches.get(directory);
+        if (cache == null) {
+            boolean update = "true".equalsIgnoreCase(Props.get("update", Context.named("depmngr")).value());
+            MissingArtifactCache created = new MissingArtifactCache(new File(directory, ".missing-artifacts"),
+                    TimeUnit.MINUTES.toMillis(getTtlMinutes()), update);
+            cache = caches.putIfAbsent(directory, created);
+            cache = (cache == null ? created : cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Flushes and discards the shared caches so that they are created anew (re-reading the {@literal missing.ttl} and
+     * {@literal update} properties and the cache files) upon next use; for instance, so that a long-lived ply process
+     * can service another invocation.
+     */
+    static void invalidate() {
+        for (MissingArtifactCache cache : caches.values()) {
+            cache.flush();
+        }
+        caches.clear();
+    }
+
+    private final File file;
+
+    private final long ttl;
+
+    private final boolean bypass;
+
+    /**
+     * A mapping from remote url to the time it was found missing.
+     */
+    private final ConcurrentMap<String, Long> missing;
+
+    private final AtomicBoolean dirty;
+
+    private volatile boolean loaded;
+
+    MissingArtifactCache(File file, long ttl, boolean bypass) {
+        this.file = file;
+        this.ttl = ttl;
+        this.bypass = bypass;
+        this.missing = new ConcurrentHashMap<String, Long>();
+        this.dirty = new AtomicBoolean(false);
+    }
+
+    /**
+     * @param remoteUrl of the artifact
+     * @return true if {@code remoteUrl} was recently found missing and so need not be requested
+     */
+    boolean isMissing(String remoteUrl) {
+        if (bypass || (ttl <= 0) || !isCacheable(remoteUrl)) {
+            return false;
+        }
+        load();
+        Long since = missing.get(remoteUrl);
+        return ((since != null) && ((System.currentTimeMillis() - since) < ttl));
+    }
+
+    /**
+     * Records that {@code remoteUrl} was not found.
+     * @param remoteUrl of the artifact
+     */
+    void putMissing(String remoteUrl) {
+        if ((ttl <= 0) || !isCacheable(remoteUrl)) {
+            return;
+        }
+        load();
+        missing.put(remoteUrl, System.currentTimeMillis());
+        dirty.set(true);
+    }
+
+    /**
+     * Records that {@code remoteUrl} was found.
+     * @param remoteUrl of the artifact
+     */
+    void putFound(String remoteUrl) {
+        if ((ttl <= 0) || !isCacheable(remoteUrl)) {
+            return;
+        }
+        load();
+        if (missing.remove(remoteUrl) != null) {
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Writes the cache, less any expired entries, if it has changed.
+     */
+    void flush() {
+        if (!dirty.compareAndSet(true, false)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        File temporary = null;
+        try {
+            file.getParentFile().mkdirs();
+            temporary = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temporary), "UTF-8"));
+            try {
+                for (Map.Entry<String, Long> entry : missing.entrySet()) {
+                    if ((now - entry.getValue()) < ttl) {
+                        writer.write(String.valueOf(entry.getValue()));
+                        writer.write(' ');
+                        writer.write(entry.getKey());
+                        writer.write('\n');
+                    }
+                }
+            } finally {
+                writer.close();
+            }
+            if (!temporary.renameTo(file)) {
+                // the destination may need removing first on some platforms
+                file.delete();
+                if (!temporary.renameTo(file)) {
+                    throw new IOException("could not rename " + temporary.getPath());
+                }
+            }
+        } catch (IOException ioe) {
+            Output.print("^dbug^ Could not write the missing artifacts cache ^b^%s^r^ [ %s ].", file.getPath(), ioe.getMessage());
+            if ((temporary != null) && temporary.exists()) {
+                temporary.delete();
+            }
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            if (file.exists()) {
+                try {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+                    try {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            int index = line.indexOf(' ');
+                            if (index > 0) {
+                                missing.put(line.substring(index + 1), Long.parseLong(line.substring(0, index)));
+                            }
+                        }
+                    } finally {
+                        reader.close();
+                    }
+                } catch (IOException ioe) {
+                    Output.print("^dbug^ Ignoring the missing artifacts cache ^b^%s^r^ [ %s ].", file.getPath(), ioe.getMessage());
+                } catch (NumberFormatException nfe) {
+                    Output.print("^dbug^ Ignoring the missing artifacts cache ^b^%s^r^ [ %s ].", file.getPath(), nfe.getMessage());
+                    missing.clear();
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    /**
+     * Only remote repositories are cached, local (i.e., {@literal file}) repositories are cheap to consult and may
+     * be changed at any time (i.e., by installing into them).
+     */
+    private static boolean isCacheable(String remoteUrl) {
+        return (remoteUrl.startsWith("http:") || remoteUrl.startsWith("https:"));
+    }
+
+    private static long getTtlMinutes() {
+        String ttl = Props.get("missing.ttl", Context.named("depmngr")).value().trim();
+        if (ttl.isEmpty()) {
+            return DEFAULT_TTL_MINUTES;
+        }
+        try {
+            return Long.parseLong(ttl);
+        } catch (NumberFormatException nfe) {
+            Output.print("^warn^ Invalid ^b^missing.ttl^r^ value ^b^%s^r^ within ^b^depmngr^r^, using %d.", ttl,
+                    DEFAULT_TTL_MINUTES);
+            return DEFAULT_TTL_MINUTES;
+        }
+    }
+
+}
@@ -0,0 +1,268 @@
+package net.ocheyedan.ply.input;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:57 PM
+ *
+ * A {@link Transport} over {@link HttpURLConnection}.  Connections are kept-alive and pooled (per host) by the
+ * {@literal JVM}; in order for a connection to be returned to the pool its response must be read entirely and closed,
+ * which includes the responses of errors (which are discarded here).  Poms, metadata and property files are requested
+ * compressed (via {@literal gzip}) as they compress well, artifacts are already compressed and so are not.
+ *
+ * Requests failing with an {@link IOException} (other than not being found or being rejected by the server) or with a
+ * server error (or being throttled) are retried up to {@link #retries} times, waiting {@link #backoff} milliseconds
+ * (doubling per retry) between attempts.  The same applies to failures while reading a response's body (i.e., a read
+ * timeout mid-download); the whole resource is requested again and the portion already returned to the caller is
+ * skipped, the retries are shared by the request and the reading of its body.  Urls which are not {@literal http}
+ * (i.e., {@literal file}) are simply opened.
+ */
+public final class HttpTransport implements Transport {
+
+    /**
+     * A request rejected by the server (a {@literal 4xx} response) which will not succeed if retried.
+     */
+    @SuppressWarnings("serial")
+    private static final class ClientErrorException extends IOException {
+        private ClientErrorException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * The body of a successful response which, upon failing to be read, is requested again (while retries remain)
+     * resuming from the position already read.
+     */
+    private final class Body extends InputStream {
+
+        private final URL url;
+
+        private final Map<String, String> headers;
+
+        private InputStream stream;
+
+        private long position;
+
+        private int attempt;
+
+        private Body(URL url, Map<String, String> headers) throws IOException {
+            this.url = url;
+            this.headers = headers;
+            this.stream = connect();
+        }
+
+        @Override public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return (read == -1 ? -1 : (single[0] & 0xff));
+        }
+
+        @Override public int read(byte[] buffer, int offset, int length) throws IOException {
+            while (true) {
+                try {
+                    int read = stream.read(buffer, offset, length);
+                    if (read > 0) {
+                        position += read;
+                    }
+                    return read;
+                } catch (IOException ioe) {
+                    if (attempt >= retries) {
+                        throw ioe;
+                    }
+                    abandon(stream);
+                    pause(attempt++, url);
+                    stream = connect();
+                }
+            }
+        }
+
+        @Override public int available() throws IOException {
+            return stream.available();
+        }
+
+        @Override public void close() throws IOException {
+            stream.close();
+        }
+
+        /**
+         * @return a stream of {@link #url} having skipped the {@link #position} bytes already read
+         * @throws IOException if the request fails after exhausting the retries
+         */
+        private InputStream connect() throws IOException {
+            while (true) {
+                try {
+                    InputStream connected = request(url, headers);
+                    try {
+                        skipFully(connected, position);
+                    } catch (IOException ioe) {
+                        abandon(connected);
+                        throw ioe;
+                    }
+                    return connected;
+                } catch (FileNotFoundException fnfe) {
+                    throw fnfe;
+                } catch (ClientErrorException cee) {
+                    throw cee;
+                } catch (IOException ioe) {
+                    if (attempt >= retries) {
+                        throw ioe;
+                    }
+                }
+                pause(attempt++, url);
+            }
+        }
+    }
+
+    static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+
+    static final int DEFAULT_READ_TIMEOUT = 30000;
+
+    static final int DEFAULT_RETRIES = 2;
+
+    static final int DEFAULT_BACKOFF = 250;
+
+    private static final String[] COMPRESSIBLE = { ".pom", ".xml", ".properties" };
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private final int retries;
+
+    private final int backoff;
+
+    /**
+     * @param connectTimeout in milliseconds to wait for a connection
+     * @param readTimeout in milliseconds to wait for data
+     * @param retries the number of times to retry a failed request
+     * @param backoff in milliseconds to wait before the first retry
+     */
+    public HttpTransport(int connectTimeout, int readTimeout, int retries, int backoff) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.retries = Math.max(0, retries);
+        this.backoff = Math.max(0, backoff);
+    }
+
+    @Override public InputStream open(URL url, Map<String, String> headers) throws IOException {
+        String protocol = url.getProtocol();
+        if (!"http".equals(protocol) && !"https".equals(protocol)) {
+            URLConnection urlConnection = url.openConnection();
+            addHeaders(urlConnection, headers);
+            return urlConnection.getInputStream();
+        }
+        return new Body(url, headers);
+    }
+
+    /**
+     * Waits {@link #backoff} milliseconds, doubled per prior {@code attempt}, before retrying {@code url}.
+     */
+    private void pause(int attempt, URL url) throws InterruptedIOException {
+        try {
+            Thread.sleep((long) backoff << attempt);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(url.toString());
+        }
+    }
+
+    private InputStream request(URL url, Map<String, String> headers) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        addHeaders(connection, headers);
+        if (isCompressible(url)) {
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+        }
+        int code = connection.getResponseCode();
+        if ((code >= 200) && (code < 300)) {
+            InputStream stream = connection.getInputStream();
+            return ("gzip".equalsIgnoreCase(connection.getContentEncoding()) ? new GZIPInputStream(stream) : stream);
+        }
+        discard(connection.getErrorStream());
+        if ((code == HttpURLConnection.HTTP_NOT_FOUND) || (code == HttpURLConnection.HTTP_GONE)) {
+            throw new FileNotFoundException(url.toString());
+        }
+        String message = String.format("Server returned HTTP response code: %d for URL: %s", code, url);
+        if ((code >= 400) && (code < 500) && (code != HttpURLConnection.HTTP_CLIENT_TIMEOUT) && (code != 429)) {
+            throw new ClientErrorException(message);
+        }
+        throw new IOException(message);
+    }
+
+    private static void addHeaders(URLConnection urlConnection, Map<String, String> headers) {
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                urlConnection.setRequestProperty(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private static boolean isCompressible(URL url) {
+        String path = url.getPath();
+        for (String extension : COMPRESSIBLE) {
+            if (path.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads and discards {@code count} bytes of {@code stream}.
+     * @throws IOException if {@code stream} ends before {@code count} bytes (i.e., the resource has changed)
+     */
+    private static void skipFully(InputStream stream, long count) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (count > 0) {
+            int read = stream.read(buffer, 0, (int) Math.min(buffer.length, count));
+            if (read == -1) {
+                throw new IOException("Resource ended before the resumed position.");
+            }
+            count -= read;
+        }
+    }
+
+    /**
+     * Closes {@code stream} without reading the remainder of its (failed) response.
+     */
+    private static void abandon(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ioe) {
+            // the connection will not be reused
+        }
+    }
+
+    /**
+     * Reads and closes {@code stream} so that its connection may be reused.
+     */
+    private static void discard(InputStream stream) {
+        if (stream == null) {
+            return;
+        }
+        try {
+            byte[] buffer = new byte[4096];
+            while (stream.read(buffer) != -1) { }
+        } catch (IOException ioe) {
+            // the connection will not be reused
+        } finally {
+            try {
+                stream.close();
+            } catch (IOException ioe) {
+                // ignore
+            }
+        }
+    }
+
+}
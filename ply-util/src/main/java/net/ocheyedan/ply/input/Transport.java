@@ -0,0 +1,28 @@
+package net.ocheyedan.ply.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:57 PM
+ *
+ * The means by which remote resources (i.e., dependency artifacts, poms and repository metadata) are fetched.  All
+ * repository access goes through the {@link Transport} of {@link Transports#get()} so that it may be replaced (i.e.,
+ * by tests).  Implementations must be safe for use by concurrent threads.
+ */
+public interface Transport {
+
+    /**
+     * @param url to open
+     * @param headers to send when opening {@code url} (may be null)
+     * @return the (decoded) contents of {@code url}; callers must close the stream
+     * @throws java.io.FileNotFoundException if {@code url} does not exist
+     * @throws IOException if {@code url} could not be opened
+     */
+    InputStream open(URL url, Map<String, String> headers) throws IOException;
+
+}
@@ -0,0 +1,83 @@
+package net.ocheyedan.ply.input;
+
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Props;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:57 PM
+ *
+ * Provides the {@link Transport} used for repository access.  Unless set, an {@link HttpTransport} configured by the
+ * {@literal depmngr} context's {@literal http.connectTimeout}, {@literal http.readTimeout} (both in milliseconds) and
+ * {@literal http.retries} properties is used.
+ */
+public final class Transports {
+
+    private static final AtomicReference<Transport> TRANSPORT = new AtomicReference<Transport>();
+
+    /**
+     * The default {@link Transport} created from the {@literal depmngr} properties, if it is the one in use.
+     */
+    private static final AtomicReference<Transport> DEFAULT = new AtomicReference<Transport>();
+
+    /**
+     * @return the {@link Transport} to use for repository access
+     */
+    public static Transport get() {
+        Transport transport = TRANSPORT.get();
+        if (transport == null) {
+            Transport created = createDefault();
+            if (TRANSPORT.compareAndSet(null, created)) {
+                DEFAULT.set(created);
+            }
+            transport = TRANSPORT.get();
+        }
+        return transport;
+    }
+
+    /**
+     * @param transport to use for repository access or null to use the default
+     */
+    public static void set(Transport transport) {
+        TRANSPORT.set(transport);
+    }
+
+    /**
+     * Discards the default {@link Transport} so that it is created anew (re-reading its timeouts and retries from the
+     * {@literal depmngr} properties) upon next use; for instance, so that a long-lived ply process can service another
+     * invocation.  A {@link Transport} given to {@link #set(Transport)} is retained.
+     */
+    public static void invalidate() {
+        Transport created = DEFAULT.getAndSet(null);
+        if (created != null) {
+            TRANSPORT.compareAndSet(created, null);
+        }
+    }
+
+    private static Transport createDefault() {
+        return new HttpTransport(getInt("http.connectTimeout", HttpTransport.DEFAULT_CONNECT_TIMEOUT),
+                                 getInt("http.readTimeout", HttpTransport.DEFAULT_READ_TIMEOUT),
+                                 getInt("http.retries", HttpTransport.DEFAULT_RETRIES),
+                                 HttpTransport.DEFAULT_BACKOFF);
+    }
+
+    private static int getInt(String name, int defaultValue) {
+        String value = Props.get(name, Context.named("depmngr")).value().trim();
+        if (value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException nfe) {
+            Output.print("^warn^ Invalid ^b^%s^r^ value ^b^%s^r^ within ^b^depmngr^r^, using %d.", name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private Transports() { }
+
+}
@@ -2,10 +2,8 @@ package net.ocheyedan.ply.input;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -36,14 +34,7 @@ public class UrlResource implements Resource {
     }
 
     @Override public InputStream open() throws IOException {
-        URLConnection urlConnection = url.openConnection();
-        if ((headers != null) && (urlConnection instanceof HttpURLConnection)) {
-            HttpURLConnection httpURLConnection = (HttpURLConnection) urlConnection;
-            for (Map.Entry<String, String> entry : headers.entrySet()) {
-                httpURLConnection.setRequestProperty(entry.getKey(), entry.getValue());
-            }
-        }
-        ref.set(urlConnection.getInputStream());
+        ref.set(Transports.get().open(url, headers));
         return ref.get();
     }
 
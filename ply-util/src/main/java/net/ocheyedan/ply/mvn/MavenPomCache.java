@@ -0,0 +1,193 @@
+package net.ocheyedan.ply.mvn;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.dep.RepositoryAtom;
+import net.ocheyedan.ply.input.Resource;
+import net.ocheyedan.ply.input.Resources;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:09 PM
+ *
+ * A cache of {@literal pom} files so that poms shared by many others (i.e., parent poms and those imported for their
+ * {@literal dependencyManagement}) are fetched and parsed once rather than once per pom which references them; a graph
+ * of many artifacts sharing a parent otherwise fetches and parses the parent (and its parents) for every artifact.
+ *
+ * Parsed poms (see {@link MavenPomElement}) are cached in memory (keyed by url) for the life of the {@literal JVM} and,
+ * if the cache has a directory, poms
+ * fetched from remote ({@literal http}) repositories are persisted within it by coordinate (i.e., in the {@literal maven}
+ * layout of {@literal groupId/artifactId/version/artifactId-version.pom}) so that subsequent resolutions needn't fetch
+ * them again.  As released poms never change they are cached indefinitely; {@literal SNAPSHOT} poms are never cached.
+ * Poms of local ({@literal file}) repositories may change (i.e., by installing into them) and so are only cached until
+ * {@link #invalidateLocal()}.
+ */
+public final class MavenPomCache {
+
+    /**
+     * The maximum number of poms cached in memory.
+     */
+    private static final int MAX_CACHED = 4096;
+
+    private static final ConcurrentMap<String, MavenPomElement> poms = new ConcurrentHashMap<String, MavenPomElement>();
+
+    private static final ConcurrentMap<String, MavenPomCache> caches = new ConcurrentHashMap<String, MavenPomCache>();
+
+    /**
+     * A cache which only caches in memory.
+     */
+    public static final MavenPomCache Memory = new MavenPomCache(null);
+
+    /**
+     * @param directory in which to persist poms
+     * @return the cache persisting poms in {@code directory}
+     */
+    public static MavenPomCache get(File directory) {
+        String path = FileUtil.getCanonicalPath(directory);
+        MavenPomCache cache = caches.get(path);
+        if (cache == null) {
+            MavenPomCache created = new MavenPomCache(directory);
+            cache = caches.putIfAbsent(path, created);
+            cache = (cache == null ? created : cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Discards the poms cached in memory which were read from local ({@literal file}) repositories; for instance, so
+     * that a long-lived ply process can service another invocation.
+     */
+    public static void invalidateLocal() {
+        for (String pomUrlPath : poms.keySet()) {
+            if (!isRemote(pomUrlPath)) {
+                poms.remove(pomUrlPath);
+            }
+        }
+    }
+
+    private final File directory;
+
+    private MavenPomCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param pomUrlPath of the pom
+     * @param repositoryAtom from which the pom is being fetched
+     * @param headers to use if fetching the pom
+     * @return the parsed pom at {@code pomUrlPath}
+     * @throws IOException if the pom could not be fetched
+     */
+    MavenPomElement parse(String pomUrlPath, RepositoryAtom repositoryAtom, Map<String, String> headers)
+            throws ParserConfigurationException, IOException, SAXException {
+        if (pomUrlPath.contains("SNAPSHOT")) {
+            return MavenPomElement.parse(new ByteArrayInputStream(fetch(pomUrlPath, headers)));
+        }
+        MavenPomElement pom = poms.get(pomUrlPath);
+        if (pom == null) {
+            pom = MavenPomElement.parse(open(pomUrlPath, repositoryAtom, headers));
+            if (poms.size() < MAX_CACHED) {
+                MavenPomElement existing = poms.putIfAbsent(pomUrlPath, pom);
+                pom = (existing == null ? pom : existing);
+            }
+        }
+        return pom;
+    }
+
+    /**
+     * @return the contents of the pom at {@code pomUrlPath}, persisting them if fetched remotely
+     */
+    private InputStream open(String pomUrlPath, RepositoryAtom repositoryAtom, Map<String, String> headers)
+            throws IOException {
+        File persisted = getPersistedFile(pomUrlPath, repositoryAtom);
+        if ((persisted != null) && persisted.exists()) {
+            return new FileInputStream(persisted);
+        }
+        byte[] pom = fetch(pomUrlPath, headers);
+        if (persisted != null) {
+            persist(persisted, pom);
+        }
+        return new ByteArrayInputStream(pom);
+    }
+
+    /**
+     * @return the file within {@link #directory} in which to persist {@code pomUrlPath} or null if it is not to be
+     *         persisted (it's not fetched remotely from {@code repositoryAtom})
+     */
+    private File getPersistedFile(String pomUrlPath, RepositoryAtom repositoryAtom) {
+        if ((directory == null) || !isRemote(pomUrlPath)) {
+            return null;
+        }
+        String repositoryUrl = repositoryAtom.getPropertyName();
+        if (!pomUrlPath.startsWith(repositoryUrl)) {
+            return null;
+        }
+        String coordinate = pomUrlPath.substring(repositoryUrl.length()).replace('\\', '/');
+        while (coordinate.startsWith("/")) {
+            coordinate = coordinate.substring(1);
+        }
+        if (coordinate.isEmpty() || coordinate.contains("..")) {
+            return null;
+        }
+        return new File(directory, coordinate.replace('/', File.separatorChar));
+    }
+
+    private static boolean isRemote(String pomUrlPath) {
+        return (pomUrlPath.startsWith("http:") || pomUrlPath.startsWith("https:"));
+    }
+
+    private static byte[] fetch(String pomUrlPath, Map<String, String> headers) throws IOException {
+        Resource resource = Resources.parse(pomUrlPath, headers);
+        try {
+            return read(resource.open());
+        } finally {
+            resource.close();
+        }
+    }
+
+    private static void persist(File persisted, byte[] pom) {
+        File temporary = null;
+        try {
+            persisted.getParentFile().mkdirs();
+            temporary = File.createTempFile(persisted.getName(), ".tmp", persisted.getParentFile());
+            OutputStream out = new FileOutputStream(temporary);
+            try {
+                out.write(pom);
+            } finally {
+                out.close();
+            }
+            if (!temporary.renameTo(persisted) && !persisted.exists()) {
+                throw new IOException("could not rename " + temporary.getPath());
+            }
+        } catch (IOException ioe) {
+            Output.print("^dbug^ Could not cache pom ^b^%s^r^ [ %s ].", persisted.getPath(), ioe.getMessage());
+        } finally {
+            if ((temporary != null) && temporary.exists()) {
+                temporary.delete();
+            }
+        }
+    }
+
+    private static byte[] read(InputStream stream) throws IOException {
+        try {
+            ByteArrayOutputStream read = new ByteArrayOutputStream(8192);
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = stream.read(buffer)) != -1) {
+                read.write(buffer, 0, length);
+            }
+            return read.toByteArray();
+        } finally {
+            stream.close();
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package net.ocheyedan.ply.mvn;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 8:30 PM
+ *
+ * An immutable copy of a node of a parsed pom; its name, text content and child nodes (including text and comment
+ * nodes, as with the {@literal DOM}).  Parsed poms are memoized by the {@link MavenPomCache} and shared by concurrent
+ * resolutions; {@literal DOM} implementations are not safe for concurrent use (even for reading) and so poms are only
+ * shared as copies.
+ */
+final class MavenPomElement {
+
+    /**
+     * @param stream of the pom to parse; closed upon return
+     * @return the copy of the pom's document element
+     */
+    static MavenPomElement parse(InputStream stream) throws ParserConfigurationException, IOException, SAXException {
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
+            return copy(document.getDocumentElement());
+        } finally {
+            stream.close();
+        }
+    }
+
+    private static MavenPomElement copy(Node node) {
+        boolean content = ((node.getNodeType() != Node.COMMENT_NODE)
+                && (node.getNodeType() != Node.PROCESSING_INSTRUCTION_NODE));
+        NodeList childNodes = node.getChildNodes();
+        int length = childNodes.getLength();
+        if (length == 0) {
+            return new MavenPomElement(node.getNodeName(), node.getTextContent(), content,
+                    Collections.<MavenPomElement>emptyList());
+        }
+        List<MavenPomElement> children = new ArrayList<MavenPomElement>(length);
+        for (int i = 0; i < length; i++) {
+            children.add(copy(childNodes.item(i)));
+        }
+        return new MavenPomElement(node.getNodeName(), null, content, Collections.unmodifiableList(children));
+    }
+
+    final String name;
+
+    final List<MavenPomElement> children;
+
+    /**
+     * The text of a node without children, the text of others is assembled from their children upon request.
+     */
+    private final String text;
+
+    /**
+     * False for comments and processing instructions, which do not contribute to the text of their parent.
+     */
+    private final boolean content;
+
+    private MavenPomElement(String name, String text, boolean content, List<MavenPomElement> children) {
+        this.name = name;
+        this.text = text;
+        this.content = content;
+        this.children = children;
+    }
+
+    /**
+     * @return the text content of this node, as {@link Node#getTextContent()}
+     */
+    String getTextContent() {
+        if (text != null) {
+            return text;
+        }
+        StringBuilder buffer = new StringBuilder();
+        appendTextContent(buffer);
+        return buffer.toString();
+    }
+
+    private void appendTextContent(StringBuilder buffer) {
+        if (text != null) {
+            buffer.append(text);
+            return;
+        }
+        for (MavenPomElement child : children) {
+            if (child.content) {
+                child.appendTextContent(buffer);
+            }
+        }
+    }
+
+}
@@ -4,21 +4,14 @@ import net.ocheyedan.ply.FileUtil;
 import net.ocheyedan.ply.Output;
 import net.ocheyedan.ply.dep.DependencyAtom;
 import net.ocheyedan.ply.dep.RepositoryAtom;
-import net.ocheyedan.ply.input.Resource;
-import net.ocheyedan.ply.input.Resources;
 import net.ocheyedan.ply.props.Context;
 import net.ocheyedan.ply.props.PropFile;
 import net.ocheyedan.ply.props.Scope;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
@@ -233,6 +226,18 @@ public class MavenPomParser {
         }
     }
 
+    private final MavenPomCache pomCache;
+
+    public MavenPomParser() {
+        this(MavenPomCache.Memory);
+    }
+
+    /**
+     * @param pomCache from which to retrieve parsed poms and their parents and imports
+     */
+    public MavenPomParser(MavenPomCache pomCache) {
+        this.pomCache = pomCache;
+    }
 
     /**
      * Parses the pom file represented by {@code pomUrlPath} positioned at {@code repositoryAtom}.
@@ -328,100 +333,82 @@ public class MavenPomParser {
     private void parse(String pomUrlPath, PomUri pomUri, RepositoryAtom repositoryAtom, ParseResult parseResult)
             throws ParserConfigurationException, IOException, SAXException {
         Map<String, String> headers = repositoryAtom.getAuthHeaders();
-        Resource pomResource = Resources.parse(pomUrlPath, headers);
-        try {
-            InputStream stream = pomResource.open();
-            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
-            NodeList pomChildren = document.getDocumentElement().getChildNodes();
-            // store the parent pom url so that recursive processing is done after the entire current pom is analyzed
-            // so that any local property filtering (i.e., version) can be done.
-            PomUri parentPomUri = null;
-            // store the parent version in case the version of the project is not explicitly specified, will use
-            // parent's per maven convention.
-            AtomicReference<String> parentVersion = new AtomicReference<String>("");
-            String localVersion = null;
-            // similar to the parent version, need to store the parent's groupId
-            AtomicReference<String> parentGroupId = new AtomicReference<String>("");
-            String localGroupId = null, localArtifactId = null, packaging = null;
-            for (int i = 0; i < pomChildren.getLength(); i++) {
-                Node child = pomChildren.item(i);
-                String nodeName = child.getNodeName();
-                if ("dependencyManagement".equals(nodeName)) {
-                    parseDependencyManagement(child, parseResult, repositoryAtom);
-                } else if ("dependencies".equals(nodeName)) {
-                    parseDependencies(child, parseResult, repositoryAtom, false);
-                } else if ("repositories".equals(nodeName)) {
-                    parseRepositories(child, parseResult);
-                } else if ("properties".equals(nodeName)) {
-                    parseProperties(child, parseResult);
-                } else if ("groupId".equals(nodeName) && !"${parent.groupId}".equals(child.getTextContent().trim())) {
-                    localGroupId = child.getTextContent().trim();
-                } else if ("artifactId".equals(nodeName)) {
-                    localArtifactId = child.getTextContent().trim();
-                } else if ("version".equals(nodeName) && !"${parent.version}".equals(child.getTextContent().trim())) {
-                    localVersion = Version.resolve(child.getTextContent().trim(), getMetadataBaseUrl(pomUrlPath), headers);
-                } else if ("packaging".equals(nodeName)) {
-                    packaging = child.getTextContent().trim();
-                } else if ("parent".equals(nodeName)) { // parent
-                    parentPomUri = parseParentPomUrlPath(child, repositoryAtom, pomUri, parentGroupId, parentVersion);
-                } else if ("build".equals(nodeName)) {
-                    parseBuild(child, parseResult);
-                } else if (!pomUri.parsingAsParent && "modules".equals(nodeName)) {
-                    parseModules(child, parseResult);
-                }
-            }
-            // add (non-standard) ${project.parent.version} for filtering
-            if ((parentVersion.get() != null) && !parseResult.mavenProperties.containsKey("project.parent.version")) {
-                parseResult.mavenProperties.put("project.parent.version", parentVersion.get());
-            }
-            if (!parseResult.mavenProperties.containsKey("project.groupId")) {
-                parseResult.mavenProperties.put("project.groupId", (localGroupId != null ? localGroupId : parentGroupId.get()));
-                parseResult.mavenProperties.put("pom.groupId", (localGroupId != null ? localGroupId : parentGroupId.get()));
-            }
-            if (!parseResult.mavenProperties.containsKey("project.artifactId")) { // don't override artifactId with parent.artifactId
-                parseResult.mavenProperties.put("project.artifactId", localArtifactId);
-                parseResult.mavenProperties.put("pom.artifactId", localArtifactId);
-            }
-            if (!parseResult.mavenProperties.containsKey("project.version")) {
-                String version = (localVersion != null ? localVersion : parentVersion.get());
-                version = filterVersion(version, parseResult);
-                parseResult.mavenProperties.put("project.version", version);
-                parseResult.mavenProperties.put("pom.version", version);
-            }
-            if (!parseResult.mavenProperties.containsKey("project.packaging")) {
-                parseResult.mavenProperties.put("project.packaging", packaging);
-            }
-            if (parentPomUri != null) {
-                // filter project.* so that they are not overridden by the recursion on parent
-                filterLocalProjectProperties(parseResult);
-                parse(parentPomUri, repositoryAtom, parseResult);
-                String version = parseResult.mavenProperties.get("project.version");
-                version = filterVersion(version, parseResult);
-                parseResult.mavenProperties.put("project.version", version);
-            }
-        } finally {
-            pomResource.close();
+        MavenPomElement pom = pomCache.parse(pomUrlPath, repositoryAtom, headers);
+        // store the parent pom url so that recursive processing is done after the entire current pom is analyzed
+        // so that any local property filtering (i.e., version) can be done.
+        PomUri parentPomUri = null;
+        // store the parent version in case the version of the project is not explicitly specified, will use
+        // parent's per maven convention.
+        AtomicReference<String> parentVersion = new AtomicReference<String>("");
+        String localVersion = null;
+        // similar to the parent version, need to store the parent's groupId
+        AtomicReference<String> parentGroupId = new AtomicReference<String>("");
+        String localGroupId = null, localArtifactId = null, packaging = null;
+        for (MavenPomElement child : pom.children) {
+            String nodeName = child.name;
+            if ("dependencyManagement".equals(nodeName)) {
+                parseDependencyManagement(child, parseResult, repositoryAtom);
+            } else if ("dependencies".equals(nodeName)) {
+                parseDependencies(child, parseResult, repositoryAtom, false);
+            } else if ("repositories".equals(nodeName)) {
+                parseRepositories(child, parseResult);
+            } else if ("properties".equals(nodeName)) {
+                parseProperties(child, parseResult);
+            } else if ("groupId".equals(nodeName) && !"${parent.groupId}".equals(child.getTextContent().trim())) {
+                localGroupId = child.getTextContent().trim();
+            } else if ("artifactId".equals(nodeName)) {
+                localArtifactId = child.getTextContent().trim();
+            } else if ("version".equals(nodeName) && !"${parent.version}".equals(child.getTextContent().trim())) {
+                localVersion = Version.resolve(child.getTextContent().trim(), getMetadataBaseUrl(pomUrlPath), headers);
+            } else if ("packaging".equals(nodeName)) {
+                packaging = child.getTextContent().trim();
+            } else if ("parent".equals(nodeName)) { // parent
+                parentPomUri = parseParentPomUrlPath(child, repositoryAtom, pomUri, parentGroupId, parentVersion);
+            } else if ("build".equals(nodeName)) {
+                parseBuild(child, parseResult);
+            } else if (!pomUri.parsingAsParent && "modules".equals(nodeName)) {
+                parseModules(child, parseResult);
+            }
+        }
+        // add (non-standard) ${project.parent.version} for filtering
+        if ((parentVersion.get() != null) && !parseResult.mavenProperties.containsKey("project.parent.version")) {
+            parseResult.mavenProperties.put("project.parent.version", parentVersion.get());
+        }
+        if (!parseResult.mavenProperties.containsKey("project.groupId")) {
+            parseResult.mavenProperties.put("project.groupId", (localGroupId != null ? localGroupId : parentGroupId.get()));
+            parseResult.mavenProperties.put("pom.groupId", (localGroupId != null ? localGroupId : parentGroupId.get()));
+        }
+        if (!parseResult.mavenProperties.containsKey("project.artifactId")) { // don't override artifactId with parent.artifactId
+            parseResult.mavenProperties.put("project.artifactId", localArtifactId);
+            parseResult.mavenProperties.put("pom.artifactId", localArtifactId);
+        }
+        if (!parseResult.mavenProperties.containsKey("project.version")) {
+            String version = (localVersion != null ? localVersion : parentVersion.get());
+            version = filterVersion(version, parseResult);
+            parseResult.mavenProperties.put("project.version", version);
+            parseResult.mavenProperties.put("pom.version", version);
+        }
+        if (!parseResult.mavenProperties.containsKey("project.packaging")) {
+            parseResult.mavenProperties.put("project.packaging", packaging);
+        }
+        if (parentPomUri != null) {
+            // filter project.* so that they are not overridden by the recursion on parent
+            filterLocalProjectProperties(parseResult);
+            parse(parentPomUri, repositoryAtom, parseResult);
+            String version = parseResult.mavenProperties.get("project.version");
+            version = filterVersion(version, parseResult);
+            parseResult.mavenProperties.put("project.version", version);
         }
     }
 
     private void parseMavenImport(ParseResult.Incomplete incomplete, ParseResult importParse,
                                   String pomUrlPath, RepositoryAtom repositoryAtom, ParseResult parseResult)
             throws ParserConfigurationException, IOException, SAXException {
-        Map<String, String> headers = repositoryAtom.getAuthHeaders();
-        Resource pomResource = Resources.parse(pomUrlPath, headers);
-        try {
-            InputStream stream = pomResource.open();
-            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(stream);
-            NodeList pomChildren = document.getDocumentElement().getChildNodes();
-            for (int i = 0; i < pomChildren.getLength(); i++) {
-                Node child = pomChildren.item(i);
-                String nodeName = child.getNodeName();
-                if ("dependencyManagement".equals(nodeName)) {
-                    parseDependencyManagementForImport(incomplete, importParse, child, parseResult, repositoryAtom);
-                }
+        MavenPomElement pom = pomCache.parse(pomUrlPath, repositoryAtom, repositoryAtom.getAuthHeaders());
+        for (MavenPomElement child : pom.children) {
+            if ("dependencyManagement".equals(child.name)) {
+                parseDependencyManagementForImport(incomplete, importParse, child, parseResult, repositoryAtom);
             }
-        } finally {
-            pomResource.close();
         }
     }
 
@@ -443,57 +430,50 @@ public class MavenPomParser {
         return (repoUrl + (repoUrl.endsWith("/") ? "" : "/") + groupId.replaceAll("\\.", "/") + "/" + artifactId);
     }
 
-    private void parseDependencyManagement(Node dependencyManagementNode, ParseResult parseResult, RepositoryAtom repositoryAtom) {
-        NodeList dependencyManagementChildren = dependencyManagementNode.getChildNodes();
-        for (int i = 0; i < dependencyManagementChildren.getLength(); i++) {
-            Node dependenciesNode = dependencyManagementChildren.item(i);
-            if ("dependencies".equals(dependenciesNode.getNodeName())) {
+    private void parseDependencyManagement(MavenPomElement dependencyManagementNode, ParseResult parseResult, RepositoryAtom repositoryAtom) {
+        for (MavenPomElement dependenciesNode : dependencyManagementNode.children) {
+            if ("dependencies".equals(dependenciesNode.name)) {
                 parseDependencies(dependenciesNode, parseResult, repositoryAtom, true);
                 break;
             }
         }
     }
 
-    private void parseDependencyManagementForImport(ParseResult.Incomplete incomplete, ParseResult importParse, Node dependencyManagementNode,
+    private void parseDependencyManagementForImport(ParseResult.Incomplete incomplete, ParseResult importParse, MavenPomElement dependencyManagementNode,
                                                     ParseResult parseResult, RepositoryAtom repositoryAtom) {
-        NodeList dependencyManagementChildren = dependencyManagementNode.getChildNodes();
-        for (int i = 0; i < dependencyManagementChildren.getLength(); i++) {
-            Node dependenciesNode = dependencyManagementChildren.item(i);
-            if ("dependencies".equals(dependenciesNode.getNodeName())) {
+        for (MavenPomElement dependenciesNode : dependencyManagementNode.children) {
+            if ("dependencies".equals(dependenciesNode.name)) {
                 parseDependenciesForImport(incomplete, importParse, dependenciesNode, parseResult, repositoryAtom);
                 break;
             }
         }
     }
 
-    private void parseDependencies(Node dependenciesNode, ParseResult parseResult, RepositoryAtom repositoryAtom, boolean resolutionOnly) {
-        NodeList dependencies = dependenciesNode.getChildNodes();
-        for (int i = 0; i < dependencies.getLength(); i++) {
-            if (!"dependency".equals(dependencies.item(i).getNodeName())) {
+    private void parseDependencies(MavenPomElement dependenciesNode, ParseResult parseResult, RepositoryAtom repositoryAtom, boolean resolutionOnly) {
+        for (MavenPomElement dependency : dependenciesNode.children) {
+            if (!"dependency".equals(dependency.name)) {
                 continue;
             }
-            NodeList dependencyNode = dependencies.item(i).getChildNodes();
             String groupId = "", artifactId = "", version = "", classifier = "", type = "", scope = "", optional = "";
             Boolean systemPath = null;
-            for (int j = 0; j < dependencyNode.getLength(); j++) {
-                Node child = dependencyNode.item(j);
-                if ("groupId".equals(child.getNodeName())) {
+            for (MavenPomElement child : dependency.children) {
+                if ("groupId".equals(child.name)) {
                     groupId = child.getTextContent().trim();
-                } else if ("artifactId".equals(child.getNodeName())) {
+                } else if ("artifactId".equals(child.name)) {
                     artifactId = child.getTextContent().trim();
-                } else if ("version".equals(child.getNodeName())) {
+                } else if ("version".equals(child.name)) {
                     version = child.getTextContent().trim();
-                } else if ("classifier".equals(child.getNodeName())) {
+                } else if ("classifier".equals(child.name)) {
                     classifier = child.getTextContent().trim();
-                } else if ("type".equals(child.getNodeName())) {
+                } else if ("type".equals(child.name)) {
                     type = child.getTextContent().trim();
-                } else if ("scope".equals(child.getNodeName())) {
+                } else if ("scope".equals(child.name)) {
                     scope = child.getTextContent().trim();
-                } else if ("optional".equals(child.getNodeName())) {
+                } else if ("optional".equals(child.name)) {
                     optional = child.getTextContent().trim();
-                } else if ("systemPath".equals(child.getNodeName())) {
+                } else if ("systemPath".equals(child.name)) {
                     systemPath = true;
-                } else if ("exclusions".equals(dependencies.item(i).getNodeName())) {
+                } else if ("exclusions".equals(dependency.name)) {
                     // ply treats exclusions much differently than maven, balk here and force project to specify explicitly
                 }
             }
@@ -504,26 +484,23 @@ public class MavenPomParser {
         }
     }
 
-    private void parseDependenciesForImport(ParseResult.Incomplete incomplete, ParseResult importParse, Node dependenciesNode,
+    private void parseDependenciesForImport(ParseResult.Incomplete incomplete, ParseResult importParse, MavenPomElement dependenciesNode,
                                             ParseResult parseResult, RepositoryAtom repositoryAtom) {
-        NodeList dependencies = dependenciesNode.getChildNodes();
-        for (int i = 0; i < dependencies.getLength(); i++) {
-            if (!"dependency".equals(dependencies.item(i).getNodeName())) {
+        for (MavenPomElement dependency : dependenciesNode.children) {
+            if (!"dependency".equals(dependency.name)) {
                 continue;
             }
-            NodeList dependencyNode = dependencies.item(i).getChildNodes();
             String groupId = "", artifactId = "", version = "", classifier = "", type = "";
-            for (int j = 0; j < dependencyNode.getLength(); j++) {
-                Node child = dependencyNode.item(j);
-                if ("groupId".equals(child.getNodeName())) {
+            for (MavenPomElement child : dependency.children) {
+                if ("groupId".equals(child.name)) {
                     groupId = child.getTextContent().trim();
-                } else if ("artifactId".equals(child.getNodeName())) {
+                } else if ("artifactId".equals(child.name)) {
                     artifactId = child.getTextContent().trim();
-                } else if ("version".equals(child.getNodeName())) {
+                } else if ("version".equals(child.name)) {
                     version = child.getTextContent().trim();
-                } else if ("classifier".equals(child.getNodeName())) {
+                } else if ("classifier".equals(child.name)) {
                     classifier = child.getTextContent().trim();
-                } else if ("type".equals(child.getNodeName())) {
+                } else if ("type".equals(child.name)) {
                     type = child.getTextContent().trim();
                 }
             }
@@ -542,19 +519,16 @@ public class MavenPomParser {
      * @param repositoriesNode the {@literal <repositories>} tag
      * @param parseResult into which to place parsed repository urls.
      */
-    private void parseRepositories(Node repositoriesNode, ParseResult parseResult) {
-        NodeList repositories = repositoriesNode.getChildNodes();
-        for (int i = 0; i < repositories.getLength(); i++) {
-            if (!"repository".equals(repositories.item(i).getNodeName())) {
+    private void parseRepositories(MavenPomElement repositoriesNode, ParseResult parseResult) {
+        for (MavenPomElement repository : repositoriesNode.children) {
+            if (!"repository".equals(repository.name)) {
                 continue;
             }
-            NodeList repositoryNode = repositories.item(i).getChildNodes();
             String repoUrl = "", layout = "";
-            for (int j = 0; j < repositoryNode.getLength(); j++) {
-                Node child = repositoryNode.item(j);
-                if ("url".equals(child.getNodeName())) {
+            for (MavenPomElement child : repository.children) {
+                if ("url".equals(child.name)) {
                     repoUrl = child.getTextContent().trim();
-                } else if ("layout".equals(child.getNodeName())) {
+                } else if ("layout".equals(child.name)) {
                     layout = child.getTextContent().trim();
                 }
             }
@@ -566,11 +540,9 @@ public class MavenPomParser {
         }
     }
 
-    private void parseBuild(Node buildNode, ParseResult parseResult) {
-        NodeList build = buildNode.getChildNodes();
-        for (int i = 0; i < build.getLength(); i++) {
-            Node child = build.item(i);
-            String nodeName = child.getNodeName();
+    private void parseBuild(MavenPomElement buildNode, ParseResult parseResult) {
+        for (MavenPomElement child : buildNode.children) {
+            String nodeName = child.name;
             // TODO - all the following need to be filtered (but should be after all other parsing).
             if ("directory".equals(nodeName)) {
                 parseResult.mavenProperties.put("project.build.directory", child.getTextContent().trim());
@@ -589,14 +561,12 @@ public class MavenPomParser {
         }
     }
 
-    private void parseModules(Node modulesNode, ParseResult parseResult) {
-        NodeList modules = modulesNode.getChildNodes();
-        for (int i = 0; i < modules.getLength(); i++) {
-            if (!"module".equals(modules.item(i).getNodeName())) {
+    private void parseModules(MavenPomElement modulesNode, ParseResult parseResult) {
+        for (MavenPomElement module : modulesNode.children) {
+            if (!"module".equals(module.name)) {
                 continue;
             }
-            Node moduleNode = modules.item(i);
-            parseResult.modules.add(moduleNode.getTextContent());
+            parseResult.modules.add(module.getTextContent());
         }
     }
 
@@ -655,32 +625,28 @@ public class MavenPomParser {
         return version;
     }
 
-    private void parseProperties(Node propertiesNode, ParseResult parseResult) {
-        NodeList properties = propertiesNode.getChildNodes();
-        for (int i = 0; i < properties.getLength(); i++) {
-            Node child = properties.item(i);
+    private void parseProperties(MavenPomElement propertiesNode, ParseResult parseResult) {
+        for (MavenPomElement child : propertiesNode.children) {
             // iterating child->parent, per maven, child overrides parent, only place in if not already exists.
-            if (!parseResult.mavenProperties.containsKey(child.getNodeName())) {
-                parseResult.mavenProperties.put(child.getNodeName(), child.getTextContent().trim());
+            if (!parseResult.mavenProperties.containsKey(child.name)) {
+                parseResult.mavenProperties.put(child.name, child.getTextContent().trim());
             }
         }
     }
 
-    private PomUri parseParentPomUrlPath(Node parent, RepositoryAtom repositoryAtom, PomUri self,
+    private PomUri parseParentPomUrlPath(MavenPomElement parent, RepositoryAtom repositoryAtom, PomUri self,
                                          AtomicReference<String> parentGroupId, AtomicReference<String> parentVersion) {
-        NodeList children = parent.getChildNodes();
         String groupId = "", artifactId = "", version = "", relativePath = "";
-        for (int i = 0; i < children.getLength(); i++) {
-            Node child = children.item(i);
-            if ("groupId".equals(child.getNodeName())) {
+        for (MavenPomElement child : parent.children) {
+            if ("groupId".equals(child.name)) {
                 groupId = child.getTextContent().trim();
                 parentGroupId.set(groupId);
-            } else if ("artifactId".equals(child.getNodeName())) {
+            } else if ("artifactId".equals(child.name)) {
                 artifactId = child.getTextContent().trim();
-            } else if ("version".equals(child.getNodeName())) {
+            } else if ("version".equals(child.name)) {
                 version = child.getTextContent().trim();
                 parentVersion.set(version);
-            } else if ("relativePath".equals(child.getNodeName())) {
+            } else if ("relativePath".equals(child.name)) {
                 relativePath = child.getTextContent().trim();
             }
         }
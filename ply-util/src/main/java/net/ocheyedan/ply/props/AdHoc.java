@@ -3,8 +3,10 @@ package net.ocheyedan.ply.props;
 import net.ocheyedan.ply.Output;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -28,14 +30,29 @@ public final class AdHoc {
     /**
      * Parses {@code adHocProps} and adds them to the set of ad-hoc properties.
      * @param adHocProps to parse and add to the set of ad-hoc properties
+     * @return the context-qualified names (i.e., {@literal ply.decorated}) of the properties which were added; a property
+     *         already defined ad-hoc is not re-added (the first encountered value is used) and so is not included.
+     *         These are the names with which to invalidate filtered values (see {@link Props#invalidateFilteredCaches(java.io.File, java.util.Collection)}).
      */
-    public static void add(List<String> adHocProps) {
+    public static Set<String> add(List<String> adHocProps) {
         if (adHocProps == null) {
-            return;
+            return Collections.emptySet();
         }
+        Set<String> added = new HashSet<String>(adHocProps.size(), 1.0f);
         for (String adHocProp : adHocProps) {
-            parseAndAdd(adHocProp);
+            String name = parseAndAdd(adHocProp);
+            if (name != null) {
+                added.add(name);
+            }
         }
+        return added;
+    }
+
+    /**
+     * Removes all ad-hoc properties (for instance, so that a long-lived ply process can service another invocation).
+     */
+    static void clear() {
+        adHocProps.clear();
     }
 
     /**
@@ -120,10 +137,12 @@ public final class AdHoc {
      * Parses {@code prop} which is expected to be in the format {@literal context#scope.propName=propValue}
      * where {@literal #scope} is optional.
      * @param prop to parse
+     * @return the context-qualified name of the added property or null if {@code prop} could not be parsed or was
+     *         already defined
      */
-    static void parseAndAdd(String prop) {
+    static String parseAndAdd(String prop) {
         if (prop == null) {
-            return;
+            return null;
         }
         try {
             String context, scope, propName, propValue;
@@ -155,11 +174,14 @@ public final class AdHoc {
                 PropFile.Prop adHocProp = adHocPropFile.get(propName);
                 Output.print("^warn^ Found two ad-hoc property values for ^b^%s%s.%s^r^ [ ^b^%s^r^ and ^b^%s^r^ ] using first encountered, ^b^%s^r^",
                              context, propScope.getAdHocSuffix(), propName, adHocProp.value(), propValue, adHocProp.value());
+                return null;
             } else {
                 adHocPropFile.add(propName, propValue);
+                return Filter.qualify(propContext, propName);
             }
         } catch (Exception e) {
             Output.print("^error^ Could not parse ad-hoc property ^b^%s^r^.", prop);
+            return null;
         }
     }
 
@@ -0,0 +1,220 @@
+package net.ocheyedan.ply.props;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:39 PM
+ *
+ * The {@link PropFileReader} implementation of {@link PropFileReader#Default} and {@link PropFileReader#Uncommented}.
+ * The whole of the reader is read into a character buffer and lines are scanned in place; strings are only created
+ * for the (trimmed) keys, values and comments themselves.  Lines without escapes (the vast majority) are split at
+ * their first '=' character directly, other lines (and continuations) are parsed character by character.
+ *
+ * When not retaining comments, comment lines are skipped without being copied and keys are interned (within a bounded
+ * table shared by all loads) as the same keys (i.e., class and dependency names) recur across many small files.
+ */
+final class CharBufferPropFileReader implements PropFileReader {
+
+    /**
+     * The result of parsing a line character by character.
+     */
+    private static final class ParseResult {
+        private final boolean complete;
+        private final String key;
+        private final String value;
+        private ParseResult(boolean complete, String key, String value) {
+            this.complete = complete;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The maximum number of interned keys.
+     */
+    private static final int MAX_INTERNED = 16384;
+
+    private static final ConcurrentMap<String, String> interned = new ConcurrentHashMap<String, String>(256);
+
+    private final boolean retainComments;
+
+    CharBufferPropFileReader(boolean retainComments) {
+        this.retainComments = retainComments;
+    }
+
+    @Override public void load(BufferedReader reader, PropFile into) throws Invalid, IOException {
+        if ((reader == null) || (into == null)) {
+            throw new NullPointerException("The BufferedReader and PropFile cannot be null.");
+        }
+        char[] buffer = new char[8192];
+        int length = 0, read;
+        while ((read = reader.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        StringBuilder commentsBuffer = (retainComments ? new StringBuilder() : null);
+        String parsingKey = null, parsingValue = null; // a property continued onto subsequent lines
+        int position = 0;
+        while (position < length) {
+            // find the line, terminated as with BufferedReader#readLine
+            int start = position, end = position;
+            while ((end < length) && (buffer[end] != '\n') && (buffer[end] != '\r')) {
+                end++;
+            }
+            position = end + (((end + 1) < length) && (buffer[end] == '\r') && (buffer[end + 1] == '\n') ? 2 : 1);
+            // trim, as with String#trim
+            while ((start < end) && (buffer[start] <= ' ')) {
+                start++;
+            }
+            while ((end > start) && (buffer[end - 1] <= ' ')) {
+                end--;
+            }
+            if ((start == end) && (parsingKey == null)) {
+                continue;
+            } else if ((start < end) && (buffer[start] == '#')) {
+                if (retainComments) {
+                    if (commentsBuffer.length() > 0) {
+                        commentsBuffer.append('\n');
+                    }
+                    commentsBuffer.append(buffer, start + 1, end - start - 1);
+                }
+                continue;
+            }
+            int separator = (parsingKey == null ? simpleSeparator(buffer, start, end) : -1);
+            if (separator != -1) {
+                // the key contains no leading whitespace (the line is trimmed); trim its trailing whitespace
+                int keyEnd = separator;
+                while ((keyEnd > start) && (buffer[keyEnd - 1] <= ' ')) {
+                    keyEnd--;
+                }
+                int valueStart = separator + 1;
+                while ((valueStart < end) && (buffer[valueStart] <= ' ')) {
+                    valueStart++;
+                }
+                String key = key(buffer, start, keyEnd);
+                // keys are stored trimmed, so a key with trailing whitespace is never considered to be contained
+                if ((keyEnd == separator) && into.contains(key)) {
+                    throw new Invalid("Keys must be unique.");
+                }
+                into.add(key, new String(buffer, valueStart, end - valueStart), comments(commentsBuffer));
+                continue;
+            }
+            ParseResult parsedLine = parse(buffer, start, end);
+            if (parsingKey != null) {
+                if (!parsedLine.key.isEmpty()) {
+                    throw new Invalid("Properties may only have one key.");
+                }
+                parsingValue = parsingValue + parsedLine.value;
+            } else {
+                parsingKey = parsedLine.key;
+                parsingValue = parsedLine.value;
+            }
+            if (parsedLine.complete) {
+                if (parsingKey.isEmpty()) {
+                    throw new Invalid("Keys must be non-empty.");
+                } else if (into.contains(parsingKey)) {
+                    throw new Invalid("Keys must be unique.");
+                }
+                String key = parsingKey.trim();
+                into.add((retainComments ? key : intern(key)), parsingValue.trim(), comments(commentsBuffer));
+                parsingKey = parsingValue = null;
+            }
+        }
+    }
+
+    /**
+     * @return the index of the '=' separating the key from the value of the line within {@code start} (inclusive) and
+     *         {@code end} (exclusive) if the line may be split there directly; i.e., the line contains no escapes and
+     *         a non-empty key.  Otherwise -1 is returned and the line must be parsed via {@link #parse(char[], int, int)}
+     */
+    private static int simpleSeparator(char[] buffer, int start, int end) {
+        int separator = -1;
+        for (int i = start; i < end; i++) {
+            char character = buffer[i];
+            if (character == '\\') {
+                return -1;
+            } else if ((character == '=') && (separator == -1)) {
+                separator = i;
+            }
+        }
+        return (separator == start ? -1 : separator);
+    }
+
+    private String key(char[] buffer, int start, int end) {
+        String key = new String(buffer, start, end - start);
+        return (retainComments ? key : intern(key));
+    }
+
+    private String comments(StringBuilder commentsBuffer) {
+        if ((commentsBuffer == null) || (commentsBuffer.length() == 0)) {
+            return "";
+        }
+        String comments = commentsBuffer.toString();
+        commentsBuffer.setLength(0);
+        return comments;
+    }
+
+    private static String intern(String key) {
+        String existing = interned.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (interned.size() < MAX_INTERNED) {
+            existing = interned.putIfAbsent(key, key);
+        }
+        return (existing == null ? key : existing);
+    }
+
+    @SuppressWarnings("fallthrough")
+    private static ParseResult parse(char[] line, int start, int end) {
+        StringBuilder buffer = new StringBuilder(end - start);
+        String key = "", value;
+        boolean isEscaped = false;
+        for (int i = start; i < end; i++) {
+            char character = line[i];
+            switch (character) {
+                case '\\':
+                    isEscaped = true;
+                    break;
+                case '=':
+                    if (isEscaped || !key.isEmpty()) {
+                        buffer.append('=');
+                    } else {
+                        key = buffer.toString();
+                        buffer.setLength(0);
+                    }
+                    isEscaped = false;
+                    break;
+                case ':':
+                case ' ':
+                    if (isEscaped && key.isEmpty()) {
+                        isEscaped = false; // eliminate ':' and ' ' escapes within key to conform to {@link Properties}
+                    }
+                default:
+                    if (isEscaped) {
+                        buffer.append('\\');
+                    }
+                    buffer.append(character);
+                    isEscaped = false;
+            }
+        }
+        if (isEscaped) {
+            buffer.append('\\');
+        }
+        value = buffer.toString();
+        if (value.endsWith("\\")) {
+            return new ParseResult(false, key, value.substring(0, value.length() - 1));
+        } else {
+            return new ParseResult(true, key, value);
+        }
+    }
+
+}
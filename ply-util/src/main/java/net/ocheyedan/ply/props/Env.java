@@ -0,0 +1,72 @@
+package net.ocheyedan.ply.props;
+
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.dep.Deps;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:14 PM
+ *
+ * Access to the environment variables of the running script.  Normally this is simply {@link System#getenv()} however
+ * when ply invokes a script within its own {@literal JVM} (rather than forking a new process) the environment ply
+ * would have exported to the child process is handed over directly via {@link #set(java.util.Map)}.
+ * Values set via {@link #set(java.util.Map)} take precedence over the system environment variables (mirroring
+ * {@link ProcessBuilder#environment()} semantics).
+ */
+public final class Env {
+
+    /**
+     * The environment explicitly handed to this script, if any.
+     */
+    private static final AtomicReference<Map<String, String>> environment = new AtomicReference<Map<String, String>>(null);
+
+    /**
+     * @param name of the environment variable
+     * @return the value of the environment variable named {@code name} or null if there is no such variable
+     */
+    public static String get(String name) {
+        Map<String, String> handedOver = environment.get();
+        if ((handedOver != null) && handedOver.containsKey(name)) {
+            return handedOver.get(name);
+        }
+        return System.getenv(name);
+    }
+
+    /**
+     * @return all environment variables available to the script
+     */
+    public static Map<String, String> get() {
+        Map<String, String> handedOver = environment.get();
+        if (handedOver == null) {
+            return System.getenv();
+        }
+        Map<String, String> merged = new HashMap<String, String>(System.getenv());
+        merged.putAll(handedOver);
+        return merged;
+    }
+
+    /**
+     * Hands over {@code handedOver} as the environment of this script and invalidates any property values previously
+     * loaded from the environment as well as any state derived from them by a previous invocation of this script
+     * (i.e., ad-hoc properties, filtered values, the dependency resolution caches and the output settings) so that,
+     * as if forked anew, each invocation starts from the handed over environment alone.
+     * @param handedOver the environment variables to use or null to revert to {@link System#getenv()}
+     */
+    public static void set(Map<String, String> handedOver) {
+        environment.set(handedOver == null ? null : Collections.unmodifiableMap(new HashMap<String, String>(handedOver)));
+        Loader.invalidateCaches(true);
+        AdHoc.clear();
+        Filter.clearAllCaches();
+        Deps.invalidateCaches();
+        Output.reinit();
+    }
+
+    private Env() { }
+
+}
@@ -2,12 +2,9 @@ package net.ocheyedan.ply.props;
 
 import net.ocheyedan.ply.Output;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * User: blangel
@@ -15,6 +12,11 @@ import java.util.regex.Pattern;
  * Time: 12:50 PM
  *
  * Filters property values based on other properties and the system environment variables.
+ *
+ * Each distinct value is compiled once into a {@link Template} (its literal text and property placeholders) so that
+ * filtering is a single pass appending resolved placeholders rather than a regular expression replacement per
+ * placeholder.  Filtered values are cached per unique-identifier along with the names upon which they depend (see
+ * {@link #invalidate(Collection)}) so that a changed property only invalidates the values which reference it.
  */
 public final class Filter {
 
@@ -24,14 +26,116 @@ public final class Filter {
     @SuppressWarnings("serial")
     public static final class Circular extends RuntimeException { }
 
-    private static final class FilterResult {
-        private final String filteredResult;
-        private final String filteredResultMarked;
-        private final boolean filtered;
-        private FilterResult(String filteredResult, String filteredResultMarked, boolean filtered) {
-            this.filteredResult = filteredResult;
-            this.filteredResultMarked = filteredResultMarked;
+    /**
+     * A value compiled into its literal text and its property placeholders; i.e., {@literal a${b}c} is compiled into
+     * literals {@literal [ "a", "c" ]} and placeholders {@literal [ "b" ]}.  There is always one more literal than
+     * placeholders.
+     */
+    private static final class Template {
+
+        private static Template compile(String value) {
+            List<String> literals = new ArrayList<String>(4);
+            List<String> placeholders = new ArrayList<String>(2);
+            int literalStart = 0, index = 0;
+            while ((index = value.indexOf("${", index)) != -1) {
+                int end = value.indexOf('}', index + 2);
+                if (end == -1) {
+                    break;
+                }
+                if (spansLines(value, index + 2, end)) {
+                    index++; // as with a regex, a placeholder does not span lines
+                    continue;
+                }
+                literals.add(value.substring(literalStart, index));
+                placeholders.add(value.substring(index + 2, end));
+                literalStart = index = end + 1;
+            }
+            literals.add(value.substring(literalStart));
+            return new Template(literals.toArray(new String[literals.size()]),
+                                placeholders.toArray(new String[placeholders.size()]));
+        }
+
+        private static boolean spansLines(String value, int from, int to) {
+            for (int i = from; i < to; i++) {
+                char character = value.charAt(i);
+                if ((character == '\n') || (character == '\r')) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private final String[] literals;
+
+        private final String[] placeholders;
+
+        private Template(String[] literals, String[] placeholders) {
+            this.literals = literals;
+            this.placeholders = placeholders;
+        }
+    }
+
+    /**
+     * A filtered value and the names upon which it depends.
+     */
+    private static final class Resolved {
+
+        private final String filtered;
+
+        private final String filteredMarked;
+
+        /**
+         * The names (qualified by context, as well as unqualified for system properties and environment variables)
+         * which any placeholder of the value could have resolved against.
+         */
+        private final String[] dependencies;
+
+        /**
+         * True if this value was resolved (rather than retrieved from the cache).
+         */
+        private final boolean fresh;
+
+        private Resolved(String filtered, String filteredMarked, String[] dependencies, boolean fresh) {
             this.filtered = filtered;
+            this.filteredMarked = filteredMarked;
+            this.dependencies = dependencies;
+            this.fresh = fresh;
+        }
+    }
+
+    /**
+     * Identifies a value being resolved by a thread; used to detect circular references.
+     */
+    private static final class ResolvingKey {
+
+        private final long threadId;
+
+        private final String uniqueIdentifier;
+
+        private final String toFilter;
+
+        private ResolvingKey(long threadId, String uniqueIdentifier, String toFilter) {
+            this.threadId = threadId;
+            this.uniqueIdentifier = uniqueIdentifier;
+            this.toFilter = toFilter;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if ((o == null) || (getClass() != o.getClass())) {
+                return false;
+            }
+            ResolvingKey that = (ResolvingKey) o;
+            return (threadId == that.threadId) && uniqueIdentifier.equals(that.uniqueIdentifier)
+                    && toFilter.equals(that.toFilter);
+        }
+
+        @Override public int hashCode() {
+            int result = (int) (threadId ^ (threadId >>> 32));
+            result = 31 * result + uniqueIdentifier.hashCode();
+            return 31 * result + toFilter.hashCode();
         }
     }
 
@@ -39,15 +143,28 @@ public final class Filter {
     public static final String DECORATOR_SCOPED = "_^$fs$^_";
     public static final String DECORATOR_END = "_$^f^$_";
 
-    private static final Map<String, String> cache = new ConcurrentHashMap<String, String>();
-    private static final Map<String, String> cacheDecorated = new ConcurrentHashMap<String, String>();
+    private static final String[] NO_DEPENDENCIES = new String[0];
+
+    /**
+     * Compiled templates keyed by their value.
+     */
+    private static final Map<String, Template> templates = new ConcurrentHashMap<String, Template>();
+
+    /**
+     * Filtered values keyed by unique-identifier and then by unfiltered value.
+     */
+    private static final ConcurrentMap<String, Map<String, Resolved>> cache = new ConcurrentHashMap<String, Map<String, Resolved>>();
 
-    private static final Pattern propertyPlaceholderRegex = Pattern.compile("\\$\\{(.*?)\\}");
+    /**
+     * For each filtered property (by context-qualified name), the names upon which its value depends.
+     */
+    private static final ConcurrentMap<String, Set<String>> propertyDependencies = new ConcurrentHashMap<String, Set<String>>();
 
     /**
-     * Contains cache-keys currently being resolved - used to detect circular references.
+     * Contains the values currently being resolved - used to detect circular references.  The keys are qualified by
+     * the resolving thread's id so that concurrent resolution of the same value is not mistaken for a circular reference.
      */
-    private static final Set<String> resolvingCacheKeys = new HashSet<String>(2, 1.0f);
+    private static final Set<ResolvingKey> resolvingCacheKeys = Collections.synchronizedSet(new HashSet<ResolvingKey>(2, 1.0f));
 
     /**
      * Filters {@code unfiltered} with the property values within {@code filterConsultant} and returns a copy
@@ -65,17 +182,20 @@ public final class Filter {
                     "| uniqueIdentifier = %s | filterConsultant = %s ].", (unfiltered == null ? "null" : "prop"),
                     uniqueIdentifier, (filterConsultant == null ? "null" : "map")));
         }
-        FilterResult filterResult = _filter(unfiltered.unfilteredValue, unfiltered.context(), uniqueIdentifier, filterConsultant);
-        if (Output.isDebug() && filterResult.filtered) {
+        Resolved filterResult = _filter(unfiltered.unfilteredValue, unfiltered.context(), uniqueIdentifier, filterConsultant);
+        if (filterResult.dependencies.length > 0) {
+            recordDependencies(qualify(unfiltered.context(), unfiltered.name), filterResult.dependencies);
+        }
+        if (Output.isDebug() && filterResult.fresh) {
             String toFilter = unfiltered.value();
             String truncatedToFilter = (toFilter.length() > 80) ? toFilter.substring(0, 80) + " [truncated]" : toFilter;
-            String truncatedFiltered = (filterResult.filteredResult.length() > 80)
-                    ? filterResult.filteredResult.substring(0, 80) + " [truncated]" : filterResult.filteredResult;
+            String truncatedFiltered = (filterResult.filtered.length() > 80)
+                    ? filterResult.filtered.substring(0, 80) + " [truncated]" : filterResult.filtered;
             Output.print("^dbug^ filtered ^b^%s^r^ to ^b^%s^r^ [ in %s%s ].", truncatedToFilter, truncatedFiltered,
                     unfiltered.context(), (Scope.Default.equals(unfiltered.scope())
                     ? "" : String.format(" with %s scope", unfiltered.scope().name)));
         }
-        return unfiltered.with(filterResult.filteredResult, filterResult.filteredResultMarked);
+        return unfiltered.with(filterResult.filtered, filterResult.filteredMarked);
     }
 
     /**
@@ -88,99 +208,189 @@ public final class Filter {
      */
     public static String filter(String toFilter, Context context, String uniqueIdentifier,
                                 Map<Context, PropFileChain> filterConsultant) throws Circular {
-        FilterResult result = _filter(toFilter, context, uniqueIdentifier, filterConsultant);
-        return result.filteredResult;
+        Resolved result = _filter(toFilter, context, uniqueIdentifier, filterConsultant);
+        return result.filtered;
     }
 
-    private static FilterResult _filter(String toFilter, Context context, String uniqueIdentifier,
-                                        Map<Context, PropFileChain> filterConsultant) throws Circular {
+    private static Resolved _filter(String toFilter, Context context, String uniqueIdentifier,
+                                    Map<Context, PropFileChain> filterConsultant) throws Circular {
         if ((toFilter == null) || (filterConsultant == null) || (context == null) || (uniqueIdentifier == null)) {
             throw new NullPointerException(String.format("Parameters may not be null [ toFilter = %s | context = %s " +
                     "| uniqueIdentifier = %s | filterConsultant = %s ].", toFilter, context, uniqueIdentifier,
                     (filterConsultant == null ? "null" : "map")));
         }
         if (!toFilter.contains("${")) {
-            return new FilterResult(toFilter, toFilter, false);
+            return new Resolved(toFilter, toFilter, NO_DEPENDENCIES, false);
+        }
+        Map<String, Resolved> resolvedValues = cache.get(uniqueIdentifier);
+        if (resolvedValues == null) {
+            Map<String, Resolved> created = new ConcurrentHashMap<String, Resolved>();
+            resolvedValues = cache.putIfAbsent(uniqueIdentifier, created);
+            resolvedValues = (resolvedValues == null ? created : resolvedValues);
+        }
+        Resolved cached = resolvedValues.get(toFilter);
+        if (cached != null) {
+            return cached;
         }
-        String cacheKey = getKey(toFilter, uniqueIdentifier);
-        if (cache.containsKey(cacheKey)) {
-            return new FilterResult(cache.get(cacheKey), cacheDecorated.get(cacheKey), false);
+        Template template = templates.get(toFilter);
+        if (template == null) {
+            template = Template.compile(toFilter);
+            templates.put(toFilter, template);
         }
-        if (!resolvingCacheKeys.add(cacheKey)) {
+        ResolvingKey resolvingCacheKey = new ResolvingKey(Thread.currentThread().getId(), uniqueIdentifier, toFilter);
+        if (!resolvingCacheKeys.add(resolvingCacheKey)) {
             throw new Circular();
         }
-        String filtered = toFilter;
-        String filteredMarked = toFilter;
-        Matcher matcher = propertyPlaceholderRegex.matcher(toFilter);
-        while (matcher.find()) {
-            String propertyPlaceholder = matcher.group(1);
-            // first, check the {@code context} directly
-            PropFileChain chain = filterConsultant.get(context);
+        try {
+            Resolved resolved = resolve(template, toFilter, context, filterConsultant);
+            resolvedValues.put(toFilter, resolved);
+            return new Resolved(resolved.filtered, resolved.filteredMarked, resolved.dependencies, true);
+        } finally {
+            resolvingCacheKeys.remove(resolvingCacheKey);
+        }
+    }
+
+    private static Resolved resolve(Template template, String toFilter, Context context,
+                                    Map<Context, PropFileChain> filterConsultant) throws Circular {
+        StringBuilder filtered = new StringBuilder(toFilter.length() + 32);
+        StringBuilder filteredMarked = new StringBuilder(toFilter.length() + 64);
+        String[] dependencies = new String[template.placeholders.length * 2];
+        filtered.append(template.literals[0]);
+        filteredMarked.append(template.literals[0]);
+        for (int i = 0; i < template.placeholders.length; i++) {
+            String propertyPlaceholder = template.placeholders[i];
+            dependencies[i * 2] = qualify(context, propertyPlaceholder);
+            dependencies[(i * 2) + 1] = propertyPlaceholder;
+            PropFile.Prop resolved = resolveProp(propertyPlaceholder, context, filterConsultant);
+            if (resolved != PropFile.Prop.Empty) {
+                filtered.append(resolved.value());
+                filteredMarked.append(isScoped(resolved) ? DECORATOR_SCOPED : DECORATOR).append(resolved.value())
+                        .append(DECORATOR_END);
+            } else {
+                // next, check if the property is a system property and lastly if it is an environment variable
+                String replacement = System.getProperty(propertyPlaceholder);
+                if (replacement == null) {
+                    replacement = Env.get(propertyPlaceholder);
+                }
+                if (replacement != null) {
+                    filtered.append(replacement);
+                    filteredMarked.append(DECORATOR).append(replacement).append(DECORATOR_END);
+                } else {
+                    Output.print("^warn^ No filter-value found for property ^b^%s^r^", propertyPlaceholder);
+                    filtered.append("${").append(propertyPlaceholder).append('}');
+                    filteredMarked.append("${").append(propertyPlaceholder).append('}');
+                }
+            }
+            filtered.append(template.literals[i + 1]);
+            filteredMarked.append(template.literals[i + 1]);
+        }
+        return new Resolved(filtered.toString(), filteredMarked.toString(), dependencies, false);
+    }
+
+    /**
+     * @param propertyPlaceholder the name within the placeholder
+     * @param context to consult for non-context prefixed property values
+     * @param filterConsultant the property values
+     * @return the property which {@code propertyPlaceholder} references or {@link PropFile.Prop#Empty} if none
+     */
+    private static PropFile.Prop resolveProp(String propertyPlaceholder, Context context,
+                                             Map<Context, PropFileChain> filterConsultant) {
+        // first, check the {@code context} directly
+        PropFileChain chain = filterConsultant.get(context);
+        if (chain != null) {
+            PropFile.Prop resolved = chain.get(propertyPlaceholder);
+            if (resolved != PropFile.Prop.Empty) {
+                return resolved;
+            }
+        }
+        // next, parse propertyPlaceholder for a context and, if one exists, check against that
+        int contextIndex = propertyPlaceholder.indexOf('.');
+        if (contextIndex != -1) {
+            chain = filterConsultant.get(Context.named(propertyPlaceholder.substring(0, contextIndex)));
             if (chain != null) {
-                PropFile.Prop resolved = chain.get(propertyPlaceholder);
-                if (resolved != PropFile.Prop.Empty) {
-                    filtered = filtered.replaceAll(Pattern.quote("${" + propertyPlaceholder + "}"),
-                            Matcher.quoteReplacement(resolved.value()));
-                    boolean scoped = isScoped(resolved);
-                    filteredMarked = filteredMarked.replaceAll(Pattern.quote("${" + propertyPlaceholder + "}"),
-                            Matcher.quoteReplacement(String.format("%s%s%s", (scoped ? DECORATOR_SCOPED : DECORATOR), resolved.value(), DECORATOR_END)));
-                    continue; // found!
+                return chain.get(propertyPlaceholder.substring(contextIndex + 1));
+            }
+        }
+        return PropFile.Prop.Empty;
+    }
+
+    private static void recordDependencies(String property, String[] dependencies) {
+        Set<String> recorded = propertyDependencies.get(property);
+        if (recorded == null) {
+            Set<String> created = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>(4, 1.0f));
+            recorded = propertyDependencies.putIfAbsent(property, created);
+            recorded = (recorded == null ? created : recorded);
+        }
+        Collections.addAll(recorded, dependencies);
+    }
+
+    /**
+     * Invalidates the cached filtered values which depend, directly or through other properties, upon any of
+     * {@code changed}.
+     * @param changed the context-qualified names (i.e., {@literal compiler.java.debug}) of the properties which have
+     *                changed (or the names of changed system properties or environment variables)
+     * @return the context-qualified names of the properties whose filtered values are invalid; i.e., {@code changed}
+     *         and all properties which depend upon them
+     */
+    static Set<String> invalidate(Collection<String> changed) {
+        Set<String> invalidated = new HashSet<String>(changed);
+        boolean grew = true;
+        while (grew) {
+            grew = false;
+            for (Map.Entry<String, Set<String>> property : propertyDependencies.entrySet()) {
+                if (!invalidated.contains(property.getKey()) && intersects(property.getValue(), invalidated)) {
+                    invalidated.add(property.getKey());
+                    grew = true;
                 }
             }
-            // next, parse propertyPlaceholder for a context and, if one exists, check against that
-            int contextIndex = propertyPlaceholder.indexOf(".");
-            if (contextIndex != -1) {
-                Context contextWithinPropertyPlaceholder = Context.named(propertyPlaceholder.substring(0, contextIndex));
-                String propertyPlaceholderWithoutContext = propertyPlaceholder.substring(contextIndex + 1);
-                chain = filterConsultant.get(contextWithinPropertyPlaceholder);
-                if (chain != null) {
-                    PropFile.Prop resolved = chain.get(propertyPlaceholderWithoutContext);
-                    if (resolved != PropFile.Prop.Empty) {
-                        filtered = filtered.replaceAll(Pattern.quote("${" + propertyPlaceholder + "}"),
-                                Matcher.quoteReplacement(resolved.value()));
-                        boolean scoped = isScoped(resolved);
-                        filteredMarked = filteredMarked.replaceAll(Pattern.quote("${" + propertyPlaceholder + "}"),
-                                Matcher.quoteReplacement(String.format("%s%s%s", (scoped ? DECORATOR_SCOPED : DECORATOR), resolved.value(), DECORATOR_END)));
-                        continue; // found!
+        }
+        for (Map<String, Resolved> resolvedValues : cache.values()) {
+            for (Iterator<Resolved> iterator = resolvedValues.values().iterator(); iterator.hasNext(); ) {
+                Resolved resolved = iterator.next();
+                for (String dependency : resolved.dependencies) {
+                    if (invalidated.contains(dependency)) {
+                        iterator.remove();
+                        break;
                     }
                 }
             }
-            // next, check if the property is a system property
-            String replacement = System.getProperty(propertyPlaceholder);
-            if (replacement != null) {
-                filtered = filtered.replaceAll(Pattern.quote("${" + propertyPlaceholder + "}"),
-                        Matcher.quoteReplacement(replacement));
-                filteredMarked = filteredMarked.replaceAll(Pattern.quote("${" + propertyPlaceholder + "}"),
-                        Matcher.quoteReplacement(String.format("%s%s%s", DECORATOR, replacement, DECORATOR_END)));
-                continue;
-            }
-            // lastly, check if the property is an environment variable
-            replacement = System.getenv(propertyPlaceholder);
-            if (replacement != null) {
-                filtered = filtered.replaceAll(Pattern.quote("${" + propertyPlaceholder + "}"),
-                        Matcher.quoteReplacement(replacement));
-                filteredMarked = filteredMarked.replaceAll(Pattern.quote("${" + propertyPlaceholder + "}"),
-                        Matcher.quoteReplacement(String.format("%s%s%s", DECORATOR, replacement, DECORATOR_END)));
-            } else {
-                Output.print("^warn^ No filter-value found for property ^b^%s^r^", propertyPlaceholder);
+        }
+        return invalidated;
+    }
+
+    /**
+     * @param context of the property
+     * @param name of the property
+     * @return the context-qualified name of the property, as used by {@link #invalidate(Collection)}
+     */
+    static String qualify(Context context, String name) {
+        return context.name + "." + name;
+    }
+
+    private static boolean intersects(Set<String> dependencies, Set<String> invalidated) {
+        for (String dependency : dependencies) {
+            if (invalidated.contains(dependency)) {
+                return true;
             }
         }
-        cache.put(cacheKey, filtered);
-        cacheDecorated.put(cacheKey, filteredMarked);
-        resolvingCacheKeys.remove(cacheKey);
-        return new FilterResult(filtered, filteredMarked, true);
+        return false;
     }
 
     private static boolean isScoped(PropFile.Prop prop) {
         return !Scope.Default.equals(prop.scope());
     }
 
-    private static String getKey(String unfiltered, String uniqueIdentifier) {
-        return String.format("%s#%s", unfiltered, uniqueIdentifier);
+    static void clearCache() {
+        cache.clear();
     }
 
-    static void clearCache() {
+    /**
+     * Clears the filtered values and the compiled templates.
+     */
+    static void clearAllCaches() {
         cache.clear();
+        templates.clear();
+        propertyDependencies.clear();
     }
 
     private Filter() { }
@@ -6,6 +6,7 @@ import net.ocheyedan.ply.PlyUtil;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -32,6 +33,14 @@ final class Loader {
 
     private static final Map<String, Map<Scope, Map<Context, PropFileChain>>> cache = new ConcurrentHashMap<String, Map<Scope, Map<Context, PropFileChain>>>(3, 1.0f);
 
+    private static final Map<String, Map<Scope, Map<Context, PropFile>>> localCache = new ConcurrentHashMap<String, Map<Scope, Map<Context, PropFile>>>(3, 1.0f);
+
+    /**
+     * The canonical path (i.e., the {@link #cache} key) of each configuration directory; computing the canonical path
+     * requires file-system access which is too costly for each property lookup.
+     */
+    private static final Map<File, String> cacheKeys = new ConcurrentHashMap<File, String>(3, 1.0f);
+
     private static final AtomicBoolean systemCacheLoaded = new AtomicBoolean(false);
     private static final Map<Scope, Map<Context, PropFile>> systemCache = new ConcurrentHashMap<Scope, Map<Context, PropFile>>(3, 1.0f);
 
@@ -54,15 +63,16 @@ final class Loader {
      * augmented by any available ad-hoc and system properties.
      */
     static Map<Scope, Map<Context, PropFileChain>> load (File configurationDirectory, boolean ignoreCache) {
-        String cacheKey = FileUtil.getCanonicalPath(configurationDirectory);
-        if (!ignoreCache && cache.containsKey(cacheKey)) {
-            return cache.get(cacheKey);
+        String cacheKey = getCacheKey(configurationDirectory);
+        Map<Scope, Map<Context, PropFileChain>> cached = (ignoreCache ? null : cache.get(cacheKey));
+        if (cached != null) {
+            return cached;
         }
         Map<Scope, Map<Context, PropFileChain>> loaded;
         if (!ignoreCache && shouldLoadFromEnv(configurationDirectory)) {
             loaded = loadFromEnv();
         } else {
-            loaded = loadChain(configurationDirectory);
+            loaded = loadChain(configurationDirectory, ignoreCache);
         }
         if (!ignoreCache) {
             cache.put(cacheKey, loaded);
@@ -70,22 +80,48 @@ final class Loader {
         return loaded;
     }
 
+    private static String getCacheKey(File configurationDirectory) {
+        String cacheKey = cacheKeys.get(configurationDirectory);
+        if (cacheKey == null) {
+            cacheKey = FileUtil.getCanonicalPath(configurationDirectory);
+            cacheKeys.put(configurationDirectory, cacheKey);
+        }
+        return cacheKey;
+    }
+
     /**
      * Invalidates cached values associated with {@code configurationDirectory}
      * @param configurationDirectory from which to invalidate properties
      */
     static void invalidateCaches(File configurationDirectory) {
-        String cacheKey = FileUtil.getCanonicalPath(configurationDirectory);
+        String cacheKey = getCacheKey(configurationDirectory);
         cache.remove(cacheKey);
+        localCache.remove(cacheKey);
+    }
+
+    /**
+     * Invalidates all cached {@link PropFileChain} objects.
+     * @param includingParsed true to also invalidate the parsed system and local {@link PropFile} objects so that they
+     *                        are re-read from disk upon next load.
+     */
+    static void invalidateCaches(boolean includingParsed) {
+        cache.clear();
+        cacheKeys.clear();
+        if (includingParsed) {
+            localCache.clear();
+            systemCache.clear();
+            systemCacheLoaded.set(false);
+        }
     }
 
     private static boolean shouldLoadFromEnv(File configDirectory) {
         return ((configDirectory == PlyUtil.LOCAL_CONFIG_DIR)
-                && (System.getenv("ply_ply.invoker") != null));
+                && (Env.get("ply_ply.invoker") != null));
     }
 
     /**
-     * Loads the properties from the environment variables.
+     * Loads the properties from the environment variables (or from the property snapshot whose path is exported
+     * by ply as {@literal ply_ply.props.snapshot}).
      * @return the properties found within the environment variables
      */
     private static Map<Scope, Map<Context, PropFileChain>> loadFromEnv() {
@@ -94,9 +130,14 @@ final class Loader {
         Scope scope = Props.getScope();
         Map<Context, PropFileChain> contexts = new ConcurrentHashMap<Context, PropFileChain>(13, 1.0f);
         props.put(scope, contexts);
-        Map<Context, PropFile> propFiles = new ConcurrentHashMap<Context, PropFile>(13, 1.0f);
+        Map<Context, PropFile> propFiles = loadFromSnapshot(scope);
+        if (propFiles != null) {
+            chainFromEnv(propFiles, contexts);
+            return props;
+        }
+        propFiles = new ConcurrentHashMap<Context, PropFile>(13, 1.0f);
         
-        Map<String, String> env = System.getenv();
+        Map<String, String> env = Env.get();
         for (String key : env.keySet()) {
             if (!key.startsWith("ply_")) {
                 continue; // non-ply property
@@ -117,26 +158,62 @@ final class Loader {
             }
             propFile.add(key, propertyValue);
         }
+        chainFromEnv(propFiles, contexts);
+        return props;
+    }
+
+    /**
+     * Maps the property snapshot exported by ply (if any); see {@link PropsSnapshot}.
+     * @param scope of the properties
+     * @return the lazily read properties of the snapshot or null if ply did not export a snapshot (or it could
+     *         not be read) in which case the properties should be read from the environment variables
+     */
+    private static Map<Context, PropFile> loadFromSnapshot(Scope scope) {
+        String snapshot = Env.get("ply_ply.props.snapshot");
+        if (snapshot == null) {
+            return null;
+        }
+        try {
+            return PropsSnapshot.map(new File(snapshot), scope, PropFile.Loc.System);
+        } catch (IOException ioe) {
+            Output.print("^warn^ Could not read the property snapshot ^b^%s^r^ [ %s ].", snapshot, ioe.getMessage());
+            return null;
+        }
+    }
+
+    private static void chainFromEnv(Map<Context, PropFile> propFiles, Map<Context, PropFileChain> into) {
         for (Context context : propFiles.keySet()) {
             PropFile propFile = propFiles.get(context);
-            PropFileChain chain = new PropFileChain(contexts);
+            PropFileChain chain = new PropFileChain(into);
             chain.set(propFile, PropFile.Loc.System);
-            contexts.put(context, chain);
+            into.put(context, chain);
         }
-        return props;
     }
 
     /**
      * Chains together the {@link #systemCache} with {@code configurationDirectory} and any ad-hoc properties available.
      * @param configurationDirectory the local configuration directory from which to load {@link PropFile.Loc#Local} properties
+     * @param ignoreCache true to re-read the local properties from disk regardless of whether they have been parsed before
      * @return a mapping from {@link Scope} to a mapping of {@link Context} to {@link PropFileChain} objects
      */
-    private static Map<Scope, Map<Context, PropFileChain>> loadChain(File configurationDirectory) {
-        if (!systemCacheLoaded.getAndSet(true)) {
-            load(PlyUtil.SYSTEM_CONFIG_DIR, PropFile.Loc.System, systemCache);
+    private static Map<Scope, Map<Context, PropFileChain>> loadChain(File configurationDirectory, boolean ignoreCache) {
+        if (!systemCacheLoaded.get()) {
+            synchronized (systemCache) {
+                if (!systemCacheLoaded.get()) {
+                    load(PlyUtil.SYSTEM_CONFIG_DIR, PropFile.Loc.System, systemCache);
+                    systemCacheLoaded.set(true);
+                }
+            }
+        }
+        String cacheKey = getCacheKey(configurationDirectory);
+        Map<Scope, Map<Context, PropFile>> local = (ignoreCache ? null : localCache.get(cacheKey));
+        if (local == null) {
+            local = new ConcurrentHashMap<Scope, Map<Context, PropFile>>(3, 1.0f);
+            load(configurationDirectory, PropFile.Loc.Local, local);
+            if (!ignoreCache) {
+                localCache.put(cacheKey, local);
+            }
         }
-        Map<Scope, Map<Context, PropFile>> local = new ConcurrentHashMap<Scope, Map<Context, PropFile>>(3, 1.0f);
-        load(configurationDirectory, PropFile.Loc.Local, local);
 
         Map<Scope, Map<Context, PropFile>> adHoc = AdHoc.produceFor(systemCache, local);
 
@@ -247,7 +324,8 @@ final class Loader {
 
     /**
      * Loads all {@literal .properties} files from {@code configurationDirectory} and creates a {@link PropFile}
-     * for the extracted context and scope (according to the file name) at {@code loc}
+     * for the extracted context and scope (according to the file name) at {@code loc}.  Files which have not changed
+     * since last parsed are loaded from the {@link PropFileCache} rather than being re-parsed.
      * @param configurationDirectory from which to load properties files
      * @param loc at which the loading is occurring
      * @param into the map to store the loaded {@link PropFile} objects
@@ -257,6 +335,7 @@ final class Loader {
         if (subFiles == null) {
             return;
         }
+        PropFileCache parsed = PropFileCache.open(configurationDirectory);
         for (File subFile : subFiles) {
             if (subFile.isDirectory()) {
                 continue;
@@ -278,9 +357,13 @@ final class Loader {
                 into.put(scope, contexts);
             }
             PropFile propFile = new PropFile(context, scope, loc);
-            PropFiles.load(FileUtil.getCanonicalPath(subFile), propFile);
+            if (!parsed.load(subFile, propFile)) {
+                PropFiles.load(FileUtil.getCanonicalPath(subFile), propFile);
+                parsed.put(subFile, propFile);
+            }
             contexts.put(context, propFile);
         }
+        parsed.close();
     }
 
     private Loader() { }
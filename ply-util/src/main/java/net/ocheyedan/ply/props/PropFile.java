@@ -8,6 +8,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -164,10 +165,14 @@ public final class PropFile {
 
         private final ConcurrentMap<String, Prop> props;
 
+        /**
+         * Copy-on-write so that iteration (i.e., building a {@link PropFileChain}'s index) may proceed concurrently
+         * with modification; properties files are seldom modified once loaded.
+         */
         private final List<Prop> order;
 
         private Impl(Context context, Scope scope, Loc loc) {
-            this(context, scope, loc, new ConcurrentHashMap<String, Prop>(), new ArrayList<Prop>());
+            this(context, scope, loc, new ConcurrentHashMap<String, Prop>(), new CopyOnWriteArrayList<Prop>());
         }
         
         private Impl(Context context, Scope scope, Loc loc, ConcurrentMap<String, Prop> props, List<Prop> order) {
@@ -234,6 +239,11 @@ public final class PropFile {
             return order.iterator();
         }
 
+        /**
+         * Ensures all properties are held within {@link #props} and {@link #order}; called prior to any modification.
+         */
+        protected void materialize() { }
+
         @Override public boolean equals(Object o) {
             if (this == o) {
                 return true;
@@ -256,6 +266,84 @@ public final class PropFile {
         }
     }
 
+    /**
+     * An {@link Impl} whose properties are read, upon request, from a {@link PropsSnapshot.Section}.  Properties are
+     * only copied into {@link Impl#props} as they are retrieved; iterating or modifying the properties file
+     * materializes all of the section's properties (in the section's order).
+     */
+    private static final class MappedImpl extends Impl {
+
+        private final PropsSnapshot.Section section;
+
+        private volatile boolean materialized;
+
+        private MappedImpl(Context context, Scope scope, Loc loc, PropsSnapshot.Section section) {
+            super(context, scope, loc);
+            this.section = section;
+        }
+
+        @Override protected boolean contains(String name) {
+            return (super.contains(name) || (!materialized && (section.get(name) != null)));
+        }
+
+        @Override protected Prop get(String name) {
+            Prop prop = super.props.get(name);
+            if ((prop != null) || materialized) {
+                return (prop == null ? Prop.Empty : prop);
+            }
+            String value = section.get(name);
+            if (value == null) {
+                return Prop.Empty;
+            }
+            prop = new Prop(this, name, value, "");
+            Prop existing = super.props.putIfAbsent(name, prop);
+            return (existing == null ? prop : existing);
+        }
+
+        @Override protected int size() {
+            return (materialized ? super.size() : section.size());
+        }
+
+        @Override protected boolean isEmpty() {
+            return (size() == 0);
+        }
+
+        @Override protected Iterator<Prop> iterator() {
+            materialize();
+            return super.iterator();
+        }
+
+        @Override protected synchronized void materialize() {
+            if (materialized) {
+                return;
+            }
+            List<Prop> materializing = new ArrayList<Prop>(section.size());
+            for (int i = 0; i < section.size(); i++) {
+                String name = section.name(i);
+                Prop prop = super.props.get(name);
+                if (prop == null) {
+                    prop = new Prop(this, name, section.value(i), "");
+                    Prop existing = super.props.putIfAbsent(name, prop);
+                    prop = (existing == null ? prop : existing);
+                }
+                materializing.add(prop);
+            }
+            super.order.addAll(materializing); // copied once rather than per property
+            materialized = true;
+        }
+    }
+
+    /**
+     * @param context of the properties file.
+     * @param scope of the properties file.
+     * @param loc of the properties file.
+     * @param section from which to lazily read the properties
+     * @return a {@link PropFile} whose properties are read from {@code section} as they are requested
+     */
+    static PropFile mapped(Context context, Scope scope, Loc loc, PropsSnapshot.Section section) {
+        return new PropFile(context, scope, loc, new MappedImpl(context, scope, loc, section));
+    }
+
     /**
      * An empty, immutable, properties file.
      */
@@ -279,6 +367,12 @@ public final class PropFile {
     private final Impl delegate;
     
     private final Iterable<Prop> props;
+
+    /**
+     * Incremented upon each modification so that views of this file (see {@link PropFileChain}) may detect changes.
+     * Incremented after the modification so that a view built concurrently with it is always seen as stale.
+     */
+    private volatile int modifications;
     
     /**
      * Creates a {@link PropFile} for the given {@code context} and {@code loc} with the {@link Scope#Default} scope.
@@ -326,7 +420,10 @@ public final class PropFile {
      *         property named {@code name} (i.e., if {@link #contains(String)} returns true for {@code name}).
      */
     public final Prop add(String name, String value) {
-        return delegate.add(name, value, "", null);
+        delegate.materialize();
+        Prop prop = delegate.add(name, value, "", null);
+        modifications++;
+        return prop;
     }
 
     /**
@@ -347,7 +444,10 @@ public final class PropFile {
      *         property named {@code name} (i.e., if {@link #contains(String)} returns true for {@code name}).
      */
     public final Prop add(String name, String value, String comments) {
-        return delegate.add(name, value, comments, null);
+        delegate.materialize();
+        Prop prop = delegate.add(name, value, comments, null);
+        modifications++;
+        return prop;
     }
 
     /**
@@ -358,7 +458,10 @@ public final class PropFile {
      * @return the {@link Prop} with new value {@code value}
      */
     public final Prop set(String name, String value) {
-        return delegate.set(name, value);
+        delegate.materialize();
+        Prop prop = delegate.set(name, value);
+        modifications++;
+        return prop;
     }
 
     /**
@@ -398,7 +501,10 @@ public final class PropFile {
      * @return the existing {@link Prop} or null if there was no property named {@code name} in this properties file
      */
     public final Prop remove(String name) {
-        return delegate.remove(name);
+        delegate.materialize();
+        Prop prop = delegate.remove(name);
+        modifications++;
+        return prop;
     }
 
     /**
@@ -412,6 +518,13 @@ public final class PropFile {
         return delegate.context;
     }
 
+    /**
+     * @return the number of modifications (additions, sets and removals) made to this file
+     */
+    final int modifications() {
+        return modifications;
+    }
+
     final Scope scope() {
         return delegate.scope;
     }
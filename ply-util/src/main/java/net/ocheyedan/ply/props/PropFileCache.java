@@ -0,0 +1,271 @@
+package net.ocheyedan.ply.props;
+
+import net.ocheyedan.ply.BitUtil;
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.PlyUtil;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:19 PM
+ *
+ * A persistent cache of the parsed {@literal .properties} files of a configuration directory so that unchanged
+ * configuration is not re-parsed by every ply invocation (and every script which loads configuration).  Each cached
+ * file is validated by its size and modification time; files which changed are parsed (via {@link PropFiles}) and
+ * the cache is rewritten.
+ *
+ * The cache of each configuration directory is a file (named by the hash of the directory's canonical path) within
+ * {@literal ~/.ply/config-cache}.  The format is (all integers are big-endian, strings are an int byte-length followed
+ * by the UTF-8 bytes):
+ * <pre>
+ *     int magic, int version, string ply-version, int file-count
+ *     file-count * [ string file-name, long size, long last-modified, int prop-count,
+ *                    prop-count * [ string name, string value, string comments ] ]
+ * </pre>
+ * Properties are kept in the order of the file.  A cache written by a different format version or ply version is
+ * ignored.  Files modified within {@link #MODIFICATION_GRANULARITY} of being cached are not cached (they are
+ * {@literal racily clean}); a further modification within the same tick of the file-system's clock, and of the same
+ * size, would otherwise go unnoticed.  Caches are written to a temporary file and renamed so that concurrent readers never see partial caches.
+ */
+final class PropFileCache {
+
+    /**
+     * The parsed properties of a single file.
+     */
+    private static final class Entry {
+
+        private final long size;
+
+        private final long lastModified;
+
+        /**
+         * Triples of name, value and comments.
+         */
+        private final List<String> props;
+
+        private Entry(long size, long lastModified, List<String> props) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.props = props;
+        }
+    }
+
+    private static final int MAGIC = 0x504c5943; // 'PLYC'
+
+    private static final int VERSION = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * The coarsest granularity, in milliseconds, of file modification times among supported file-systems (i.e., FAT).
+     */
+    static final long MODIFICATION_GRANULARITY = 2000L;
+
+    /**
+     * The directory in which caches are stored.
+     */
+    static final File DIRECTORY = new File(FileUtil.resolveUnixTilde(FileUtil.pathFromParts("~", ".ply", "config-cache")));
+
+    /**
+     * @param configurationDirectory of which to cache the parsed properties files
+     * @return the cache for {@code configurationDirectory} read from disk (or empty if there is none or it is invalid)
+     */
+    static PropFileCache open(File configurationDirectory) {
+        return openFile(getCacheFile(configurationDirectory));
+    }
+
+    /**
+     * @param cacheFile of the cache
+     * @return the cache read from {@code cacheFile} (or empty if there is none or it is invalid)
+     */
+    static PropFileCache openFile(File cacheFile) {
+        PropFileCache cache = new PropFileCache(cacheFile);
+        if (cacheFile.exists()) {
+            try {
+                cache.read();
+            } catch (IOException ioe) {
+                Output.print("^dbug^ Ignoring the configuration cache ^b^%s^r^ [ %s ].", cacheFile.getPath(), ioe.getMessage());
+                cache.entries.clear();
+            }
+        }
+        return cache;
+    }
+
+    private final File cacheFile;
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * The names of the files loaded or stored since opening.
+     */
+    private final Set<String> used;
+
+    private boolean dirty;
+
+    private PropFileCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+        this.entries = new HashMap<String, Entry>(16, 1.0f);
+        this.used = new HashSet<String>(16, 1.0f);
+    }
+
+    /**
+     * Loads the cached properties of {@code file} into {@code into} if they are cached and {@code file} has not changed
+     * since they were cached.
+     * @param file the properties file
+     * @param into the {@link PropFile} to populate
+     * @return true if the properties were loaded; false if {@code file} must be parsed (and then {@link #put(File, PropFile)})
+     */
+    boolean load(File file, PropFile into) {
+        Entry entry = entries.get(file.getName());
+        if ((entry == null) || (entry.size != file.length()) || (entry.lastModified != file.lastModified())) {
+            return false;
+        }
+        for (int i = 0; i < entry.props.size(); i += 3) {
+            into.add(entry.props.get(i), entry.props.get(i + 1), entry.props.get(i + 2));
+        }
+        used.add(file.getName());
+        return true;
+    }
+
+    /**
+     * Caches the parsed {@code propFile} for {@code file} unless {@code file} was modified too recently for a subsequent
+     * modification to be detected (in which case it'll be parsed again until it's older).
+     * @param file the properties file
+     * @param propFile the parsed properties of {@code file}
+     */
+    void put(File file, PropFile propFile) {
+        long lastModified = file.lastModified();
+        if ((System.currentTimeMillis() - lastModified) < MODIFICATION_GRANULARITY) {
+            if (entries.remove(file.getName()) != null) {
+                dirty = true;
+            }
+            return;
+        }
+        List<String> props = new ArrayList<String>(propFile.size() * 3);
+        for (PropFile.Prop prop : propFile.props()) {
+            props.add(prop.name);
+            props.add(prop.unfilteredValue);
+            props.add(prop.comments());
+        }
+        entries.put(file.getName(), new Entry(file.length(), lastModified, props));
+        used.add(file.getName());
+        dirty = true;
+    }
+
+    /**
+     * Writes the cache if any file was parsed or if any cached file is no longer present (i.e., was not loaded).
+     */
+    void close() {
+        if (!dirty && used.containsAll(entries.keySet())) {
+            return;
+        }
+        entries.keySet().retainAll(used);
+        File temporary = null;
+        try {
+            DIRECTORY.mkdirs();
+            cacheFile.getParentFile().mkdirs();
+            temporary = File.createTempFile(cacheFile.getName(), ".tmp", cacheFile.getParentFile());
+            write(temporary);
+            if (!temporary.renameTo(cacheFile)) {
+                // the destination may need removing first on some platforms
+                cacheFile.delete();
+                if (!temporary.renameTo(cacheFile)) {
+                    throw new IOException("could not rename " + temporary.getPath());
+                }
+            }
+            dirty = false;
+        } catch (IOException ioe) {
+            Output.print("^dbug^ Could not write the configuration cache ^b^%s^r^ [ %s ].", cacheFile.getPath(), ioe.getMessage());
+            if ((temporary != null) && temporary.exists()) {
+                temporary.delete();
+            }
+        }
+    }
+
+    private void read() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile), 16384));
+        try {
+            long limit = cacheFile.length();
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) || !getPlyVersion().equals(readString(in, limit))) {
+                return; // written by a different version, will be overwritten
+            }
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                String name = readString(in, limit);
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                int propCount = in.readInt();
+                List<String> props = new ArrayList<String>(propCount * 3);
+                for (int j = 0; j < (propCount * 3); j++) {
+                    props.add(readString(in, limit));
+                }
+                entries.put(name, new Entry(size, lastModified, props));
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void write(File to) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(to), 16384));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(getPlyVersion(), out);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writeString(entry.getKey(), out);
+                out.writeLong(entry.getValue().size);
+                out.writeLong(entry.getValue().lastModified);
+                out.writeInt(entry.getValue().props.size() / 3);
+                for (String value : entry.getValue().props) {
+                    writeString(value, out);
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @param configurationDirectory of which to cache the parsed properties files
+     * @return the cache file for {@code configurationDirectory}
+     */
+    static File getCacheFile(File configurationDirectory) {
+        String path = FileUtil.getCanonicalPath(configurationDirectory);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA1");
+            return new File(DIRECTORY, BitUtil.toHexString(digest.digest(path.getBytes(UTF8))));
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new AssertionError(nsae);
+        }
+    }
+
+    private static String getPlyVersion() {
+        return (PlyUtil.PLY_VERSION == null ? "" : PlyUtil.PLY_VERSION);
+    }
+
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        byte[] bytes = (value == null ? "" : value).getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, long limit) throws IOException {
+        int length = in.readInt();
+        if ((length < 0) || (length > limit)) {
+            throw new IOException("corrupt cache");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+}
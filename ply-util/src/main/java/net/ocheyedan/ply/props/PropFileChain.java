@@ -1,7 +1,8 @@
 package net.ocheyedan.ply.props;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * User: blangel
@@ -31,146 +32,287 @@ import java.util.concurrent.ConcurrentHashMap;
  * associated {@code Context}) and the chain is consulted top down.  So if a property value for a name is found
  * within the {@literal AdHoc} it is returned, otherwise, the check continues down the chain.
  * <p/>
- * Additionally, since filtering is applied against chains of the same {@link Context}, this class contains a mapping
- * to the filtered value for each given {@link PropFile.Prop} object within the chain.
+ * Rather than walking the chain upon each lookup, the chain is flattened (upon first lookup) into an {@link Index}; an
+ * open-addressed table from property name to the property which the walk would have found along with its filtered
+ * value (filtering is applied against chains of the same {@link Context} and is done upon first lookup of each
+ * property).  The index is rebuilt if a {@link PropFile} is set within the chain, if any of the chain's
+ * {@link PropFile} objects are modified or if the default chain's index is rebuilt.  Rebuilding retains the filtered
+ * values of the properties which are unchanged; callers which modify properties are responsible for invalidating the
+ * filtered values which depend upon them (see {@link #invalidateFilteredCache(Set)}).
+ * <p/>
+ * Ad-hoc properties are an overlay upon the chain; setting an (empty) ad-hoc {@link PropFile} in place of an empty one
+ * changes no value and so retains every filtered value, properties subsequently added to it only invalidate the
+ * filtered values which reference them.
  */
 public final class PropFileChain {
 
     /**
-     * Internal representation of the chain's data.  This nested class exists so that {@link PropFileChain}
-     * can be marked final but yet the root, empty, default delegate can be an extension which always returns
-     * the {@link PropFile.Prop#Empty} value.  This eliminates the need for null checking.
+     * The flattened, immutable, view of a chain; only the filtered values are filled in (upon first lookup).
      */
-    private static class Impl {
+    private static final class Index {
+
+        private static final Index Empty = new Index(new String[1], new PropFile.Prop[0], new int[0], 0, null,
+                                                     new PropFile[0], new int[0]);
 
         /**
-         * The empty {@link Impl} implementation.
+         * @param chain the ad-hoc, local and system {@link PropFile} objects, in that order
+         * @param defaultIndex the index of the default chain
+         * @param previous the index being replaced (or null); filtered values of unchanged properties are retained
+         * @return the flattened index of {@code chain} and {@code defaultIndex}
          */
-        private static final Impl Empty = new Impl(null, Collections.<Context, PropFileChain>emptyMap()) {
-            @Override protected PropFile.Prop get(String named) {
-                return PropFile.Prop.Empty;
+        private static Index build(List<PropFile> chain, Index defaultIndex, Index previous) {
+            PropFile[] files = chain.toArray(new PropFile[chain.size()]);
+            int[] modifications = new int[files.length];
+            int expected = defaultIndex.size;
+            for (int i = 0; i < files.length; i++) {
+                PropFile propFile = files[i];
+                modifications[i] = propFile.modifications();
+                expected += propFile.size();
             }
-            @Override protected PropFile.Prop internalGet(String named) {
-                return PropFile.Prop.Empty;
+            int capacity = 4;
+            while (capacity < (expected * 2)) {
+                capacity <<= 1;
             }
-            @Override protected Iterator<PropFile.Prop> iterator() {
-                return PropFile.EmptyIterator;
+            Index index = new Index(new String[capacity], new PropFile.Prop[capacity], new int[expected], 0,
+                                    defaultIndex, files, modifications);
+            for (PropFile propFile : files) {
+                for (PropFile.Prop prop : propFile.props()) {
+                    index.putIfAbsent(prop, previous);
+                }
             }
-        };
+            for (int i = 0; i < defaultIndex.size; i++) {
+                index.putIfAbsent(defaultIndex.unfiltered[defaultIndex.order[i]], previous);
+            }
+            return index;
+        }
+
+        private final String[] names;
+
+        private final PropFile.Prop[] unfiltered;
+
+        private final AtomicReferenceArray<PropFile.Prop> filtered;
+
+        /**
+         * The slots of the properties in the order in which the chain would iterate them.
+         */
+        private int[] order;
+
+        private int size;
+
+        /**
+         * The index of the default chain from which this index was built.
+         */
+        private final Index defaultIndex;
 
         /**
-         * An abstract iterator which shares the {@link #hasNext()} logic between the filtered and unfiltered varieties.
+         * The chain's {@link PropFile} objects from which this index was built.
          */
-        private static abstract class ImplIterator implements Iterator<PropFile.Prop> {
-            final Set<PropFile.Prop> encountered = new HashSet<PropFile.Prop>();
-            int index = 0;
-            Iterator<PropFile.Prop> curIter;
-            PropFile.Prop current = PropFile.Prop.Empty;
-            boolean incremented = false;
-            boolean hasNext = true;
-            final List<PropFile> chain;
-            final Impl defaultChain;
-            
-            private ImplIterator(List<PropFile> chain, Impl defaultChain) {
-                this.chain = chain;
-                this.defaultChain = defaultChain;
-            }
-            
-            @Override public boolean hasNext() {
-                if (incremented) {
-                    return hasNext;
+        private final PropFile[] files;
+
+        /**
+         * The {@link PropFile#modifications()} of {@link #files} when this index was built.
+         */
+        private final int[] modifications;
+
+        private Index(String[] names, PropFile.Prop[] unfiltered, int[] order, int size, Index defaultIndex,
+                      PropFile[] files, int[] modifications) {
+            this.names = names;
+            this.unfiltered = unfiltered;
+            this.filtered = new AtomicReferenceArray<PropFile.Prop>(unfiltered.length);
+            this.order = order;
+            this.size = size;
+            this.defaultIndex = defaultIndex;
+            this.files = files;
+            this.modifications = modifications;
+        }
+
+        /**
+         * @param named of the property
+         * @return the slot of the property named {@code named} or -1 if there is no such property
+         */
+        private int slot(String named) {
+            if (size == 0) {
+                return -1;
+            }
+            int mask = names.length - 1;
+            for (int slot = spread(named.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+                String name = names[slot];
+                if (name == null) {
+                    return -1;
                 }
-                incremented = true;
-                if ((curIter == null) || !curIter.hasNext()) {
-                    if (index < 3) {
-                        curIter = chain.get(index++).props().iterator();
-                    } else if (index++ == 3) {
-                        curIter = defaultChain.iterator();
-                    } else {
-                        return (hasNext = false);
-                    }
+                if ((name == named) || name.equals(named)) {
+                    return slot;
                 }
-                while ((hasNext = curIter.hasNext()) && !encountered.add(current = curIter.next())) { }
-                if (!hasNext && (index < 4)) {
-                    incremented = false;
-                    return hasNext();
+            }
+        }
+
+        private void putIfAbsent(PropFile.Prop prop, Index previous) {
+            int mask = names.length - 1;
+            int slot = spread(prop.name.hashCode()) & mask;
+            for (; names[slot] != null; slot = (slot + 1) & mask) {
+                if (names[slot].equals(prop.name)) {
+                    return;
+                }
+            }
+            names[slot] = prop.name;
+            unfiltered[slot] = prop;
+            if (previous != null) {
+                int previousSlot = previous.slot(prop.name);
+                if ((previousSlot != -1) && (previous.unfiltered[previousSlot] == prop)) {
+                    filtered.set(slot, previous.filtered.get(previousSlot));
                 }
-                return hasNext;
             }
-            @Override public void remove() {
-                throw new UnsupportedOperationException();
+            if (size == order.length) {
+                order = Arrays.copyOf(order, Math.max(4, size * 2));
             }
+            order[size++] = slot;
         }
-        
+
+        /**
+         * @param chain the ad-hoc, local and system {@link PropFile} objects from which this index was built
+         * @param defaultIndex the current index of the default chain
+         * @return true if this index still reflects {@code chain} and {@code defaultIndex}
+         */
+        private boolean isCurrent(List<PropFile> chain, Index defaultIndex) {
+            if (this.defaultIndex != defaultIndex) {
+                return false;
+            }
+            for (int i = 0; i < files.length; i++) {
+                PropFile propFile = chain.get(i);
+                if ((propFile != files[i]) || (propFile.modifications() != modifications[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int spread(int hash) {
+            return (hash ^ (hash >>> 16));
+        }
+    }
+
+    /**
+     * Internal representation of the chain's data.  This nested class exists so that {@link PropFileChain}
+     * can be marked final but yet the root, empty, default delegate can be an extension which always returns
+     * the {@link PropFile.Prop#Empty} value.  This eliminates the need for null checking.
+     */
+    private static class Impl {
+
+        /**
+         * The empty {@link Impl} implementation.
+         */
+        private static final Impl Empty = new Impl(null, Collections.<Context, PropFileChain>emptyMap()) {
+            @Override protected Index index() {
+                return Index.Empty;
+            }
+        };
+
         private final List<PropFile> chain;
         
         private final Impl defaultChain;
 
         private final Map<Context, PropFileChain> filterConsultant;
-        
-        private final Map<String, PropFile.Prop> filteredCache;
+
+        private final String uniqueIdentifier;
+
+        private volatile Index index;
         
         private Impl(Impl defaultChain, Map<Context, PropFileChain> filterConsultant) {
-            chain = new ArrayList<PropFile>(3);
-            chain.add(PropFile.Empty); // ad-hoc
-            chain.add(PropFile.Empty); // local
-            chain.add(PropFile.Empty); // system
+            chain = new CopyOnWriteArrayList<PropFile>(new PropFile[] {
+                PropFile.Empty, // ad-hoc
+                PropFile.Empty, // local
+                PropFile.Empty  // system
+            });
             this.defaultChain = defaultChain;
             this.filterConsultant = filterConsultant;
-            this.filteredCache = new ConcurrentHashMap<String, PropFile.Prop>();
+            this.uniqueIdentifier = String.valueOf(System.identityHashCode(this));
         }
         
         private void set(PropFile propFile, PropFile.Loc at) {
-            filteredCache.clear(); // invalidation of filter cache
+            PropFile replaced;
             switch (at) {
                 case AdHoc:
-                    chain.set(0, propFile); break;
+                    replaced = chain.set(0, propFile); break;
                 case Local:
-                    chain.set(1, propFile); break;
+                    replaced = chain.set(1, propFile); break;
                 case System:
-                    chain.set(2, propFile); break;
+                    replaced = chain.set(2, propFile); break;
                 default:
                     throw new AssertionError(String.format("Unsupported PropFile.Loc value %s", at.name()));
             }
+            if ((replaced.size() != 0) || (propFile.size() != 0)) {
+                index = null; // invalidation of the index (and so filtered values)
+            } // else, no value changed; the index is rebuilt upon next lookup retaining the filtered values
+        }
+
+        /**
+         * @return the current index of this chain, building it if necessary
+         */
+        protected Index index() {
+            Index current = index;
+            Index defaultIndex = defaultChain.index();
+            if ((current == null) || !current.isCurrent(chain, defaultIndex)) {
+                synchronized (this) {
+                    current = index;
+                    if ((current == null) || !current.isCurrent(chain, defaultIndex)) {
+                        current = Index.build(chain, defaultIndex, current);
+                        index = current;
+                    }
+                }
+            }
+            return current;
         }
         
         protected PropFile.Prop get(String named) {
-            if (filteredCache.containsKey(named)) {
-                return filteredCache.get(named);
+            Index current = index();
+            int slot = current.slot(named);
+            if (slot == -1) {
+                return PropFile.Prop.Empty;
             }
-            PropFile.Prop unfiltered = internalGet(named);
-            PropFile.Prop filtered = unfiltered;
-            if (PropFile.Prop.Empty != unfiltered) {
-                filtered = Filter.filter(unfiltered, String.valueOf(System.identityHashCode(this)), filterConsultant);
+            PropFile.Prop filtered = current.filtered.get(slot);
+            if (filtered == null) {
+                filtered = Filter.filter(current.unfiltered[slot], uniqueIdentifier, filterConsultant);
+                current.filtered.set(slot, filtered);
             }
-            filteredCache.put(named, filtered);
             return filtered;
         }
-        
-        protected PropFile.Prop internalGet(String named) {
-            for (PropFile propFile : chain) {
-                if (propFile == PropFile.Empty) {
-                    continue;
-                }
-                PropFile.Prop prop = propFile.get(named);
-                if (prop != PropFile.Prop.Empty) {
-                    return prop;
-                }
-            }
-            return defaultChain.get(named);
-        }
 
         protected Iterator<PropFile.Prop> iterator() {
-            return new ImplIterator(chain, defaultChain) {
+            final Index current = index();
+            return new Iterator<PropFile.Prop>() {
+                private int position = 0;
+                @Override public boolean hasNext() {
+                    return (position < current.size);
+                }
                 @Override public PropFile.Prop next() {
-                    if (!incremented) {
-                        hasNext();
+                    if (position >= current.size) {
+                        return PropFile.Prop.Empty; // as with PropFile.EmptyIterator
                     }
-                    incremented = false;
-                    return get(current.name); //ensures filtering happens...
+                    return get(current.names[current.order[position++]]); // ensures filtering happens...
+                }
+                @Override public void remove() {
+                    throw new UnsupportedOperationException();
                 }
             };
         }
+
+        /**
+         * Clears the filtered values of those properties whose context-qualified name is within {@code invalidated}
+         * (or of all properties if {@code invalidated} is null).
+         */
+        private void invalidateFiltered(Set<String> invalidated) {
+            Index current = index;
+            if (current == null) {
+                return;
+            }
+            for (int i = 0; i < current.size; i++) {
+                int slot = current.order[i];
+                PropFile.Prop prop = current.unfiltered[slot];
+                if ((invalidated == null) || invalidated.contains(Filter.qualify(prop.context(), prop.name))) {
+                    current.filtered.set(slot, null);
+                }
+            }
+        }
         
     }
     
@@ -238,7 +380,16 @@ public final class PropFileChain {
      * Clears the filtered cache of property values.
      */
     final void invalidateFilteredCache() {
-        delegate.filteredCache.clear();
+        delegate.invalidateFiltered(null);
+    }
+
+    /**
+     * Removes from the filtered cache those property values which are invalid; i.e., those named within
+     * {@code invalidated}.
+     * @param invalidated the context-qualified names of the invalid property values (see {@link Filter#invalidate(Collection)})
+     */
+    final void invalidateFilteredCache(Set<String> invalidated) {
+        delegate.invalidateFiltered(invalidated);
     }
     
 }
@@ -33,102 +33,14 @@ public interface PropFileReader {
      * escaped as the only key to value delimiter is the '#' character.  However, like {@link java.util.Properties},
      * whitespace is not allowed as the start of the key (it will be trimmed by this implementation).
      */
-    static final PropFileReader Default = new PropFileReader() {
-        
-        class ParseResult {
-            private final Boolean complete;
-            private final String key;
-            private final String value;
-            private ParseResult(Boolean complete, String key, String value) {
-                this.complete = complete;
-                this.key = key;
-                this.value = value;
-            }
-        }
-
-        @Override public void load(BufferedReader reader, PropFile into) throws IOException {
-            if ((reader == null) || (into == null)) {
-                throw new NullPointerException("The BufferedReader and PropFile cannot be null.");
-            }
-            String line;
-            StringBuilder commentsBuffer = new StringBuilder();
-            ParseResult parsing = null;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty() && (parsing == null)) {
-                    // continue;
-                } else if (line.startsWith("#")) {
-                    if (commentsBuffer.length() > 0) {
-                        commentsBuffer.append("\n");
-                    }
-                    commentsBuffer.append(line.substring(1));
-                } else {
-                    ParseResult parsedLine = parse(line);
-                    if (parsing != null) {
-                        if (!parsedLine.key.isEmpty()) {
-                            throw new Invalid("Properties may only have one key.");
-                        }
-                        parsing = new ParseResult(false, parsing.key, String.format("%s%s", parsing.value, parsedLine.value));
-                    } else {
-                        parsing = parsedLine;
-                    }
-                    if (parsedLine.complete) {
-                        if (parsing.key.isEmpty()) {
-                            throw new Invalid("Keys must be non-empty.");
-                        } else if (into.contains(parsing.key)) {
-                            throw new Invalid("Keys must be unique.");
-                        }
-                        into.add(parsing.key.trim(), parsing.value.trim(), commentsBuffer.toString());
-                        parsing = null;
-                        commentsBuffer = new StringBuilder();
-                    }
-                }
-            }
-        }
+    static final PropFileReader Default = new CharBufferPropFileReader(true);
 
-        @SuppressWarnings("fallthrough")
-        private ParseResult parse(String line) {
-            StringBuilder buffer = new StringBuilder();
-            String key = "", value;
-            boolean isEscaped = false;
-            for (char character : line.toCharArray()) {
-                switch (character) {
-                    case '\\':
-                        isEscaped = true;
-                        break;
-                    case '=':
-                        if (isEscaped || !key.isEmpty()) {
-                            buffer.append('=');
-                        } else {
-                            key = buffer.toString();
-                            buffer = new StringBuilder();
-                        }
-                        isEscaped = false;
-                        break;
-                    case ':':
-                    case ' ':
-                        if (isEscaped && key.isEmpty()) {
-                            isEscaped = false; // eliminate ':' and ' ' escapes within key to conform to {@link Properties}
-                        }
-                    default:
-                        if (isEscaped) {
-                            buffer.append('\\');
-                        }
-                        buffer.append(character);
-                        isEscaped = false;
-                }
-            }
-            if (isEscaped) {
-                buffer.append('\\');
-            }
-            value = buffer.toString();
-            if (value.endsWith("\\")) {
-                return new ParseResult(false, key, value.substring(0, value.length() - 1));
-            } else {
-                return new ParseResult(true, key, value);
-            }
-        }
-    };
+    /**
+     * Reads as {@link #Default} except that comments are skipped (every property's comments are empty) and keys are
+     * interned.  Intended for the many small, generated, files which are only read (i.e., class dependencies,
+     * checksums and resolved dependencies); do not use for files which may be re-stored as their comments would be lost.
+     */
+    static final PropFileReader Uncommented = new CharBufferPropFileReader(false);
 
     /**
      * Caller is responsible for calling {@link java.io.BufferedReader#close()}.
@@ -67,6 +67,23 @@ public final class PropFiles {
      */
     public static PropFile load(String path, boolean create, boolean nullOnFNF)
             throws PropFileReader.Invalid {
+        return load(path, create, nullOnFNF, PropFileReader.Default);
+    }
+
+    /**
+     * Calls {@link #load(String, PropFileReader, PropFile, boolean, boolean)} with the given {@code propFileReader}.
+     * It creates a {@link PropFile} based upon the {@code path}.
+     * @param path  @see {@link #load(String, PropFileReader, PropFile, boolean, boolean)}
+     * @param create  @see {@link #load(String, PropFileReader, PropFile, boolean, boolean)}
+     * @param nullOnFNF if {@link #load(String, PropFileReader, PropFile, boolean, boolean)} returns false then this
+     *                  method will return null.
+     * @param propFileReader @see {@link #load(String, PropFileReader, PropFile, boolean, boolean)}
+     * @return the loaded {@link PropFile} or an empty {@link PropFile} if the file could not be loaded
+     *         and {@code nullOnFNF} was false, otherwise null.
+     * @throws PropFileReader.Invalid @see {@link #load(String, PropFileReader, PropFile, boolean, boolean)}
+     */
+    public static PropFile load(String path, boolean create, boolean nullOnFNF, PropFileReader propFileReader)
+            throws PropFileReader.Invalid {
         if (path == null) {
             throw new NullPointerException("The path to load must not be null.");
         }
@@ -84,7 +101,7 @@ public final class PropFiles {
             context = Context.named(name);
         }
         PropFile propFile = new PropFile(context, scope, PropFile.Loc.System);
-        if (load(path, PropFileReader.Default, propFile, create, nullOnFNF)) {
+        if (load(path, propFileReader, propFile, create, nullOnFNF)) {
             return propFile;
         } else if (nullOnFNF) {
             return null;
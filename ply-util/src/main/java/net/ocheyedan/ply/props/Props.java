@@ -3,8 +3,10 @@ package net.ocheyedan.ply.props;
 import net.ocheyedan.ply.PlyUtil;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static net.ocheyedan.ply.props.PropFile.Prop;
@@ -61,14 +63,14 @@ public final class Props {
      */
     public static Map<Context, PropFileChain> get (Scope scope, File configurationDirectory, boolean ignoreCache) {
         Map<Scope, Map<Context, PropFileChain>> loaded = Loader.load(configurationDirectory, ignoreCache);
-        if ((loaded == null) || !loaded.containsKey(scope)) {
-            if ((loaded != null) && !Scope.Default.equals(scope) && loaded.containsKey(Scope.Default)) {
-                return loaded.get(Scope.Default);
-            } else {
-                return Collections.emptyMap();
-            }
+        if (loaded == null) {
+            return Collections.emptyMap();
+        }
+        Map<Context, PropFileChain> scoped = loaded.get(scope);
+        if ((scoped == null) && !Scope.Default.equals(scope)) {
+            scoped = loaded.get(Scope.Default);
         }
-        return loaded.get(scope);
+        return (scoped == null ? Collections.<Context, PropFileChain>emptyMap() : scoped);
     }
 
     /**
@@ -131,12 +133,8 @@ public final class Props {
      *         {@code configurationDirectory}. The result will never be null, it will be empty if not present.
      */
     public static PropFileChain get(Context context, Scope scope, File configurationDirectory, boolean ignoreCache) {
-        Map<Context, PropFileChain> loaded = get(scope, configurationDirectory, ignoreCache);
-        if (loaded.containsKey(context)) {
-            return loaded.get(context);
-        } else {
-            return new PropFileChain(Collections.<Context, PropFileChain>emptyMap());
-        }
+        PropFileChain chain = get(scope, configurationDirectory, ignoreCache).get(context);
+        return (chain == null ? new PropFileChain(Collections.<Context, PropFileChain>emptyMap()) : chain);
     }
 
     /**
@@ -198,7 +196,7 @@ public final class Props {
      *         variable is not set.
      */
     public static Scope getScope() {
-        String scope = System.getenv("ply_ply.scope"); // cannot use Props itself as this is called internally while resolving
+        String scope = Env.get("ply_ply.scope"); // cannot use Props itself as this is called internally while resolving
         return (scope == null ? Scope.Default : new Scope(scope));
     }
 
@@ -251,6 +249,23 @@ public final class Props {
         }
         Filter.clearCache();
     }
+
+    /**
+     * For each {@link PropFileChain} associated with {@code configDirectory}, clears the filtered property values which
+     * depend (directly or through other properties) upon any of {@code changed}.  Unlike
+     * {@link #invalidateFilteredCaches(File)} filtered values unaffected by {@code changed} remain cached.
+     * @param configDirectory for which to clear the filtered cache of all associated {@link PropFileChain} objects.
+     * @param changed the context-qualified names (i.e., {@literal compiler.java.debug}) of the changed properties
+     */
+    static void invalidateFilteredCaches(File configDirectory, Collection<String> changed) {
+        Set<String> invalidated = Filter.invalidate(changed);
+        Map<Scope, Map<Context, PropFileChain>> loaded = Loader.load(configDirectory);
+        for (Map<Context, PropFileChain> contexts : loaded.values()) {
+            for (PropFileChain chain : contexts.values()) {
+                chain.invalidateFilteredCache(invalidated);
+            }
+        }
+    }
     
     private Props() { }
 
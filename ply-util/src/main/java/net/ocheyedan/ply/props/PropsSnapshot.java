@@ -0,0 +1,214 @@
+package net.ocheyedan.ply.props;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:35 PM
+ *
+ * A compact, binary, snapshot of resolved properties.  Rather than exporting every property as an environment
+ * variable to a script, ply writes the resolved properties to a snapshot and exports only its path (as
+ * {@literal ply_ply.props.snapshot}).  The script memory-maps the snapshot and looks up properties within it lazily;
+ * see {@link PropFile} objects created via {@link #map(java.io.File, Scope, PropFile.Loc)}.
+ *
+ * The format of the snapshot is (all integers are big-endian, all offsets are from the start of the file):
+ * <pre>
+ *     int magic, int version, int context-count
+ *     context-count * [ int name-offset, int first-entry, int entry-count ]
+ *     int entry-count
+ *     entry-count * [ int name-offset, int value-offset ]
+ *     strings * [ int byte-length, bytes (UTF-8) ]
+ * </pre>
+ * Entries are grouped by context and sorted by name within each context so that a property can be found via
+ * binary search without reading the other entries.
+ */
+final class PropsSnapshot {
+
+    /**
+     * The properties of a single {@link Context} within a snapshot.
+     */
+    static final class Section {
+
+        private final ByteBuffer buffer;
+
+        private final int first;
+
+        private final int count;
+
+        private Section(ByteBuffer buffer, int first, int count) {
+            this.buffer = buffer;
+            this.first = first;
+            this.count = count;
+        }
+
+        /**
+         * @return the number of properties within this section
+         */
+        int size() {
+            return count;
+        }
+
+        /**
+         * @param index of the entry within this section
+         * @return the name of the property at {@code index}
+         */
+        String name(int index) {
+            return readString(buffer, buffer.getInt(entryOffset(index)));
+        }
+
+        /**
+         * @param index of the entry within this section
+         * @return the value of the property at {@code index}
+         */
+        String value(int index) {
+            return readString(buffer, buffer.getInt(entryOffset(index) + 4));
+        }
+
+        /**
+         * @param name of the property
+         * @return the value of the property named {@code name} or null if there is no such property within this section
+         */
+        String get(String name) {
+            int low = 0, high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = name(middle).compareTo(name);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return value(middle);
+                }
+            }
+            return null;
+        }
+
+        private int entryOffset(int index) {
+            return buffer.getInt(8) * 12 + 16 + ((first + index) * 8);
+        }
+    }
+
+    private static final int MAGIC = 0x504c5950; // 'PLYP'
+
+    private static final int VERSION = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Writes {@code props} as a snapshot to {@code to}.
+     * @param props a mapping of context to a mapping of property name to property value
+     * @param to the file into which to write the snapshot
+     * @throws IOException if the snapshot could not be written
+     */
+    static void write(Map<Context, Map<String, String>> props, File to) throws IOException {
+        List<Context> contexts = new ArrayList<Context>(props.keySet());
+        Collections.sort(contexts);
+        int entryCount = 0;
+        for (Context context : contexts) {
+            entryCount += props.get(context).size();
+        }
+        int stringsStart = 12 + (contexts.size() * 12) + 4 + (entryCount * 8);
+        ByteArrayOutputStream stringBytes = new ByteArrayOutputStream(entryCount * 32);
+        DataOutputStream strings = new DataOutputStream(stringBytes);
+        Map<String, Integer> stringOffsets = new HashMap<String, Integer>(entryCount * 2);
+
+        ByteArrayOutputStream tableBytes = new ByteArrayOutputStream(stringsStart);
+        DataOutputStream table = new DataOutputStream(tableBytes);
+        table.writeInt(MAGIC);
+        table.writeInt(VERSION);
+        table.writeInt(contexts.size());
+        int entry = 0;
+        List<List<String>> sortedNames = new ArrayList<List<String>>(contexts.size());
+        for (Context context : contexts) {
+            List<String> names = new ArrayList<String>(props.get(context).keySet());
+            Collections.sort(names);
+            sortedNames.add(names);
+            table.writeInt(writeString(context.name, stringsStart, strings, stringOffsets));
+            table.writeInt(entry);
+            table.writeInt(names.size());
+            entry += names.size();
+        }
+        table.writeInt(entryCount);
+        for (int i = 0; i < contexts.size(); i++) {
+            Map<String, String> contextProps = props.get(contexts.get(i));
+            for (String name : sortedNames.get(i)) {
+                String value = contextProps.get(name);
+                table.writeInt(writeString(name, stringsStart, strings, stringOffsets));
+                table.writeInt(writeString(value == null ? "" : value, stringsStart, strings, stringOffsets));
+            }
+        }
+        table.flush();
+        strings.flush();
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(to));
+        try {
+            tableBytes.writeTo(out);
+            stringBytes.writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Memory-maps the snapshot at {@code from}.
+     * @param from the snapshot file
+     * @param scope to associate with the created {@link PropFile} objects
+     * @param loc to associate with the created {@link PropFile} objects
+     * @return a mapping of context to a {@link PropFile} whose properties are lazily read from the snapshot
+     * @throws IOException if the snapshot could not be read or is not a snapshot
+     */
+    static Map<Context, PropFile> map(File from, Scope scope, PropFile.Loc loc) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(from, "r");
+        MappedByteBuffer buffer;
+        try {
+            FileChannel channel = file.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // mapping outlives the channel
+        } finally {
+            file.close();
+        }
+        if ((buffer.capacity() < 16) || (buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION)) {
+            throw new IOException(String.format("%s is not a property snapshot.", from.getPath()));
+        }
+        int contextCount = buffer.getInt(8);
+        Map<Context, PropFile> propFiles = new HashMap<Context, PropFile>(contextCount * 2, 1.0f);
+        for (int i = 0; i < contextCount; i++) {
+            int offset = 12 + (i * 12);
+            Context context = Context.named(readString(buffer, buffer.getInt(offset)));
+            Section section = new Section(buffer, buffer.getInt(offset + 4), buffer.getInt(offset + 8));
+            propFiles.put(context, PropFile.mapped(context, scope, loc, section));
+        }
+        return propFiles;
+    }
+
+    private static int writeString(String value, int stringsStart, DataOutputStream strings,
+                                   Map<String, Integer> stringOffsets) throws IOException {
+        Integer existing = stringOffsets.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int offset = stringsStart + strings.size();
+        byte[] bytes = value.getBytes(UTF8);
+        strings.writeInt(bytes.length);
+        strings.write(bytes);
+        stringOffsets.put(value, offset);
+        return offset;
+    }
+
+    private static String readString(ByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + 4);
+        view.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private PropsSnapshot() { }
+
+}
@@ -0,0 +1,56 @@
+package net.ocheyedan.ply;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:43 PM
+ */
+public class OutputTest {
+
+    @After
+    public void after() {
+        Output.reset();
+    }
+
+    @Test
+    public void resolve() {
+        Output.reset();
+        Output.init("false", "true", "warn,info");
+
+        String plain = "no markup here";
+        assertSame(plain, Output.resolve(plain, new Object[0]));
+        assertEquals("100% done", Output.resolve("%d%% done", new Object[] { 100 }));
+
+        assertEquals("[ply] building proj", Output.resolve("^ply^ building ^b^%s^r^", new Object[] { "proj" }));
+        assertEquals("[err!] failed", Output.resolve("^error^ failed", new Object[0]));
+        assertEquals("[warn] careful", Output.resolve("^warn^ careful", new Object[0]));
+        assertEquals("[info] note", Output.resolve("^info^ note", new Object[0]));
+        // the debug level is disabled
+        assertNull(Output.resolve("^dbug^ detail", new Object[0]));
+        assertNull(Output.resolve("prefix ^dbug^ detail", new Object[0]));
+
+        // tokens are matched left to right; the 'warn' within is not itself a token
+        assertEquals("warn", Output.resolve("^cyan^warn^r^", new Object[0]));
+        // unknown tokens are left as is and their closing '^' may open a token
+        assertEquals("^unknown^ and bold", Output.resolve("^unknown^ and ^b^bold", new Object[0]));
+        assertEquals("^^x", Output.resolve("^^x^b^", new Object[0]));
+        assertEquals("trailing ^", Output.resolve("trailing ^", new Object[0]));
+        // markup within arguments is rendered as well
+        assertEquals("[script] [ply] nested", Output.resolve("[^green^%s^r^] %s", new Object[] { "script", "^ply^ nested" }));
+    }
+
+    @Test
+    public void resolveUndecorated() {
+        Output.reset();
+        Output.init("false", "false", "warn,info");
+
+        assertEquals("^ply^ building ^b^proj^r^", Output.resolve("^ply^ building ^b^%s^r^", new Object[] { "proj" }));
+        assertNull(Output.resolve("^dbug^ detail", new Object[0]));
+    }
+
+}
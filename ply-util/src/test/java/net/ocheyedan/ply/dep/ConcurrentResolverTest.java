@@ -0,0 +1,135 @@
+package net.ocheyedan.ply.dep;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.graph.DirectedAcyclicGraph;
+import net.ocheyedan.ply.graph.Graph;
+import net.ocheyedan.ply.graph.Vertex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.util.*;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 8:05 PM
+ */
+public class ConcurrentResolverTest {
+
+    private File repository;
+
+    private RepositoryAtom repositoryAtom;
+
+    private final List<File> localRepositories = new ArrayList<File>();
+
+    @Before
+    public void setup() throws IOException {
+        repository = File.createTempFile("test", "repo");
+        repository.delete();
+        // a diamond (a and b both depend upon d) with conflicting versions of c
+        artifact("a", "1.0", "c:1.0", "d:1.0");
+        artifact("b", "1.0", "c:2.0", "d:1.0");
+        artifact("e", "1.0", "c:1.5", "f:1.0");
+        artifact("c", "1.0");
+        artifact("c", "1.5");
+        artifact("c", "2.0");
+        artifact("d", "1.0", "g:1.0");
+        artifact("f", "1.0", "g:1.0", "c:2.0");
+        artifact("g", "1.0");
+        String path = repository.getAbsolutePath();
+        repositoryAtom = new RepositoryAtom(path, URI.create("file://" + path), RepositoryAtom.Type.maven);
+    }
+
+    @After
+    public void cleanup() {
+        FileUtil.delete(repository);
+        for (File localRepository : localRepositories) {
+            FileUtil.delete(localRepository);
+        }
+    }
+
+    /**
+     * The resolved graph (the order of its vertices) and the conflicting versions encountered (and their order) are
+     * the same whether or not dependencies are resolved concurrently ahead of the walk.
+     */
+    @Test
+    public void deterministic() throws IOException {
+        List<String> sequentialConflicts = new ArrayList<String>();
+        List<String> sequential = resolve(1, sequentialConflicts);
+        assertFalse(sequentialConflicts.isEmpty());
+        for (int i = 0; i < 5; i++) {
+            List<String> concurrentConflicts = new ArrayList<String>();
+            List<String> concurrent = resolve(8, concurrentConflicts);
+            assertEquals(sequential, concurrent);
+            assertEquals(sequentialConflicts, concurrentConflicts);
+        }
+    }
+
+    /**
+     * Resolves into a new (empty) local repository so that every dependency is resolved from {@link #repository}.
+     */
+    private List<String> resolve(int threads, final List<String> conflicts) throws IOException {
+        File localRepository = File.createTempFile("test", "local-repo");
+        localRepository.delete();
+        localRepository.mkdirs();
+        localRepositories.add(localRepository);
+        String localPath = localRepository.getAbsolutePath();
+        RepositoryAtom localRepositoryAtom = new RepositoryAtom(localPath, URI.create("file://" + localPath),
+                RepositoryAtom.Type.ply);
+        List<DependencyAtom> dependencyAtoms = Arrays.asList(new DependencyAtom("ns", "a", "1.0"),
+                new DependencyAtom("ns", "b", "1.0"), new DependencyAtom("ns", "e", "1.0"));
+        RepositoryRegistry registry = new RepositoryRegistry(localRepositoryAtom, Collections.singletonList(repositoryAtom),
+                null);
+        DirectedAcyclicGraph<Dep> graph = Deps.getDependencyGraph(dependencyAtoms, Collections.<DependencyAtom>emptySet(),
+                registry, null, true, new ConflictingVersionVisitor() {
+                    @Override public void visit(Dep diffVersionDep, Dep resolvedDep, Vertex<Dep> parentVertex,
+                                                DependencyAtom dependencyAtom, Graph<Dep> graph) {
+                        conflicts.add(String.format("%s|%s|%s|%s", diffVersionDep, resolvedDep,
+                                (parentVertex == null ? null : parentVertex.getValue()), dependencyAtom));
+                    }
+                }, threads);
+        List<String> vertices = new ArrayList<String>();
+        for (Vertex<Dep> vertex : graph.getVertices()) {
+            StringBuilder children = new StringBuilder();
+            for (Vertex<Dep> child : vertex.getChildren()) {
+                children.append(child.getValue()).append(' ');
+            }
+            vertices.add(vertex.getValue() + " -> " + children);
+        }
+        return vertices;
+    }
+
+    private void artifact(String name, String version, String ... dependencies) throws IOException {
+        File directory = FileUtil.fromParts(repository.getPath(), "ns", name, version);
+        directory.mkdirs();
+        StringBuilder pom = new StringBuilder("<project><modelVersion>4.0.0</modelVersion><groupId>ns</groupId>");
+        pom.append("<artifactId>").append(name).append("</artifactId><version>").append(version)
+           .append("</version><dependencies>");
+        for (String dependency : dependencies) {
+            String[] parts = dependency.split(":");
+            pom.append("<dependency><groupId>ns</groupId><artifactId>").append(parts[0]).append("</artifactId><version>")
+               .append(parts[1]).append("</version></dependency>");
+        }
+        pom.append("</dependencies></project>");
+        write(new File(directory, name + "-" + version + ".pom"), pom.toString());
+        write(new File(directory, name + "-" + version + ".jar"), name + ":" + version);
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
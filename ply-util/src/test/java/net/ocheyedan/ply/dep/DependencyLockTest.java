@@ -0,0 +1,88 @@
+package net.ocheyedan.ply.dep;
+
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.PropFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:01 PM
+ */
+public class DependencyLockTest {
+
+    @Test
+    public void hash() throws URISyntaxException {
+        RepositoryAtom repo = new RepositoryAtom("/tmp/repo", new URI("file:///tmp/repo"), RepositoryAtom.Type.maven);
+        RepositoryRegistry registry = new RepositoryRegistry(repo, null, null);
+        List<DependencyAtom> deps = Arrays.asList(new DependencyAtom("ns", "a", "1.0"), new DependencyAtom("ns", "b", "2.0"));
+        Set<DependencyAtom> exclusions = Collections.emptySet();
+        String hash = DependencyLock.hash(deps, exclusions, registry, null);
+        assertNotNull(hash);
+        assertEquals(hash, DependencyLock.hash(new ArrayList<DependencyAtom>(deps), exclusions, registry, null));
+        assertFalse(hash.equals(DependencyLock.hash(deps, exclusions, registry, "sources")));
+        assertFalse(hash.equals(DependencyLock.hash(Arrays.asList(new DependencyAtom("ns", "a", "1.1"), new DependencyAtom("ns", "b", "2.0")),
+                exclusions, registry, null)));
+        assertFalse(hash.equals(DependencyLock.hash(deps, Collections.singleton(new DependencyAtom("ns", "c", "1.0")), registry, null)));
+        RepositoryAtom remote = new RepositoryAtom("/tmp/remote", new URI("file:///tmp/remote"), RepositoryAtom.Type.ply);
+        assertFalse(hash.equals(DependencyLock.hash(deps, exclusions, new RepositoryRegistry(repo, Collections.singletonList(remote), null), null)));
+        Map<DependencyAtom, List<DependencyAtom>> synthetic = new HashMap<DependencyAtom, List<DependencyAtom>>();
+        synthetic.put(new DependencyAtom("ns", "self", "1.0"), deps);
+        String syntheticHash = DependencyLock.hash(deps, exclusions, new RepositoryRegistry(repo, null, synthetic), null);
+        assertFalse(hash.equals(syntheticHash));
+        synthetic.put(new DependencyAtom("ns", "self", "1.0"), deps.subList(0, 1));
+        assertFalse(syntheticHash.equals(DependencyLock.hash(deps, exclusions, new RepositoryRegistry(repo, null, synthetic), null)));
+    }
+
+    @Test
+    public void storeAndLoad() throws IOException {
+        File lockFile = File.createTempFile("test", ".lock");
+        lockFile.delete();
+        File artifact = File.createTempFile("test", ".jar");
+        write(artifact, "jar");
+        File missing = new File(artifact.getPath() + ".missing");
+
+        PropFile resolved = new PropFile(Context.named("resolved-deps"), PropFile.Loc.Local);
+        resolved.add("ns:b:2.0:b-2.0.jar", artifact.getPath());
+        resolved.add("ns:a:1.0:a-1.0.jar", missing.getPath());
+        assertNull(DependencyLock.load(lockFile, "hash"));
+        DependencyLock.store(lockFile, "hash", resolved);
+
+        PropFile loaded = DependencyLock.load(lockFile, "hash");
+        assertNotNull(loaded);
+        Iterator<PropFile.Prop> iterator = loaded.props().iterator();
+        PropFile.Prop prop = iterator.next();
+        assertEquals("ns:b:2.0:b-2.0.jar", prop.name);
+        assertEquals(artifact.getPath(), prop.value());
+        assertEquals("ns:a:1.0:a-1.0.jar", iterator.next().name);
+        assertFalse(iterator.hasNext());
+
+        // a different hash is a miss
+        assertNull(DependencyLock.load(lockFile, "other"));
+        // as is a changed artifact
+        write(artifact, "changed jar");
+        assertNull(DependencyLock.load(lockFile, "hash"));
+
+        artifact.delete();
+        lockFile.delete();
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package net.ocheyedan.ply.dep;
+
+import net.ocheyedan.ply.FileUtil;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:04 PM
+ */
+public class MissingArtifactCacheTest {
+
+    private static final String URL = "http://repo.example.com/ns/name/1.0/name-1.0.jar";
+
+    @Test
+    public void missing() throws IOException {
+        File file = File.createTempFile("test", "missing");
+        file.delete();
+        long ttl = TimeUnit.HOURS.toMillis(1);
+
+        MissingArtifactCache cache = new MissingArtifactCache(file, ttl, false);
+        assertFalse(cache.isMissing(URL));
+        cache.putMissing(URL);
+        cache.putMissing("file:///tmp/repo/ns/name/1.0/name-1.0.jar");
+        assertTrue(cache.isMissing(URL));
+        assertFalse(cache.isMissing("file:///tmp/repo/ns/name/1.0/name-1.0.jar"));
+        cache.flush();
+        assertTrue(file.exists());
+
+        // persisted
+        cache = new MissingArtifactCache(file, ttl, false);
+        assertTrue(cache.isMissing(URL));
+        // bypassed
+        assertFalse(new MissingArtifactCache(file, ttl, true).isMissing(URL));
+        // expired
+        assertFalse(new MissingArtifactCache(file, 0, false).isMissing(URL));
+
+        // found again
+        cache.putFound(URL);
+        assertFalse(cache.isMissing(URL));
+        cache.flush();
+        assertFalse(new MissingArtifactCache(file, ttl, false).isMissing(URL));
+
+        file.delete();
+    }
+
+    @Test
+    public void invalidate() throws IOException {
+        File directory = File.createTempFile("test", "local-repo");
+        directory.delete();
+        directory.mkdirs();
+        try {
+            String path = directory.getAbsolutePath();
+            RepositoryAtom localRepository = new RepositoryAtom(path, URI.create("file://" + path), RepositoryAtom.Type.ply);
+            MissingArtifactCache cache = MissingArtifactCache.get(localRepository);
+            assertSame(cache, MissingArtifactCache.get(localRepository));
+            cache.putMissing(URL);
+
+            // created anew, having persisted what was not yet flushed
+            MissingArtifactCache.invalidate();
+            MissingArtifactCache invalidated = MissingArtifactCache.get(localRepository);
+            assertNotSame(cache, invalidated);
+            assertTrue(invalidated.isMissing(URL));
+        } finally {
+            MissingArtifactCache.invalidate();
+            FileUtil.delete(directory);
+        }
+    }
+
+}
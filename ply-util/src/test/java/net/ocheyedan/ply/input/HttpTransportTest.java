@@ -0,0 +1,179 @@
+package net.ocheyedan.ply.input;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:57 PM
+ */
+public class HttpTransportTest {
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    private final Set<Integer> clientPorts = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+    private final AtomicInteger unavailable = new AtomicInteger(0);
+
+    private final AtomicInteger stalled = new AtomicInteger(0);
+
+    @Before
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override public void handle(HttpExchange exchange) throws IOException {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                String path = exchange.getRequestURI().getPath();
+                byte[] body = ("contents of " + path).getBytes("UTF-8");
+                if (path.startsWith("/missing")) {
+                    respond(exchange, 404, "not found".getBytes("UTF-8"));
+                } else if (path.startsWith("/unauthorized")) {
+                    unavailable.incrementAndGet();
+                    respond(exchange, 401, new byte[0]);
+                } else if (path.startsWith("/unavailable") && (unavailable.incrementAndGet() < 3)) {
+                    respond(exchange, 503, new byte[0]);
+                } else if (path.startsWith("/stalled") && (stalled.incrementAndGet() < 2)) {
+                    stall(exchange, body);
+                } else if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+                    gzip.write(body);
+                    gzip.close();
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                    respond(exchange, 200, compressed.toByteArray());
+                } else {
+                    respond(exchange, 200, body);
+                }
+            }
+        });
+        // handled concurrently so that a stalled response does not delay its retry
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @After
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void open() throws IOException {
+        HttpTransport transport = new HttpTransport(1000, 1000, 2, 1);
+
+        // poms are requested compressed, artifacts are not
+        assertEquals("contents of /a/b.pom", read(transport.open(url("/a/b.pom"), null)));
+        assertEquals("contents of /a/b.jar", read(transport.open(url("/a/b.jar"), null)));
+        // connections are reused, including after not found responses
+        try {
+            transport.open(url("/missing.pom"), null);
+            fail("Expected a FileNotFoundException");
+        } catch (FileNotFoundException fnfe) {
+            // expected
+        }
+        assertEquals("contents of /a/c.pom", read(transport.open(url("/a/c.pom"), null)));
+        assertEquals(1, clientPorts.size());
+
+        // server errors are retried
+        assertEquals("contents of /unavailable.pom", read(transport.open(url("/unavailable.pom"), null)));
+        assertEquals(3, unavailable.get());
+
+        // client errors are not
+        unavailable.set(0);
+        try {
+            transport.open(url("/unauthorized.pom"), null);
+            fail("Expected an IOException");
+        } catch (IOException ioe) {
+            // expected
+        }
+        assertEquals(1, unavailable.get());
+    }
+
+    @Test
+    public void retriedMidBody() throws IOException {
+        HttpTransport transport = new HttpTransport(1000, 200, 2, 1);
+        // the first response stalls (beyond the read timeout) after part of its body, the download is retried
+        assertEquals("contents of /stalled.jar", read(transport.open(url("/stalled.jar"), null)));
+        assertEquals(2, stalled.get());
+
+        stalled.set(0);
+        transport = new HttpTransport(1000, 200, 0, 1);
+        InputStream stream = transport.open(url("/stalled.jar"), null);
+        try {
+            read(stream);
+            fail("Expected a SocketTimeoutException");
+        } catch (SocketTimeoutException ste) {
+            // expected, no retries remain
+        }
+        assertEquals(1, stalled.get());
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static void respond(HttpExchange exchange, int code, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(code, (body.length == 0 ? -1 : body.length));
+        OutputStream stream = exchange.getResponseBody();
+        stream.write(body);
+        stream.close();
+    }
+
+    /**
+     * Sends the first half of {@code body} and then waits (without completing the response).
+     */
+    private static void stall(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream stream = exchange.getResponseBody();
+        try {
+            stream.write(body, 0, body.length / 2);
+            stream.flush();
+            Thread.sleep(500L);
+            stream.write(body, body.length / 2, body.length - (body.length / 2));
+            stream.close();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ioe) {
+            // the client has abandoned the response
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        try {
+            ByteArrayOutputStream read = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int length;
+            while ((length = stream.read(buffer)) != -1) {
+                read.write(buffer, 0, length);
+            }
+            return read.toString("UTF-8");
+        } finally {
+            stream.close();
+        }
+    }
+
+}
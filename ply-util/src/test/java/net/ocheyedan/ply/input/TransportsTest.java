@@ -0,0 +1,43 @@
+package net.ocheyedan.ply.input;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 8:20 PM
+ */
+public class TransportsTest {
+
+    @Test
+    public void invalidate() {
+        Transport created = Transports.get();
+        assertSame(created, Transports.get());
+        // the default is created anew
+        Transports.invalidate();
+        Transport recreated = Transports.get();
+        assertNotSame(created, recreated);
+
+        // but a transport which has been set is retained
+        Transport set = new Transport() {
+            @Override public InputStream open(URL url, Map<String, String> headers) throws IOException {
+                throw new IOException(url.toString());
+            }
+        };
+        Transports.set(set);
+        try {
+            Transports.invalidate();
+            assertSame(set, Transports.get());
+        } finally {
+            Transports.set(null);
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package net.ocheyedan.ply.mvn;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.dep.RepositoryAtom;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:09 PM
+ */
+public class MavenPomCacheTest {
+
+    private static final String PARENT = "<project><groupId>ns</groupId><artifactId>parent</artifactId><version>1.0</version>"
+            + "<properties><dep.version>2.0</dep.version></properties></project>";
+
+    private static final String CHILD = "<project><parent><groupId>ns</groupId><artifactId>parent</artifactId><version>1.0</version></parent>"
+            + "<artifactId>%s</artifactId><dependencies><dependency><groupId>ns</groupId><artifactId>dep</artifactId>"
+            + "<version>${dep.version}</version></dependency></dependencies></project>";
+
+    @Test
+    public void localInvalidated() throws Exception {
+        File directory = File.createTempFile("test", "local-repo");
+        directory.delete();
+        File pom = new File(directory, FileUtil.pathFromParts("ns", "parent", "1.0", "parent-1.0.pom"));
+        try {
+            write(pom, PARENT);
+            String path = directory.getAbsolutePath();
+            RepositoryAtom repositoryAtom = RepositoryAtom.parse("maven:" + path);
+            String pomUrlPath = "file://" + pom.getAbsolutePath();
+            MavenPomElement parsed = MavenPomCache.Memory.parse(pomUrlPath, repositoryAtom, null);
+            assertEquals("1.0", getText(parsed, "version"));
+            assertSame(parsed, MavenPomCache.Memory.parse(pomUrlPath, repositoryAtom, null));
+
+            // installing into the local repository is only seen once invalidated
+            write(pom, PARENT.replace("1.0", "1.1"));
+            assertEquals("1.0", getText(MavenPomCache.Memory.parse(pomUrlPath, repositoryAtom, null), "version"));
+            MavenPomCache.invalidateLocal();
+            assertEquals("1.1", getText(MavenPomCache.Memory.parse(pomUrlPath, repositoryAtom, null), "version"));
+        } finally {
+            MavenPomCache.invalidateLocal();
+            FileUtil.delete(directory);
+        }
+    }
+
+    @Test
+    public void parentFetchedOnce() throws IOException {
+        final ConcurrentMap<String, AtomicInteger> requests = new ConcurrentHashMap<String, AtomicInteger>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                requests.putIfAbsent(path, new AtomicInteger(0));
+                requests.get(path).incrementAndGet();
+                String name = path.substring(path.lastIndexOf('/') + 1);
+                byte[] body = (name.startsWith("parent") ? PARENT : String.format(CHILD, name.substring(0, name.indexOf('-'))))
+                        .getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        File directory = File.createTempFile("test", "poms");
+        directory.delete();
+        try {
+            String repositoryUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+            RepositoryAtom repositoryAtom = RepositoryAtom.parse("maven:" + repositoryUrl);
+            MavenPomParser parser = new MavenPomParser(MavenPomCache.get(directory));
+            for (String artifactId : new String[] { "a", "b", "c" }) {
+                MavenPom pom = parser.parsePom(String.format("%s/ns/%s/1.0/%s-1.0.pom", repositoryUrl, artifactId, artifactId),
+                        repositoryAtom);
+                assertEquals(artifactId, pom.artifactId);
+                assertEquals("2.0", pom.dependencies.get("ns:dep").value());
+            }
+            assertEquals(1, requests.get("/ns/parent/1.0/parent-1.0.pom").get());
+            assertEquals(1, requests.get("/ns/a/1.0/a-1.0.pom").get());
+            assertTrue(new File(directory, FileUtil.pathFromParts("ns", "parent", "1.0", "parent-1.0.pom")).exists());
+        } finally {
+            server.stop(0);
+            FileUtil.delete(directory);
+        }
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String getText(MavenPomElement pom, String name) {
+        for (MavenPomElement child : pom.children) {
+            if (name.equals(child.name)) {
+                return child.getTextContent();
+            }
+        }
+        return null;
+    }
+
+}
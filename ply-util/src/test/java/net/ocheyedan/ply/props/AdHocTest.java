@@ -2,7 +2,9 @@ package net.ocheyedan.ply.props;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static junit.framework.Assert.*;
@@ -103,6 +105,20 @@ public class AdHocTest {
 
     }
     
+    @Test public void add() {
+        AdHoc.adHocProps.clear();
+        assertTrue(AdHoc.add(null).isEmpty());
+
+        Set<String> added = AdHoc.add(Arrays.asList("compiler.src=src", "compiler#test.src.dir=test-src",
+                                                    "compiler.src=other-src", "compiler"));
+        // the duplicate (first encountered is used) and the invalid property are not added
+        assertEquals(2, added.size());
+        assertTrue(added.contains("compiler.src"));
+        assertTrue(added.contains("compiler.src.dir"));
+
+        AdHoc.adHocProps.clear();
+    }
+
     @Test
     public void produceFor() {
         
@@ -379,4 +379,32 @@ public class FilterTest {
 
     }
 
+    @Test
+    public void invalidate() {
+        Map<Context, PropFileChain> filterConsultant = new ConcurrentHashMap<Context, PropFileChain>(2, 1.0f);
+        PropFileChain chain = new PropFileChain(filterConsultant);
+        PropFile container = new PropFile(Context.named("invalidate"), PropFile.Loc.System);
+        container.add("outer", "${middle}/outer");
+        container.add("middle", "${inner}/middle");
+        container.add("inner", "one");
+        container.add("other", "${unrelated}/other");
+        container.add("unrelated", "two");
+        chain.set(container, PropFile.Loc.System);
+        filterConsultant.put(Context.named("invalidate"), chain);
+
+        assertEquals("one/middle/outer", chain.get("outer").value());
+        PropFile.Prop other = chain.get("other");
+        assertEquals("two/other", other.value());
+
+        container.set("inner", "three");
+        Set<String> invalidated = Filter.invalidate(Collections.singleton("invalidate.inner"));
+        Assert.assertTrue(invalidated.contains("invalidate.middle"));
+        Assert.assertTrue(invalidated.contains("invalidate.outer"));
+        Assert.assertFalse(invalidated.contains("invalidate.other"));
+        chain.invalidateFilteredCache(invalidated);
+
+        assertEquals("three/middle/outer", chain.get("outer").value());
+        Assert.assertSame(other, chain.get("other"));
+    }
+
 }
@@ -0,0 +1,113 @@
+package net.ocheyedan.ply.props;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Iterator;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:19 PM
+ */
+public class PropFileCacheTest {
+
+    @Test
+    public void loadAndPut() throws IOException {
+        File cacheFile = File.createTempFile("test", "cache");
+        cacheFile.delete();
+        File file = File.createTempFile("test", ".properties");
+        write(file, "# first\nzeta=1\nalpha=2\n");
+        age(file);
+
+        PropFileCache cache = PropFileCache.openFile(cacheFile);
+        PropFile propFile = new PropFile(Context.named("test"), PropFile.Loc.Local);
+        assertFalse(cache.load(file, propFile));
+        PropFiles.load(file.getPath(), propFile);
+        cache.put(file, propFile);
+        cache.close();
+        assertTrue(cacheFile.exists());
+
+        // order and comments are preserved
+        PropFile cached = new PropFile(Context.named("test"), PropFile.Loc.Local);
+        assertTrue(PropFileCache.openFile(cacheFile).load(file, cached));
+        Iterator<PropFile.Prop> iterator = cached.props().iterator();
+        PropFile.Prop zeta = iterator.next();
+        assertEquals("zeta", zeta.name);
+        assertEquals("1", zeta.value());
+        assertEquals(propFile.get("zeta").comments(), zeta.comments());
+        assertEquals("alpha", iterator.next().name);
+        assertFalse(iterator.hasNext());
+
+        // a changed file is a miss
+        write(file, "# first\nzeta=10\nalpha=2\n");
+        assertFalse(PropFileCache.openFile(cacheFile).load(file, new PropFile(Context.named("test"), PropFile.Loc.Local)));
+
+        file.delete();
+        cacheFile.delete();
+    }
+
+    @Test
+    public void racilyClean() throws IOException {
+        File cacheFile = File.createTempFile("test", "cache");
+        cacheFile.delete();
+        File file = File.createTempFile("test", ".properties");
+        write(file, "key=value\n");
+        age(file);
+
+        PropFileCache cache = PropFileCache.openFile(cacheFile);
+        PropFile propFile = new PropFile(Context.named("test"), PropFile.Loc.Local);
+        PropFiles.load(file.getPath(), propFile);
+        cache.put(file, propFile);
+        cache.close();
+
+        // modified within the granularity of the modification time; a further modification might go unnoticed
+        write(file, "key=other\n");
+        cache = PropFileCache.openFile(cacheFile);
+        propFile = new PropFile(Context.named("test"), PropFile.Loc.Local);
+        assertFalse(cache.load(file, propFile));
+        PropFiles.load(file.getPath(), propFile);
+        cache.put(file, propFile);
+        cache.close();
+        long lastModified = file.lastModified();
+        write(file, "key=third\n");
+        assertTrue(file.setLastModified(lastModified));
+        assertFalse(PropFileCache.openFile(cacheFile).load(file, new PropFile(Context.named("test"), PropFile.Loc.Local)));
+
+        file.delete();
+        cacheFile.delete();
+    }
+
+    @Test
+    public void invalid() throws IOException {
+        File cacheFile = File.createTempFile("test", "cache");
+        write(cacheFile, "not a cache");
+        File file = File.createTempFile("test", ".properties");
+        write(file, "key=value\n");
+
+        PropFileCache cache = PropFileCache.openFile(cacheFile);
+        assertFalse(cache.load(file, new PropFile(Context.named("test"), PropFile.Loc.Local)));
+
+        file.delete();
+        cacheFile.delete();
+    }
+
+    /**
+     * Sets the modification time of {@code file} to beyond {@link PropFileCache#MODIFICATION_GRANULARITY} ago.
+     */
+    private static void age(File file) {
+        assertTrue(file.setLastModified(System.currentTimeMillis() - (2 * PropFileCache.MODIFICATION_GRANULARITY)));
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -3,7 +3,12 @@ package net.ocheyedan.ply.props;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static junit.framework.Assert.*;
 
@@ -118,5 +123,101 @@ public class PropFileChainTest {
         assertFalse(iterator.hasNext());
 
     }
-    
+
+    @Test
+    public void modifications() {
+        PropFileChain chain = new PropFileChain(Collections.<Context, PropFileChain>emptyMap());
+        PropFile systemFile = new PropFile(Context.named("test"), PropFile.Loc.System);
+        systemFile.add("test", "system-value");
+        chain.set(systemFile, PropFile.Loc.System);
+        PropFileChain scopedChain = new PropFileChain(chain, Collections.<Context, PropFileChain>emptyMap());
+
+        PropFile.Prop testProp = scopedChain.get("test");
+        assertEquals("system-value", testProp.value());
+        assertSame(PropFile.Prop.Empty, scopedChain.get("added"));
+
+        // modifying a file of the default chain is reflected within the scoped chain
+        systemFile.add("added", "added-value");
+        assertEquals("added-value", scopedChain.get("added").value());
+        assertEquals("added-value", chain.get("added").value());
+        // unmodified properties retain their filtered value
+        assertSame(testProp, scopedChain.get("test"));
+
+        systemFile.remove("added");
+        assertSame(PropFile.Prop.Empty, scopedChain.get("added"));
+    }
+
+    @Test
+    public void modificationsWhileIndexing() throws InterruptedException {
+        final PropFileChain chain = new PropFileChain(Collections.<Context, PropFileChain>emptyMap());
+        final PropFile systemFile = new PropFile(Context.named("test"), PropFile.Loc.System);
+        chain.set(systemFile, PropFile.Loc.System);
+        final int count = 2000;
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] readers = new Thread[2];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(new Runnable() {
+                @Override public void run() {
+                    try {
+                        // each lookup after a modification rebuilds the index, concurrently with the next modification
+                        for (int j = 0; writing.get(); j = ((j + 1) % count)) {
+                            chain.get("prop" + j);
+                        }
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                }
+            });
+            readers[i].start();
+        }
+        for (int i = 0; i < count; i++) {
+            systemFile.add("prop" + i, "value" + i);
+            if ((i % 2) == 0) {
+                systemFile.set("prop" + (i / 2), "set" + (i / 2));
+            }
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+        // no index built while modifying may be mistaken as current
+        for (int i = 0; i < count; i++) {
+            String expected = (i < (count / 2) ? "set" : "value") + i;
+            assertEquals(expected, chain.get("prop" + i).value());
+        }
+    }
+
+    @Test
+    public void adHocOverlay() {
+        Context context = Context.named("test");
+        Map<Context, PropFileChain> filterConsultant = new HashMap<Context, PropFileChain>();
+        PropFileChain chain = new PropFileChain(filterConsultant);
+        filterConsultant.put(context, chain);
+        PropFile systemFile = new PropFile(context, PropFile.Loc.System);
+        systemFile.add("referenced", "system");
+        systemFile.add("referencing", "${referenced}-value");
+        systemFile.add("independent", "independent-value");
+        chain.set(systemFile, PropFile.Loc.System);
+
+        PropFile.Prop referencing = chain.get("referencing");
+        assertEquals("system-value", referencing.value());
+        PropFile.Prop independent = chain.get("independent");
+
+        // setting an empty ad-hoc file changes no value
+        PropFile adHocFile = new PropFile(context, PropFile.Loc.AdHoc);
+        chain.set(adHocFile, PropFile.Loc.AdHoc);
+        assertSame(referencing, chain.get("referencing"));
+        assertSame(independent, chain.get("independent"));
+
+        // adding an ad-hoc property only invalidates the filtered values which reference it
+        adHocFile.add("referenced", "ad-hoc");
+        Set<String> invalidated = Filter.invalidate(Collections.singleton(Filter.qualify(context, "referenced")));
+        chain.invalidateFilteredCache(invalidated);
+        assertEquals("ad-hoc", chain.get("referenced").value());
+        assertEquals("ad-hoc-value", chain.get("referencing").value());
+        assertSame(independent, chain.get("independent"));
+    }
+
 }
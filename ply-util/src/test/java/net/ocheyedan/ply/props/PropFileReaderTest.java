@@ -5,8 +5,10 @@ import org.junit.Test;
 
 import java.io.*;
 import java.util.Iterator;
+import java.util.Random;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.fail;
 
 /**
@@ -109,4 +111,77 @@ public class PropFileReaderTest {
         assertEquals("", prop.comments());
     }
 
+    @Test
+    public void loadUncommented() throws IOException {
+        File base;
+        if (FileUtil.getCanonicalPath(new File("./")).contains("ply-util")) {
+            base = new File("./");
+        } else {
+            base = new File("ply-util/");
+        }
+        File mock1 = FileUtil.fromParts(base.getPath(), "src/test/resources/mock-prop-files/mock-1.properties");
+        PropFile propFile = new PropFile(Context.named("test"), PropFile.Loc.Local);
+        PropFileReader.Uncommented.load(new BufferedReader(new InputStreamReader(new FileInputStream(mock1))), propFile);
+        PropFile commented = new PropFile(Context.named("test"), PropFile.Loc.Local);
+        PropFileReader.Default.load(new BufferedReader(new InputStreamReader(new FileInputStream(mock1))), commented);
+
+        assertEquals(commented.size(), propFile.size());
+        Iterator<PropFile.Prop> iterator = propFile.props().iterator();
+        for (PropFile.Prop expected : commented.props()) {
+            PropFile.Prop prop = iterator.next();
+            assertEquals(expected.name, prop.name);
+            assertEquals(expected.value(), prop.value());
+            assertEquals("", prop.comments());
+        }
+
+        // keys are interned across loads
+        PropFile other = new PropFile(Context.named("test"), PropFile.Loc.Local);
+        PropFileReader.Uncommented.load(new BufferedReader(new StringReader("# comment\r\nkey_1 = other\r\n")), other);
+        assertSame(propFile.props().iterator().next().name, other.props().iterator().next().name);
+        assertEquals("other", other.get("key_1").value());
+    }
+
+    /**
+     * Checks that {@link PropFileReader#Default} (and, ignoring comments, {@link PropFileReader#Uncommented}) read
+     * random inputs exactly as the previous {@link LineBasedPropFileReader}; including failing with the same message.
+     */
+    @Test
+    public void equivalentToLineBased() throws IOException {
+        String[] alphabet = { "a", "b", "key", " ", "\t", "=", "\\", "#", ":", "!", "\n", "\r", "\r\n", "\u00e9" };
+        Random random = new Random(42L);
+        PropFileReader lineBased = new LineBasedPropFileReader();
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 300000; i++) {
+            input.setLength(0);
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                input.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String[] expected = read(lineBased, input.toString());
+            assertEquals(input.toString(), expected[0], read(PropFileReader.Default, input.toString())[0]);
+            assertEquals(input.toString(), expected[1], read(PropFileReader.Uncommented, input.toString())[1]);
+        }
+    }
+
+    /**
+     * @return the properties read by {@code reader} from {@code input} (or its failure) as a string, with and then
+     *         without their comments
+     */
+    private static String[] read(PropFileReader reader, String input) throws IOException {
+        PropFile propFile = new PropFile(Context.named("test"), PropFile.Loc.Local);
+        try {
+            reader.load(new BufferedReader(new StringReader(input)), propFile);
+        } catch (PropFileReader.Invalid invalid) {
+            String failure = "invalid: " + invalid.getMessage();
+            return new String[] { failure, failure };
+        }
+        StringBuilder withComments = new StringBuilder(), withoutComments = new StringBuilder();
+        for (PropFile.Prop prop : propFile.props()) {
+            withoutComments.append('[').append(prop.name).append("]=[").append(prop.value()).append("]\n");
+            withComments.append('[').append(prop.name).append("]=[").append(prop.value()).append("]#[")
+                        .append(prop.comments()).append("]\n");
+        }
+        return new String[] { withComments.toString(), withoutComments.toString() };
+    }
+
 }
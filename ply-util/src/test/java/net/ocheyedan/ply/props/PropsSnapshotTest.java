@@ -0,0 +1,112 @@
+package net.ocheyedan.ply.props;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:35 PM
+ */
+public class PropsSnapshotTest {
+
+    @Test
+    public void writeAndMap() throws IOException {
+        Map<Context, Map<String, String>> props = new HashMap<Context, Map<String, String>>();
+        Map<String, String> project = new HashMap<String, String>();
+        project.put("name", "ply");
+        project.put("version", "1.0");
+        project.put("build.dir", "target");
+        project.put("empty", "");
+        props.put(Context.named("project"), project);
+        Map<String, String> compiler = new HashMap<String, String>();
+        compiler.put("debug", "true");
+        compiler.put("unicode", "\u00e9t\u00e9");
+        compiler.put("same", "1.0"); // shares its value with project.version
+        props.put(Context.named("compiler"), compiler);
+        props.put(Context.named("none"), new HashMap<String, String>());
+
+        File snapshot = File.createTempFile("props-", ".snapshot");
+        snapshot.deleteOnExit();
+        PropsSnapshot.write(props, snapshot);
+
+        Map<Context, PropFile> mapped = PropsSnapshot.map(snapshot, Scope.named("test"), PropFile.Loc.System);
+        assertEquals(3, mapped.size());
+
+        PropFile projectFile = mapped.get(Context.named("project"));
+        assertEquals(4, projectFile.size());
+        assertEquals("ply", projectFile.get("name").value());
+        assertEquals("1.0", projectFile.get("version").value());
+        assertEquals("target", projectFile.get("build.dir").value());
+        assertEquals("", projectFile.get("empty").value());
+        assertTrue(projectFile.contains("empty"));
+        assertSame(PropFile.Prop.Empty, projectFile.get("missing"));
+        assertFalse(projectFile.contains("missing"));
+        assertSame(projectFile.get("name"), projectFile.get("name"));
+        assertEquals(Context.named("project"), projectFile.get("name").context());
+        assertEquals(Scope.named("test"), projectFile.get("name").scope());
+
+        PropFile compilerFile = mapped.get(Context.named("compiler"));
+        assertEquals("\u00e9t\u00e9", compilerFile.get("unicode").value());
+        assertEquals("1.0", compilerFile.get("same").value());
+
+        PropFile noneFile = mapped.get(Context.named("none"));
+        assertTrue(noneFile.isEmpty());
+        assertFalse(noneFile.props().iterator().hasNext());
+    }
+
+    @Test
+    public void materialize() throws IOException {
+        Map<Context, Map<String, String>> props = new HashMap<Context, Map<String, String>>();
+        Map<String, String> project = new HashMap<String, String>();
+        project.put("b", "2");
+        project.put("a", "1");
+        project.put("c", "3");
+        props.put(Context.named("project"), project);
+        File snapshot = File.createTempFile("props-", ".snapshot");
+        snapshot.deleteOnExit();
+        PropsSnapshot.write(props, snapshot);
+
+        PropFile projectFile = PropsSnapshot.map(snapshot, Scope.Default, PropFile.Loc.System).get(Context.named("project"));
+        PropFile.Prop retrieved = projectFile.get("b");
+        Iterator<PropFile.Prop> iterator = projectFile.props().iterator();
+        assertEquals("a", iterator.next().name);
+        assertSame(retrieved, iterator.next()); // lazily retrieved props are retained upon materialization
+        assertEquals("c", iterator.next().name);
+        assertFalse(iterator.hasNext());
+
+        assertNotNull(projectFile.remove("a"));
+        assertFalse(projectFile.contains("a"));
+        assertSame(PropFile.Prop.Empty, projectFile.get("a"));
+        projectFile.add("d", "4");
+        assertEquals(3, projectFile.size());
+        assertEquals("4", projectFile.get("d").value());
+    }
+
+    @Test
+    public void mapInvalid() throws IOException {
+        File notSnapshot = File.createTempFile("props-", ".snapshot");
+        notSnapshot.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(notSnapshot);
+        try {
+            out.write("project.name=ply\n".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        try {
+            PropsSnapshot.map(notSnapshot, Scope.Default, PropFile.Loc.System);
+            fail("Expecting an IOException as the file is not a snapshot.");
+        } catch (IOException ioe) {
+            // expected
+        }
+    }
+
+}
@@ -13,6 +13,10 @@ public class OutputExt {
         Output.printFromExec(message, args);
     }
 
+    public static String renderFromExec(String message, Object ... args) {
+        return Output.renderFromExec(message, args);
+    }
+
     public static String resolve(String message, Object[] args) {
         return Output.resolve(message, args);
     }
@@ -25,4 +29,12 @@ public class OutputExt {
         Output.init(coloredOutput, decorated, logLevels);
     }
 
+    public static void setLinePrefix(String prefix) {
+        Output.setLinePrefix(prefix);
+    }
+
+    public static void reset() {
+        Output.reset();
+    }
+
 }
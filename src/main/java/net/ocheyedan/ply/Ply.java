@@ -2,6 +2,9 @@ package net.ocheyedan.ply;
 
 import net.ocheyedan.ply.cmd.Command;
 import net.ocheyedan.ply.cmd.CommandLineParser;
+import net.ocheyedan.ply.cmd.build.Build;
+import net.ocheyedan.ply.daemon.DaemonClient;
+import net.ocheyedan.ply.exec.SharedArchives;
 import net.ocheyedan.ply.props.AdHoc;
 
 /**
@@ -17,8 +20,15 @@ public final class Ply {
 
         try {
             SystemExit.ply = true;
-            Runtime.getRuntime().addShutdownHook(new ShutdownHandler());
             Command command = CommandLineParser.parse(args);
+            if ((command instanceof Build) && !SharedArchives.isTraining()) {
+                // hand off to the project's daemon, if running (unless training, as the daemon's scripts wouldn't be)
+                Integer exitCode = DaemonClient.delegate(args);
+                if (exitCode != null) {
+                    System.exit(exitCode);
+                }
+            }
+            Runtime.getRuntime().addShutdownHook(new ShutdownHandler());
             AdHoc.add(command.args.adHocProps);
             command.run();
         } catch (SystemExit se) {
@@ -0,0 +1,349 @@
+package net.ocheyedan.ply;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:52 PM
+ *
+ * Records where the time of a build is spent as a series of spans and writes them, in the trace-event format, to the
+ * file named by property {@literal trace} within the {@literal ply} context (i.e., {@literal -Pply.trace=trace.json}).
+ * The written file can be viewed within {@literal chrome://tracing} or {@literal Perfetto}.
+ *
+ * Spans are recorded per thread (i.e., per submodule when building submodules in parallel).  When no recording has
+ * been started, {@link #begin(String, String)} returns a span which records nothing so that callers needn't check
+ * whether tracing is enabled.
+ */
+public final class Trace {
+
+    /**
+     * A timed section of the build.  A span is recorded upon {@link #end()} with the thread which began it.
+     */
+    public static final class Span {
+
+        private static final Span NONE = new Span(null, null, null, 0L);
+
+        private final Recording recording;
+
+        private final String category;
+
+        private final String name;
+
+        private final long start;
+
+        private final Thread thread;
+
+        private Map<String, Object> args;
+
+        private Span(Recording recording, String category, String name, long start) {
+            this.recording = recording;
+            this.category = category;
+            this.name = name;
+            this.start = start;
+            this.thread = Thread.currentThread();
+        }
+
+        /**
+         * Associates {@code value} with this span as argument {@code name}.
+         * @param name of the argument
+         * @param value of the argument; numbers are recorded as such, all else via {@link String#valueOf(Object)}
+         * @return this span
+         */
+        public Span arg(String name, Object value) {
+            if (recording != null) {
+                if (args == null) {
+                    args = new LinkedHashMap<String, Object>(4);
+                }
+                args.put(name, value);
+            }
+            return this;
+        }
+
+        /**
+         * Ends this span, recording it.
+         */
+        public void end() {
+            if (recording != null) {
+                long now = recording.now();
+                recording.add(new Event("X", category, name, start, (now - start), thread, args));
+            }
+        }
+    }
+
+    private static final class Event {
+
+        private final String phase;
+
+        private final String category;
+
+        private final String name;
+
+        private final long timestamp;
+
+        private final long duration;
+
+        private final long threadId;
+
+        private final String threadName;
+
+        private final Map<String, Object> args;
+
+        private Event(String phase, String category, String name, long timestamp, long duration, Thread thread,
+                      Map<String, Object> args) {
+            this.phase = phase;
+            this.category = category;
+            this.name = name;
+            this.timestamp = timestamp;
+            this.duration = duration;
+            this.threadId = thread.getId();
+            this.threadName = thread.getName();
+            this.args = args;
+        }
+    }
+
+    private static final class Recording {
+
+        private final File to;
+
+        private final long origin;
+
+        private final Queue<Event> events;
+
+        private final Map<Long, String> threads;
+
+        private Recording(File to) {
+            this.to = to;
+            this.origin = System.nanoTime();
+            this.events = new ConcurrentLinkedQueue<Event>();
+            this.threads = new ConcurrentHashMap<Long, String>(4, 1.0f);
+        }
+
+        /**
+         * @return microseconds since this recording started
+         */
+        private long now() {
+            return (System.nanoTime() - origin) / 1000L;
+        }
+
+        private void add(Event event) {
+            if (!threads.containsKey(event.threadId)) {
+                threads.put(event.threadId, event.threadName);
+            }
+            events.add(event);
+        }
+    }
+
+    /**
+     * The number of clock ticks per second used by {@literal /proc/self/stat}; this is {@literal USER_HZ} which is
+     * 100 on all supported architectures.
+     */
+    private static final long CLOCK_TICKS = 100L;
+
+    private static final AtomicReference<Recording> RECORDING = new AtomicReference<Recording>(null);
+
+    /**
+     * Starts recording, to be written to {@code path} upon {@link #finish()}.
+     * @param path to which to write the trace, relative to the working directory; if null or empty nothing is recorded
+     */
+    public static void start(String path) {
+        if ((path == null) || path.trim().isEmpty()) {
+            return;
+        }
+        RECORDING.set(new Recording(new File(path.trim()).getAbsoluteFile()));
+    }
+
+    /**
+     * @return true if a recording has been started (and not finished)
+     */
+    public static boolean isEnabled() {
+        return (RECORDING.get() != null);
+    }
+
+    /**
+     * @param category of the span (i.e., {@literal exec})
+     * @param name of the span
+     * @return a started span; or, if nothing is being recorded, a span which records nothing
+     */
+    public static Span begin(String category, String name) {
+        Recording recording = RECORDING.get();
+        if (recording == null) {
+            return Span.NONE;
+        }
+        return new Span(recording, category, name, recording.now());
+    }
+
+    /**
+     * Records the current {@code value} of counter {@code name}.
+     * @param name of the counter
+     * @param values the value of each series of the counter
+     */
+    public static void counter(String name, Map<String, Object> values) {
+        Recording recording = RECORDING.get();
+        if (recording == null) {
+            return;
+        }
+        recording.add(new Event("C", "ply", name, recording.now(), 0L, Thread.currentThread(), values));
+    }
+
+    /**
+     * @return the sum of the user and system time, in milliseconds, of all children which have been reaped by this
+     *         process or -1 if not available (it is only available on {@literal Linux}).  Note, children are reaped
+     *         as they exit so the difference between two calls includes all children which exited in between.
+     */
+    public static long getChildrenCpuTime() {
+        File stat = new File("/proc/self/stat");
+        if (!stat.exists()) {
+            return -1L;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(stat));
+            String line = reader.readLine();
+            // the second field (the command name) may contain spaces, the fields of interest follow it; they are
+            // cutime and cstime (the 16th and 17th fields)
+            String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" ");
+            return ((Long.parseLong(fields[13]) + Long.parseLong(fields[14])) * 1000L) / CLOCK_TICKS;
+        } catch (Exception e) {
+            return -1L;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ioe) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops recording and writes the recorded spans, if any recording had been started.
+     */
+    public static void finish() {
+        Recording recording = RECORDING.getAndSet(null);
+        if (recording == null) {
+            return;
+        }
+        Writer writer = null;
+        try {
+            File parent = recording.to.getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(recording.to), "UTF-8"));
+            write(recording, writer);
+            Output.print("^ply^ Trace written to ^b^%s^r^.", recording.to.getPath());
+        } catch (IOException ioe) {
+            Output.print("^warn^ Could not write trace to ^b^%s^r^ [ %s ].", recording.to.getPath(), ioe.getMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ioe) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private static void write(Recording recording, Writer writer) throws IOException {
+        String pid = getPid();
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        writer.write("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":");
+        writer.write(pid);
+        writer.write(",\"tid\":0,\"args\":{\"name\":\"ply\"}}");
+        for (Map.Entry<Long, String> thread : recording.threads.entrySet()) {
+            writer.write(",\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":");
+            writer.write(pid);
+            writer.write(",\"tid\":");
+            writer.write(String.valueOf(thread.getKey()));
+            writer.write(",\"args\":{\"name\":");
+            writeString(thread.getValue(), writer);
+            writer.write("}}");
+        }
+        for (Event event : recording.events) {
+            writer.write(",\n{\"name\":");
+            writeString(event.name, writer);
+            writer.write(",\"cat\":");
+            writeString(event.category, writer);
+            writer.write(",\"ph\":\"");
+            writer.write(event.phase);
+            writer.write("\",\"ts\":");
+            writer.write(String.valueOf(event.timestamp));
+            if ("X".equals(event.phase)) {
+                writer.write(",\"dur\":");
+                writer.write(String.valueOf(event.duration));
+            }
+            writer.write(",\"pid\":");
+            writer.write(pid);
+            writer.write(",\"tid\":");
+            writer.write(String.valueOf(event.threadId));
+            if (event.args != null) {
+                writer.write(",\"args\":{");
+                boolean first = true;
+                for (Map.Entry<String, Object> arg : event.args.entrySet()) {
+                    if (!first) {
+                        writer.write(',');
+                    }
+                    first = false;
+                    writeString(arg.getKey(), writer);
+                    writer.write(':');
+                    if (arg.getValue() instanceof Number) {
+                        writer.write(String.valueOf(arg.getValue()));
+                    } else {
+                        writeString(String.valueOf(arg.getValue()), writer);
+                    }
+                }
+                writer.write('}');
+            }
+            writer.write('}');
+        }
+        writer.write("\n]}\n");
+    }
+
+    private static void writeString(String value, Writer writer) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char character = value.charAt(i);
+            switch (character) {
+                case '"': writer.write("\\\""); break;
+                case '\\': writer.write("\\\\"); break;
+                case '\n': writer.write("\\n"); break;
+                case '\r': writer.write("\\r"); break;
+                case '\t': writer.write("\\t"); break;
+                default:
+                    if (character < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) character));
+                    } else {
+                        writer.write(character);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+
+    /**
+     * @return the process id of this process if determinable, otherwise 1
+     */
+    private static String getPid() {
+        String name = ManagementFactory.getRuntimeMXBean().getName(); // by convention 'pid@host'
+        int index = (name == null ? -1 : name.indexOf('@'));
+        if (index > 0) {
+            try {
+                return String.valueOf(Long.parseLong(name.substring(0, index)));
+            } catch (NumberFormatException nfe) {
+                // fall-through
+            }
+        }
+        return "1";
+    }
+
+    private Trace() { }
+
+}
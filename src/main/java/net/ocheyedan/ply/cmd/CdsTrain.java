@@ -0,0 +1,119 @@
+package net.ocheyedan.ply.cmd;
+
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.OutputExt;
+import net.ocheyedan.ply.SystemExit;
+import net.ocheyedan.ply.exec.SharedArchives;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:07 PM
+ *
+ * A {@link Command} to create the class-data-sharing archives of ply and its bundled scripts (see {@link SharedArchives}).
+ * The project is built (by default {@literal clean test}) within a new ply process which, along with each script
+ * it runs, dumps the classes it loads.  Archives are then created from the dumped class lists.  The build is run with
+ * in-process scripts, up-to-date checks and the build cache disabled so that every script actually runs in its own
+ * {@literal JVM}.
+ */
+public final class CdsTrain extends Command.ProjectReliant {
+
+    public CdsTrain(Args args) {
+        super(args);
+    }
+
+    @Override protected void runBeforeAssumptionsCheck() {
+        OutputExt.init();
+    }
+
+    @Override protected void runAfterAssumptionsCheck() {
+        SharedArchives.startTraining();
+        List<String> jvmOptions = getJvmOptions();
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("ply.java"));
+        command.addAll(jvmOptions);
+        command.add("-D" + SharedArchives.TRAIN_PROPERTY + "=true");
+        File classList = SharedArchives.record("ply", jvmOptions.toArray(new String[jvmOptions.size()]));
+        if (classList != null) {
+            command.add("-XX:DumpLoadedClassList=" + classList.getPath());
+        }
+        command.add("net.ocheyedan.ply.Ply");
+        if (args.args.size() > 1) {
+            command.addAll(args.args.subList(1, args.args.size()));
+        } else {
+            command.add("clean");
+            command.add("test");
+        }
+        for (String adHocProp : args.adHocProps) {
+            command.add("-P" + adHocProp);
+        }
+        command.add("-Pscripts-jar.in-process=false");
+        command.add("-Pscripts-jar.up-to-date=false");
+        command.add("-Pply.build.cache=false");
+        Output.print("^ply^ Training the shared archives by running ^b^%s^r^.", command.subList(command.indexOf("net.ocheyedan.ply.Ply") + 1,
+                command.size()).toString());
+        int exitCode = run(command);
+        if (exitCode != 0) {
+            Output.print("^warn^ The training build failed, creating archives for those scripts which ran.");
+        }
+        int created = SharedArchives.dumpTrained();
+        Output.print("^ply^ Created ^b^%d^r^ shared archive%s within ^b^%s^r^.", created, (created == 1 ? "" : "s"),
+                SharedArchives.DIRECTORY.getPath());
+        if (created == 0) {
+            throw new SystemExit(1);
+        }
+    }
+
+    /**
+     * @return the options of this {@literal JVM}, less any class-data-sharing options; the training process is started
+     *         with the same options as those of the {@literal ply} launcher so that its archive matches
+     */
+    private static List<String> getJvmOptions() {
+        List<String> inputArguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        List<String> jvmOptions = new ArrayList<String>(inputArguments.size());
+        for (String inputArgument : inputArguments) {
+            if (inputArgument.startsWith("-XX:SharedArchiveFile=") || inputArgument.startsWith("-Xshare:")
+                    || inputArgument.startsWith("-XX:DumpLoadedClassList=")
+                    || inputArgument.startsWith("-D" + SharedArchives.TRAIN_PROPERTY + "=")) {
+                continue;
+            }
+            jvmOptions.add(inputArgument);
+        }
+        return jvmOptions;
+    }
+
+    /**
+     * Runs {@code command}, copying its output (which is already formatted by the child ply process) as is.
+     * @param command to run
+     * @return the exit code of {@code command}
+     */
+    private static int run(List<String> command) {
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            process.getOutputStream().close();
+            InputStream output = process.getInputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = output.read(buffer)) != -1) {
+                System.out.write(buffer, 0, read);
+                System.out.flush();
+            }
+            output.close();
+            return process.waitFor();
+        } catch (IOException ioe) {
+            Output.print(ioe);
+            throw new SystemExit(1);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new SystemExit(1);
+        }
+    }
+
+}
@@ -31,6 +31,10 @@ public final class CommandLineParser {
             return new Usage(parseArgs(Iter.sized(args)));
         } else if ("--version".equals(args[0]) || "-v".equals(args[0]) || "-version".equals(args[0])) {
             return new Version(parseArgs(Iter.sized(args)));
+        } else if ("daemon".equals(args[0])) {
+            return new Daemon(parseArgs(Iter.sized(args)));
+        } else if ("cds-train".equals(args[0])) {
+            return new CdsTrain(parseArgs(Iter.sized(args)));
         } else if ("init".equals(args[0])) {
             return new Init(parseArgs(Iter.sized(args)));
         } else if ("get".equals(args[0]) || args[0].endsWith(":get")) {
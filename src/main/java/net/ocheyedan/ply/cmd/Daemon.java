@@ -0,0 +1,42 @@
+package net.ocheyedan.ply.cmd;
+
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.OutputExt;
+import net.ocheyedan.ply.SystemExit;
+import net.ocheyedan.ply.daemon.DaemonClient;
+import net.ocheyedan.ply.daemon.DaemonServer;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:19 PM
+ *
+ * A {@link Command} to start (in the foreground) or stop the ply daemon for the project.
+ * @see DaemonServer
+ */
+public final class Daemon extends Command.ProjectReliant {
+
+    public Daemon(Args args) {
+        super(args);
+    }
+
+    @Override protected void runBeforeAssumptionsCheck() {
+        OutputExt.init();
+    }
+
+    @Override protected void runAfterAssumptionsCheck() {
+        if ((args.args.size() == 2) && "stop".equals(args.args.get(1))) {
+            Integer exitCode = DaemonClient.delegate(new String[] { "daemon", "stop" });
+            if (exitCode == null) {
+                Output.print("^warn^ No ply daemon is running for this project.");
+                throw new SystemExit(1);
+            }
+            Output.print("^ply^ Stopped the ply daemon.");
+        } else if (args.args.size() == 1) {
+            DaemonServer.run();
+        } else {
+            Output.print("^error^ Usage: ^b^ply daemon [stop]^r^");
+            throw new SystemExit(1);
+        }
+    }
+}
@@ -24,6 +24,10 @@ public final class Usage extends Command {
         Output.print("        initializes the current directory as a ply project");
         Output.print("    ^b^update^r^");
         Output.print("        checks for updates to the ply system itself");
+        Output.print("    ^b^daemon^r^ [stop]");
+        Output.print("        starts (or stops) a long-lived ply process which services builds invoked from the project directory");
+        Output.print("    ^b^cds-train^r^ [build-scripts]");
+        Output.print("        runs the build-scripts (default ^b^clean test^r^) to create class-data-sharing archives which speed up starting ply and its scripts");
         Output.print("    ^b^describe^r^");
         Output.print("        lists all local contexts and any non-default scopes");
         Output.print("    ^b^get^r^ [propName] [from ^b^context^r^] [--unfiltered]");
@@ -38,8 +42,9 @@ public final class Usage extends Command {
         Output.print("        prepends '^b^propValue^r^' to the value of '^b^propName^r^' within '^b^context^r^' for the project");
         Output.print("    ^b^rm^r^ propName from ^b^context^r^");
         Output.print("        removes '^b^propName^b^' from '^b^context^r^' for the project");
-        Output.print("    <^b^build-scripts^r^>");
+        Output.print("    <^b^build-scripts^r^> [--threads N]");
         Output.print("        a space delimited list of build scripts; i.e., ^b^ply clean \"myscript opt1\" compile test^r^");
+        Output.print("        with ^b^--threads N^r^, up to ^b^N^r^ independent submodules are built concurrently");
         Output.print("  and ^b^-PadHocProp^r^ is zero to many ad-hoc properties prefixed with ^b^-P^r^ in the format ^b^context[#scope].propName=propValue^r^");
     }
 
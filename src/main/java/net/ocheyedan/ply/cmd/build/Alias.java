@@ -14,6 +14,7 @@ import net.ocheyedan.ply.props.*;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static net.ocheyedan.ply.props.PropFile.Prop;
 
@@ -147,7 +148,14 @@ public final class Alias extends Script {
     /**
      * Map from canonical-path of the config-directory to the {@link Resolver}.
      */
-    static final Map<String, Resolver> cache = new HashMap<String, Resolver>();
+    static final Map<String, Resolver> cache = new ConcurrentHashMap<String, Resolver>();
+
+    /**
+     * Clears the cache of resolved aliases (for instance, so that a long-lived ply process can service another invocation).
+     */
+    public static void invalidateCache() {
+        cache.clear();
+    }
 
     /**
      * @param configDirectory the project configuration directory from which to get an alias named {@code named}
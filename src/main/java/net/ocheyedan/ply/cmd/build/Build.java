@@ -5,15 +5,16 @@ import net.ocheyedan.ply.cmd.Args;
 import net.ocheyedan.ply.cmd.Command;
 import net.ocheyedan.ply.exec.Exec;
 import net.ocheyedan.ply.exec.Execution;
+import net.ocheyedan.ply.graph.DirectedAcyclicGraph;
+import net.ocheyedan.ply.graph.Graph;
 import net.ocheyedan.ply.props.Context;
 import net.ocheyedan.ply.props.Props;
 import net.ocheyedan.ply.submodules.Submodule;
 import net.ocheyedan.ply.submodules.Submodules;
 
 import java.io.File;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * User: blangel
@@ -35,7 +36,21 @@ public final class Build extends Command.ProjectReliant {
     }
 
     @Override protected void runAfterAssumptionsCheck() {
+        // record where the build's time is spent if requested (i.e., -Pply.trace=trace.json)
+        Trace.start(Props.get("trace", Context.named("ply")).value());
+        Trace.Span span = Trace.begin("build", "build");
+        try {
+            build();
+        } finally {
+            span.end();
+            Trace.finish();
+        }
+    }
+
+    private void build() {
         long start = System.currentTimeMillis();
+        AtomicReference<String> threads = new AtomicReference<String>(null);
+        Args args = extractThreads(this.args, threads);
         List<Execution> executions = Module.resolve(args, PlyUtil.LOCAL_CONFIG_DIR);
         // enough has been resolved to allow printing, so init the output
         OutputExt.init();
@@ -61,49 +76,80 @@ public final class Build extends Command.ProjectReliant {
             }
             Map<String, Float> submodulesTimeMap = new LinkedHashMap<String, Float>(orderedSubmodules.size());
 
+            // resolve the submodules' executions up-front if they'll be built in parallel or if their scripts
+            // may be pre-invoked while those of the preceding project are running; note, the ad-hoc properties of
+            // every submodule's aliases are then added before any project is built (see resolveSubmodules)
+            int parallelism = getParallelism(threads.get());
+            Map<Submodule, File> resolvedPlyDirs = new HashMap<Submodule, File>(orderedSubmodules.size());
+            Map<Submodule, List<Execution>> resolved = null;
+            if ((parallelism > 1) || (Exec.getPreforkDepth(PlyUtil.LOCAL_CONFIG_DIR) > 1)) {
+                resolved = resolveSubmodules(args, orderedSubmodules, PlyUtil.LOCAL_PROJECT_DIR, resolvedPlyDirs);
+            }
+
             // first run the args against the current project
             Output.print("^ply^");
             Output.print("^ply^ building ^b^%s^r^ itself before its submodules", projectName);
             long projectStart = System.currentTimeMillis();
-            if (!Exec.invoke(PlyUtil.LOCAL_PROJECT_DIR, executions)) {
+            if (!Exec.invoke(PlyUtil.LOCAL_PROJECT_DIR, executions,
+                             (parallelism > 1 ? null : getUpcoming(orderedSubmodules, 0, resolved, resolvedPlyDirs)))) {
                 throw new SystemExit(1);
             }
             int maxSubmoduleName = projectName.length();
             float seconds = printTime(projectStart, String.format("^b^%s^r^ ", projectName));
             float maxSubmoduleTime = seconds;
             submodulesTimeMap.put(projectName, seconds);
+            List<Submodule> criticalPath = null;
+            Map<Submodule, Float> releaseTimes = null;
             Output.print("^ply^");
 
-            for (Submodule submodule : orderedSubmodules) {
-                Output.print("^ply^ building ^b^%s^r^", submodule);
-                if (submodule.name.length() > maxSubmoduleName) {
-                    maxSubmoduleName = submodule.name.length();
-                }
-                long submoduleStart = System.currentTimeMillis();
-                File submodulePlyDir = FileUtil
-                        .fromParts(PlyUtil.LOCAL_PROJECT_DIR.getPath(), "..", submodule.name, ".ply");
-                if (!submodulePlyDir.exists()) {
-                    File submoduleDir = FileUtil.fromParts(PlyUtil.LOCAL_PROJECT_DIR.getPath(), "..", submodule.name);
-                    if (!submoduleDir.exists()) {
-                        Output.print("^warn^ directory ^b^%s^r^ doesn't exist.", submodule.name);
-                    } else {
-                        Output.print("^warn^ submodule ^b^%s^r^ is not a ply project, skipping.", submodule.name);
+            if (parallelism > 1) {
+                for (Submodule submodule : orderedSubmodules) {
+                    if (submodule.name.length() > maxSubmoduleName) {
+                        maxSubmoduleName = submodule.name.length();
                     }
-                    Output.print("^ply^");
-                    continue;
                 }
-                File submoduleConfigDir = FileUtil.fromParts(FileUtil.getCanonicalPath(submodulePlyDir), "config");
-                List<Execution> submoduleExecutions = Module.resolve(args, submoduleConfigDir);
-                if (!Exec.invoke(submodulePlyDir, submoduleExecutions)) {
-                    throw new SystemExit(1);
+                SubmoduleScheduler scheduler = buildInParallel(orderedSubmodules, resolved, resolvedPlyDirs, parallelism);
+                Map<Submodule, Float> times = scheduler.getTimes();
+                for (Submodule submodule : orderedSubmodules) {
+                    Float time = times.get(submodule);
+                    if (time != null) {
+                        maxSubmoduleTime = Math.max(maxSubmoduleTime, time);
+                        submodulesTimeMap.put(submodule.name, time);
+                    }
                 }
-                seconds = printTime(submoduleStart, String.format("^b^%s^r^ ", submodule.name));
-                if (seconds > maxSubmoduleTime) {
-                    maxSubmoduleTime = seconds;
+                criticalPath = scheduler.getCriticalPath();
+                releaseTimes = scheduler.getReleaseTimes();
+            } else {
+                for (int i = 0; i < orderedSubmodules.size(); i++) {
+                    Submodule submodule = orderedSubmodules.get(i);
+                    Output.print("^ply^ building ^b^%s^r^", submodule);
+                    if (submodule.name.length() > maxSubmoduleName) {
+                        maxSubmoduleName = submodule.name.length();
+                    }
+                    long submoduleStart = System.currentTimeMillis();
+                    File submodulePlyDir = FileUtil
+                            .fromParts(PlyUtil.LOCAL_PROJECT_DIR.getPath(), "..", submodule.name, ".ply");
+                    if (!submodulePlyDir.exists()) {
+                        if (resolved == null) { // otherwise, already warned upon resolution
+                            warnNonPlySubmodule(submodule, PlyUtil.LOCAL_PROJECT_DIR);
+                        }
+                        Output.print("^ply^");
+                        continue;
+                    }
+                    File submoduleConfigDir = FileUtil.fromParts(FileUtil.getCanonicalPath(submodulePlyDir), "config");
+                    List<Execution> submoduleExecutions = (resolved != null ? resolved.get(submodule)
+                            : Module.resolve(args, submoduleConfigDir));
+                    if (!Exec.invoke(submodulePlyDir, submoduleExecutions,
+                                     getUpcoming(orderedSubmodules, i + 1, resolved, resolvedPlyDirs))) {
+                        throw new SystemExit(1);
+                    }
+                    seconds = printTime(submoduleStart, String.format("^b^%s^r^ ", submodule.name));
+                    if (seconds > maxSubmoduleTime) {
+                        maxSubmoduleTime = seconds;
+                    }
+                    submodulesTimeMap.put(submodule.name, seconds);
+                    Output.print("^ply^");
                 }
-                submodulesTimeMap.put(submodule.name, seconds);
-                Output.print("^ply^");
-
             }
 
             Output.print("^ply^ Build Summary");
@@ -116,24 +162,181 @@ public final class Build extends Command.ProjectReliant {
                 String timePadString = (timePad == 0 ? "" : String.valueOf(timePad));
                 Output.print("^ply^ ^b^%s^r^%" + pad + "s%" + timePadString + "s^b^%.3f^r^ seconds", module, "", "", time);
             }
+            if (criticalPath != null) {
+                // the project itself is built before any of its submodules and so heads every path
+                float criticalPathTime = submodulesTimeMap.get(projectName);
+                StringBuilder path = new StringBuilder(projectName);
+                for (int i = 0; i < criticalPath.size(); i++) {
+                    Submodule submodule = criticalPath.get(i);
+                    // dependents start once a submodule has released them, not once it has completed
+                    Float time = (i < (criticalPath.size() - 1) ? releaseTimes.get(submodule) : null);
+                    if (time == null) {
+                        time = submodulesTimeMap.get(submodule.name);
+                    }
+                    criticalPathTime += (time == null ? 0.0f : time);
+                    path.append(" -> ").append(submodule.name);
+                }
+                Output.print("^ply^ Critical path ^b^%.3f^r^ seconds [ %s ]", criticalPathTime, path.toString());
+            }
 
         }
 
         printTime(start, "");
     }
     
+    /**
+     * Resolves the executions of each of {@code orderedSubmodules} (in order, on the calling thread, as resolution may
+     * add ad-hoc properties).
+     * <p/>
+     * Ad-hoc properties are universal and so, unlike when submodules are resolved lazily (one after another, as each
+     * is built), the ad-hoc properties of every submodule's aliases are added before the project or any of its
+     * submodules is built.  A project therefore also sees those of the submodules built after it and, as the first
+     * value added for a property is kept, where aliases of multiple submodules define the same property the value of
+     * the submodule first in build order applies to all.
+     * @param args to resolve against each submodule
+     * @param orderedSubmodules the submodules in their sequential build order
+     * @param projectDir the {@literal .ply} directory of the project whose submodules are {@code orderedSubmodules}
+     * @param plyDirs into which the {@literal .ply} directory of each resolved submodule is placed
+     * @return the executions of each submodule; submodules which are not ply projects are mapped to null
+     */
+    static Map<Submodule, List<Execution>> resolveSubmodules(Args args, List<Submodule> orderedSubmodules,
+                                                             File projectDir, Map<Submodule, File> plyDirs) {
+        Map<Submodule, List<Execution>> submoduleExecutions = new HashMap<Submodule, List<Execution>>(orderedSubmodules.size());
+        for (Submodule submodule : orderedSubmodules) {
+            File submodulePlyDir = FileUtil.fromParts(projectDir.getPath(), "..", submodule.name, ".ply");
+            if (!submodulePlyDir.exists()) {
+                warnNonPlySubmodule(submodule, projectDir);
+                submoduleExecutions.put(submodule, null);
+                continue;
+            }
+            File submoduleConfigDir = FileUtil.fromParts(FileUtil.getCanonicalPath(submodulePlyDir), "config");
+            submoduleExecutions.put(submodule, Module.resolve(args, submoduleConfigDir));
+            plyDirs.put(submodule, submodulePlyDir);
+        }
+        return submoduleExecutions;
+    }
+
+    private static void warnNonPlySubmodule(Submodule submodule, File projectDir) {
+        File submoduleDir = FileUtil.fromParts(projectDir.getPath(), "..", submodule.name);
+        if (!submoduleDir.exists()) {
+            Output.print("^warn^ directory ^b^%s^r^ doesn't exist.", submodule.name);
+        } else {
+            Output.print("^warn^ submodule ^b^%s^r^ is not a ply project, skipping.", submodule.name);
+        }
+    }
+
+    /**
+     * @param orderedSubmodules the submodules in their sequential build order
+     * @param from the index within {@code orderedSubmodules} of the first upcoming submodule
+     * @param resolved the resolved executions of the submodules or null if they were not resolved up-front
+     * @param plyDirs the {@literal .ply} directory of each resolved submodule
+     * @return the executions of the submodules to be built (sequentially) from index {@code from} keyed by
+     *         their {@literal .ply} directory
+     */
+    private static Map<File, List<Execution>> getUpcoming(List<Submodule> orderedSubmodules, int from,
+                                                          Map<Submodule, List<Execution>> resolved,
+                                                          Map<Submodule, File> plyDirs) {
+        Map<File, List<Execution>> upcoming = new LinkedHashMap<File, List<Execution>>();
+        if (resolved == null) {
+            return upcoming;
+        }
+        for (Submodule submodule : orderedSubmodules.subList(from, orderedSubmodules.size())) {
+            List<Execution> submoduleExecutions = resolved.get(submodule);
+            if (submoduleExecutions != null) {
+                upcoming.put(plyDirs.get(submodule), submoduleExecutions);
+            }
+        }
+        return upcoming;
+    }
+
+    /**
+     * Builds the submodules concurrently via {@link SubmoduleScheduler}.
+     * @param orderedSubmodules the submodules in their sequential build order
+     * @param resolved the resolved executions of each submodule (null for those which are not ply projects)
+     * @param plyDirs the {@literal .ply} directory of each resolved submodule
+     * @param parallelism the maximum number of submodules to build at the same time
+     * @return the scheduler used to build the submodules
+     * @throws SystemExit if any submodule failed to build
+     */
+    private static SubmoduleScheduler buildInParallel(List<Submodule> orderedSubmodules,
+                                                      Map<Submodule, List<Execution>> resolved,
+                                                      Map<Submodule, File> plyDirs, int parallelism) {
+        DirectedAcyclicGraph<Submodule> graph;
+        try {
+            graph = Submodules.getSubmoduleGraph(PlyUtil.LOCAL_CONFIG_DIR, orderedSubmodules);
+        } catch (Graph.CycleException gce) {
+            Output.print("^error^ Circular dependency between submodules; %s", gce.getMessage());
+            throw new SystemExit(1);
+        }
+        Output.print("^ply^ building submodules with a parallelism of ^b^%d^r^", parallelism);
+        String release = Props.get("build.pipeline", Context.named("ply")).value();
+        SubmoduleScheduler scheduler = new SubmoduleScheduler(graph, resolved, plyDirs, parallelism, release);
+        if (!scheduler.build()) {
+            throw new SystemExit(1);
+        }
+        Output.print("^ply^");
+        return scheduler;
+    }
+
+    /**
+     * @param threads the value of the {@literal --threads} option, if specified
+     * @return the number of submodules which may be built concurrently; {@code threads} if specified otherwise the
+     *         value of property {@literal build.parallelism} within the {@literal ply} context.  If the value is
+     *         {@literal auto}, the number of processors (see {@link Exec#getMaxConcurrency()}).
+     */
+    private static int getParallelism(String threads) {
+        String parallelism = (threads != null ? threads : Props.get("build.parallelism", Context.named("ply")).value());
+        if (parallelism.isEmpty()) {
+            return 1;
+        } else if ("auto".equalsIgnoreCase(parallelism.trim())) {
+            return Exec.getMaxConcurrency();
+        }
+        try {
+            return Math.max(1, Integer.parseInt(parallelism.trim()));
+        } catch (NumberFormatException nfe) {
+            Output.print("^warn^ Invalid parallelism ^b^%s^r^, building submodules sequentially.", parallelism);
+            return 1;
+        }
+    }
+
+    /**
+     * @param args from which to extract the {@literal --threads N} (or {@literal --threads=N}) option
+     * @param threads will be set to the value of the option, if found
+     * @return {@code args} without the {@literal --threads} option
+     */
+    private static Args extractThreads(Args args, AtomicReference<String> threads) {
+        List<String> remaining = new ArrayList<String>(args.args.size());
+        for (int i = 0; i < args.args.size(); i++) {
+            String arg = args.args.get(i);
+            if (arg.startsWith("--threads=")) {
+                threads.set(arg.substring("--threads=".length()));
+            } else if ("--threads".equals(arg) && ((i + 1) < args.args.size())) {
+                threads.set(args.args.get(++i));
+            } else {
+                remaining.add(arg);
+            }
+        }
+        return (threads.get() == null ? args : new Args(remaining, args.adHocProps));
+    }
+
     /**
      * Prints the amount of time used since {@code start} along with the memory usage.
      * @param start time of some task/execution/build
      * @param suppliment to indicate what has completed (should end with a blank space)
      * @return the amount of time in seconds since {@code start}
      */
-    private float printTime(long start, String suppliment) {
+    static float printTime(long start, String suppliment) {
         long end = System.currentTimeMillis();
         float seconds = ((end - start) / 1000.0f);
         long totalMem = Runtime.getRuntime().totalMemory() / 1024 / 1024;
         long freeMem = Runtime.getRuntime().freeMemory() / 1024 / 1024;
         Output.print("^ply^ Finished %sin ^b^%.3f seconds^r^ using ^b^%d/%d MB^r^.", suppliment, seconds, (totalMem - freeMem), totalMem);
+        if (Trace.isEnabled()) {
+            Map<String, Object> heap = new LinkedHashMap<String, Object>(2, 1.0f);
+            heap.put("used", (totalMem - freeMem));
+            heap.put("total", totalMem);
+            Trace.counter("heap (MB)", heap);
+        }
         return seconds;
     }
 
@@ -4,13 +4,16 @@ import net.ocheyedan.ply.FileUtil;
 import net.ocheyedan.ply.Output;
 import net.ocheyedan.ply.PlyUtil;
 import net.ocheyedan.ply.SystemExit;
+import net.ocheyedan.ply.Trace;
 import net.ocheyedan.ply.cmd.Args;
 import net.ocheyedan.ply.exec.Execution;
 import net.ocheyedan.ply.props.*;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -46,30 +49,40 @@ final class Module {
     }
 
     List<Execution> resolve() {
-        List<Script> scripts = convertArgsToScripts();
-        // resolve ad-hoc properties before creating executions (as execution may depend upon a value of an ad-hoc prop).
-        // must invalidate filtered-cache (as ad-hoc props may have changed the filtered values).
-        if (handleAdHoc(scripts)) {
-            PropsExt.invalidateFilteredCaches(configDirectory);
+        Trace.Span span = Trace.begin("build", "resolve")
+                .arg("project", FileUtil.getCanonicalPath(FileUtil.fromParts(configDirectory.getPath(), "..", "..")));
+        try {
+            List<Script> scripts = convertArgsToScripts();
+            // resolve ad-hoc properties before creating executions (as execution may depend upon a value of an ad-hoc prop).
+            // must invalidate those filtered values which reference the added ad-hoc props.
+            Set<String> adHocPropNames = new HashSet<String>();
+            handleAdHoc(scripts, adHocPropNames);
+            if (!adHocPropNames.isEmpty()) {
+                PropsExt.invalidateFilteredCaches(configDirectory, adHocPropNames);
+            }
+            // now that all ad-hoc props are accounted for, convert scripts to executions
+            return convertScriptsToExecutions(scripts);
+        } finally {
+            span.end();
         }
-        // now that all ad-hoc props are accounted for, convert scripts to executions
-        return convertScriptsToExecutions(scripts);
     }
     
-    private boolean handleAdHoc(List<Script> scripts) {
-        boolean hasAdHocPropsFromAliases = false;
+    /**
+     * Adds the ad-hoc properties of the aliases within {@code scripts} (and of their nested aliases).
+     * @param scripts to search for aliases with ad-hoc properties
+     * @param added into which the context-qualified names of the added ad-hoc properties are placed
+     */
+    private void handleAdHoc(List<Script> scripts, Set<String> added) {
         for (Script script : scripts) {
             if (script instanceof Alias) {
                 Alias alias = (Alias) script;
                 List<String> adHocProps = alias.adHocProps;
-                hasAdHocPropsFromAliases = (hasAdHocPropsFromAliases || handleAdHoc(alias.scripts));
+                handleAdHoc(alias.scripts, added);
                 if ((adHocProps != null) && !adHocProps.isEmpty()) {
-                    AdHoc.add(adHocProps);
-                    hasAdHocPropsFromAliases = true;
+                    added.addAll(AdHoc.add(adHocProps));
                 }
             }
         }
-        return hasAdHocPropsFromAliases;
     }
 
     /**
@@ -0,0 +1,354 @@
+package net.ocheyedan.ply.cmd.build;
+
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.OutputExt;
+import net.ocheyedan.ply.SystemExit;
+import net.ocheyedan.ply.exec.Exec;
+import net.ocheyedan.ply.exec.Execution;
+import net.ocheyedan.ply.graph.DirectedAcyclicGraph;
+import net.ocheyedan.ply.graph.Vertex;
+import net.ocheyedan.ply.props.Scope;
+import net.ocheyedan.ply.submodules.Submodule;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:26 PM
+ *
+ * Builds submodules concurrently, honoring the edges of the submodules' dependency graph (a submodule is only started
+ * once everything it depends upon has been built successfully).  At most {@link #parallelism} submodules are built
+ * at the same time and of those ready to be built, the one earliest in the sequential build order is started first.
+ * Each line of output from a submodule's build is prefixed with the submodule's name.
+ *
+ * Dependents only need the installed artifact of a submodule and so, if a release script is configured (see
+ * {@link #release}), a submodule's dependents are started as soon as that script completes; the remainder of the
+ * submodule's build (i.e., its tests) continues concurrently.  A submodule which fails after having released its
+ * dependents still fails the build.
+ *
+ * If a submodule's build fails, no further submodules are started; those already running are allowed to complete.
+ */
+final class SubmoduleScheduler {
+
+    /**
+     * Invokes the executions of a single submodule.
+     */
+    static interface Invoker {
+
+        /**
+         * @param plyDir the {@literal .ply} directory of the submodule
+         * @param submoduleExecutions the executions of the submodule
+         * @param listener to notify as each execution completes
+         * @return false if any of the executions failed
+         * @see Exec#invoke(File, List, Map, Exec.Listener)
+         */
+        boolean invoke(File plyDir, List<Execution> submoduleExecutions, Exec.Listener listener);
+
+    }
+
+    private static final Invoker EXEC_INVOKER = new Invoker() {
+        @Override public boolean invoke(File plyDir, List<Execution> submoduleExecutions, Exec.Listener listener) {
+            return Exec.invoke(plyDir, submoduleExecutions, null, listener);
+        }
+    };
+
+    private final DirectedAcyclicGraph<Submodule> graph;
+
+    /**
+     * The resolved executions (in the order of the sequential build) for each submodule.  Submodules which cannot
+     * be built (i.e., are not ply projects) are mapped to null.
+     */
+    private final Map<Submodule, List<Execution>> executions;
+
+    /**
+     * The {@literal .ply} directory of each submodule.
+     */
+    private final Map<Submodule, File> plyDirs;
+
+    private final int parallelism;
+
+    /**
+     * Build time (in seconds) of each successfully built submodule.
+     */
+    private final Map<Submodule, Float> times;
+
+    /**
+     * The direct dependencies of each submodule within {@link #graph}.
+     */
+    private final Map<Submodule, List<Submodule>> prerequisites;
+
+    /**
+     * The name of the script (or alias) upon whose completion, within the default scope, a submodule's dependents are
+     * started (i.e., {@literal local-repo-install}) or null if dependents wait for the submodule's entire build.
+     */
+    private final String release;
+
+    /**
+     * Time (in seconds) from start until the dependents of each successfully built submodule were released.
+     */
+    private final Map<Submodule, Float> releaseTimes;
+
+    /**
+     * Completion (and release) of the submodules, in the order in which they occurred, for the scheduling thread.
+     */
+    private final BlockingQueue<Event> events;
+
+    private final Invoker invoker;
+
+    /**
+     * A submodule whose dependents have been released ({@code completed} false) or whose build has completed.
+     */
+    private static final class Event {
+
+        private final Submodule submodule;
+
+        private final boolean completed;
+
+        private Event(Submodule submodule, boolean completed) {
+            this.submodule = submodule;
+            this.completed = completed;
+        }
+    }
+
+    SubmoduleScheduler(DirectedAcyclicGraph<Submodule> graph, Map<Submodule, List<Execution>> executions,
+                       Map<Submodule, File> plyDirs, int parallelism, String release) {
+        this(graph, executions, plyDirs, parallelism, release, EXEC_INVOKER);
+    }
+
+    SubmoduleScheduler(DirectedAcyclicGraph<Submodule> graph, Map<Submodule, List<Execution>> executions,
+                       Map<Submodule, File> plyDirs, int parallelism, String release, Invoker invoker) {
+        this.graph = graph;
+        this.invoker = invoker;
+        this.executions = executions;
+        this.plyDirs = plyDirs;
+        this.parallelism = parallelism;
+        this.release = ((release == null) || release.trim().isEmpty() ? null : release.trim());
+        this.releaseTimes = new ConcurrentHashMap<Submodule, Float>(executions.size(), 1.0f);
+        this.events = new LinkedBlockingQueue<Event>();
+        this.times = new ConcurrentHashMap<Submodule, Float>(executions.size(), 1.0f);
+        this.prerequisites = new HashMap<Submodule, List<Submodule>>(executions.size(), 1.0f);
+        for (Vertex<Submodule> vertex : graph.getVertices()) {
+            if (!prerequisites.containsKey(vertex.getValue())) {
+                prerequisites.put(vertex.getValue(), new ArrayList<Submodule>(2));
+            }
+            for (Vertex<Submodule> child : vertex.getChildren()) {
+                List<Submodule> childPrerequisites = prerequisites.get(child.getValue());
+                if (childPrerequisites == null) {
+                    childPrerequisites = new ArrayList<Submodule>(2);
+                    prerequisites.put(child.getValue(), childPrerequisites);
+                }
+                childPrerequisites.add(vertex.getValue());
+            }
+        }
+    }
+
+    /**
+     * Builds all the submodules.
+     * @return true if every submodule was built successfully
+     */
+    boolean build() {
+        final Map<Submodule, Integer> order = new HashMap<Submodule, Integer>(executions.size(), 1.0f);
+        Map<Submodule, Integer> pending = new HashMap<Submodule, Integer>(executions.size(), 1.0f);
+        Queue<Submodule> ready = new PriorityQueue<Submodule>(executions.size(), new Comparator<Submodule>() {
+            @Override public int compare(Submodule left, Submodule right) {
+                return order.get(left).compareTo(order.get(right));
+            }
+        });
+        for (Vertex<Submodule> vertex : graph.getVertices()) {
+            Submodule submodule = vertex.getValue();
+            order.put(submodule, order.size());
+            int count = prerequisites.get(submodule).size();
+            pending.put(submodule, count);
+            if (count == 0) {
+                ready.add(submodule);
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(0);
+            @Override public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ply-submodule-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        Set<Submodule> released = new HashSet<Submodule>(executions.size(), 1.0f);
+        int running = 0;
+        boolean failed = false;
+        try {
+            while (true) {
+                while (!failed && !ready.isEmpty()) {
+                    Submodule submodule = ready.poll();
+                    if (executions.get(submodule) == null) {
+                        // not a ply project (already warned), nothing to build so its dependents are now unblocked
+                        release(submodule, pending, ready);
+                        continue;
+                    }
+                    executor.submit(createTask(submodule));
+                    running++;
+                }
+                if (running == 0) {
+                    break;
+                }
+                Event event = events.take();
+                if (!event.completed) {
+                    if (released.add(event.submodule)) {
+                        release(event.submodule, pending, ready);
+                    }
+                    continue;
+                }
+                running--;
+                if (times.containsKey(event.submodule)) {
+                    if (released.add(event.submodule)) {
+                        release(event.submodule, pending, ready);
+                    }
+                } else {
+                    failed = true;
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            failed = true;
+        } finally {
+            executor.shutdownNow();
+        }
+        return !failed;
+    }
+
+    /**
+     * @return the build time (in seconds) of each successfully built submodule
+     */
+    Map<Submodule, Float> getTimes() {
+        return times;
+    }
+
+    /**
+     * @return the time (in seconds) from start until the dependents of each submodule were released, for those
+     *         submodules which released their dependents before completing
+     */
+    Map<Submodule, Float> getReleaseTimes() {
+        return releaseTimes;
+    }
+
+    /**
+     * @return the longest (by build time) chain of dependent submodules, ordered from first built to last built; this
+     *         chain bounds the build time of the submodules regardless of {@link #parallelism}.
+     */
+    List<Submodule> getCriticalPath() {
+        Map<Submodule, Float> start = new HashMap<Submodule, Float>(prerequisites.size(), 1.0f);
+        Map<Submodule, Submodule> via = new HashMap<Submodule, Submodule>(prerequisites.size(), 1.0f);
+        Submodule last = null;
+        float lastFinish = 0.0f;
+        for (Vertex<Submodule> vertex : graph.getVertices()) {
+            Submodule submodule = vertex.getValue();
+            Float time = times.get(submodule);
+            float finish = computeStart(submodule, start, via) + (time == null ? 0.0f : time);
+            if ((last == null) || (finish > lastFinish)) {
+                last = submodule;
+                lastFinish = finish;
+            }
+        }
+        LinkedList<Submodule> path = new LinkedList<Submodule>();
+        while (last != null) {
+            path.addFirst(last);
+            last = via.get(last);
+        }
+        return path;
+    }
+
+    /**
+     * @param submodule for which to compute its start time
+     * @param start memoized start times
+     * @param via the prerequisite on the longest path to each submodule
+     * @return the time at which {@code submodule} would start were it started as soon as its prerequisites released
+     *         their dependents (given an unbounded {@link #parallelism}).
+     */
+    private float computeStart(Submodule submodule, Map<Submodule, Float> start, Map<Submodule, Submodule> via) {
+        Float memo = start.get(submodule);
+        if (memo != null) {
+            return memo;
+        }
+        float begin = 0.0f;
+        for (Submodule prerequisite : prerequisites.get(submodule)) {
+            Float releaseTime = releaseTimes.get(prerequisite);
+            if (releaseTime == null) {
+                releaseTime = times.get(prerequisite);
+            }
+            float prerequisiteRelease = computeStart(prerequisite, start, via) + (releaseTime == null ? 0.0f : releaseTime);
+            if (prerequisiteRelease > begin) {
+                begin = prerequisiteRelease;
+                via.put(submodule, prerequisite);
+            }
+        }
+        start.put(submodule, begin);
+        return begin;
+    }
+
+    /**
+     * @param submoduleExecutions the executions of a submodule
+     * @return the execution of {@code submoduleExecutions} upon whose completion the submodule's dependents may be
+     *         started or null if they must wait for all of {@code submoduleExecutions}
+     */
+    private Execution getReleaseExecution(List<Execution> submoduleExecutions) {
+        if (release == null) {
+            return null;
+        }
+        // the last execution releases dependents regardless
+        for (int i = 0; i < (submoduleExecutions.size() - 1); i++) {
+            Execution execution = submoduleExecutions.get(i);
+            if (Scope.Default.equals(execution.script.scope)
+                    && (release.equals(execution.name) || release.equals(execution.script.name))) {
+                return execution;
+            }
+        }
+        return null;
+    }
+
+    private void release(Submodule completed, Map<Submodule, Integer> pending, Queue<Submodule> ready) {
+        for (Vertex<Submodule> dependent : graph.getVertex(completed).getChildren()) {
+            Submodule submodule = dependent.getValue();
+            int count = pending.get(submodule) - 1;
+            pending.put(submodule, count);
+            if (count == 0) {
+                ready.add(submodule);
+            }
+        }
+    }
+
+    private Runnable createTask(final Submodule submodule) {
+        return new Runnable() {
+            @Override public void run() {
+                OutputExt.setLinePrefix(String.format("[^b^%s^r^] ", submodule.name));
+                try {
+                    Output.print("^ply^ building ^b^%s^r^", submodule);
+                    final long start = System.currentTimeMillis();
+                    final Execution releaseExecution = getReleaseExecution(executions.get(submodule));
+                    Exec.Listener listener = (releaseExecution == null ? null : new Exec.Listener() {
+                        @Override public void completed(Execution execution) {
+                            if (execution == releaseExecution) {
+                                releaseTimes.put(submodule, ((System.currentTimeMillis() - start) / 1000.0f));
+                                Output.print("^dbug^ releasing the dependents of ^b^%s^r^", submodule.name);
+                                events.add(new Event(submodule, false));
+                            }
+                        }
+                    });
+                    if (invoker.invoke(plyDirs.get(submodule), executions.get(submodule), listener)) {
+                        times.put(submodule, Build.printTime(start, String.format("^b^%s^r^ ", submodule.name)));
+                    }
+                } catch (SystemExit se) {
+                    // failure already reported
+                } catch (RuntimeException re) {
+                    Output.print(re);
+                } finally {
+                    OutputExt.setLinePrefix(null);
+                    events.add(new Event(submodule, true));
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,233 @@
+package net.ocheyedan.ply.daemon;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.PlyUtil;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.PropFile;
+import net.ocheyedan.ply.props.PropFiles;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:19 PM
+ *
+ * The thin client of {@link DaemonServer}.  If a daemon is running for the project, the invocation is handed to it
+ * and its output is relayed; otherwise, ply runs the invocation itself.
+ */
+public final class DaemonClient {
+
+    /**
+     * @return the file into which a running daemon writes its port and token
+     */
+    static File getDaemonFile() {
+        return FileUtil.fromParts(PlyUtil.LOCAL_PROJECT_DIR.getPath(), "daemon.properties");
+    }
+
+    /**
+     * Writes the daemon file; the file is restricted to the owner before the token is written to it and then moved
+     * into place.
+     * @param port on which the daemon listens
+     * @param token which clients must present
+     * @return the written file or null if it could not be written (including if another daemon is running)
+     */
+    static File writeDaemonFile(int port, String token) {
+        File daemonFile = getDaemonFile();
+        if (isRunning(daemonFile)) {
+            Output.print("^error^ A ply daemon is already running for this project (stop it via ^b^ply daemon stop^r^).");
+            return null;
+        }
+        PropFile daemonProps = new PropFile(Context.named("daemon"), PropFile.Loc.Local);
+        daemonProps.add("port", String.valueOf(port));
+        daemonProps.add("token", token);
+        File temporary = null;
+        try {
+            daemonFile.getParentFile().mkdirs();
+            temporary = File.createTempFile("daemon", ".tmp", daemonFile.getParentFile());
+            // the token is the only thing preventing other local users from invoking builds as this user
+            if (!(temporary.setReadable(false, false) && temporary.setReadable(true, true)
+                    && temporary.setWritable(false, false) && temporary.setWritable(true, true))) {
+                Output.print("^error^ Could not restrict the permissions of ^b^%s^r^.", temporary.getPath());
+                return null;
+            }
+            if (!PropFiles.store(daemonProps, temporary.getPath(), false)) {
+                return null;
+            }
+            if (!temporary.renameTo(daemonFile)) {
+                // the destination may need removing first on some platforms
+                daemonFile.delete();
+                if (!temporary.renameTo(daemonFile)) {
+                    Output.print("^error^ Could not write ^b^%s^r^.", daemonFile.getPath());
+                    return null;
+                }
+            }
+        } catch (IOException ioe) {
+            Output.print(ioe);
+            return null;
+        } finally {
+            if ((temporary != null) && temporary.exists()) {
+                temporary.delete();
+            }
+        }
+        daemonFile.deleteOnExit();
+        return daemonFile;
+    }
+
+    /**
+     * @param daemonFile the daemon file
+     * @return true if the daemon described by {@code daemonFile} is accepting connections
+     */
+    private static boolean isRunning(File daemonFile) {
+        Integer port = getPort(daemonFile);
+        if (port == null) {
+            return false;
+        }
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port), 1000);
+            return true;
+        } catch (IOException ioe) {
+            return false;
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ioe) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * @param daemonFile the daemon file
+     * @return the port within {@code daemonFile} or null if there is no such file or it has no valid port
+     */
+    private static Integer getPort(File daemonFile) {
+        if (!daemonFile.exists()) {
+            return null;
+        }
+        PropFile daemonProps = new PropFile(Context.named("daemon"), PropFile.Loc.Local);
+        if (!PropFiles.load(daemonFile.getPath(), daemonProps, false, false)) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(daemonProps.get("port").value());
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    /**
+     * @param args the command line arguments
+     * @return true if {@code args} represents a request for the daemon to stop
+     */
+    static boolean isStopRequest(String[] args) {
+        return ((args.length == 2) && "daemon".equals(args[0]) && "stop".equals(args[1]));
+    }
+
+    /**
+     * Hands the invocation to the running daemon, if there is one.
+     * @param args the command line arguments of the invocation
+     * @return the exit code of the invocation or null if the invocation was not serviced by a daemon (in which case
+     *         the caller should run the invocation itself).
+     */
+    public static Integer delegate(String[] args) {
+        File daemonFile = getDaemonFile();
+        if (!daemonFile.exists()) {
+            return null;
+        }
+        PropFile daemonProps = new PropFile(Context.named("daemon"), PropFile.Loc.Local);
+        if (!PropFiles.load(daemonFile.getPath(), daemonProps, false, false)) {
+            return null;
+        }
+        int port;
+        try {
+            port = Integer.parseInt(daemonProps.get("port").value());
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+        String token = daemonProps.get("token").value();
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port), 1000);
+            final DataOutputStream daemonOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream daemonIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            daemonOut.writeUTF(token);
+            daemonOut.writeUTF(FileUtil.getCanonicalPath(new File(System.getProperty("user.dir"))));
+            daemonOut.writeBoolean("true".equalsIgnoreCase(System.getProperty("ply.piped")));
+            daemonOut.writeInt(args.length);
+            for (String arg : args) {
+                daemonOut.writeUTF(arg);
+            }
+            daemonOut.flush();
+            startStdinPipe(daemonOut);
+            byte[] buffer = new byte[8192];
+            boolean relayed = false;
+            while (true) {
+                int type = daemonIn.read();
+                if (type == DaemonServer.OUTPUT) {
+                    relayed = true;
+                    int length = daemonIn.readInt();
+                    while (length > 0) {
+                        int read = daemonIn.read(buffer, 0, Math.min(length, buffer.length));
+                        if (read == -1) {
+                            throw new EOFException();
+                        }
+                        System.out.write(buffer, 0, read);
+                        length -= read;
+                    }
+                    System.out.flush();
+                } else if (type == DaemonServer.EXIT) {
+                    return daemonIn.readInt();
+                } else if ((type == DaemonServer.REJECTED) || !relayed) {
+                    return null;
+                } else {
+                    Output.print("^error^ Lost connection with the ply daemon.");
+                    return 1;
+                }
+            }
+        } catch (IOException ioe) {
+            // daemon is not (or no longer) running; remove the stale file and run the invocation locally
+            if (!socket.isConnected()) {
+                daemonFile.delete();
+            }
+            return null;
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ioe) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Pipes this process's standard input to the daemon.
+     * @param daemonOut the stream to the daemon
+     */
+    private static void startStdinPipe(final OutputStream daemonOut) {
+        Thread pipe = new Thread(new Runnable() {
+            @Override public void run() {
+                byte[] buffer = new byte[1024];
+                try {
+                    int read;
+                    while ((read = System.in.read(buffer)) != -1) {
+                        daemonOut.write(buffer, 0, read);
+                        daemonOut.flush();
+                    }
+                } catch (IOException ioe) {
+                    // daemon has finished the invocation
+                }
+            }
+        }, "ply-daemon-stdin");
+        pipe.setDaemon(true);
+        pipe.start();
+    }
+
+    private DaemonClient() { }
+
+}
@@ -0,0 +1,325 @@
+package net.ocheyedan.ply.daemon;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.OutputExt;
+import net.ocheyedan.ply.PlyUtil;
+import net.ocheyedan.ply.SystemExit;
+import net.ocheyedan.ply.cmd.Command;
+import net.ocheyedan.ply.cmd.CommandLineParser;
+import net.ocheyedan.ply.cmd.build.Alias;
+import net.ocheyedan.ply.dep.Deps;
+import net.ocheyedan.ply.props.AdHoc;
+import net.ocheyedan.ply.props.PropsExt;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:19 PM
+ *
+ * A long-lived ply process which services invocations from {@link DaemonClient} so that each invocation does not pay
+ * the cost of starting a {@literal JVM}, parsing the system and local configuration files, etc.
+ *
+ * The daemon is bound to the project directory from which it was started (ply resolves the local configuration
+ * directory relative to the working directory) and only services invocations made from that same directory.
+ * It listens on a loop-back socket; the port and a random token (which clients must present) are written to
+ * {@literal .ply/daemon.properties}.  Parsed configuration files are retained across invocations and are
+ * re-read only when the modification stamps of the system, local or submodules' configuration directories change.
+ * Everything else which an invocation accumulates (property chains, ad-hoc properties, aliases, output settings) is
+ * discarded between invocations.
+ *
+ * To keep the scripts themselves warm, trusted jar scripts are invoked in-process within the daemon (regardless of
+ * the {@literal in-process} property) unless property {@literal daemon.in-process} within the {@literal scripts-jar}
+ * context is false.  Their class-loaders, and so their loaded and compiled classes, are then retained across
+ * invocations.
+ *
+ * Invocations are serviced one at a time.  The protocol is:
+ * client sends; token, canonical working directory, whether output is piped, argument count and arguments (all
+ * via {@link DataOutputStream}) followed by the raw bytes of its standard input.  The daemon responds with
+ * {@link #OUTPUT} frames (length prefixed) and a final {@link #EXIT} frame containing the exit code or a single
+ * {@link #REJECTED} byte if it will not service the invocation.
+ */
+public final class DaemonServer {
+
+    static final int OUTPUT = 'o';
+
+    static final int EXIT = 'x';
+
+    static final int REJECTED = 'r';
+
+    private static volatile boolean running = false;
+
+    /**
+     * @return true if this process is a ply daemon
+     */
+    public static boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Writes to the current invocation's output (or the daemon's own standard out/err between invocations).
+     */
+    private static final class RoutingOutputStream extends OutputStream {
+
+        private final OutputStream original;
+
+        private final AtomicReference<OutputStream> target;
+
+        private RoutingOutputStream(OutputStream original) {
+            this.original = original;
+            this.target = new AtomicReference<OutputStream>(original);
+        }
+
+        @Override public void write(int value) throws IOException {
+            target.get().write(value);
+        }
+
+        @Override public void write(byte[] from, int offset, int length) throws IOException {
+            target.get().write(from, offset, length);
+        }
+
+        @Override public void flush() throws IOException {
+            target.get().flush();
+        }
+
+        private void route(OutputStream to) {
+            target.set(to == null ? original : to);
+        }
+    }
+
+    /**
+     * Reads from the current invocation's input (or the daemon's own standard in between invocations).
+     */
+    private static final class RoutingInputStream extends InputStream {
+
+        private final InputStream original;
+
+        private final AtomicReference<InputStream> source;
+
+        private RoutingInputStream(InputStream original) {
+            this.original = original;
+            this.source = new AtomicReference<InputStream>(original);
+        }
+
+        @Override public int read() throws IOException {
+            return source.get().read();
+        }
+
+        @Override public int read(byte[] into, int offset, int length) throws IOException {
+            return source.get().read(into, offset, length);
+        }
+
+        @Override public int available() throws IOException {
+            return source.get().available();
+        }
+
+        private void route(InputStream from) {
+            source.set(from == null ? original : from);
+        }
+    }
+
+    /**
+     * Writes each chunk of output as an {@link #OUTPUT} frame to the client.
+     */
+    private static final class FramingOutputStream extends OutputStream {
+
+        private final DataOutputStream client;
+
+        private FramingOutputStream(DataOutputStream client) {
+            this.client = client;
+        }
+
+        @Override public void write(int value) throws IOException {
+            write(new byte[] { (byte) value }, 0, 1);
+        }
+
+        @Override public synchronized void write(byte[] from, int offset, int length) throws IOException {
+            client.writeByte(OUTPUT);
+            client.writeInt(length);
+            client.write(from, offset, length);
+        }
+
+        @Override public synchronized void flush() throws IOException {
+            client.flush();
+        }
+    }
+
+    /**
+     * Runs the daemon (in the foreground) until a client requests it stop.
+     */
+    public static void run() {
+        File projectRoot = FileUtil.fromParts(PlyUtil.LOCAL_PROJECT_DIR.getPath(), "..");
+        String workingDirectory = FileUtil.getCanonicalPath(new File(System.getProperty("user.dir")));
+        if (!FileUtil.getCanonicalPath(projectRoot).equals(workingDirectory)) {
+            Output.print("^error^ The daemon must be started from the project directory [ ^b^%s^r^ ].", FileUtil.getCanonicalPath(projectRoot));
+            throw new SystemExit(1);
+        }
+        ServerSocket server;
+        try {
+            server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        } catch (IOException ioe) {
+            Output.print(ioe);
+            throw new SystemExit(1);
+        }
+        String token = new BigInteger(130, new SecureRandom()).toString(32);
+        File daemonFile = DaemonClient.writeDaemonFile(server.getLocalPort(), token);
+        if (daemonFile == null) {
+            throw new SystemExit(1);
+        }
+        RoutingOutputStream out = new RoutingOutputStream(System.out);
+        RoutingOutputStream err = new RoutingOutputStream(System.err);
+        RoutingInputStream in = new RoutingInputStream(System.in);
+        System.setOut(new PrintStream(out, true));
+        System.setErr(new PrintStream(err, true));
+        System.setIn(in);
+        running = true;
+        Output.print("^ply^ daemon listening on port ^b^%d^r^ (stop via ^b^ply daemon stop^r^).", server.getLocalPort());
+        String stamp = computeStamp(projectRoot);
+        boolean stop = false;
+        try {
+            while (!stop) {
+                Socket socket = null;
+                try {
+                    socket = server.accept();
+                    DataInputStream clientIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    DataOutputStream clientOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    String clientToken = clientIn.readUTF();
+                    String clientWorkingDirectory = clientIn.readUTF();
+                    boolean piped = clientIn.readBoolean();
+                    String[] args = new String[clientIn.readInt()];
+                    for (int i = 0; i < args.length; i++) {
+                        args[i] = clientIn.readUTF();
+                    }
+                    if (!token.equals(clientToken) || !workingDirectory.equals(clientWorkingDirectory)) {
+                        clientOut.writeByte(REJECTED);
+                        clientOut.flush();
+                        continue;
+                    }
+                    if (DaemonClient.isStopRequest(args)) {
+                        stop = true;
+                        clientOut.writeByte(EXIT);
+                        clientOut.writeInt(0);
+                        clientOut.flush();
+                        continue;
+                    }
+                    String currentStamp = computeStamp(projectRoot);
+                    boolean configChanged = !stamp.equals(currentStamp);
+                    stamp = currentStamp;
+                    OutputStream clientOutput = new BufferedOutputStream(new FramingOutputStream(clientOut), 8192);
+                    out.route(clientOutput);
+                    err.route(clientOutput);
+                    in.route(clientIn);
+                    int exitCode;
+                    try {
+                        exitCode = invoke(args, piped, configChanged);
+                    } finally {
+                        System.out.flush();
+                        System.err.flush();
+                        out.route(null);
+                        err.route(null);
+                        in.route(null);
+                    }
+                    clientOut.writeByte(EXIT);
+                    clientOut.writeInt(exitCode);
+                    clientOut.flush();
+                } catch (EOFException eofe) {
+                    // client disconnected without an invocation (i.e., probing whether the daemon is running)
+                } catch (IOException ioe) {
+                    Output.print(ioe);
+                } finally {
+                    if (socket != null) {
+                        try {
+                            socket.close();
+                        } catch (IOException ioe) {
+                            // ignore
+                        }
+                    }
+                }
+            }
+        } finally {
+            try {
+                server.close();
+            } catch (IOException ioe) {
+                // ignore
+            }
+            daemonFile.delete();
+        }
+        Output.print("^ply^ daemon stopped.");
+    }
+
+    /**
+     * Services an invocation of ply with {@code args}; analogous to {@link net.ocheyedan.ply.Ply#main(String[])}.
+     * @param args the command line arguments of the invocation
+     * @param piped whether the client's output is being piped
+     * @param configChanged true if the configuration has changed since the last invocation
+     * @return the exit code of the invocation
+     */
+    private static int invoke(String[] args, boolean piped, boolean configChanged) {
+        PropsExt.reset(configChanged);
+        Alias.invalidateCache();
+        Deps.invalidateCaches();
+        OutputExt.reset();
+        System.setProperty("ply.piped", String.valueOf(piped));
+        Output.print("^dbug^ daemon servicing %s%s", Arrays.toString(args), (configChanged ? " (configuration changed)" : ""));
+        try {
+            Command command = CommandLineParser.parse(args);
+            AdHoc.add(command.args.adHocProps);
+            command.run();
+            return 0;
+        } catch (SystemExit se) {
+            OutputExt.init(); // ensure the queue-ed messages have been printed
+            return se.exitCode;
+        } catch (RuntimeException re) {
+            OutputExt.init();
+            Output.print(re);
+            return 1;
+        } finally {
+            PlyUtil.cleanupInvocationProperties();
+        }
+    }
+
+    /**
+     * @param projectRoot of the project being serviced
+     * @return a stamp representing the modification state of the system configuration directory, the
+     *         project's configuration directory and those of any direct child directories (i.e., submodules).
+     */
+    static String computeStamp(File projectRoot) {
+        StringBuilder stamp = new StringBuilder();
+        appendStamp(PlyUtil.SYSTEM_CONFIG_DIR, stamp);
+        appendStamp(PlyUtil.LOCAL_CONFIG_DIR, stamp);
+        File[] children = projectRoot.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                File childConfig = FileUtil.fromParts(child.getPath(), ".ply", "config");
+                if (child.isDirectory() && childConfig.isDirectory()) {
+                    appendStamp(childConfig, stamp);
+                }
+            }
+        }
+        return stamp.toString();
+    }
+
+    private static void appendStamp(File configDirectory, StringBuilder into) {
+        into.append(configDirectory.getPath()).append('@').append(configDirectory.lastModified()).append(';');
+        File[] files = configDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            into.append(file.getName()).append('@').append(file.lastModified()).append(':').append(file.length()).append(';');
+        }
+    }
+
+    private DaemonServer() { }
+
+}
@@ -0,0 +1,276 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Props;
+import net.ocheyedan.ply.props.Scope;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:01 PM
+ *
+ * A content-addressed cache of the outputs of scripts (see {@link UpToDate#isCacheable()}); i.e., the class files of
+ * {@literal ply-compiler} and the artifact of {@literal ply-package}.  Upon a successful run the script's outputs are
+ * copied into the cache keyed by {@link UpToDate#computeCacheKey()}; if a later build computes the same key (say after
+ * switching branches and back) the outputs are restored from the cache rather than running the script.
+ *
+ * The cache is configured within the {@literal ply} context:
+ * {@literal build.cache} - true to enable the cache (it is disabled by default).
+ * {@literal build.cache.dir} - the directory of the cache (defaults to {@literal ~/.ply/cache}).
+ * {@literal build.cache.size} - the maximum size of the cache (i.e., {@literal 2G}); the least recently used entries
+ *                                are evicted once exceeded.
+ * {@literal build.cache.remote.dir} - an optional directory (i.e., a shared mount) consulted upon a miss of the local
+ *                                     cache and into which stored entries are also copied; allows sharing between
+ *                                     machines.
+ *
+ * Each entry is a directory named by its key containing a copy of each declared output (named by its index within
+ * the declaration).  Entries are written to a temporary directory and then renamed so that concurrent builds never see
+ * partial entries.  The modification time of an entry's directory is its last use.  Hit and miss counts are
+ * maintained within {@literal stats.properties} of the cache directory.
+ */
+final class BuildCache {
+
+    private static final Context PLY = Context.named("ply");
+
+    /**
+     * @param configDirectory of the project
+     * @return the build cache or null if it has not been enabled
+     */
+    static BuildCache get(File configDirectory) {
+        if (!"true".equalsIgnoreCase(Props.get("build.cache", PLY, Scope.Default, configDirectory).value())) {
+            return null;
+        }
+        String dir = Props.get("build.cache.dir", PLY, Scope.Default, configDirectory).value();
+        if (dir.isEmpty()) {
+            dir = FileUtil.pathFromParts("~", ".ply", "cache");
+        }
+        long maxSize = PreforkPool.parseMemory(Props.get("build.cache.size", PLY, Scope.Default, configDirectory).value());
+        String remoteDir = Props.get("build.cache.remote.dir", PLY, Scope.Default, configDirectory).value();
+        BuildCache remote = (remoteDir.isEmpty() ? null
+                : new BuildCache(new File(FileUtil.resolveUnixTilde(remoteDir)), -1L, null));
+        return new BuildCache(new File(FileUtil.resolveUnixTilde(dir)), maxSize, remote);
+    }
+
+    private final File directory;
+
+    /**
+     * The maximum size, in bytes, of the cache; if negative the cache is unbounded.
+     */
+    private final long maxSize;
+
+    private final BuildCache remote;
+
+    private BuildCache(File directory, long maxSize, BuildCache remote) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.remote = remote;
+    }
+
+    /**
+     * Restores the outputs of {@code declaration} from the entry keyed by {@code key}, if present.
+     * @param declaration of the script
+     * @param key of the entry
+     * @return true if the outputs were restored
+     */
+    boolean restore(UpToDate declaration, String key) {
+        File entry = new File(directory, key);
+        if (!entry.isDirectory() && ((remote == null) || !remote.copyEntry(key, this))) {
+            recordStat("misses");
+            return false;
+        }
+        List<File> outputs = declaration.getOutputs();
+        for (int i = 0; i < outputs.size(); i++) {
+            File output = outputs.get(i);
+            File cached = new File(entry, String.valueOf(i));
+            delete(output);
+            if (!cached.exists()) {
+                continue; // the output was not produced by the cached run
+            }
+            if (!copy(cached, output)) {
+                Output.print("^warn^ Could not restore ^b^%s^r^ from the build cache.", output.getPath());
+                delete(output);
+                recordStat("misses");
+                return false;
+            }
+        }
+        entry.setLastModified(System.currentTimeMillis());
+        recordStat("hits");
+        return true;
+    }
+
+    /**
+     * Stores the outputs of {@code declaration} as the entry keyed by {@code key} and then evicts the least recently
+     * used entries if the cache exceeds its maximum size.
+     * @param declaration of the script
+     * @param key of the entry
+     */
+    void store(UpToDate declaration, String key) {
+        File entry = new File(directory, key);
+        if (entry.exists()) {
+            entry.setLastModified(System.currentTimeMillis());
+            return;
+        }
+        File temporary = new File(directory, key + ".tmp-" + UUID.randomUUID().toString());
+        temporary.mkdirs();
+        List<File> outputs = declaration.getOutputs();
+        for (int i = 0; i < outputs.size(); i++) {
+            File output = outputs.get(i);
+            if (output.exists() && !copy(output, new File(temporary, String.valueOf(i)))) {
+                Output.print("^dbug^ Could not copy ^b^%s^r^ into the build cache.", output.getPath());
+                delete(temporary);
+                return;
+            }
+        }
+        if (!temporary.renameTo(entry)) {
+            delete(temporary); // stored concurrently by another build
+            return;
+        }
+        if (remote != null) {
+            copyEntry(key, remote);
+        }
+        evict();
+    }
+
+    /**
+     * Copies the entry keyed by {@code key} into {@code into}.
+     * @return true if the entry exists and was copied
+     */
+    private boolean copyEntry(String key, BuildCache into) {
+        File entry = new File(directory, key);
+        if (!entry.isDirectory()) {
+            return false;
+        }
+        File temporary = new File(into.directory, key + ".tmp-" + UUID.randomUUID().toString());
+        if (!copy(entry, temporary)) {
+            Output.print("^dbug^ Could not copy build cache entry ^b^%s^r^ into ^b^%s^r^.", key, into.directory.getPath());
+            delete(temporary);
+            return false;
+        }
+        if (!temporary.renameTo(new File(into.directory, key))) {
+            delete(temporary);
+        }
+        return new File(into.directory, key).isDirectory();
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache is within its maximum size.
+     */
+    private void evict() {
+        if (maxSize < 0) {
+            return;
+        }
+        File[] entries = directory.listFiles(new FileFilter() {
+            @Override public boolean accept(File file) {
+                return file.isDirectory() && !file.getName().contains(".tmp-");
+            }
+        });
+        if (entries == null) {
+            return;
+        }
+        final Map<File, Long> lastUsed = new HashMap<File, Long>(entries.length, 1.0f);
+        long size = 0L;
+        Map<File, Long> sizes = new HashMap<File, Long>(entries.length, 1.0f);
+        for (File entry : entries) {
+            lastUsed.put(entry, entry.lastModified());
+            long entrySize = sizeOf(entry);
+            sizes.put(entry, entrySize);
+            size += entrySize;
+        }
+        if (size <= maxSize) {
+            return;
+        }
+        Arrays.sort(entries, new Comparator<File>() {
+            @Override public int compare(File left, File right) {
+                return lastUsed.get(left).compareTo(lastUsed.get(right));
+            }
+        });
+        int evicted = 0;
+        for (int i = 0; (i < entries.length) && (size > maxSize); i++) {
+            size -= sizes.get(entries[i]);
+            FileUtil.delete(entries[i]);
+            evicted++;
+        }
+        Output.print("^dbug^ Evicted ^b^%d^r^ entries from the build cache.", evicted);
+        recordStat("evictions", evicted);
+    }
+
+    private void recordStat(String name) {
+        recordStat(name, 1);
+    }
+
+    /**
+     * Adds {@code count} to the statistic named {@code name} within {@literal stats.properties}.
+     */
+    private void recordStat(String name, int count) {
+        synchronized (BuildCache.class) {
+            File statsFile = new File(directory, "stats.properties");
+            Properties stats = new Properties();
+            InputStream in = null;
+            OutputStream out = null;
+            try {
+                if (statsFile.exists()) {
+                    in = new FileInputStream(statsFile);
+                    stats.load(in);
+                }
+                long value = 0L;
+                try {
+                    value = Long.parseLong(stats.getProperty(name, "0"));
+                } catch (NumberFormatException nfe) {
+                    // reset the corrupt value
+                }
+                stats.setProperty(name, String.valueOf(value + count));
+                directory.mkdirs();
+                out = new FileOutputStream(statsFile);
+                stats.store(out, null);
+            } catch (IOException ioe) {
+                Output.print("^dbug^ Could not update the build cache statistics [ %s ].", ioe.getMessage());
+            } finally {
+                close(in);
+                close(out);
+            }
+        }
+    }
+
+    private static boolean copy(File from, File to) {
+        if (from.isDirectory()) {
+            return FileUtil.copyDir(from, to);
+        }
+        return FileUtil.copy(from, to);
+    }
+
+    private static void delete(File file) {
+        if (file.exists()) {
+            FileUtil.delete(file);
+        }
+    }
+
+    private static long sizeOf(File file) {
+        if (!file.isDirectory()) {
+            return file.length();
+        }
+        long size = 0L;
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                size += sizeOf(child);
+            }
+        }
+        return size;
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ioe) {
+                // ignore
+            }
+        }
+    }
+
+}
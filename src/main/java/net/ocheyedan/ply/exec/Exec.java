@@ -3,6 +3,7 @@ package net.ocheyedan.ply.exec;
 import net.ocheyedan.ply.FileUtil;
 import net.ocheyedan.ply.Output;
 import net.ocheyedan.ply.OutputExt;
+import net.ocheyedan.ply.Trace;
 import net.ocheyedan.ply.cmd.build.ShellScript;
 import net.ocheyedan.ply.props.PropsExt;
 
@@ -10,6 +11,8 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -30,54 +33,205 @@ public final class Exec {
      * @return false if any of the invocations of the resolved {@link Execution} objects failed for any reason
      */
     public static boolean invoke(File projectPlyDir, List<Execution> executions) {
+        return invoke(projectPlyDir, executions, Collections.<File, List<Execution>>emptyMap());
+    }
+
+    /**
+     * Invokes all {@code executions}.  While an execution runs, those following it (including those of
+     * {@code upcoming}) are pre-invoked as configured by {@link PreforkPool}.
+     * @param projectPlyDir the {@literal .ply} directory of the project to invoke
+     * @param executions to invoke
+     * @param upcoming executions of projects which will be invoked after this one (i.e., submodules), in order, keyed
+     *                 by their project's {@literal .ply} directory; these may be pre-invoked but are not invoked.
+     *                 May be null.
+     * @return false if any of the invocations of the resolved {@link Execution} objects failed for any reason
+     */
+    public static boolean invoke(File projectPlyDir, List<Execution> executions, Map<File, List<Execution>> upcoming) {
+        return invoke(projectPlyDir, executions, upcoming, null);
+    }
+
+    /**
+     * Notified as each execution invoked by {@link #invoke(File, List, Map, Listener)} completes.
+     */
+    public static interface Listener {
+
+        /**
+         * Called from the invoking thread once {@code execution} has completed successfully (or has been skipped).
+         * @param execution which has completed
+         */
+        void completed(Execution execution);
+
+    }
+
+    /**
+     * Same as {@link #invoke(File, List, Map)} but notifies {@code listener} as each execution completes.
+     * @param projectPlyDir the {@literal .ply} directory of the project to invoke
+     * @param executions to invoke
+     * @param upcoming executions of projects which will be invoked after this one, may be null
+     * @param listener to notify, may be null
+     * @return false if any of the invocations of the resolved {@link Execution} objects failed for any reason
+     */
+    public static boolean invoke(File projectPlyDir, List<Execution> executions, Map<File, List<Execution>> upcoming,
+                                 Listener listener) {
+        if (upcoming == null) {
+            upcoming = Collections.emptyMap();
+        }
         // all invoked scripts will be started from the parent of the '.ply' directory.
         // this provides a consistent view of execution for all scripts.  if a script wants to actually know
         // which directory from which the 'ply' command was invoked, look at 'original.user.dir' environment property.
         File projectRoot = FileUtil.fromParts(projectPlyDir.getPath(), "..");
-        // track the running and queued callbacks
-        ExecutionWrapper running = null;
-        ExecutionWrapper queued = null;
+        File projectConfigDir = FileUtil.fromParts(projectPlyDir.getPath(), "config");
+        int depth = PreforkPool.getDepth(projectConfigDir);
+        long memoryBudget = PreforkPool.getMemoryBudget(projectConfigDir);
+        List<PreforkPool.Candidate> candidates = new ArrayList<PreforkPool.Candidate>(executions.size());
         for (Execution execution : executions) {
-            // wait for the running task, if any
-            if (!waitFor(running, queued)) {
-                return false;
+            candidates.add(new PreforkPool.Candidate(execution, projectRoot));
+        }
+        for (File upcomingPlyDir : upcoming.keySet()) {
+            File upcomingRoot = FileUtil.fromParts(upcomingPlyDir.getPath(), "..");
+            for (Execution execution : upcoming.get(upcomingPlyDir)) {
+                candidates.add(new PreforkPool.Candidate(execution, upcomingRoot));
             }
-            // the running task has now completed, invoke the queued task
-            running = invoke(queued);
-            // create a new queued task
-            queued = preInvoke(execution, projectRoot);
         }
-        // finish up the running/queued processes
-        if (!waitFor(running, queued)) {
-            return false;
+        Trace.Span span = Trace.begin("exec", "invoke").arg("project", FileUtil.getCanonicalPath(projectRoot));
+        try {
+            ExecutionWrapper running = null;
+            UpToDate runningUpToDate = null;
+            String runningCacheKey = null;
+            for (int i = 0; i < executions.size(); i++) {
+                // wait for the running task, if any
+                if (!waitFor(running, runningUpToDate, runningCacheKey)) {
+                    PreforkPool.kill(candidates);
+                    return false;
+                }
+                if ((running != null) && (listener != null)) {
+                    listener.completed(executions.get(i - 1));
+                }
+                running = null;
+                runningCacheKey = null;
+                // the running task has now completed, skip the next task if its fingerprint is unchanged or if its
+                // outputs can be restored from the build cache
+                Execution execution = executions.get(i);
+                runningUpToDate = UpToDate.get(execution, projectRoot);
+                if (runningUpToDate != null) {
+                    if (runningUpToDate.isUpToDate()) {
+                        skip(execution, "up-to-date", listener);
+                        continue;
+                    }
+                    BuildCache cache = (runningUpToDate.isCacheable() ? BuildCache.get(projectConfigDir) : null);
+                    if (cache != null) {
+                        runningCacheKey = runningUpToDate.computeCacheKey();
+                        if (runningCacheKey.equals(runningUpToDate.getLastCacheKey()) && runningUpToDate.outputsExist()) {
+                            // only the modification times of the inputs changed
+                            runningUpToDate.save(runningCacheKey);
+                            skip(execution, "up-to-date", listener);
+                            continue;
+                        } else if (cache.restore(runningUpToDate, runningCacheKey)) {
+                            runningUpToDate.save(runningCacheKey);
+                            skip(execution, "restored from the build cache", listener);
+                            continue;
+                        }
+                    }
+                }
+                // otherwise invoke the next (likely already pre-invoked) task
+                running = PreforkPool.claim(execution, projectRoot);
+                running.invoke();
+                // pre-invoke those following while the running task executes
+                PreforkPool.prefork(candidates.subList(i + 1, candidates.size()), depth, memoryBudget);
+            }
+            if (!waitFor(running, runningUpToDate, runningCacheKey)) {
+                PreforkPool.kill(candidates);
+                return false;
+            }
+            if ((running != null) && (listener != null)) {
+                listener.completed(executions.get(executions.size() - 1));
+            }
+            return true;
+        } finally {
+            span.end();
         }
-        running = invoke(queued);
-        return waitFor(running, null);
     }
 
-    private static ExecutionWrapper preInvoke(Execution execution, File projectRoot) {
-        File projectConfigDir = FileUtil.fromParts(projectRoot.getPath(), ".ply", "config");
-        execution = handleNonNativeExecutable(execution, projectConfigDir);
-        long start = System.currentTimeMillis();
-        execution.preInvoke(projectRoot, PropsExt.getPropsForEnv(execution, projectConfigDir, execution.script.scope));
-        return new ExecutionWrapper(execution, start);
+    /**
+     * @param running the running execution, may be null
+     * @param upToDate the declaration of {@code running} or null if it declares no inputs nor outputs
+     * @param cacheKey the key of {@code running}'s outputs within the {@link BuildCache} or null if not cached
+     * @return true if {@code running} is null or completed successfully
+     */
+    private static boolean waitFor(ExecutionWrapper running, UpToDate upToDate, String cacheKey) {
+        if (running == null) {
+            return true;
+        }
+        boolean success = running.waitFor();
+        if (upToDate != null) {
+            if (success) {
+                upToDate.save(cacheKey);
+                if (cacheKey != null) {
+                    BuildCache cache = BuildCache.get(upToDate.getConfigDirectory());
+                    if (cache != null) {
+                        cache.store(upToDate, cacheKey);
+                    }
+                }
+            } else {
+                upToDate.invalidate();
+            }
+        }
+        return success;
     }
 
-    private static ExecutionWrapper invoke(ExecutionWrapper queued) {
-        if (queued != null) {
-            queued.invoke();
+    /**
+     * Skips {@code execution}, discarding it if it had been pre-invoked.
+     * @param execution to skip
+     * @param reason for skipping
+     * @param listener to notify of the (skipped) completion, may be null
+     */
+    private static void skip(Execution execution, String reason, Listener listener) {
+        Output.print("[^green^%s^r^] %s, skipping.", ExecutionWrapper.buildExecutionName(execution), reason);
+        PreforkPool.discard(execution);
+        if (listener != null) {
+            listener.completed(execution);
         }
-        return queued;
     }
 
-    private static boolean waitFor(ExecutionWrapper running, ExecutionWrapper queued) {
-        if (!((running == null) || running.waitFor())) {
-            if (queued != null) {
-                queued.execution.kill();
-            }
-            return false;
-        }
-        return true;
+    /**
+     * @param projectConfigDir the configuration directory of the project
+     * @return the number of executions which are pre-invoked ahead of the running execution
+     * @see PreforkPool
+     */
+    public static int getPreforkDepth(File projectConfigDir) {
+        return PreforkPool.getDepth(projectConfigDir);
+    }
+
+    /**
+     * @return the number of executions which may run at the same time
+     * @see ResourceLimiter
+     */
+    public static int getMaxConcurrency() {
+        return ResourceLimiter.getCpus();
+    }
+
+    /**
+     * @param execution to translate (see {@link #handleNonNativeExecutable(Execution, java.io.File)})
+     * @param projectRoot the root directory of {@code execution}'s project
+     * @return the translated {@code execution}
+     */
+    static Execution translate(Execution execution, File projectRoot) {
+        File projectConfigDir = FileUtil.fromParts(projectRoot.getPath(), ".ply", "config");
+        return handleNonNativeExecutable(execution, projectConfigDir);
+    }
+
+    /**
+     * @param execution the translated execution to pre-invoke
+     * @param projectRoot the root directory of {@code execution}'s project
+     * @return the pre-invoked {@code execution}
+     */
+    static ExecutionWrapper preInvoke(Execution execution, File projectRoot) {
+        File projectConfigDir = FileUtil.fromParts(projectRoot.getPath(), ".ply", "config");
+        long start = System.currentTimeMillis();
+        Trace.Span span = Trace.begin("exec", "preInvoke " + execution.name).arg("execution", execution.getClass().getSimpleName());
+        execution.preInvoke(projectRoot, PropsExt.getPropsForEnv(execution, projectConfigDir, execution.script.scope));
+        span.end();
+        return new ExecutionWrapper(execution, start);
     }
 
     /**
@@ -93,7 +247,8 @@ public final class Exec {
         if ((execution.script instanceof ShellScript) || executable.endsWith(".sh")) {
             return ShellExecution.createShellExecutable(execution, configDirectory);
         } else if (executable.endsWith(".jar")) {
-            return JvmExecution.createJarExecutable(execution, configDirectory);
+            Execution inProcess = InProcessExecution.createJarExecutable(execution, configDirectory);
+            return (inProcess != null ? inProcess : JvmExecution.createJarExecutable(execution, configDirectory));
         } else if (executable.endsWith(".clj")) {
             return JvmExecution.createClojureExecutable(execution, configDirectory);
         }
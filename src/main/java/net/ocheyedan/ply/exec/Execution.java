@@ -7,7 +7,9 @@ import net.ocheyedan.ply.cmd.build.Script;
 import net.ocheyedan.ply.props.Context;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -25,11 +27,7 @@ public class Execution {
     /**
      * A thread-safe pipe to be used as the {@literal stdin} for the {@link Process} created to invoke this execution.
      */
-    protected static final ThreadLocal<StdinProcessPipe> STDIN_PROCESS_PIPE = new ThreadLocal<StdinProcessPipe>() {
-        @Override protected StdinProcessPipe initialValue() {
-            return new StdinProcessPipe();
-        }
-    };
+    protected static final StdinProcessPipe STDIN_PROCESS_PIPE = new StdinProcessPipe();
 
     /**
      * A name to use when identifying this execution.
@@ -108,6 +106,15 @@ public class Execution {
         return "execution";
     }
 
+    /**
+     * @return true if the resolved properties should be passed to the invoked process as a property snapshot
+     *         (with only its path, and a few synthetic properties, exported as environment variables) rather than
+     *         as an environment variable per property.
+     */
+    public boolean isUsingPropsSnapshot() {
+        return false;
+    }
+
     /**
      * Allows executions the ability to startup and then pause. If an implementation allows for this then they will pause
      * after starting up and then wait until {@link #invoke(String)} is called.
@@ -137,8 +144,8 @@ public class Execution {
         final Process process = processBuilder.get().start();
         this.process.set(process);
 
-        // take the parent's input and pipe to the child's output
-        STDIN_PROCESS_PIPE.get().startPipe(process.getOutputStream());
+        // take the parent's input and pipe to the child's output (the child cannot signal when it reads its input)
+        STDIN_PROCESS_PIPE.startPipe(process.getOutputStream());
         // capture the child's input for output on parent process
         this.processStdout.set(new BufferedReader(new InputStreamReader(process.getInputStream())));
     }
@@ -149,31 +156,73 @@ public class Execution {
      * @see Process#waitFor()
      */
     int waitFor(String outputScriptName) throws IOException, InterruptedException {
-        // take the child's input and reformat for output on parent process
-        String processStdoutLine;
-        while ((processStdoutLine = processStdout.get().readLine()) != null) {
-            PwdUtil.Request request = PwdUtil.isPwdRequest(processStdoutLine);  // determine if the line is a password request
-            OutputExt.printFromExec("[^green^%s^r^] %s", outputScriptName, request.getLine());
-            if (!request.isPwd()) {
-                continue;
-            }
-            // child-process is requesting a password-read; handle via {@link System#console()} if available
-            Console console = System.console();
-            char[] pwd;
-            if (console != null) {
-                pwd = console.readPassword();
-            } else { // no console available, simply read (potentially with echo-on)
-                BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-                pwd = reader.readLine().toCharArray();
+        // the child's output is read on its own thread and printed here, in batches, so that the child isn't
+        // slowed by printing each line
+        ProcessOutputReader reader = ProcessOutputReader.start(processStdout.get(), outputScriptName);
+        List<String> lines = new ArrayList<String>(ProcessOutputReader.CAPACITY);
+        StringBuilder batch = new StringBuilder(8192);
+        boolean more = true;
+        while (more) {
+            more = reader.take(lines);
+            for (String processStdoutLine : lines) {
+                if (processStdoutLine.endsWith(StdinProcessPipe.STDIN_REQUEST_TOKEN)) {
+                    // child is reading its input; start piping to it (and print any partial line without a newline)
+                    STDIN_PROCESS_PIPE.startPipe(process.get().getOutputStream());
+                    processStdoutLine = processStdoutLine.substring(0, processStdoutLine.length() - StdinProcessPipe.STDIN_REQUEST_TOKEN.length());
+                    if (processStdoutLine.isEmpty()) {
+                        continue;
+                    }
+                    processStdoutLine = "^no_line^" + processStdoutLine;
+                }
+                PwdUtil.Request request = PwdUtil.isPwdRequest(processStdoutLine);  // determine if the line is a password request
+                boolean pwd = request.isPwd();
+                String rendered = OutputExt.renderFromExec("[^green^%s^r^] %s", outputScriptName, request.getLine());
+                if (rendered != null) {
+                    batch.append(rendered);
+                }
+                if (pwd) {
+                    print(batch); // the prompt must be visible prior to reading
+                    readPassword();
+                }
             }
-            STDIN_PROCESS_PIPE.get().write(pwd);
-            Arrays.fill(pwd, ' ');
+            lines.clear();
+            print(batch);
         }
         int result = process.get().waitFor();
-        STDIN_PROCESS_PIPE.get().pausePipe();
+        STDIN_PROCESS_PIPE.pausePipe(process.get().getOutputStream());
         return result;
     }
 
+    /**
+     * Prints and then clears {@code batch}.
+     * @param batch of rendered output lines
+     */
+    private static void print(StringBuilder batch) {
+        if (batch.length() > 0) {
+            System.out.print(batch);
+            System.out.flush();
+            batch.setLength(0);
+        }
+    }
+
+    /**
+     * Reads a password on behalf of the child process and writes it to the child's {@literal stdin}.
+     * @throws IOException if the password could not be written to the child process
+     */
+    private void readPassword() throws IOException {
+        // child-process is requesting a password-read; handle via {@link System#console()} if available
+        Console console = System.console();
+        char[] pwd;
+        if (console != null) {
+            pwd = console.readPassword();
+        } else { // no console available, simply read (potentially with echo-on)
+            BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+            pwd = reader.readLine().toCharArray();
+        }
+        STDIN_PROCESS_PIPE.write(process.get().getOutputStream(), pwd);
+        Arrays.fill(pwd, ' ');
+    }
+
     /**
      * Kills the associated {@link Process} if any.
      */
@@ -1,6 +1,7 @@
 package net.ocheyedan.ply.exec;
 
 import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.Trace;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -40,6 +41,16 @@ final class ExecutionWrapper {
      */
     private final AtomicBoolean errorOnInvoke;
 
+    /**
+     * The span from invocation until completion; see {@link Trace}.
+     */
+    private Trace.Span span;
+
+    /**
+     * The cpu time of the reaped children of this process upon invocation if tracing, otherwise -1.
+     */
+    private long childrenCpuTime;
+
     ExecutionWrapper(Execution execution, long start) {
         this.execution = execution;
         this.start = start;
@@ -52,6 +63,9 @@ final class ExecutionWrapper {
      * Wraps error handling around calls to {@link Execution#invoke(String)}
      */
     void invoke() {
+        ResourceLimiter.acquire(execution);
+        span = Trace.begin("exec", outputScriptName);
+        childrenCpuTime = (Trace.isEnabled() ? Trace.getChildrenCpuTime() : -1L);
         try {
             execution.invoke(scriptName);
         } catch (IOException ioe) {
@@ -68,10 +82,14 @@ final class ExecutionWrapper {
      */
     boolean waitFor() {
         if (errorOnInvoke.get()) {
+            ResourceLimiter.release(execution);
+            span.arg("error", "invoke").end();
             return false;
         }
+        Trace.Span waitSpan = Trace.begin("exec", "waitFor " + outputScriptName);
         try {
             int result = execution.waitFor(outputScriptName);
+            span.arg("exit", result);
             printTime(start, outputScriptName);
             if (result == 0) {
                 return true;
@@ -82,10 +100,24 @@ final class ExecutionWrapper {
             Output.print(ioe);
         } catch (InterruptedException ie) {
             Output.print(ie);
+        } finally {
+            ResourceLimiter.release(execution);
+            waitSpan.end();
+            endSpan();
         }
         return false;
     }
 
+    private void endSpan() {
+        if (childrenCpuTime != -1L) {
+            long cpu = Trace.getChildrenCpuTime();
+            if (cpu != -1L) {
+                span.arg("children.cpu.ms", (cpu - childrenCpuTime));
+            }
+        }
+        span.end();
+    }
+
     private static float printTime(long start, String script) {
         long end = System.currentTimeMillis();
         float seconds = ((end - start) / 1000.0f);
@@ -93,7 +125,11 @@ final class ExecutionWrapper {
         return seconds;
     }
 
-    private static String buildExecutionName(Execution execution) {
+    /**
+     * @param execution for which to build a name
+     * @return the short-form name of {@code execution} (e.g., clean or test:compile) as used to prefix its output
+     */
+    static String buildExecutionName(Execution execution) {
         String name = execution.name;
         String scope = execution.script.scope.getScriptPrefix();
         // only prefix with scope if the execution name isn't the same as the scope
@@ -0,0 +1,193 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.cmd.build.Script;
+import net.ocheyedan.ply.daemon.DaemonServer;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Props;
+import net.ocheyedan.ply.props.Scope;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:14 PM
+ *
+ * An execution of a {@literal jar} script within the ply {@literal JVM} itself.  This avoids the start-up cost
+ * of a new {@literal JVM} (and its cold {@literal JIT}) per script.  Each script's classpath is loaded by its own
+ * {@link URLClassLoader} (parented by the boot class-loader so that it is isolated from ply's own classes) which is
+ * reused for subsequent invocations of the same script.
+ *
+ * Only trusted scripts are invoked in-process; the property {@literal in-process} (or {@literal daemon.in-process}
+ * within a {@link DaemonServer}) within the {@literal scripts-jar} context must be true and the script itself must be marked via {@literal in-process.<jar-name>=true}.  Additionally,
+ * the script's options must statically declare its classpath and main-class via the {@literal JvmPrimer} and ply must
+ * have been invoked from the project's directory (scripts resolve relative paths against the working directory).
+ * If any of these conditions are not met, the script is forked as a {@link JvmExecution}.
+ *
+ * Rather than passing the resolved properties via environment variables, they are handed directly to the script's
+ * copy of {@literal net.ocheyedan.ply.props.Env} which also resets the state its copy of {@literal ply-util} retained
+ * from any previous invocation.  As the class-loader is reused, scripts keeping their own static state across
+ * invocations should not be marked in-process.
+ */
+final class InProcessExecution extends Execution {
+
+    /**
+     * The class (loaded by each script's class-loader) to which the resolved properties are handed.
+     */
+    static final String ENV_CLASS_NAME = "net.ocheyedan.ply.props.Env";
+
+    private static final String JVM_PRIMER_CLASS_NAME = "net.ocheyedan.ply.JvmPrimer";
+
+    /**
+     * Reusable class-loaders keyed by their classpath.
+     */
+    private static final Map<String, ClassLoader> LOADERS = new ConcurrentHashMap<String, ClassLoader>(8, 1.0f);
+
+    /**
+     * Translates {@code execution} into an in-process execution if possible.
+     * @param execution to invoke
+     * @param configDirectory the ply configuration directory from which to resolve properties
+     * @return the translated execution or null if {@code execution} cannot (or should not) be invoked in-process
+     */
+    static InProcessExecution createJarExecutable(Execution execution, File configDirectory) {
+        Context scriptsJarContext = Context.named("scripts-jar");
+        Scope scope = execution.script.scope;
+        String inProcess = (DaemonServer.isRunning() ? "daemon.in-process" : "in-process");
+        if (!"true".equalsIgnoreCase(Props.get(inProcess, scriptsJarContext, scope, configDirectory).value())) {
+            return null;
+        }
+        String executable = execution.executionArgs[0];
+        int index = executable.lastIndexOf(File.separator);
+        if (index != -1) {
+            executable = executable.substring(index + 1);
+        }
+        if (!"true".equalsIgnoreCase(Props.get("in-process." + executable, scriptsJarContext, scope, configDirectory).value())) {
+            return null;
+        }
+        String projectRoot = FileUtil.getCanonicalPath(FileUtil.fromParts(configDirectory.getPath(), "..", ".."));
+        if (!projectRoot.equals(FileUtil.getCanonicalPath(new File(System.getProperty("user.dir"))))) {
+            Output.print("^dbug^ Not invoking ^b^%s^r^ in-process as ply was not invoked from the project directory.", executable);
+            return null;
+        }
+        AtomicBoolean staticClasspath = new AtomicBoolean(false);
+        AtomicBoolean containsJvmPrimer = new AtomicBoolean(false);
+        String[] options = JvmExecution.getJarScriptOptions(configDirectory, execution, staticClasspath, containsJvmPrimer);
+        if (!containsJvmPrimer.get()) {
+            Output.print("^dbug^ Not invoking ^b^%s^r^ in-process as its options do not specify the ^b^JvmPrimer^r^.", executable);
+            return null;
+        }
+        String classpath = null, mainClass = null;
+        for (int i = 0; (i < options.length) && (mainClass == null); i++) {
+            String option = options[i];
+            if (option.startsWith("-Xbootclasspath/a:")) {
+                classpath = option.substring("-Xbootclasspath/a:".length());
+            } else if (option.startsWith("-Xbootclasspath")) {
+                return null; // replacing/prepending the boot classpath cannot be emulated in-process
+            } else if (("-cp".equals(option) || "-classpath".equals(option)) && ((i + 1) < options.length)) {
+                classpath = options[++i];
+            } else if (JVM_PRIMER_CLASS_NAME.equals(option) && ((i + 1) < options.length)) {
+                mainClass = options[i + 1];
+            }
+        }
+        if ((classpath == null) || (mainClass == null)) {
+            return null;
+        }
+        ClassLoader loader = getLoader(classpath);
+        if ((loader == null) || !InProcessProcess.install()) {
+            return null;
+        }
+        String[] args = new String[execution.executionArgs.length - 1];
+        System.arraycopy(execution.executionArgs, 1, args, 0, args.length);
+        return new InProcessExecution(execution.name, execution.script, execution.executionArgs, loader, mainClass, args);
+    }
+
+    /**
+     * @param classpath of the script
+     * @return the (possibly cached) class-loader for {@code classpath} or null if a class-loader could not be created
+     *         or if the classpath does not include {@link #ENV_CLASS_NAME} (without which the resolved properties
+     *         cannot be handed to the script).
+     */
+    private static ClassLoader getLoader(String classpath) {
+        ClassLoader loader = LOADERS.get(classpath);
+        if (loader == null) {
+            List<URL> urls = new ArrayList<URL>();
+            for (String entry : classpath.split(File.pathSeparator)) {
+                if (entry.isEmpty()) {
+                    continue;
+                }
+                try {
+                    urls.add(new File(entry).toURI().toURL());
+                } catch (MalformedURLException murle) {
+                    Output.print(murle);
+                    return null;
+                }
+            }
+            // parent is the boot class-loader so that the script's classes are isolated from ply's own
+            loader = new URLClassLoader(urls.toArray(new URL[urls.size()]), null);
+            LOADERS.put(classpath, loader);
+        }
+        try {
+            loader.loadClass(ENV_CLASS_NAME);
+        } catch (ClassNotFoundException cnfe) {
+            return null;
+        }
+        return loader;
+    }
+
+    private final ClassLoader loader;
+
+    private final String mainClass;
+
+    private final String[] args;
+
+    /**
+     * The resolved properties to hand to the script; set within {@link #preInvoke(java.io.File, java.util.Map)}
+     */
+    private volatile Map<String, String> environment;
+
+    private InProcessExecution(String name, Script script, String[] executionArgs, ClassLoader loader, String mainClass,
+                               String[] args) {
+        super(name, script, executionArgs);
+        this.loader = loader;
+        this.mainClass = mainClass;
+        this.args = args;
+    }
+
+    /**
+     * Override to simply retain the {@code supplementalEnvironment}; there is no process to build.
+     * @param projectRoot which must be the working directory of ply (@see {@link #createJarExecutable(Execution, java.io.File)})
+     * @param supplementalEnvironment resolved properties to hand to the script
+     */
+    @Override void preInvoke(File projectRoot, Map<String, String> supplementalEnvironment) {
+        this.environment = supplementalEnvironment;
+    }
+
+    @Override void invoke(String scriptName) throws IOException {
+        Output.print("^dbug^ invoking %s in-process", scriptName);
+        final InProcessProcess process = new InProcessProcess(name, loader, mainClass, args, environment);
+        this.process.set(process);
+        // take the parent's input and pipe to the script's input once the script reads its input
+        process.onStdinRequested(new Runnable() {
+            @Override public void run() {
+                STDIN_PROCESS_PIPE.startPipe(process.getOutputStream());
+            }
+        });
+        process.start();
+        // capture the script's output for output on parent process
+        this.processStdout.set(new BufferedReader(new InputStreamReader(process.getInputStream())));
+    }
+
+}
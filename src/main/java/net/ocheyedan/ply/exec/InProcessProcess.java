@@ -0,0 +1,432 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.Output;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.security.Permission;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:14 PM
+ *
+ * A {@link Process} whose 'process' is actually a {@literal main} method invoked within the ply {@literal JVM} itself
+ * (within its own {@link ThreadGroup} and with its own {@link ClassLoader}).  Presenting the in-process invocation
+ * as a {@link Process} allows {@link Execution#waitFor(String)} and {@link Execution#kill()} to treat it exactly like
+ * a forked process.
+ *
+ * Standard out/err/in are process-wide and so {@link #install()} replaces {@link System#out}, {@link System#err} and
+ * {@link System#in} with streams which dispatch to the running in-process invocation (if the current thread belongs
+ * to it) or to the original streams otherwise.  Similarly, a {@link SecurityManager} is installed which traps
+ * {@link System#exit(int)} calls from in-process invocations and converts them into the invocation's exit value.
+ * As with a forked process, the invocation completes once its {@literal main} method has returned and any non-daemon
+ * threads it started have completed (or once it calls {@link System#exit(int)}).
+ */
+final class InProcessProcess extends Process {
+
+    /**
+     * Thrown in lieu of exiting the {@literal JVM} when an in-process invocation calls {@link System#exit(int)}.
+     */
+    @SuppressWarnings("serial")
+    private static final class ExitTrapped extends SecurityException {
+
+        private final int status;
+
+        private ExitTrapped(int status) {
+            super(String.format("System.exit(%d) trapped", status));
+            this.status = status;
+        }
+    }
+
+    /**
+     * Permits everything except {@link System#exit(int)} from threads of in-process invocations.
+     */
+    private static final class ExitTrap extends SecurityManager {
+        @Override public void checkPermission(Permission perm) { }
+        @Override public void checkPermission(Permission perm, Object context) { }
+        @Override public void checkExit(int status) {
+            InProcessProcess process = running();
+            if (process != null) {
+                process.exitRequested.compareAndSet(null, status);
+                throw new ExitTrapped(status);
+            }
+        }
+    }
+
+    /**
+     * An in-memory pipe.  Writes never block (the buffer grows as needed) so that a writer holding a shared lock
+     * (i.e., the lock of {@link System#out}) can never dead-lock the reader.  Reads block until data is available
+     * or the pipe is closed.
+     */
+    static final class Pipe {
+
+        private byte[] buffer = new byte[8192];
+
+        private int start;
+
+        private int end;
+
+        private boolean closed;
+
+        final InputStream in = new InputStream() {
+            @Override public int read() throws IOException {
+                byte[] single = new byte[1];
+                return (read(single, 0, 1) == -1 ? -1 : (single[0] & 0xff));
+            }
+            @Override public int read(byte[] into, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                synchronized (Pipe.this) {
+                    while ((start == end) && !closed) {
+                        try {
+                            Pipe.this.wait();
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException();
+                        }
+                    }
+                    if (start == end) {
+                        return -1;
+                    }
+                    int read = Math.min(length, (end - start));
+                    System.arraycopy(buffer, start, into, offset, read);
+                    start += read;
+                    return read;
+                }
+            }
+            @Override public int available() throws IOException {
+                synchronized (Pipe.this) {
+                    return (end - start);
+                }
+            }
+            @Override public void close() throws IOException {
+                Pipe.this.close();
+            }
+        };
+
+        final OutputStream out = new OutputStream() {
+            @Override public void write(int value) throws IOException {
+                write(new byte[] { (byte) value }, 0, 1);
+            }
+            @Override public void write(byte[] from, int offset, int length) throws IOException {
+                synchronized (Pipe.this) {
+                    if (closed) {
+                        throw new IOException("Broken pipe");
+                    }
+                    if ((end + length) > buffer.length) {
+                        int size = (end - start);
+                        byte[] into = ((size + length) > buffer.length
+                                ? new byte[Math.max(buffer.length * 2, size + length)] : buffer);
+                        System.arraycopy(buffer, start, into, 0, size);
+                        buffer = into;
+                        start = 0;
+                        end = size;
+                    }
+                    System.arraycopy(from, offset, buffer, end, length);
+                    end += length;
+                    Pipe.this.notifyAll();
+                }
+            }
+            @Override public void close() throws IOException {
+                Pipe.this.close();
+            }
+        };
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Dispatches to the running in-process invocation's {@link #stdout} or to the {@code original} stream if the
+     * current thread is not part of an in-process invocation.
+     */
+    private static final class DispatchingOutputStream extends OutputStream {
+
+        private final OutputStream original;
+
+        private DispatchingOutputStream(OutputStream original) {
+            this.original = original;
+        }
+
+        @Override public void write(int value) throws IOException {
+            target().write(value);
+        }
+
+        @Override public void write(byte[] from, int offset, int length) throws IOException {
+            target().write(from, offset, length);
+        }
+
+        @Override public void flush() throws IOException {
+            target().flush();
+        }
+
+        private OutputStream target() {
+            InProcessProcess process = running();
+            return (process == null ? original : process.stdout.out);
+        }
+    }
+
+    /**
+     * Dispatches to the running in-process invocation's {@link #stdin} or to the {@code original} stream if the
+     * current thread is not part of an in-process invocation.
+     */
+    private static final class DispatchingInputStream extends InputStream {
+
+        private final InputStream original;
+
+        private DispatchingInputStream(InputStream original) {
+            this.original = original;
+        }
+
+        @Override public int read() throws IOException {
+            return source().read();
+        }
+
+        @Override public int read(byte[] into, int offset, int length) throws IOException {
+            return source().read(into, offset, length);
+        }
+
+        @Override public int available() throws IOException {
+            return source().available();
+        }
+
+        private InputStream source() {
+            InProcessProcess process = running();
+            if (process == null) {
+                return original;
+            }
+            Runnable stdinRequested = process.stdinRequested.getAndSet(null);
+            if (stdinRequested != null) {
+                stdinRequested.run();
+            }
+            return process.stdin.in;
+        }
+    }
+
+    /**
+     * The in-process invocations currently running, keyed by their thread group.
+     */
+    private static final Map<ThreadGroup, InProcessProcess> RUNNING = new ConcurrentHashMap<ThreadGroup, InProcessProcess>(2, 1.0f);
+
+    /**
+     * Null until {@link #install()} is called, then whether installation succeeded.
+     */
+    private static Boolean installed = null;
+
+    /**
+     * Installs the dispatching standard streams and the {@link System#exit(int)} trap.  This is only done once; subsequent
+     * calls return the result of the first.
+     * @return true if in-process invocations are supported within this {@literal JVM}
+     */
+    static synchronized boolean install() {
+        if (installed != null) {
+            return installed;
+        }
+        installed = false;
+        if (System.getSecurityManager() != null) {
+            Output.print("^dbug^ A security-manager is already installed, in-process execution is disabled.");
+            return false;
+        }
+        try {
+            System.setSecurityManager(new ExitTrap());
+        } catch (SecurityException se) {
+            Output.print("^dbug^ Could not install the exit trap [ %s ], in-process execution is disabled.", se.getMessage());
+            return false;
+        } catch (UnsupportedOperationException uoe) {
+            Output.print("^dbug^ Could not install the exit trap [ %s ], in-process execution is disabled.", uoe.getMessage());
+            return false;
+        }
+        System.setOut(new PrintStream(new DispatchingOutputStream(System.out), true));
+        System.setErr(new PrintStream(new DispatchingOutputStream(System.err), true));
+        System.setIn(new DispatchingInputStream(System.in));
+        installed = true;
+        return true;
+    }
+
+    /**
+     * @return the in-process invocation to which the current thread belongs or null if it does not belong to one
+     */
+    private static InProcessProcess running() {
+        if (RUNNING.isEmpty()) {
+            return null;
+        }
+        ThreadGroup group = Thread.currentThread().getThreadGroup();
+        while (group != null) {
+            InProcessProcess process = RUNNING.get(group);
+            if (process != null) {
+                return process;
+            }
+            group = group.getParent();
+        }
+        return null;
+    }
+
+    private final ThreadGroup group;
+
+    private final Thread runner;
+
+    private final Pipe stdin;
+
+    private final Pipe stdout;
+
+    private final AtomicReference<Integer> exitRequested;
+
+    private final CountDownLatch exited;
+
+    /**
+     * Run upon the invocation's first access of its standard input.
+     */
+    private final AtomicReference<Runnable> stdinRequested = new AtomicReference<Runnable>(null);
+
+    private volatile int exitValue;
+
+    /**
+     * @param name of the invocation (used to name the thread group)
+     * @param loader from which to load {@code mainClassName}
+     * @param mainClassName the class whose {@literal main} method to invoke
+     * @param args to pass to the {@literal main} method
+     * @param environment to hand to the invocation in lieu of process environment variables
+     */
+    InProcessProcess(String name, final ClassLoader loader, final String mainClassName, final String[] args,
+                     final Map<String, String> environment) {
+        this.group = new ThreadGroup(name) {
+            @Override public void uncaughtException(Thread thread, Throwable throwable) {
+                if (!(throwable instanceof ExitTrapped)) {
+                    super.uncaughtException(thread, throwable);
+                }
+            }
+        };
+        this.stdin = new Pipe();
+        this.stdout = new Pipe();
+        this.exitRequested = new AtomicReference<Integer>(null);
+        this.exited = new CountDownLatch(1);
+        this.runner = new Thread(group, new Runnable() {
+            @Override public void run() {
+                int status = 0;
+                try {
+                    Class<?> env = loader.loadClass(InProcessExecution.ENV_CLASS_NAME);
+                    env.getMethod("set", Map.class).invoke(null, environment);
+                    Class<?> mainClass = loader.loadClass(mainClassName);
+                    mainClass.getMethod("main", String[].class).invoke(null, new Object[] { args });
+                } catch (InvocationTargetException ite) {
+                    status = getExitStatus(ite.getTargetException());
+                } catch (Throwable t) {
+                    status = getExitStatus(t);
+                } finally {
+                    awaitNonDaemonThreads();
+                    System.out.flush();
+                    System.err.flush();
+                    Integer requested = exitRequested.get();
+                    exitValue = ((requested != null) && (status == 0) ? requested : status);
+                    RUNNING.remove(group);
+                    stdout.close();
+                    stdin.close();
+                    exited.countDown();
+                }
+            }
+        }, name);
+        this.runner.setContextClassLoader(loader);
+    }
+
+    /**
+     * @param stdinRequested to run upon the invocation's first access of its standard input
+     */
+    void onStdinRequested(Runnable stdinRequested) {
+        this.stdinRequested.set(stdinRequested);
+    }
+
+    /**
+     * Starts the invocation.
+     */
+    void start() {
+        RUNNING.put(group, this);
+        runner.start();
+    }
+
+    /**
+     * Waits for the non-daemon threads started by the invocation to complete, as the {@literal JVM} would have before
+     * exiting had the invocation been forked.  Waiting stops once the invocation calls {@link System#exit(int)} or is
+     * {@link #destroy()}-ed.
+     */
+    private void awaitNonDaemonThreads() {
+        Thread current = Thread.currentThread();
+        while (exitRequested.get() == null) {
+            Thread[] threads = new Thread[group.activeCount() + 1];
+            int count = group.enumerate(threads, true);
+            Thread remaining = null;
+            for (int i = 0; (i < count) && (remaining == null); i++) {
+                Thread thread = threads[i];
+                if ((thread != current) && !thread.isDaemon() && thread.isAlive()) {
+                    remaining = thread;
+                }
+            }
+            if (remaining == null) {
+                return;
+            }
+            try {
+                remaining.join(100L);
+            } catch (InterruptedException ie) {
+                current.interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param throwable which terminated the invocation's {@literal main} method
+     * @return the exit status associated with {@code throwable}; either the trapped {@link System#exit(int)} value
+     *         or 1 (after printing the stack-trace as the {@literal JVM} would have).
+     */
+    private static int getExitStatus(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause != null) {
+            if (cause instanceof ExitTrapped) {
+                return ((ExitTrapped) cause).status;
+            }
+            cause = cause.getCause();
+        }
+        System.err.print("Exception in thread \"main\" ");
+        throwable.printStackTrace(System.err);
+        return 1;
+    }
+
+    @Override public OutputStream getOutputStream() {
+        return stdin.out;
+    }
+
+    @Override public InputStream getInputStream() {
+        return stdout.in;
+    }
+
+    @Override public InputStream getErrorStream() {
+        // standard error is redirected into standard out (analogous to ProcessBuilder#redirectErrorStream(true))
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override public int waitFor() throws InterruptedException {
+        exited.await();
+        return exitValue;
+    }
+
+    @Override public int exitValue() {
+        if (exited.getCount() > 0) {
+            throw new IllegalThreadStateException("process hasn't exited");
+        }
+        return exitValue;
+    }
+
+    @Override public void destroy() {
+        group.interrupt();
+        stdout.close();
+        stdin.close();
+    }
+
+}
@@ -43,6 +43,7 @@ final class JvmExecution extends Execution {
         AtomicBoolean staticClasspath = new AtomicBoolean(false);
         AtomicBoolean containsJvmPrimer = new AtomicBoolean(false);
         String[] options = getJarScriptOptions(configDirectory, execution, staticClasspath, containsJvmPrimer);
+        options = SharedArchives.augment(getJarName(execution), options, staticClasspath.get());
         if (!staticClasspath.get()) {
             classpath = getClasspathEntries(execution.executionArgs[0], execution.script.scope, mainClass, configDirectory);
         }
@@ -70,7 +71,8 @@ final class JvmExecution extends Execution {
         }
         System.arraycopy(execution.executionArgs, 1, newCmdArray, options.length + classpathLength + propertyLength + 1,
                 execution.executionArgs.length - 1);
-        return new JvmExecution(execution.name, execution.script, newCmdArray, containsJvmPrimer.get());
+        return new JvmExecution(execution.name, execution.script, newCmdArray, containsJvmPrimer.get(),
+                                isPropsSnapshotEnabled(configDirectory, execution));
     }
 
     /**
@@ -99,7 +101,7 @@ final class JvmExecution extends Execution {
         }
         clojureArgs[args.length] = "clojure.main";
         clojureArgs[args.length + 1] = execution.executionArgs[0];
-        return new JvmExecution(jarExec.name, jarExec.script, clojureArgs, false);
+        return new JvmExecution(jarExec.name, jarExec.script, clojureArgs, false, false);
     }
 
     /**
@@ -130,7 +132,7 @@ final class JvmExecution extends Execution {
             }
             InputStream dependenciesStream = jarFile.getInputStream(dependenciesJarEntry);
             PropFile dependencies = new PropFile(Context.named("dependencies"), PropFile.Loc.Local); // scope not necessary, just a placeholder
-            PropFileReader.Default.load(new BufferedReader(new InputStreamReader(dependenciesStream)), dependencies);
+            PropFileReader.Uncommented.load(new BufferedReader(new InputStreamReader(dependenciesStream)), dependencies);
             // if there are no dependencies, the 'dependencies.properties' may still exist, just empty; so ignore
             if (dependencies.isEmpty()) {
                 return null;
@@ -164,14 +166,9 @@ final class JvmExecution extends Execution {
      *                          to the {@literal JvmPrimer} main class.
      * @return the split jvm options for {@code script}
      */
-    private static String[] getJarScriptOptions(File configDirectory, Execution execution, AtomicBoolean staticClasspath,
-                                                AtomicBoolean containsJvmPrimer) {
-        String executable = execution.executionArgs[0];
-        // strip the resolved path (just use the jar name)
-        int index = executable.lastIndexOf(File.separator);
-        if (index != -1) {
-            executable = executable.substring(index + 1);
-        }
+    static String[] getJarScriptOptions(File configDirectory, Execution execution, AtomicBoolean staticClasspath,
+                                        AtomicBoolean containsJvmPrimer) {
+        String executable = getJarName(execution);
         String options = Props.get("options." + executable, Context.named("scripts-jar"), execution.script.scope, configDirectory).value();
         if (options.isEmpty()) {
             options = Props.get("options.default", Context.named("scripts-jar"), execution.script.scope, configDirectory).value();
@@ -185,15 +182,60 @@ final class JvmExecution extends Execution {
         return options.split(" ");
     }
 
+    /**
+     * @param execution the (un-translated) jar execution
+     * @return the name of the jar of {@code execution} (i.e., its resolved path stripped)
+     */
+    private static String getJarName(Execution execution) {
+        String executable = execution.executionArgs[0];
+        int index = executable.lastIndexOf(File.separator);
+        return (index == -1 ? executable : executable.substring(index + 1));
+    }
+
+    /**
+     * @param configDirectory the ply configuration directory from which to resolve properties
+     * @param execution the (un-translated) jar execution
+     * @return true if the properties should be passed to {@code execution} via a property snapshot; i.e., the
+     *         property {@literal props.snapshot.<jar-name>} (or {@literal props.snapshot} if not specified for the jar)
+     *         within the {@literal scripts-jar} context is true.
+     */
+    static boolean isPropsSnapshotEnabled(File configDirectory, Execution execution) {
+        String executable = execution.executionArgs[0];
+        int index = executable.lastIndexOf(File.separator);
+        if (index != -1) {
+            executable = executable.substring(index + 1);
+        }
+        Context scriptsJarContext = Context.named("scripts-jar");
+        String enabled = Props.get("props.snapshot." + executable, scriptsJarContext, execution.script.scope, configDirectory).value();
+        if (enabled.isEmpty()) {
+            enabled = Props.get("props.snapshot", scriptsJarContext, execution.script.scope, configDirectory).value();
+        }
+        return "true".equalsIgnoreCase(enabled);
+    }
+
     /**
      * True to indicate that {@link #createJarExecutable(Execution, java.io.File)} was able to wrap the
      * main class with {@literal JvmPrimer}, false otherwise.
      */
     private final boolean usingJvmPrimer;
 
-    JvmExecution(String name, Script script, String[] executionArgs, boolean usingJvmPrimer) {
+    /**
+     * True to indicate the script reads its properties from a property snapshot rather than from environment variables.
+     */
+    private final boolean propsSnapshot;
+
+    JvmExecution(String name, Script script, String[] executionArgs, boolean usingJvmPrimer, boolean propsSnapshot) {
         super(name, script, executionArgs);
         this.usingJvmPrimer = usingJvmPrimer;
+        this.propsSnapshot = propsSnapshot;
+    }
+
+    @Override public boolean isUsingPropsSnapshot() {
+        return propsSnapshot;
+    }
+
+    @Override public String getEnvKeyId() {
+        return (propsSnapshot ? "snapshot" : super.getEnvKeyId());
     }
 
     /**
@@ -215,6 +257,14 @@ final class JvmExecution extends Execution {
         }
     }
 
+    /**
+     * @return true if the main class has been wrapped with {@literal JvmPrimer} (and so the {@literal JVM} is started
+     *         upon {@link #preInvoke(java.io.File, java.util.Map)}).
+     */
+    boolean isUsingJvmPrimer() {
+        return usingJvmPrimer;
+    }
+
     @Override void invoke(String scriptName) throws IOException {
         if (!usingJvmPrimer || (this.process.get() == null)) {
             super.invoke(scriptName); // either an error happened on preInvoke or !usingJvmPrimer, attempt as normal
@@ -223,8 +273,7 @@ final class JvmExecution extends Execution {
             // send the control character to the JVM
             process.get().getOutputStream().write(0xb);
             process.get().getOutputStream().flush();
-            // take the parent's input and pipe to the child's output
-            STDIN_PROCESS_PIPE.get().startPipe(process.get().getOutputStream());
+            // the parent's input is piped to the child once JvmPrimer signals the child is reading its input
             // capture the child's input for output on parent process
             this.processStdout.set(new BufferedReader(new InputStreamReader(process.get().getInputStream())));
         }
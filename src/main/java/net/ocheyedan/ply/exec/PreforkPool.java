@@ -0,0 +1,241 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Props;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:29 PM
+ *
+ * Tracks executions which have been pre-invoked (see {@link Execution#preInvoke(java.io.File, java.util.Map)}) ahead
+ * of their turn.  For {@link JvmExecution} objects wrapped by {@literal JvmPrimer} pre-invocation starts the
+ * {@literal JVM} which then waits to be told to run its script; pre-invoking more than the next execution amortizes
+ * more of the {@literal JVM} start-up cost.
+ *
+ * The number of executions pre-invoked ahead of the running execution is controlled by property {@literal prefork}
+ * within the {@literal scripts-jar} context.  The sum of the maximum heap sizes ({@literal -Xmx}) of the waiting
+ * {@literal JVM} processes is bounded by property {@literal prefork.memory} within the {@literal scripts-jar} context
+ * (the execution immediately following the running one is always pre-invoked regardless of the budget).
+ * Pre-invoked executions may belong to subsequent projects (i.e., submodules) so long as their executions were
+ * resolved up-front.
+ */
+final class PreforkPool {
+
+    /**
+     * An execution which may be pre-invoked along with the root directory of its project.
+     */
+    static final class Candidate {
+
+        final Execution execution;
+
+        final File projectRoot;
+
+        Candidate(Execution execution, File projectRoot) {
+            this.execution = execution;
+            this.projectRoot = projectRoot;
+        }
+    }
+
+    /**
+     * Translates and pre-invokes executions.
+     */
+    static interface Invoker {
+
+        /**
+         * @see Exec#translate(Execution, File)
+         */
+        Execution translate(Execution execution, File projectRoot);
+
+        /**
+         * @see Exec#preInvoke(Execution, File)
+         */
+        ExecutionWrapper preInvoke(Execution translated, File projectRoot);
+
+    }
+
+    private static final Invoker EXEC_INVOKER = new Invoker() {
+        @Override public Execution translate(Execution execution, File projectRoot) {
+            return Exec.translate(execution, projectRoot);
+        }
+        @Override public ExecutionWrapper preInvoke(Execution translated, File projectRoot) {
+            return Exec.preInvoke(translated, projectRoot);
+        }
+    };
+
+    /**
+     * Pre-invoked executions keyed by their (un-translated) execution; keyed by identity as equal executions may
+     * belong to differing projects.
+     */
+    private static final Map<Execution, ExecutionWrapper> PREINVOKED
+            = Collections.synchronizedMap(new IdentityHashMap<Execution, ExecutionWrapper>());
+
+    /**
+     * Translated executions (see {@link Exec#translate(Execution, java.io.File)}) which have not yet been pre-invoked
+     * (as doing so would have exceeded the memory budget).
+     */
+    private static final Map<Execution, Execution> TRANSLATED
+            = Collections.synchronizedMap(new IdentityHashMap<Execution, Execution>());
+
+    /**
+     * Memory, in bytes, reserved by waiting pre-invoked {@literal JVM} processes.
+     */
+    private static final AtomicLong RESERVED = new AtomicLong(0L);
+
+    /**
+     * @param configDirectory of the project
+     * @return the number of executions to pre-invoke ahead of the running execution
+     */
+    static int getDepth(File configDirectory) {
+        String depth = Props.get("prefork", Context.named("scripts-jar"), Props.getScope(), configDirectory).value();
+        if (depth.isEmpty()) {
+            return 1;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(depth.trim()));
+        } catch (NumberFormatException nfe) {
+            Output.print("^warn^ Invalid ^b^prefork^r^ value ^b^%s^r^ within ^b^scripts-jar^r^, using 1.", depth);
+            return 1;
+        }
+    }
+
+    /**
+     * @param configDirectory of the project
+     * @return the memory budget, in bytes, for waiting pre-invoked {@literal JVM} processes
+     */
+    static long getMemoryBudget(File configDirectory) {
+        String budget = Props.get("prefork.memory", Context.named("scripts-jar"), Props.getScope(), configDirectory).value();
+        long bytes = parseMemory(budget);
+        return (bytes < 0 ? Long.MAX_VALUE : bytes);
+    }
+
+    /**
+     * @param execution to claim
+     * @param projectRoot of {@code execution}'s project
+     * @return the pre-invoked {@code execution} if it was pre-invoked, otherwise {@code execution} pre-invoked now
+     */
+    static ExecutionWrapper claim(Execution execution, File projectRoot) {
+        return claim(execution, projectRoot, EXEC_INVOKER);
+    }
+
+    static ExecutionWrapper claim(Execution execution, File projectRoot, Invoker invoker) {
+        ExecutionWrapper preInvoked = PREINVOKED.remove(execution);
+        if (preInvoked != null) {
+            RESERVED.addAndGet(-getMemory(preInvoked.execution));
+            return preInvoked;
+        }
+        Execution translated = TRANSLATED.remove(execution);
+        if (translated == null) {
+            translated = invoker.translate(execution, projectRoot);
+        }
+        return invoker.preInvoke(translated, projectRoot);
+    }
+
+    /**
+     * Pre-invokes the first {@code depth} of {@code candidates} which have not already been pre-invoked, so long as
+     * doing so remains within {@code memoryBudget}.
+     * @param candidates the upcoming executions, in order
+     * @param depth the maximum number of {@code candidates} to consider
+     * @param memoryBudget the maximum number of bytes which waiting {@literal JVM} processes may reserve
+     */
+    static void prefork(List<Candidate> candidates, int depth, long memoryBudget) {
+        prefork(candidates, depth, memoryBudget, EXEC_INVOKER);
+    }
+
+    static void prefork(List<Candidate> candidates, int depth, long memoryBudget, Invoker invoker) {
+        for (int i = 0; (i < depth) && (i < candidates.size()); i++) {
+            Candidate candidate = candidates.get(i);
+            if (PREINVOKED.containsKey(candidate.execution)) {
+                continue;
+            }
+            Execution translated = TRANSLATED.remove(candidate.execution);
+            if (translated == null) {
+                translated = invoker.translate(candidate.execution, candidate.projectRoot);
+            }
+            long memory = getMemory(translated);
+            if ((i > 0) && ((RESERVED.get() + memory) > memoryBudget)) {
+                Output.print("^dbug^ Not pre-invoking ^b^%s^r^ as it would exceed the ^b^prefork.memory^r^ budget.", translated.name);
+                TRANSLATED.put(candidate.execution, translated);
+                return;
+            }
+            RESERVED.addAndGet(memory);
+            PREINVOKED.put(candidate.execution, invoker.preInvoke(translated, candidate.projectRoot));
+        }
+    }
+
+    /**
+     * Discards {@code execution} (which will not be invoked), killing its pre-invoked process if any.
+     * @param execution to discard
+     */
+    static void discard(Execution execution) {
+        TRANSLATED.remove(execution);
+        ExecutionWrapper preInvoked = PREINVOKED.remove(execution);
+        if (preInvoked != null) {
+            RESERVED.addAndGet(-getMemory(preInvoked.execution));
+            preInvoked.execution.kill();
+        }
+    }
+
+    /**
+     * Kills any pre-invoked process for {@code candidates}.
+     * @param candidates whose pre-invoked processes to kill
+     */
+    static void kill(List<Candidate> candidates) {
+        for (Candidate candidate : candidates) {
+            discard(candidate.execution);
+        }
+    }
+
+    /**
+     * @return the memory, in bytes, reserved by waiting pre-invoked {@literal JVM} processes
+     */
+    static long getReserved() {
+        return RESERVED.get();
+    }
+
+    /**
+     * @param execution the translated execution
+     * @return the memory, in bytes, reserved by {@code execution} while it waits to be invoked; i.e., its heap size
+     *         if it is a {@literal JVM} started upon pre-invocation and 0 otherwise.
+     */
+    static long getMemory(Execution execution) {
+        if (!(execution instanceof JvmExecution) || !((JvmExecution) execution).isUsingJvmPrimer()) {
+            return 0L;
+        }
+        return ResourceLimiter.getMemory(execution);
+    }
+
+    /**
+     * @param value a memory size as specified to the {@literal JVM} (i.e., {@literal 512m} or {@literal 1G})
+     * @return the number of bytes represented by {@code value} or -1 if {@code value} is not a valid memory size
+     */
+    static long parseMemory(String value) {
+        if ((value == null) || value.trim().isEmpty()) {
+            return -1L;
+        }
+        String trimmed = value.trim();
+        long multiplier = 1L;
+        switch (Character.toLowerCase(trimmed.charAt(trimmed.length() - 1))) {
+            case 'k': multiplier = 1024L; break;
+            case 'm': multiplier = 1024L * 1024L; break;
+            case 'g': multiplier = 1024L * 1024L * 1024L; break;
+            default: break;
+        }
+        if (multiplier != 1L) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        try {
+            return Long.parseLong(trimmed) * multiplier;
+        } catch (NumberFormatException nfe) {
+            return -1L;
+        }
+    }
+
+    private PreforkPool() { }
+
+}
@@ -0,0 +1,99 @@
+package net.ocheyedan.ply.exec;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:46 PM
+ *
+ * Reads the output of a child process, line by line, on its own thread into a bounded buffer so that the child
+ * is only slowed by the speed at which ply prints its output (i.e., to a slow terminal) once the buffer is full.
+ * The lines are consumed in batches via {@link #take(java.util.List)}.
+ */
+final class ProcessOutputReader implements Runnable {
+
+    /**
+     * The number of lines buffered before the child process is blocked.
+     */
+    static final int CAPACITY = 1024;
+
+    /**
+     * Marks the end of the child's output within {@link #lines}.
+     */
+    private static final String END = new String("");
+
+    private final BufferedReader processStdout;
+
+    private final BlockingQueue<String> lines;
+
+    private final AtomicReference<IOException> failure;
+
+    private ProcessOutputReader(BufferedReader processStdout) {
+        this.processStdout = processStdout;
+        this.lines = new ArrayBlockingQueue<String>(CAPACITY);
+        this.failure = new AtomicReference<IOException>(null);
+    }
+
+    /**
+     * @param processStdout the output of the child process
+     * @param name of the child process (used to name the reading thread)
+     * @return a started reader of {@code processStdout}
+     */
+    static ProcessOutputReader start(BufferedReader processStdout, String name) {
+        ProcessOutputReader reader = new ProcessOutputReader(processStdout);
+        Thread thread = new Thread(reader, "ply-output-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        return reader;
+    }
+
+    @Override public void run() {
+        try {
+            String line;
+            while ((line = processStdout.readLine()) != null) {
+                lines.put(line);
+            }
+        } catch (IOException ioe) {
+            failure.set(ioe);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                lines.put(END);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Blocks until at least one line is available and then moves all available lines into {@code into}.
+     * @param into the list into which to place the lines
+     * @return false if the end of the child's output has been reached (the lines preceding the end are still placed
+     *         into {@code into}), true otherwise
+     * @throws IOException if reading the child's output failed
+     * @throws InterruptedException if interrupted while waiting for output
+     */
+    boolean take(List<String> into) throws IOException, InterruptedException {
+        int from = into.size();
+        into.add(lines.take());
+        lines.drainTo(into);
+        for (int i = from; i < into.size(); i++) {
+            if (into.get(i) == END) {
+                into.subList(i, into.size()).clear();
+                if (failure.get() != null) {
+                    throw failure.get();
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,177 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Props;
+
+import java.util.LinkedList;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:14 PM
+ *
+ * Admits running executions against a memory budget and a number of processors so that concurrently built submodules
+ * do not oversubscribe the machine.  Each running {@link JvmExecution} reserves its maximum heap size ({@literal -Xmx},
+ * or {@literal -Xms} if no maximum is given) and every running execution reserves one processor.  An execution which
+ * does not fit waits, in the order it asked, for running executions to complete; an execution is always admitted if
+ * nothing else is running (even if it alone exceeds the budget).
+ *
+ * The limits are configured within the {@literal ply} context:
+ * {@literal build.memory} - the memory budget (i.e., {@literal 2G}); if empty memory is not limited.
+ * {@literal build.cpus} - the number of processors; if empty the number available to ply.
+ *
+ * Note, pre-invoked {@literal JVM} processes waiting to be run are bounded separately (see {@link PreforkPool}).
+ */
+final class ResourceLimiter {
+
+    private static final Context PLY = Context.named("ply");
+
+    /**
+     * Executions waiting to be admitted, in the order they asked.
+     */
+    private static final LinkedList<Execution> WAITING = new LinkedList<Execution>();
+
+    private static final Object LOCK = new Object();
+
+    /**
+     * Memory, in bytes, reserved by running executions.
+     */
+    private static long reservedMemory = 0L;
+
+    /**
+     * Number of running executions.
+     */
+    private static int running = 0;
+
+    /**
+     * @return the memory budget, in bytes, or {@link Long#MAX_VALUE} if memory is not limited
+     */
+    static long getMemoryBudget() {
+        long budget = PreforkPool.parseMemory(Props.get("build.memory", PLY).value());
+        return (budget < 0L ? Long.MAX_VALUE : budget);
+    }
+
+    /**
+     * @return the number of executions which may run at the same time
+     */
+    static int getCpus() {
+        String cpus = Props.get("build.cpus", PLY).value();
+        if (!cpus.trim().isEmpty()) {
+            try {
+                return Math.max(1, Integer.parseInt(cpus.trim()));
+            } catch (NumberFormatException nfe) {
+                Output.print("^warn^ Invalid ^b^build.cpus^r^ value ^b^%s^r^ within ^b^ply^r^, using the available processors.", cpus);
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Blocks until {@code execution} may run without exceeding the budget and then reserves its resources.  Every call
+     * must be paired with a call to {@link #release(Execution)}.
+     * @param execution the translated execution about to be invoked
+     */
+    static void acquire(Execution execution) {
+        acquire(execution, getMemoryBudget(), getCpus());
+    }
+
+    /**
+     * @param execution the translated execution about to be invoked
+     * @param budget the memory budget, in bytes
+     * @param cpus the number of executions which may run at the same time
+     * @see #acquire(Execution)
+     */
+    static void acquire(Execution execution, long budget, int cpus) {
+        long memory = getMemory(execution);
+        long waitStart = 0L;
+        synchronized (LOCK) {
+            WAITING.addLast(execution);
+            try {
+                while ((WAITING.getFirst() != execution) || !fits(memory, budget, cpus)) {
+                    if (waitStart == 0L) {
+                        waitStart = System.currentTimeMillis();
+                        Output.print("^dbug^ Queueing ^b^%s^r^ (needs %d MB) as %d MB of %s and %d of %d processors are in use.",
+                                ExecutionWrapper.buildExecutionName(execution), toMegabytes(memory), toMegabytes(reservedMemory),
+                                (budget == Long.MAX_VALUE ? "unlimited" : toMegabytes(budget) + " MB"), running, cpus);
+                    }
+                    try {
+                        LOCK.wait();
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break; // admit, the build is being interrupted
+                    }
+                }
+            } finally {
+                WAITING.remove(execution);
+                LOCK.notifyAll(); // the next waiting may now be at the head
+            }
+            reservedMemory += memory;
+            running++;
+        }
+        if (waitStart != 0L) {
+            Output.print("^dbug^ Admitted ^b^%s^r^ after waiting %d ms.", ExecutionWrapper.buildExecutionName(execution),
+                    (System.currentTimeMillis() - waitStart));
+        }
+    }
+
+    /**
+     * Releases the resources reserved by {@link #acquire(Execution)} for {@code execution}.
+     * @param execution which has completed
+     */
+    static void release(Execution execution) {
+        long memory = getMemory(execution);
+        synchronized (LOCK) {
+            reservedMemory = Math.max(0L, reservedMemory - memory);
+            running = Math.max(0, running - 1);
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * @return the memory, in bytes, reserved by running executions
+     */
+    static long getReserved() {
+        synchronized (LOCK) {
+            return reservedMemory;
+        }
+    }
+
+    /**
+     * @param execution the translated execution
+     * @return the memory, in bytes, which {@code execution} may use while running; its heap size if it is a forked
+     *         {@literal JVM} and 0 otherwise (in-process executions share ply's own heap).
+     */
+    static long getMemory(Execution execution) {
+        if (!(execution instanceof JvmExecution)) {
+            return 0L;
+        }
+        long maximum = -1L, initial = -1L;
+        for (String arg : execution.executionArgs) {
+            // last specified wins, as with the jvm
+            if (arg.startsWith("-Xmx")) {
+                maximum = PreforkPool.parseMemory(arg.substring(4));
+            } else if (arg.startsWith("-Xms")) {
+                initial = PreforkPool.parseMemory(arg.substring(4));
+            }
+        }
+        return Math.max(0L, (maximum < 0L ? initial : maximum));
+    }
+
+    /**
+     * Must be called while holding {@link #LOCK}.
+     */
+    private static boolean fits(long memory, long budget, int cpus) {
+        if (running == 0) {
+            return true;
+        }
+        return (running < cpus) && ((reservedMemory + memory) <= budget);
+    }
+
+    private static long toMegabytes(long bytes) {
+        return (bytes / (1024L * 1024L));
+    }
+
+    private ResourceLimiter() { }
+
+}
@@ -0,0 +1,320 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.Output;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 5:07 PM
+ *
+ * Manages the class-data-sharing ({@literal CDS}) archives of ply and its bundled scripts.  A short lived script
+ * {@literal JVM} spends much of its life loading and verifying the same classes (those of {@literal ply-util},
+ * {@literal asm}, {@literal jasypt}, the script itself); a shared archive allows those classes to be mapped directly
+ * into memory instead.
+ *
+ * Archives are created by {@literal ply cds-train} which runs a build (with {@link #TRAIN_PROPERTY} set) in which each
+ * script {@literal JVM} with a static classpath dumps its loaded classes (see {@link #record(String, String[])}).  Each
+ * dumped class list is then turned into an archive named after the script (i.e., {@literal ply-compiler-1.0.jar.jsa})
+ * via {@link #dumpTrained()}.  Thereafter, {@link #augment(String, String[], boolean)} adds the archive to the options of
+ * the script's {@literal JVM}.  The archive of ply itself ({@literal ply.jsa}) is used by the {@literal ply} launcher.
+ *
+ * Archives are only valid for the {@literal JVM} which created them; the java executable used while training is
+ * stored (within file {@literal java}) and the archives are ignored if ply is run with another.  The {@literal JVM}
+ * itself validates the classpath of an archive and silently ignores an archive which no longer matches
+ * (i.e., after ply has been updated).
+ */
+public final class SharedArchives {
+
+    /**
+     * The system property set (to true) for the ply process which is training.
+     */
+    public static final String TRAIN_PROPERTY = "ply.cds.train";
+
+    /**
+     * The directory in which archives are stored.
+     */
+    public static final File DIRECTORY = new File(FileUtil.resolveUnixTilde(FileUtil.pathFromParts("~", ".ply", "cds")));
+
+    /**
+     * The directory in which class lists (and the options with which they were dumped) are stored while training.
+     */
+    private static final File TRAINING_DIRECTORY = new File(DIRECTORY, "train");
+
+    /**
+     * The file containing the java executable used while training.
+     */
+    private static final File JAVA_FILE = new File(DIRECTORY, "java");
+
+    /**
+     * @return true if this process is training (i.e., running the build of {@literal ply cds-train}).
+     */
+    public static boolean isTraining() {
+        return Boolean.getBoolean(TRAIN_PROPERTY);
+    }
+
+    /**
+     * @param name of the script (i.e., {@literal ply-compiler-1.0.jar})
+     * @param options the split {@literal JVM} options of the script (including its main class and arguments)
+     * @param staticClasspath true if {@code options} contains the classpath of the script; only such scripts (i.e.,
+     *                        the bundled scripts) have an archive as otherwise the classpath is resolved per execution
+     * @return {@code options} with, if training, the option to dump the loaded classes or, if an archive for {@code name}
+     *         exists, the option to use the archive
+     */
+    static String[] augment(String name, String[] options, boolean staticClasspath) {
+        if (!staticClasspath) {
+            return options;
+        }
+        if (isTraining()) {
+            File classList = record(name, options);
+            return (classList == null ? options : prepend(options, "-XX:DumpLoadedClassList=" + classList.getPath()));
+        }
+        File archive = new File(DIRECTORY, name + ".jsa");
+        if (archive.exists() && isTrainedWith(System.getProperty("ply.java"))) {
+            return prepend(options, "-XX:SharedArchiveFile=" + archive.getPath(), "-Xshare:auto");
+        }
+        return options;
+    }
+
+    /**
+     * Removes any previous training so that {@link #dumpTrained()} only considers the class lists of the next training.
+     */
+    public static void startTraining() {
+        if (TRAINING_DIRECTORY.exists()) {
+            FileUtil.delete(TRAINING_DIRECTORY);
+        }
+        TRAINING_DIRECTORY.mkdirs();
+    }
+
+    /**
+     * Records the {@literal JVM} options of {@code name} (those of {@code options} prior to the main class) for use by
+     * {@link #dumpTrained()}.
+     * @param name of the script (or {@literal ply} for ply itself)
+     * @param options the split {@literal JVM} options
+     * @return a new file into which the {@literal JVM} is to dump its loaded classes or null if the file could not be
+     *         created; a script may be run many times in a build, each run dumps into its own file
+     */
+    public static File record(String name, String[] options) {
+        Writer writer = null;
+        try {
+            TRAINING_DIRECTORY.mkdirs();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(TRAINING_DIRECTORY,
+                    name + ".options")), "UTF-8"));
+            for (String option : getJvmOptions(options)) {
+                writer.write(option);
+                writer.write('\n');
+            }
+            File classLists = new File(TRAINING_DIRECTORY, name);
+            classLists.mkdirs();
+            return File.createTempFile("run-", ".classlist", classLists);
+        } catch (IOException ioe) {
+            Output.print("^warn^ Could not record the class list of ^b^%s^r^ [ %s ].", name, ioe.getMessage());
+            return null;
+        } finally {
+            close(writer);
+        }
+    }
+
+    /**
+     * Creates an archive for each trained script (and for ply itself) from the class lists dumped during training.
+     * @return the number of archives created
+     */
+    public static int dumpTrained() {
+        String java = System.getProperty("ply.java");
+        File[] optionsFiles = TRAINING_DIRECTORY.listFiles(new FilenameFilter() {
+            @Override public boolean accept(File dir, String name) {
+                return name.endsWith(".options");
+            }
+        });
+        if (optionsFiles == null) {
+            return 0;
+        }
+        Arrays.sort(optionsFiles);
+        int created = 0;
+        for (File optionsFile : optionsFiles) {
+            String name = optionsFile.getName().substring(0, optionsFile.getName().length() - ".options".length());
+            try {
+                if (dump(java, name, optionsFile)) {
+                    created++;
+                }
+            } catch (IOException ioe) {
+                Output.print("^warn^ Could not create the shared archive of ^b^%s^r^ [ %s ].", name, ioe.getMessage());
+            }
+        }
+        writeTrainedWith(java);
+        FileUtil.delete(TRAINING_DIRECTORY);
+        return created;
+    }
+
+    private static boolean dump(String java, String name, File optionsFile) throws IOException {
+        File classList = mergeClassLists(name);
+        if (classList == null) {
+            Output.print("^dbug^ No classes were dumped by ^b^%s^r^, skipping its shared archive.", name);
+            return false;
+        }
+        File archive = new File(DIRECTORY, name + ".jsa");
+        File temporary = new File(DIRECTORY, name + ".jsa.tmp");
+        List<String> command = new ArrayList<String>();
+        command.add(java);
+        command.addAll(readLines(optionsFile));
+        command.add("-Xshare:dump");
+        command.add("-XX:SharedClassListFile=" + classList.getPath());
+        command.add("-XX:SharedArchiveFile=" + temporary.getPath());
+        Output.print("^dbug^ Creating shared archive %s", command.toString());
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        process.getOutputStream().close();
+        BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try {
+            String line;
+            while ((line = output.readLine()) != null) {
+                Output.print("^dbug^ [%s] %s", name, line);
+            }
+        } finally {
+            close(output);
+        }
+        int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted");
+        }
+        if ((exitCode != 0) || !temporary.exists()) {
+            Output.print("^warn^ Could not create the shared archive of ^b^%s^r^ (exit code %d); run with ^b^-Pply.log.levels=debug^r^ for details.",
+                    name, exitCode);
+            if (temporary.exists()) {
+                FileUtil.delete(temporary);
+            }
+            return false;
+        }
+        if (archive.exists()) {
+            FileUtil.delete(archive);
+        }
+        if (!temporary.renameTo(archive)) {
+            throw new IOException("could not rename " + temporary.getPath());
+        }
+        Output.print("^ply^ Created shared archive ^b^%s^r^.", archive.getPath());
+        return true;
+    }
+
+    /**
+     * @param name of the trained script
+     * @return a class list containing, in order of first appearance, every class dumped by any run of {@code name} or
+     *         null if no classes were dumped
+     */
+    private static File mergeClassLists(String name) throws IOException {
+        File[] classLists = new File(TRAINING_DIRECTORY, name).listFiles();
+        if (classLists == null) {
+            return null;
+        }
+        Set<String> classes = new LinkedHashSet<String>();
+        for (File classList : classLists) {
+            for (String line : readLines(classList)) {
+                // classes of custom class loaders (' source: ') are identified by ids local to their list; skip them
+                if (!line.startsWith("#") && !line.contains(" source: ")) {
+                    classes.add(line);
+                }
+            }
+        }
+        if (classes.isEmpty()) {
+            return null;
+        }
+        File merged = new File(TRAINING_DIRECTORY, name + ".classlist");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(merged), "UTF-8"));
+        try {
+            for (String clazz : classes) {
+                writer.write(clazz);
+                writer.write('\n');
+            }
+        } finally {
+            close(writer);
+        }
+        return merged;
+    }
+
+    /**
+     * @param options the split {@literal JVM} options (including its main class and arguments)
+     * @return the options of {@code options} prior to the main class
+     */
+    static List<String> getJvmOptions(String[] options) {
+        List<String> jvmOptions = new ArrayList<String>(options.length);
+        for (int i = 0; i < options.length; i++) {
+            String option = options[i];
+            if (option.isEmpty()) {
+                continue;
+            }
+            if (!option.startsWith("-")) {
+                break; // the main class
+            }
+            jvmOptions.add(option);
+            if (("-cp".equals(option) || "-classpath".equals(option)) && ((i + 1) < options.length)) {
+                jvmOptions.add(options[++i]);
+            }
+        }
+        return jvmOptions;
+    }
+
+    private static boolean isTrainedWith(String java) {
+        if ((java == null) || !JAVA_FILE.exists()) {
+            return false;
+        }
+        try {
+            List<String> lines = readLines(JAVA_FILE);
+            return (!lines.isEmpty() && java.equals(lines.get(0)));
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    private static void writeTrainedWith(String java) {
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(JAVA_FILE), "UTF-8");
+            writer.write(java);
+            writer.write('\n');
+        } catch (IOException ioe) {
+            Output.print("^warn^ Could not write ^b^%s^r^ [ %s ].", JAVA_FILE.getPath(), ioe.getMessage());
+        } finally {
+            close(writer);
+        }
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        } finally {
+            close(reader);
+        }
+        return lines;
+    }
+
+    private static String[] prepend(String[] options, String ... prefix) {
+        String[] augmented = new String[prefix.length + options.length];
+        System.arraycopy(prefix, 0, augmented, 0, prefix.length);
+        System.arraycopy(options, 0, augmented, prefix.length, options.length);
+        return augmented;
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ioe) {
+                // ignore
+            }
+        }
+    }
+
+    private SharedArchives() { }
+
+}
@@ -1,94 +1,236 @@
 package net.ocheyedan.ply.exec;
 
 import java.io.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.nio.channels.FileChannel;
+import java.util.LinkedList;
 
 /**
  * User: blangel
  * Date: 11/19/11
  * Time: 4:23 PM
  *
- * Pipes {@link System#in} to the {@link Runner#processStdin}.
+ * Pipes {@link System#in} to the {@literal stdin} of child processes.
  *
- * This class can be instantiated once for all executions.  Multiple calls to {@link #start()} have no negative
- * effect; the first call actually starts and all subsequent calls are no-ops.
+ * This class is instantiated once for all executions.  A single forwarding thread is started upon the first call to
+ * {@link #startPipe(OutputStream)}; while at least one child process is receiving input it forwards whatever input
+ * is available, otherwise it waits to be notified.  It never blocks in a read of {@link System#in} so that once a
+ * child is paused (i.e., it has exited) no further input is consumed on its behalf; input typed afterwards remains
+ * for ply itself (i.e., a password prompt) or for the next child.  Input is written to the most recently started
+ * child.  Input read after the child which was to receive it has been paused is retained and written to the next
+ * started child.  Once {@link System#in} is exhausted, the {@literal stdin} of the receiving children is closed (as is
+ * that of any subsequently started child) so that they too see the end of input; this is only detectable if the input
+ * is seekable (i.e., it is redirected from a file or {@literal /dev/null}) as otherwise it cannot be distinguished
+ * from input not yet available without blocking.
+ *
+ * Children which can signal that they are reading input (see {@link #STDIN_REQUEST_TOKEN}) are only started once they
+ * have done so; this way ply only consumes its own input on behalf of children which actually want it.
  */
-final class StdinProcessPipe extends Thread {
+final class StdinProcessPipe {
 
-    static final class Runner implements Runnable {
+    /**
+     * Printed (at the end of a line) by a child process upon its first read of its {@literal stdin}; i.e., by
+     * {@literal JvmPrimer}.
+     */
+    static final String STDIN_REQUEST_TOKEN = "^stdin^";
 
-        final AtomicReference<OutputStream> processStdin;
+    /**
+     * How often, in milliseconds, the input is checked for availability while a child process is receiving input.
+     */
+    private static final long POLL_MILLIS = 20L;
 
-        Runner(AtomicReference<OutputStream> processStdin) {
-            this.processStdin = processStdin;
-        }
+    /**
+     * The channel of the {@literal JVM}'s own {@literal stdin}, if it is seekable (i.e., ply's input is redirected from
+     * a file or {@literal /dev/null}), and null otherwise.
+     */
+    private static final FileChannel SEEKABLE_STDIN = getSeekableChannel(new FileInputStream(FileDescriptor.in));
 
-        // TODO - should only slurp input if requested by our child process
-        // TODO - otherwise, if ply is being invoked from within the context of a script (loop) reading input
-        // TODO - ply will consume the input from the parent process
+    private final Runnable forwarder = new Runnable() {
         @Override public void run() {
             byte[] buffer = new byte[4096];
-            while (!Thread.currentThread().isInterrupted()) {
+            while (true) {
+                InputStream in = (input == null ? System.in : input);
+                int read;
                 try {
-                    int avail = System.in.available();
-                    if (avail > 0) {
-                        int read = System.in.read(buffer, 0, Math.min(avail, buffer.length));
-                        OutputStream stdin = processStdin.get();
-                        if (stdin != null) {
-                            stdin.write(buffer, 0, read);
-                            stdin.flush();
+                    synchronized (StdinProcessPipe.this) {
+                        while (processStdins.isEmpty()) {
+                            StdinProcessPipe.this.wait();
                         }
-                    } else {
-                        Thread.sleep(100);
                     }
-                } catch (IOException ioe) {
-                    if (ioe.getMessage().contains("Broken pipe")) { // old process died
-                        processStdin.set(null);
-                    } else {
-                        throw new AssertionError(ioe);
+                    int available = in.available();
+                    if ((available == 0) && !isSeekable(in)) {
+                        // nothing to forward yet; check again shortly (unless the child has since been paused) rather
+                        // than blocking in a read which would consume input meant for whatever reads it next
+                        synchronized (StdinProcessPipe.this) {
+                            if (!processStdins.isEmpty()) {
+                                StdinProcessPipe.this.wait(POLL_MILLIS);
+                            }
+                        }
+                        continue;
                     }
+                    // reading a seekable input never blocks (even at its end)
+                    read = in.read(buffer, 0, (available == 0 ? buffer.length : Math.min(available, buffer.length)));
                 } catch (InterruptedException ie) {
+                    synchronized (StdinProcessPipe.this) {
+                        forwarding = false;
+                    }
                     Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException ioe) {
+                    // the input is no longer available (i.e., the ply daemon's client has disconnected)
+                    synchronized (StdinProcessPipe.this) {
+                        forwarding = false;
+                    }
+                    return;
                 }
+                if (read == -1) {
+                    synchronized (StdinProcessPipe.this) {
+                        for (OutputStream processStdin : processStdins) {
+                            close(processStdin);
+                        }
+                        processStdins.clear();
+                        forwarding = false;
+                    }
+                    return;
+                }
+                forward(buffer, read);
             }
         }
-    }
+    };
+
+    /**
+     * The input to pipe or null to pipe {@link System#in} (which is read anew so that a replaced {@link System#in} is
+     * honored).
+     */
+    private final InputStream input;
 
-    final AtomicBoolean started;
+    /**
+     * The children receiving input, the last of which is written to.
+     */
+    private final LinkedList<OutputStream> processStdins = new LinkedList<OutputStream>();
 
-    final AtomicReference<OutputStream> processStdin;
+    /**
+     * Input read after the child which was to receive it was paused.
+     */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
 
-    public StdinProcessPipe() {
-        this(new AtomicReference<OutputStream>(null));
+    /**
+     * True if the forwarding thread is running.
+     */
+    private boolean forwarding = false;
+
+    StdinProcessPipe() {
+        this(null);
     }
 
-    private StdinProcessPipe(AtomicReference<OutputStream> processStdin) {
-        super(new Runner(processStdin));
-        setDaemon(true);
-        started = new AtomicBoolean(false);
-        this.processStdin = processStdin;
+    /**
+     * @param input to pipe (rather than {@link System#in})
+     */
+    StdinProcessPipe(InputStream input) {
+        this.input = input;
     }
 
-    void write(char[] buffer) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(this.processStdin.get()));
+    /**
+     * Writes {@code buffer} (followed by a new line) to {@code processStdin}.
+     * @param processStdin the {@literal stdin} of the child process
+     * @param buffer to write
+     * @throws IOException if {@code processStdin} could not be written
+     */
+    void write(OutputStream processStdin, char[] buffer) throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(processStdin));
         writer.write(buffer, 0, buffer.length);
         writer.write('\n');
         writer.flush();
     }
 
-    public void pausePipe() {
-        this.processStdin.set(null);
+    /**
+     * Stops writing input to {@code processStdin}.
+     * @param processStdin the {@literal stdin} of the child process
+     */
+    synchronized void pausePipe(OutputStream processStdin) {
+        processStdins.remove(processStdin);
+    }
+
+    /**
+     * Writes input to {@code processStdin} until {@link #pausePipe(OutputStream)} is called for it.
+     * @param processStdin the {@literal stdin} of the child process
+     */
+    void startPipe(OutputStream processStdin) {
+        byte[] retained;
+        synchronized (this) {
+            if (processStdins.contains(processStdin)) {
+                return;
+            }
+            processStdins.addLast(processStdin);
+            retained = pending.toByteArray();
+            pending.reset();
+            if (!forwarding) {
+                forwarding = true;
+                Thread thread = new Thread(forwarder, "ply-stdin");
+                thread.setDaemon(true);
+                thread.start();
+            } else {
+                notifyAll();
+            }
+        }
+        if (retained.length > 0) {
+            forward(retained, retained.length);
+        }
     }
 
-    public void startPipe(OutputStream processStdin) {
-        this.processStdin.set(processStdin);
-        start();
+    private void forward(byte[] buffer, int length) {
+        OutputStream processStdin;
+        synchronized (this) {
+            processStdin = processStdins.peekLast();
+            if (processStdin == null) {
+                pending.write(buffer, 0, length);
+                return;
+            }
+        }
+        try {
+            processStdin.write(buffer, 0, length);
+            processStdin.flush();
+        } catch (IOException ioe) {
+            // child has exited (i.e., broken pipe), retain the input for the next child
+            synchronized (this) {
+                processStdins.remove(processStdin);
+                pending.write(buffer, 0, length);
+            }
+        }
     }
 
-    @Override public void start() {
-        if (!started.getAndSet(true)) {
-            super.start();
+    /**
+     * @param in the input being piped
+     * @return true if {@code in} is a seekable file (or is the {@literal JVM}'s own {@literal stdin} and it is seekable)
+     *         and so may be read without blocking to determine whether it has been exhausted
+     */
+    private static boolean isSeekable(InputStream in) {
+        if (in instanceof FileInputStream) {
+            return (getSeekableChannel((FileInputStream) in) != null);
         }
+        // the JVM's own stdin, unless it has been replaced
+        return ((SEEKABLE_STDIN != null) && (in.getClass() == BufferedInputStream.class));
     }
+
+    /**
+     * @param in from which to get the channel
+     * @return the channel of {@code in} if it is seekable (pipes and terminals are not) or null otherwise
+     */
+    private static FileChannel getSeekableChannel(FileInputStream in) {
+        FileChannel channel = in.getChannel();
+        try {
+            channel.position();
+            return channel;
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    private static void close(OutputStream processStdin) {
+        try {
+            processStdin.close();
+        } catch (IOException ioe) {
+            // ignore, child has exited
+        }
+    }
+
 }
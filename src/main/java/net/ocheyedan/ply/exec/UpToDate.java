@@ -0,0 +1,423 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.AntStyleWildcardUtil;
+import net.ocheyedan.ply.BitUtil;
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.Output;
+import net.ocheyedan.ply.dep.Deps;
+import net.ocheyedan.ply.props.*;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 4:55 PM
+ *
+ * Determines whether a script needs to be run at all.  A script may declare, within the {@literal scripts-jar}
+ * context, its inputs ({@literal inputs.<script-name>}), the contexts of the properties it depends upon
+ * ({@literal inputs.contexts.<script-name>}; {@literal *} for all contexts) and its outputs
+ * ({@literal outputs.<script-name>}).  Inputs and outputs are comma-delimited paths relative to the project directory;
+ * directories include all the files beneath them and paths may contain {@literal Ant} style wildcards.
+ *
+ * After each successful run of a declaring script a fingerprint of its declared inputs, outputs, properties and of
+ * the script itself is saved within the {@literal fingerprints} directory of the project's build directory.  The script
+ * is up-to-date (and is not run) if the fingerprint computed prior to its next run matches that saved.  The fingerprint
+ * is computed from the size and modification time of the input files (not their content) and from the existence of
+ * the output files (as outputs may be modified in place by subsequent scripts; i.e., {@literal ply-filter-file}
+ * filters the outputs of {@literal ply-resources}).  It is taken after the run as scripts may modify their inputs.
+ *
+ * Scripts which depend upon the project's resolved dependencies declare {@literal inputs.classpath.<script-name>=true}
+ * to include the resolved dependencies' artifacts as inputs.  Scripts which declare {@literal cache.<script-name>=true}
+ * (and whose outputs contain no wildcards) may additionally have their outputs restored from the {@link BuildCache},
+ * keyed by the content (rather than modification time) of their inputs; see {@link #computeCacheKey()}.
+ *
+ * Scripts invoked with arguments are always run as their arguments may name further inputs.  Checking may be disabled
+ * via property {@literal up-to-date} within the {@literal scripts-jar} context.
+ */
+final class UpToDate {
+
+    private static final Context SCRIPTS_JAR = Context.named("scripts-jar");
+
+    /**
+     * A cache of file path to the file's size, modification time and content hash (as {@literal size:time:hash}) so
+     * that unchanged files (i.e., dependency artifacts) are only hashed once per process.
+     */
+    private static final Map<String, String> CONTENT_HASHES = new ConcurrentHashMap<String, String>();
+
+    /**
+     * @param execution the un-translated execution
+     * @param projectRoot the root directory of {@code execution}'s project
+     * @return the declaration of {@code execution} or null if {@code execution} declares no inputs nor outputs (or
+     *         if it was invoked with arguments or checking is disabled), in which case it must always be run
+     */
+    static UpToDate get(Execution execution, File projectRoot) {
+        if ((execution.executionArgs.length != 1) || (execution.script == null)) {
+            return null;
+        }
+        File configDirectory = FileUtil.fromParts(projectRoot.getPath(), ".ply", "config");
+        Scope scope = execution.script.scope;
+        if ("false".equalsIgnoreCase(Props.get("up-to-date", SCRIPTS_JAR, scope, configDirectory).value())) {
+            return null;
+        }
+        String name = execution.script.name;
+        String inputs = Props.get("inputs." + name, SCRIPTS_JAR, scope, configDirectory).value();
+        String outputs = Props.get("outputs." + name, SCRIPTS_JAR, scope, configDirectory).value();
+        if (inputs.isEmpty() && outputs.isEmpty()) {
+            return null;
+        }
+        String contexts = Props.get("inputs.contexts." + name, SCRIPTS_JAR, scope, configDirectory).value();
+        String classpath = Props.get("inputs.classpath." + name, SCRIPTS_JAR, scope, configDirectory).value();
+        String cache = Props.get("cache." + name, SCRIPTS_JAR, scope, configDirectory).value();
+        List<String> outputPaths = split(outputs);
+        boolean cacheable = "true".equalsIgnoreCase(cache) && !outputPaths.isEmpty();
+        for (String outputPath : outputPaths) {
+            cacheable = cacheable && (indexOfWildcard(outputPath) == -1);
+        }
+        return new UpToDate(execution, projectRoot, configDirectory, split(inputs), split(contexts),
+                            "true".equalsIgnoreCase(classpath), outputPaths, cacheable);
+    }
+
+    private final Execution execution;
+
+    private final File projectRoot;
+
+    private final File configDirectory;
+
+    private final List<String> inputs;
+
+    private final List<String> contexts;
+
+    private final boolean classpath;
+
+    private final List<String> outputs;
+
+    private final boolean cacheable;
+
+    private UpToDate(Execution execution, File projectRoot, File configDirectory, List<String> inputs,
+                     List<String> contexts, boolean classpath, List<String> outputs, boolean cacheable) {
+        this.execution = execution;
+        this.projectRoot = projectRoot;
+        this.configDirectory = configDirectory;
+        this.inputs = inputs;
+        this.contexts = contexts;
+        this.classpath = classpath;
+        this.outputs = outputs;
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * @return true if the outputs of the execution may be stored within and restored from the {@link BuildCache}
+     */
+    boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * @return the declared outputs of the execution, resolved against the project directory
+     */
+    List<File> getOutputs() {
+        List<File> files = new ArrayList<File>(outputs.size());
+        for (String output : outputs) {
+            files.add(resolve(output));
+        }
+        return files;
+    }
+
+    /**
+     * @return the configuration directory of the execution's project
+     */
+    File getConfigDirectory() {
+        return configDirectory;
+    }
+
+    /**
+     * @return the key of the execution's outputs within the {@link BuildCache}; a hash of the script, the declared
+     *         contexts' properties, the declared outputs and of the content of the inputs (and, if declared, of the
+     *         resolved dependencies' artifacts).
+     */
+    String computeCacheKey() {
+        return computeFingerprint(true);
+    }
+
+    /**
+     * @return the cache key (see {@link #computeCacheKey()}) saved upon the last successful run of the execution or
+     *         null if there is none
+     */
+    String getLastCacheKey() {
+        String[] saved = readFingerprintFile();
+        return ((saved == null) || (saved[1] == null) || saved[1].isEmpty() ? null : saved[1]);
+    }
+
+    /**
+     * @return true if all the declared outputs exist
+     */
+    boolean outputsExist() {
+        for (File output : getOutputs()) {
+            if (!output.exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the fingerprint of the execution matches that saved upon its last successful run
+     */
+    boolean isUpToDate() {
+        String[] saved = readFingerprintFile();
+        return ((saved != null) && computeFingerprint(false).equals(saved[0]));
+    }
+
+    /**
+     * Saves the fingerprint of the execution; to be called after a successful run (or restoration of its outputs).
+     * @param cacheKey the cache key of the execution (see {@link #computeCacheKey()}) or null if not cached
+     */
+    void save(String cacheKey) {
+        File saved = getFingerprintFile();
+        Writer writer = null;
+        try {
+            saved.getParentFile().mkdirs();
+            writer = new OutputStreamWriter(new FileOutputStream(saved), "UTF-8");
+            writer.write(computeFingerprint(false));
+            writer.write('\n');
+            writer.write(cacheKey == null ? "" : cacheKey);
+            writer.write('\n');
+        } catch (IOException ioe) {
+            Output.print("^warn^ Could not save fingerprint ^b^%s^r^ [ %s ].", saved.getPath(), ioe.getMessage());
+        } finally {
+            close(writer);
+        }
+    }
+
+    /**
+     * Removes the saved fingerprint of the execution; to be called after a failed run.
+     */
+    void invalidate() {
+        File saved = getFingerprintFile();
+        if (saved.exists() && !saved.delete()) {
+            Output.print("^warn^ Could not delete fingerprint ^b^%s^r^.", saved.getPath());
+        }
+    }
+
+    /**
+     * @return the saved fingerprint and cache key (which may be null) or null if nothing has been saved
+     */
+    private String[] readFingerprintFile() {
+        File saved = getFingerprintFile();
+        if (!saved.exists()) {
+            return null;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(saved), "UTF-8"));
+            return new String[] { reader.readLine(), reader.readLine() };
+        } catch (IOException ioe) {
+            Output.print("^dbug^ Could not read fingerprint ^b^%s^r^ [ %s ].", saved.getPath(), ioe.getMessage());
+            return null;
+        } finally {
+            close(reader);
+        }
+    }
+
+    private File getFingerprintFile() {
+        Scope scope = execution.script.scope;
+        String buildDir = Props.get("build.dir", Context.named("project"), scope, configDirectory).value();
+        String scopeName = (Scope.Default.equals(scope) ? "default" : scope.name);
+        return FileUtil.fromParts(resolve(buildDir).getPath(), "fingerprints", scopeName + "-" + execution.script.name);
+    }
+
+    /**
+     * @param content true to fingerprint the content of files (independent of the project's location) and false to
+     *                fingerprint their location, size and modification time
+     * @return the fingerprint
+     */
+    private String computeFingerprint(boolean content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA1");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new AssertionError(nsae);
+        }
+        StringBuilder buffer = new StringBuilder();
+        File script = new File(execution.executionArgs[0]);
+        buffer.append("script:").append(content ? execution.script.name : execution.executionArgs[0]).append(':')
+              .append(describe(script, content)).append('\n');
+        update(digest, buffer);
+        Scope scope = execution.script.scope;
+        List<Context> fingerprinted;
+        if (contexts.contains("*")) {
+            fingerprinted = new ArrayList<Context>(Props.get(scope, configDirectory).keySet());
+        } else {
+            fingerprinted = new ArrayList<Context>(contexts.size());
+            for (String context : contexts) {
+                fingerprinted.add(Context.named(context));
+            }
+        }
+        Collections.sort(fingerprinted);
+        for (Context context : fingerprinted) {
+            buffer.append("context:").append(context.name).append('\n');
+            SortedMap<String, String> props = new TreeMap<String, String>();
+            for (PropFile.Prop prop : Props.get(context, scope, configDirectory).props()) {
+                props.put(prop.name, prop.value());
+            }
+            for (Map.Entry<String, String> prop : props.entrySet()) {
+                buffer.append(prop.getKey()).append('=').append(prop.getValue()).append('\n');
+            }
+            update(digest, buffer);
+        }
+        if (classpath) {
+            PropFile resolved = Deps.getResolvedProperties(configDirectory, scope, false);
+            SortedMap<String, String> dependencies = new TreeMap<String, String>();
+            for (PropFile.Prop dependency : resolved.props()) {
+                dependencies.put(dependency.name, dependency.value());
+            }
+            for (Map.Entry<String, String> dependency : dependencies.entrySet()) {
+                buffer.append("dependency:").append(dependency.getKey()).append(':')
+                      .append(describe(new File(dependency.getValue()), content)).append('\n');
+            }
+            update(digest, buffer);
+        }
+        fingerprintPaths("input:", inputs, true, content, digest, buffer);
+        if (content) {
+            // outputs are keyed by their declaration, their files are what is cached
+            for (String output : outputs) {
+                buffer.append("output:").append(output).append('\n');
+            }
+            update(digest, buffer);
+        } else {
+            fingerprintPaths("output:", outputs, false, false, digest, buffer);
+        }
+        return BitUtil.toHexString(digest.digest());
+    }
+
+    /**
+     * Fingerprints the files matching {@code paths}; by their path and, if {@code describe}, by
+     * {@link #describe(java.io.File, boolean)}.
+     */
+    private void fingerprintPaths(String type, List<String> paths, boolean describe, boolean content,
+                                  MessageDigest digest, StringBuilder buffer) {
+        File excluded = getFingerprintFile().getParentFile(); // in case the build directory itself is declared
+        for (String path : paths) {
+            buffer.append(type).append(path).append('\n');
+            SortedMap<String, File> files = new TreeMap<String, File>();
+            int wildcard = indexOfWildcard(path);
+            File base;
+            if (wildcard == -1) {
+                base = resolve(path);
+                collect(base, "", null, excluded, files);
+            } else {
+                int separator = path.lastIndexOf('/', wildcard);
+                base = (separator == -1 ? projectRoot : resolve(path.substring(0, separator)));
+                collect(base, "", AntStyleWildcardUtil.regex(path.substring(separator + 1)), excluded, files);
+            }
+            if (files.isEmpty()) {
+                // distinguish an empty directory from one which has been deleted
+                buffer.append(base.exists() ? "empty\n" : "missing\n");
+            }
+            for (Map.Entry<String, File> file : files.entrySet()) {
+                buffer.append(file.getKey());
+                if (describe) {
+                    buffer.append(':').append(describe(file.getValue(), content));
+                }
+                buffer.append('\n');
+                if (buffer.length() > 8192) {
+                    update(digest, buffer);
+                }
+            }
+            update(digest, buffer);
+        }
+    }
+
+    /**
+     * Collects {@code file} (or, if a directory, all the files beneath it) into {@code into}, keyed by their path
+     * relative to the starting directory, if they match {@code pattern} (or if {@code pattern} is null).  The
+     * {@code excluded} directory is skipped.
+     */
+    private static void collect(File file, String relativePath, Pattern pattern, File excluded, Map<String, File> into) {
+        if (file.equals(excluded)) {
+            return;
+        }
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null) {
+                return;
+            }
+            for (File child : children) {
+                collect(child, (relativePath.isEmpty() ? child.getName() : relativePath + "/" + child.getName()),
+                        pattern, excluded, into);
+            }
+        } else if (file.exists() && ((pattern == null) || pattern.matcher(relativePath).matches())) {
+            into.put(relativePath, file);
+        }
+    }
+
+    /**
+     * @param file to describe
+     * @param content true to describe {@code file} by the hash of its content, false by its size and modification time
+     * @return the description of {@code file}
+     */
+    private static String describe(File file, boolean content) {
+        String attributes = file.length() + ":" + file.lastModified();
+        if (!content) {
+            return attributes;
+        }
+        if (!file.isFile()) {
+            return "missing";
+        }
+        String path = file.getAbsolutePath();
+        String hashed = CONTENT_HASHES.get(path);
+        if ((hashed != null) && hashed.startsWith(attributes + ":")) {
+            return hashed.substring(attributes.length() + 1);
+        }
+        String hash = FileUtil.getSha1Hash(file);
+        CONTENT_HASHES.put(path, attributes + ":" + hash);
+        return hash;
+    }
+
+    private File resolve(String path) {
+        File file = new File(FileUtil.resolveUnixTilde(path));
+        return (file.isAbsolute() ? file : FileUtil.fromParts(projectRoot.getPath(), path));
+    }
+
+    private static int indexOfWildcard(String path) {
+        int star = path.indexOf('*');
+        int question = path.indexOf('?');
+        return ((star == -1) ? question : ((question == -1) ? star : Math.min(star, question)));
+    }
+
+    private static void update(MessageDigest digest, StringBuilder buffer) {
+        try {
+            digest.update(buffer.toString().getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException uee) {
+            throw new AssertionError(uee);
+        }
+        buffer.setLength(0);
+    }
+
+    private static List<String> split(String value) {
+        List<String> values = new ArrayList<String>(4);
+        for (String part : value.split(",")) {
+            if (!part.trim().isEmpty()) {
+                values.add(part.trim());
+            }
+        }
+        return values;
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ioe) {
+                // ignore
+            }
+        }
+    }
+
+}
@@ -3,12 +3,18 @@ package net.ocheyedan.ply.props;
 import net.ocheyedan.ply.FileUtil;
 import net.ocheyedan.ply.Output;
 import net.ocheyedan.ply.PlyUtil;
+import net.ocheyedan.ply.Trace;
 import net.ocheyedan.ply.cmd.build.Script;
 import net.ocheyedan.ply.exec.Execution;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static net.ocheyedan.ply.props.PropFile.Prop;
 
@@ -25,7 +31,12 @@ public final class PropsExt {
     /**
      * A cache of project-path/scope to resolved environment properties.
      */
-    private static final Map<String, Map<String, String>> RESOLVED_ENV_CACHE = new HashMap<String, Map<String, String>>();
+    private static final Map<String, Map<String, String>> RESOLVED_ENV_CACHE = new ConcurrentHashMap<String, Map<String, String>>();
+
+    /**
+     * The property snapshots written by this process.
+     */
+    private static final Queue<File> SNAPSHOTS = new ConcurrentLinkedQueue<File>();
 
     /**
      * Environment variable name prefix to distinguish ply variables from other system environment variables.
@@ -38,6 +49,9 @@ public final class PropsExt {
      * if the given {@code scope} didn't override the default scope's property).
      * The key is composed of 'ply_' (to distinguish ply variables from other system environment variables) concatenated with
      * the context concatenated with '.' and the property name (note, the scope has been discarded).
+     * If the {@code execution} reads its properties from a snapshot (see {@link Execution#isUsingPropsSnapshot()}) the
+     * properties are instead written to a {@link PropsSnapshot} and the mapping only contains the synthetic
+     * {@literal ply} context properties and the snapshot's path (as {@literal ply_ply.props.snapshot}).
      * @param execution used to produce environment variable names
      * @param configDirectory configuration directory associated for the project.
      * @param scope of the properties to include in the environment properties mapping
@@ -49,41 +63,99 @@ public final class PropsExt {
         if (RESOLVED_ENV_CACHE.containsKey(cacheKey)) {
             return RESOLVED_ENV_CACHE.get(cacheKey);
         }
+        Trace.Span span = Trace.begin("props", "env").arg("scope", scope.name).arg("snapshot", execution.isUsingPropsSnapshot());
         // handle the special submodules.scope
         Prop submodulesScopeProp = Props.get("submodules.scope", Context.named("project"), Props.getScope(), configDirectory);
         // submodulesScopeProp will never be null, will be the empty, default scoped, prop if not found
         Scope submodulesScope = Scope.named(submodulesScopeProp.value());
         
         Map<Context, PropFileChain> props = Props.get(scope, configDirectory);
-        Map<String, String> envProps = new HashMap<String, String>(props.size() * 5); // assume avg of 5 props per context for sizing
+        Map<Context, Map<String, String>> resolved = new HashMap<Context, Map<String, String>>(props.size() + 1, 1.0f);
         for (Context context : props.keySet()) {
             PropFileChain contextProps = props.get(context);
             if ("submodules".equals(context.name) && !scope.equals(submodulesScope)) {
                 contextProps = Props.get(context, submodulesScope);
             }
+            Map<String, String> resolvedContext = new HashMap<String, String>(8);
             for (Prop prop : contextProps.props()) {
-                String envKey = execution.getEnvKey(ENV_VAR_NAME_PREFIX, context, prop.name);
-                envProps.put(envKey, prop.value());
+                resolvedContext.put(prop.name, prop.value());
             }
+            resolved.put(context, resolvedContext);
         }
         // now add some synthetic properties like the local ply directory location.
         Context plyContext = Context.named("ply");
-        envProps.put(execution.getEnvKey(ENV_VAR_NAME_PREFIX, plyContext, "project.dir"), PlyUtil.getProjectDir(configDirectory));
-        envProps.put(execution.getEnvKey(ENV_VAR_NAME_PREFIX, plyContext, "java"), System.getProperty("ply.java"));
+        Map<String, String> synthetic = new HashMap<String, String>(8, 1.0f);
+        synthetic.put("project.dir", PlyUtil.getProjectDir(configDirectory));
+        synthetic.put("java", System.getProperty("ply.java"));
         // scripts are always executed from the '.ply/../' directory, allow them to know where the 'ply' invocation
         // actually occurred.
-        envProps.put(execution.getEnvKey(ENV_VAR_NAME_PREFIX, plyContext, "original.user.dir"), System.getProperty("user.dir"));
+        synthetic.put("original.user.dir", System.getProperty("user.dir"));
         // allow scripts access to which scope in which they are being invoked.
-        envProps.put(execution.getEnvKey(ENV_VAR_NAME_PREFIX, plyContext, "scope"), scope.name);
+        synthetic.put("scope", scope.name);
         // force the resolved color property onto child processes
-        envProps.put(execution.getEnvKey(ENV_VAR_NAME_PREFIX, plyContext, "color"), String.valueOf(Output.isColoredOutput()));
+        synthetic.put("color", String.valueOf(Output.isColoredOutput()));
         // finally, add a property to signify that the script is being invoked via ply
-        envProps.put(execution.getEnvKey(ENV_VAR_NAME_PREFIX, plyContext, "invoker"), "ply");
+        synthetic.put("invoker", "ply");
+        Map<String, String> resolvedPly = resolved.get(plyContext);
+        if (resolvedPly == null) {
+            resolvedPly = new HashMap<String, String>(synthetic.size(), 1.0f);
+            resolved.put(plyContext, resolvedPly);
+        }
+        resolvedPly.putAll(synthetic);
+
+        Map<String, String> envProps;
+        File snapshot = (execution.isUsingPropsSnapshot() ? writeSnapshot(resolved, scope) : null);
+        if (snapshot != null) {
+            // the synthetic properties are still exported as they're consulted prior to loading properties
+            envProps = new HashMap<String, String>(synthetic.size() + 1, 1.0f);
+            for (String name : synthetic.keySet()) {
+                envProps.put(execution.getEnvKey(ENV_VAR_NAME_PREFIX, plyContext, name), synthetic.get(name));
+            }
+            envProps.put(execution.getEnvKey(ENV_VAR_NAME_PREFIX, plyContext, "props.snapshot"), snapshot.getPath());
+        } else {
+            envProps = new HashMap<String, String>(resolved.size() * 5); // assume avg of 5 props per context for sizing
+            for (Context context : resolved.keySet()) {
+                Map<String, String> resolvedContext = resolved.get(context);
+                for (String name : resolvedContext.keySet()) {
+                    envProps.put(execution.getEnvKey(ENV_VAR_NAME_PREFIX, context, name), resolvedContext.get(name));
+                }
+            }
+        }
 
         RESOLVED_ENV_CACHE.put(cacheKey, envProps);
+        span.end();
         return envProps;
     }
 
+    /**
+     * Writes {@code resolved} as a {@link PropsSnapshot} within the temporary directory ({@literal java.io.tmpdir}),
+     * readable only by the owner as properties may contain credentials; the temporary directory (rather than the
+     * project's directory) ensures snapshots are not left beside version-controlled files should ply be killed.  The
+     * snapshot is specific to this ply process and is deleted upon exit (or upon {@link #reset(boolean)}).
+     * @param resolved the resolved properties
+     * @param scope of the properties
+     * @return the snapshot file or null if it could not be written
+     */
+    private static File writeSnapshot(Map<Context, Map<String, String>> resolved, Scope scope) {
+        File snapshot = null;
+        try {
+            snapshot = File.createTempFile(String.format("ply-props-%s-", (Scope.Default.equals(scope) ? "default" : scope.name)), ".snapshot");
+            snapshot.deleteOnExit();
+            if (!(snapshot.setReadable(false, false) && snapshot.setReadable(true, true))) {
+                throw new IOException("could not restrict the permissions of " + snapshot.getPath());
+            }
+            PropsSnapshot.write(resolved, snapshot);
+            SNAPSHOTS.add(snapshot);
+            return snapshot;
+        } catch (IOException ioe) {
+            Output.print("^warn^ Could not write the property snapshot, exporting as environment variables [ %s ].", ioe.getMessage());
+            if (snapshot != null) {
+                snapshot.delete();
+            }
+            return null;
+        }
+    }
+
     /**
      * @param configurationDirectory @see {@link Props#invalidateFilteredCaches(java.io.File)}
      * @see Props#invalidateFilteredCaches(java.io.File)
@@ -92,6 +164,15 @@ public final class PropsExt {
         Props.invalidateFilteredCaches(configurationDirectory);
     }
 
+    /**
+     * @param configurationDirectory @see {@link Props#invalidateFilteredCaches(java.io.File, java.util.Collection)}
+     * @param changed @see {@link Props#invalidateFilteredCaches(java.io.File, java.util.Collection)}
+     * @see Props#invalidateFilteredCaches(java.io.File, java.util.Collection)
+     */
+    public static void invalidateFilteredCaches(File configurationDirectory, Collection<String> changed) {
+        Props.invalidateFilteredCaches(configurationDirectory, changed);
+    }
+
     /**
      * @param configurationDirectory @see {@link Props#invalidateFilteredCaches(java.io.File)}
      * @see Props#invalidateFilteredCaches(java.io.File)
@@ -102,6 +183,24 @@ public final class PropsExt {
         Props.invalidateFilteredCaches(configurationDirectory);
     }
 
+    /**
+     * Discards all state accumulated during an invocation (resolved property chains, ad-hoc properties, filtered values,
+     * resolved environment properties and property snapshots) so that a long-lived ply process can service another invocation.
+     * @param includingParsed true to also discard the parsed system and local property files (i.e., because they
+     *                        have changed on disk).
+     * @see Loader#invalidateCaches(boolean)
+     */
+    public static void reset(boolean includingParsed) {
+        Loader.invalidateCaches(includingParsed);
+        AdHoc.clear();
+        Filter.clearAllCaches();
+        RESOLVED_ENV_CACHE.clear();
+        for (File snapshot : SNAPSHOTS) {
+            snapshot.delete();
+        }
+        SNAPSHOTS.clear();
+    }
+
     private PropsExt() { }
 
 }
@@ -2,6 +2,9 @@ package net.ocheyedan.ply.submodules;
 
 import net.ocheyedan.ply.FileUtil;
 import net.ocheyedan.ply.dep.DependencyAtom;
+import net.ocheyedan.ply.graph.DirectedAcyclicGraph;
+import net.ocheyedan.ply.graph.Graph;
+import net.ocheyedan.ply.graph.Vertex;
 import net.ocheyedan.ply.props.Context;
 import net.ocheyedan.ply.props.PropFileChain;
 import net.ocheyedan.ply.props.Props;
@@ -36,13 +39,53 @@ public final class Submodules {
      * @return all {@link Submodule} based on {@code localConfigDir} mapped to their own {@link Submodule} objects.
      */
     public static List<Submodule> getSubmodules(File configDirectory) {
-        Prop submodulesScopeProp = Props.get("submodules.scope", Context.named("project"), Props.getScope(), configDirectory);
-        Scope submodulesScope = (submodulesScopeProp == null ? Scope.Default : Scope.named(submodulesScopeProp.value()));
+        Scope submodulesScope = getSubmodulesScope(configDirectory);
         Map<String, Submodule> submodules = new HashMap<String, Submodule>();
         getSubmodules(configDirectory, submodulesScope, "", submodules);
         return sortSubmodules(submodules, configDirectory, submodulesScope);
     }
 
+    /**
+     * Creates a graph of {@code orderedSubmodules} where an edge from submoduleA to submoduleB exists if submoduleB
+     * depends upon submoduleA or if submoduleB is a child of submoduleA; i.e., submoduleB cannot be built until
+     * submoduleA has been built.  Submodules which have no such relationship with one another may be built concurrently.
+     * @param configDirectory the configuration directory of the project from which the {@code orderedSubmodules} originated
+     * @param orderedSubmodules as returned by {@link #getSubmodules(java.io.File)}; the vertices of the returned
+     *                          graph are in this order.
+     * @return the dependency graph of {@code orderedSubmodules}
+     * @throws net.ocheyedan.ply.graph.Graph.CycleException if the submodules' dependencies are circular
+     */
+    public static DirectedAcyclicGraph<Submodule> getSubmoduleGraph(File configDirectory, List<Submodule> orderedSubmodules)
+            throws Graph.CycleException {
+        Scope submodulesScope = getSubmodulesScope(configDirectory);
+        DirectedAcyclicGraph<Submodule> graph = new DirectedAcyclicGraph<Submodule>();
+        Map<String, Submodule> submodules = new HashMap<String, Submodule>(orderedSubmodules.size());
+        for (Submodule submodule : orderedSubmodules) {
+            graph.addVertex(submodule);
+            submodules.put(submodule.dependencyName, submodule);
+        }
+        for (Submodule submodule : orderedSubmodules) {
+            Vertex<Submodule> vertex = graph.getVertex(submodule);
+            File submoduleConfigDir = FileUtil.fromParts(FileUtil.getCanonicalPath(configDirectory), "..", "..",
+                                                         submodule.name, ".ply", "config");
+            PropFileChain depProps = Props.get(Context.named("dependencies"), submodulesScope, submoduleConfigDir);
+            for (String dep : convertDeps(depProps, submodules)) {
+                graph.addEdge(graph.getVertex(submodules.get(dep)), vertex);
+            }
+            for (Submodule parent : orderedSubmodules) {
+                if (submodule.name.startsWith(parent.name + File.separator)) {
+                    graph.addEdge(graph.getVertex(parent), vertex);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static Scope getSubmodulesScope(File configDirectory) {
+        Prop submodulesScopeProp = Props.get("submodules.scope", Context.named("project"), Props.getScope(), configDirectory);
+        return (submodulesScopeProp == null ? Scope.Default : Scope.named(submodulesScopeProp.value()));
+    }
+
     /**
      * Retrieves the {@literal submodules} from directory {@code configDirectory} for scope {@code scope}.
      * Note, for each submodule found, this method recurs and collects any of its submodules as well.
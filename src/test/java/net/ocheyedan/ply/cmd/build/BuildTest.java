@@ -0,0 +1,125 @@
+package net.ocheyedan.ply.cmd.build;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.cmd.Args;
+import net.ocheyedan.ply.exec.Execution;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Props;
+import net.ocheyedan.ply.props.PropsExt;
+import net.ocheyedan.ply.props.Scope;
+import net.ocheyedan.ply.submodules.Submodule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 10:20 PM
+ */
+public class BuildTest {
+
+    private static final Context CONTEXT = Context.named("buildtest");
+
+    private File projectRoot;
+
+    private File projectPlyDir;
+
+    private List<Submodule> orderedSubmodules;
+
+    private Args args;
+
+    @Before
+    public void setup() throws IOException {
+        PropsExt.reset(false);
+        projectRoot = File.createTempFile("test", "build");
+        projectRoot.delete();
+        projectPlyDir = FileUtil.fromParts(projectRoot.getPath(), ".ply");
+        write(FileUtil.fromParts(projectPlyDir.getPath(), "config", "project.properties"), "name=project\n");
+        write(FileUtil.fromParts(projectPlyDir.getPath(), "config", "buildtest.properties"), "tag=none\n");
+        // 'first' defines no ad-hoc property, 'second' and 'third' define the same one
+        createSubmodule("first", "tag=`true`\n");
+        createSubmodule("second", "tag=`true` -Pbuildtest.tag=second\n");
+        createSubmodule("third", "tag=`true` -Pbuildtest.tag=third\n");
+        orderedSubmodules = new ArrayList<Submodule>(3);
+        orderedSubmodules.add(new Submodule("first", "first"));
+        orderedSubmodules.add(new Submodule("second", "second"));
+        orderedSubmodules.add(new Submodule("third", "third"));
+        args = new Args(Collections.singletonList("tag"), Collections.<String>emptyList());
+    }
+
+    @After
+    public void cleanup() {
+        PropsExt.reset(false);
+        FileUtil.delete(projectRoot);
+    }
+
+    @Test
+    public void lazyResolution() {
+        // as when building sequentially without pre-invocation; a submodule sees only the ad-hoc properties of
+        // those resolved before it
+        assertEquals(1, Module.resolve(args, getConfigDir("first")).size());
+        assertEquals("none", getTag("first"));
+        Module.resolve(args, getConfigDir("second"));
+        assertEquals("second", getTag("second"));
+        Module.resolve(args, getConfigDir("third"));
+        assertEquals("second", getTag("third"));
+    }
+
+    @Test
+    public void upFrontResolution() {
+        // as when building in parallel or with pre-invocation; every submodule's ad-hoc properties are added before
+        // any is built and so are seen by the project and by submodules preceding them in build order
+        Map<Submodule, File> plyDirs = new HashMap<Submodule, File>(3);
+        Map<Submodule, List<Execution>> resolved = Build.resolveSubmodules(args, orderedSubmodules, projectPlyDir, plyDirs);
+        assertEquals(3, resolved.size());
+        assertEquals(3, plyDirs.size());
+        for (Submodule submodule : orderedSubmodules) {
+            assertEquals(1, resolved.get(submodule).size());
+            assertEquals("tag", resolved.get(submodule).get(0).name);
+        }
+        // the first value in build order applies to all
+        assertEquals("second", getTag("first"));
+        assertEquals("second", getTag("second"));
+        assertEquals("second", getTag("third"));
+        assertEquals("second", Props.get("tag", CONTEXT, Scope.Default, new File(projectPlyDir, "config")).value());
+    }
+
+    private void createSubmodule(String name, String aliases) throws IOException {
+        File configDir = FileUtil.fromParts(projectRoot.getPath(), name, ".ply", "config");
+        write(new File(configDir, "project.properties"), "name=" + name + "\n");
+        write(new File(configDir, "buildtest.properties"), "tag=none\n");
+        write(new File(configDir, "aliases.properties"), aliases);
+    }
+
+    private File getConfigDir(String submodule) {
+        return FileUtil.fromParts(FileUtil.getCanonicalPath(FileUtil.fromParts(projectRoot.getPath(), submodule, ".ply")),
+                "config");
+    }
+
+    private String getTag(String submodule) {
+        return Props.get("tag", CONTEXT, Scope.Default, getConfigDir(submodule)).value();
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
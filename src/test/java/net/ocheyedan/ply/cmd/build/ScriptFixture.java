@@ -0,0 +1,20 @@
+package net.ocheyedan.ply.cmd.build;
+
+import net.ocheyedan.ply.props.Scope;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:45 PM
+ *
+ * Creates {@link Script} objects for tests outside of this package.
+ */
+public final class ScriptFixture {
+
+    public static Script create(String name, Scope scope) {
+        return Script.parse(name, scope);
+    }
+
+    private ScriptFixture() { }
+
+}
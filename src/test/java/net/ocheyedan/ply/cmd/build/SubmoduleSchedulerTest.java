@@ -0,0 +1,203 @@
+package net.ocheyedan.ply.cmd.build;
+
+import net.ocheyedan.ply.exec.Exec;
+import net.ocheyedan.ply.exec.Execution;
+import net.ocheyedan.ply.graph.DirectedAcyclicGraph;
+import net.ocheyedan.ply.props.Scope;
+import net.ocheyedan.ply.submodules.Submodule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:30 PM
+ */
+public class SubmoduleSchedulerTest {
+
+    /**
+     * Invokes submodules by recording their start and completion, sleeping for their configured duration and
+     * failing those configured to fail.
+     */
+    private static class FakeInvoker implements SubmoduleScheduler.Invoker {
+
+        private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+        private final Map<String, Long> durations = new HashMap<String, Long>();
+
+        private final Set<String> failures = new HashSet<String>();
+
+        @Override public boolean invoke(File plyDir, List<Execution> submoduleExecutions, Exec.Listener listener) {
+            String name = plyDir.getName();
+            events.add("start " + name);
+            try {
+                Long duration = durations.get(name);
+                if (duration != null) {
+                    Thread.sleep(duration);
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            events.add("end " + name);
+            return !failures.contains(name);
+        }
+
+        private List<String> getStarted() {
+            List<String> started = new ArrayList<String>();
+            synchronized (events) {
+                for (String event : events) {
+                    if (event.startsWith("start ")) {
+                        started.add(event.substring("start ".length()));
+                    }
+                }
+            }
+            return started;
+        }
+    }
+
+    private final DirectedAcyclicGraph<Submodule> graph = new DirectedAcyclicGraph<Submodule>();
+
+    private final Map<Submodule, List<Execution>> executions = new HashMap<Submodule, List<Execution>>();
+
+    private final Map<Submodule, File> plyDirs = new HashMap<Submodule, File>();
+
+    private final Map<String, Submodule> submodules = new HashMap<String, Submodule>();
+
+    @Test
+    public void readyOrder() {
+        add("x", "y", "z");
+        depends("y", "x");
+        FakeInvoker invoker = new FakeInvoker();
+        SubmoduleScheduler scheduler = new SubmoduleScheduler(graph, executions, plyDirs, 1, null, invoker);
+        assertTrue(scheduler.build());
+        // z is ready before y (whose prerequisite is x) and so is built ahead of it
+        assertEquals(Arrays.asList("x", "z", "y"), invoker.getStarted());
+        assertEquals(3, scheduler.getTimes().size());
+    }
+
+    @Test
+    public void prerequisitesCompleteFirst() {
+        add("a", "b", "c", "d");
+        depends("c", "a");
+        depends("c", "b");
+        depends("d", "c");
+        FakeInvoker invoker = new FakeInvoker();
+        invoker.durations.put("a", 50L);
+        invoker.durations.put("b", 100L);
+        SubmoduleScheduler scheduler = new SubmoduleScheduler(graph, executions, plyDirs, 4, null, invoker);
+        assertTrue(scheduler.build());
+        List<String> events = invoker.events;
+        assertTrue(events.indexOf("end a") < events.indexOf("start c"));
+        assertTrue(events.indexOf("end b") < events.indexOf("start c"));
+        assertTrue(events.indexOf("end c") < events.indexOf("start d"));
+        // a and b are independent and so built concurrently
+        assertTrue(events.indexOf("start b") < events.indexOf("end a"));
+    }
+
+    @Test
+    public void failure() {
+        add("a", "b", "c");
+        depends("b", "a");
+        depends("c", "b");
+        FakeInvoker invoker = new FakeInvoker();
+        invoker.failures.add("b");
+        SubmoduleScheduler scheduler = new SubmoduleScheduler(graph, executions, plyDirs, 2, null, invoker);
+        assertFalse(scheduler.build());
+        assertEquals(Arrays.asList("a", "b"), invoker.getStarted());
+        assertEquals(1, scheduler.getTimes().size());
+        assertTrue(scheduler.getTimes().containsKey(submodules.get("a")));
+    }
+
+    @Test
+    public void failureStopsUnstarted() {
+        add("a", "b", "c");
+        depends("c", "b");
+        FakeInvoker invoker = new FakeInvoker();
+        invoker.failures.add("a");
+        invoker.durations.put("b", 50L);
+        SubmoduleScheduler scheduler = new SubmoduleScheduler(graph, executions, plyDirs, 2, null, invoker);
+        assertFalse(scheduler.build());
+        // b was already running and is allowed to complete, but its dependent is not started
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b")), new HashSet<String>(invoker.getStarted()));
+        assertTrue(invoker.events.contains("end b"));
+    }
+
+    @Test
+    public void nonPlySubmodule() {
+        add("a", "b");
+        depends("b", "a");
+        executions.put(submodules.get("a"), null);
+        FakeInvoker invoker = new FakeInvoker();
+        SubmoduleScheduler scheduler = new SubmoduleScheduler(graph, executions, plyDirs, 2, null, invoker);
+        assertTrue(scheduler.build());
+        assertEquals(Arrays.asList("b"), invoker.getStarted());
+    }
+
+    @Test
+    public void release() {
+        add("a", "b");
+        depends("b", "a");
+        final Execution install = new Execution("install", Script.parse("install", Scope.Default), new String[0]);
+        Execution test = new Execution("test", Script.parse("test", Scope.named("test")), new String[0]);
+        executions.put(submodules.get("a"), Arrays.asList(install, test));
+        final CountDownLatch dependentStarted = new CountDownLatch(1);
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        SubmoduleScheduler.Invoker invoker = new SubmoduleScheduler.Invoker() {
+            @Override public boolean invoke(File plyDir, List<Execution> submoduleExecutions, Exec.Listener listener) {
+                if ("b".equals(plyDir.getName())) {
+                    events.add("start b");
+                    dependentStarted.countDown();
+                    return true;
+                }
+                listener.completed(install);
+                try {
+                    // the remainder of a's build runs concurrently with its dependent
+                    dependentStarted.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                events.add("end a");
+                return true;
+            }
+        };
+        SubmoduleScheduler scheduler = new SubmoduleScheduler(graph, executions, plyDirs, 2, "install", invoker);
+        assertTrue(scheduler.build());
+        assertEquals(Arrays.asList("start b", "end a"), events);
+        assertTrue(scheduler.getReleaseTimes().containsKey(submodules.get("a")));
+    }
+
+    @Test
+    public void criticalPath() {
+        add("a", "b", "c", "d");
+        depends("c", "a");
+        depends("d", "b");
+        FakeInvoker invoker = new FakeInvoker();
+        invoker.durations.put("a", 300L);
+        invoker.durations.put("c", 300L);
+        SubmoduleScheduler scheduler = new SubmoduleScheduler(graph, executions, plyDirs, 4, null, invoker);
+        assertTrue(scheduler.build());
+        assertEquals(Arrays.asList(submodules.get("a"), submodules.get("c")), scheduler.getCriticalPath());
+    }
+
+    private void add(String ... names) {
+        for (String name : names) {
+            Submodule submodule = new Submodule(name, "ns:" + name + ":1.0");
+            submodules.put(name, submodule);
+            graph.addVertex(submodule);
+            executions.put(submodule, Collections.singletonList(new Execution(name, Script.parse("install", Scope.Default),
+                    new String[0])));
+            plyDirs.put(submodule, new File(name));
+        }
+    }
+
+    private void depends(String dependent, String prerequisite) {
+        graph.addEdge(graph.getVertex(submodules.get(prerequisite)), graph.getVertex(submodules.get(dependent)));
+    }
+
+}
@@ -0,0 +1,27 @@
+package net.ocheyedan.ply.dep;
+
+import java.io.File;
+import java.net.URI;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 9:50 PM
+ *
+ * A script, invoked in-process by tests, which records {@literal args[1]} as missing within the missing artifacts
+ * cache of local repository {@literal args[0]} and then prints whether the cache considers it missing (which it does
+ * not if the cache is bypassed via {@literal depmngr.update}).
+ */
+public final class MissingArtifactProbe {
+
+    public static void main(String[] args) {
+        String path = new File(args[0]).getAbsolutePath();
+        RepositoryAtom localRepository = new RepositoryAtom(path, URI.create("file://" + path), RepositoryAtom.Type.ply);
+        MissingArtifactCache cache = MissingArtifactCache.get(localRepository);
+        cache.putMissing(args[1]);
+        System.out.print(cache.isMissing(args[1]));
+    }
+
+    private MissingArtifactProbe() { }
+
+}
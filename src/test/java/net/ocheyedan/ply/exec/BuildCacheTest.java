@@ -0,0 +1,162 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.cmd.build.ScriptFixture;
+import net.ocheyedan.ply.props.PropsExt;
+import net.ocheyedan.ply.props.Scope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Properties;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 7:25 PM
+ */
+public class BuildCacheTest {
+
+    private File projectRoot;
+
+    private File configDirectory;
+
+    private File cacheDirectory;
+
+    private File output;
+
+    private UpToDate declaration;
+
+    @Before
+    public void setup() throws IOException {
+        projectRoot = File.createTempFile("test", "build-cache");
+        projectRoot.delete();
+        configDirectory = FileUtil.fromParts(projectRoot.getPath(), ".ply", "config");
+        cacheDirectory = new File(projectRoot, "cache");
+        write(new File(configDirectory, "project.properties"), "build.dir=target\n");
+        write(new File(configDirectory, "scripts-jar.properties"), "inputs.compile=src\noutputs.compile=target/classes\n"
+                + "cache.compile=true\n");
+        write(FileUtil.fromParts(projectRoot.getPath(), "src", "Test.java"), "class Test { }\n");
+        output = FileUtil.fromParts(projectRoot.getPath(), "target", "classes", "Test.class");
+        write(output, pad("first"));
+        File script = new File(projectRoot, "compile.sh");
+        write(script, "#!/bin/sh\n");
+        PropsExt.invalidateCaches(configDirectory);
+        Execution execution = new Execution("compile", ScriptFixture.create("compile", Scope.Default),
+                new String[] { script.getPath() });
+        declaration = UpToDate.get(execution, projectRoot);
+        assertTrue(declaration.isCacheable());
+    }
+
+    @After
+    public void cleanup() {
+        PropsExt.invalidateCaches(configDirectory);
+        FileUtil.delete(projectRoot);
+    }
+
+    @Test
+    public void disabledByDefault() throws IOException {
+        assertNull(BuildCache.get(configDirectory));
+        write(new File(configDirectory, "ply.properties"), "build.cache=false\n");
+        PropsExt.invalidateCaches(configDirectory);
+        assertNull(BuildCache.get(configDirectory));
+        enable(-1L);
+        assertNotNull(BuildCache.get(configDirectory));
+    }
+
+    @Test
+    public void storeAndRestore() throws IOException {
+        enable(-1L);
+        BuildCache cache = BuildCache.get(configDirectory);
+        cache.store(declaration, "first");
+        assertTrue(new File(cacheDirectory, "first").isDirectory());
+
+        write(output, pad("second"));
+        assertTrue(cache.restore(declaration, "first"));
+        assertEquals(pad("first"), read(output));
+        // outputs not within the entry are removed upon restoration
+        File stale = new File(output.getParentFile(), "Stale.class");
+        write(stale, "stale");
+        assertTrue(cache.restore(declaration, "first"));
+        assertFalse(stale.exists());
+
+        assertFalse(cache.restore(declaration, "unknown"));
+        assertEquals(pad("first"), read(output));
+
+        Properties stats = new Properties();
+        InputStream in = new FileInputStream(new File(cacheDirectory, "stats.properties"));
+        try {
+            stats.load(in);
+        } finally {
+            in.close();
+        }
+        assertEquals("2", stats.getProperty("hits"));
+        assertEquals("1", stats.getProperty("misses"));
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted() throws IOException {
+        // room for two (but not three) entries
+        enable((2L * pad("").length()) + 10L);
+        BuildCache cache = BuildCache.get(configDirectory);
+        File first = new File(cacheDirectory, "first"), second = new File(cacheDirectory, "second"),
+             third = new File(cacheDirectory, "third");
+        cache.store(declaration, "first");
+        write(output, pad("second"));
+        cache.store(declaration, "second");
+        assertTrue(first.exists());
+        assertTrue(second.exists());
+        long now = System.currentTimeMillis();
+        assertTrue(first.setLastModified(now - 20000L));
+        assertTrue(second.setLastModified(now - 10000L));
+        // using the first makes the second the least recently used
+        assertTrue(cache.restore(declaration, "first"));
+
+        write(output, pad("third"));
+        cache.store(declaration, "third");
+        assertTrue(first.exists());
+        assertFalse(second.exists());
+        assertTrue(third.exists());
+    }
+
+    private void enable(long size) throws IOException {
+        write(new File(configDirectory, "ply.properties"), "build.cache=true\nbuild.cache.dir="
+                + cacheDirectory.getPath().replace("\\", "\\\\") + "\nbuild.cache.size=" + (size < 0 ? "" : String.valueOf(size))
+                + "\n");
+        PropsExt.invalidateCaches(configDirectory);
+    }
+
+    /**
+     * @return {@code value} padded to 64 characters so that each cached output is of the same size
+     */
+    private static String pad(String value) {
+        StringBuilder padded = new StringBuilder(value);
+        while (padded.length() < 64) {
+            padded.append('.');
+        }
+        return padded.toString();
+    }
+
+    private static String read(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            return reader.readLine();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.props.Env;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 9:52 PM
+ */
+public class InProcessProcessTest {
+
+    @Test
+    public void dependencyCachesResetPerInvocation() throws IOException, InterruptedException {
+        assumeTrue(InProcessProcess.install());
+        File localRepository = File.createTempFile("test", "local-repo");
+        localRepository.delete();
+        localRepository.mkdirs();
+        try {
+            // like InProcessExecution, the loader is reused across invocations
+            ClassLoader loader = createScriptLoader();
+            String mainClass = "net.ocheyedan.ply.dep.MissingArtifactProbe";
+            String url = "http://repo.example.com/ns/name/1.0/name-1.0.jar";
+            Map<String, String> environment = new HashMap<String, String>();
+            environment.put("ply_ply.invoker", "ply");
+            assertEquals("true", invoke(loader, mainClass, environment, localRepository.getPath(), url));
+
+            // the second invocation bypasses the cache, which it can only do if the cache was created anew
+            environment.put("ply_depmngr.update", "true");
+            assertEquals("false", invoke(loader, mainClass, environment, localRepository.getPath(), url));
+        } finally {
+            FileUtil.delete(localRepository);
+        }
+    }
+
+    @Test
+    public void outputSettingsResetPerInvocation() throws IOException, InterruptedException {
+        assumeTrue(InProcessProcess.install());
+        ClassLoader loader = createScriptLoader();
+        String mainClass = "net.ocheyedan.ply.exec.OutputProbe";
+        Map<String, String> environment = new HashMap<String, String>();
+        environment.put("ply_ply.invoker", "ply");
+        environment.put("ply_ply.log.levels", "info");
+        assertEquals("false", invoke(loader, mainClass, environment));
+
+        environment.put("ply_ply.log.levels", "debug");
+        assertEquals("true", invoke(loader, mainClass, environment));
+    }
+
+    @Test
+    public void completesWithNonDaemonThreads() throws IOException, InterruptedException {
+        assumeTrue(InProcessProcess.install());
+        Map<String, String> environment = new HashMap<String, String>();
+        environment.put("ply_ply.invoker", "ply");
+        assertEquals("completed", invoke(createScriptLoader(), "net.ocheyedan.ply.exec.ThreadProbe", environment));
+    }
+
+    /**
+     * @return a class-loader isolated from this one (as are those of {@link InProcessExecution}) which loads its own
+     *         copy of {@literal ply-util} and of the test classes (to be invoked as scripts)
+     */
+    private static ClassLoader createScriptLoader() {
+        URL util = Env.class.getProtectionDomain().getCodeSource().getLocation();
+        URL tests = InProcessProcessTest.class.getProtectionDomain().getCodeSource().getLocation();
+        return new URLClassLoader(new URL[] { util, tests }, null);
+    }
+
+    private static String invoke(ClassLoader loader, String mainClass, Map<String, String> environment, String ... args)
+            throws IOException, InterruptedException {
+        InProcessProcess process = new InProcessProcess("test", loader, mainClass, args, environment);
+        process.start();
+        String output = read(process.getInputStream());
+        assertEquals(0, process.waitFor());
+        return output;
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = stream.read(buffer)) != -1) {
+            read.write(buffer, 0, length);
+        }
+        return read.toString("UTF-8");
+    }
+
+}
@@ -0,0 +1,20 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.Output;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 10:05 PM
+ *
+ * A script, invoked in-process by tests, which prints whether debug output is enabled.
+ */
+public final class OutputProbe {
+
+    public static void main(String[] args) {
+        System.out.print(Output.isDebug());
+    }
+
+    private OutputProbe() { }
+
+}
@@ -0,0 +1,158 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.cmd.build.ScriptFixture;
+import net.ocheyedan.ply.props.Scope;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:40 PM
+ */
+public class PreforkPoolTest {
+
+    private static final long MB = 1024L * 1024L;
+
+    /**
+     * Translates executions to themselves and pre-invokes them without starting any process.
+     */
+    private static class RecordingInvoker implements PreforkPool.Invoker {
+
+        private final List<String> translated = new ArrayList<String>();
+
+        private final List<String> preInvoked = new ArrayList<String>();
+
+        @Override public Execution translate(Execution execution, File projectRoot) {
+            translated.add(execution.name);
+            return execution;
+        }
+
+        @Override public ExecutionWrapper preInvoke(Execution translated, File projectRoot) {
+            preInvoked.add(translated.name);
+            return new ExecutionWrapper(translated, 0L);
+        }
+    }
+
+    private final List<PreforkPool.Candidate> candidates = new ArrayList<PreforkPool.Candidate>();
+
+    @After
+    public void cleanup() {
+        PreforkPool.kill(candidates);
+        assertEquals(0L, PreforkPool.getReserved());
+    }
+
+    @Test
+    public void depth() {
+        add("a", "128m", true);
+        add("b", "128m", true);
+        add("c", "128m", true);
+        RecordingInvoker invoker = new RecordingInvoker();
+        PreforkPool.prefork(candidates, 2, Long.MAX_VALUE, invoker);
+        assertEquals(list("a", "b"), invoker.preInvoked);
+        assertEquals(256L * MB, PreforkPool.getReserved());
+        // already pre-invoked executions are not pre-invoked again
+        PreforkPool.prefork(candidates, 2, Long.MAX_VALUE, invoker);
+        assertEquals(list("a", "b"), invoker.preInvoked);
+        PreforkPool.prefork(candidates, 0, Long.MAX_VALUE, invoker);
+        assertEquals(list("a", "b"), invoker.preInvoked);
+    }
+
+    @Test
+    public void memoryBudget() {
+        add("a", "128m", true);
+        add("b", "128m", true);
+        add("c", "128m", true);
+        add("d", "128m", true);
+        RecordingInvoker invoker = new RecordingInvoker();
+        PreforkPool.prefork(candidates, 4, 256L * MB, invoker);
+        assertEquals(list("a", "b"), invoker.preInvoked);
+        assertEquals(list("a", "b", "c"), invoker.translated);
+        assertEquals(256L * MB, PreforkPool.getReserved());
+
+        // claiming the pre-invoked execution releases its reservation
+        ExecutionWrapper claimed = PreforkPool.claim(candidates.get(0).execution, null, invoker);
+        assertSame(candidates.get(0).execution, claimed.execution);
+        assertEquals(list("a", "b"), invoker.preInvoked);
+        assertEquals(128L * MB, PreforkPool.getReserved());
+
+        // which allows the next to be pre-invoked (reusing its translation)
+        PreforkPool.prefork(candidates.subList(1, candidates.size()), 4, 256L * MB, invoker);
+        assertEquals(list("a", "b", "c"), invoker.preInvoked);
+        assertEquals(list("a", "b", "c", "d"), invoker.translated);
+        assertEquals(256L * MB, PreforkPool.getReserved());
+
+        // an execution not pre-invoked is pre-invoked upon its claim, reusing its translation
+        PreforkPool.claim(candidates.get(3).execution, null, invoker);
+        assertEquals(list("a", "b", "c", "d"), invoker.preInvoked);
+        assertEquals(list("a", "b", "c", "d"), invoker.translated);
+        assertEquals(256L * MB, PreforkPool.getReserved());
+    }
+
+    @Test
+    public void nextAlwaysPreInvoked() {
+        add("a", "512m", true);
+        add("b", "512m", true);
+        RecordingInvoker invoker = new RecordingInvoker();
+        PreforkPool.prefork(candidates, 2, 64L * MB, invoker);
+        assertEquals(list("a"), invoker.preInvoked);
+        assertEquals(512L * MB, PreforkPool.getReserved());
+    }
+
+    @Test
+    public void withoutJvmPrimer() {
+        add("a", "512m", false);
+        add("b", "512m", false);
+        RecordingInvoker invoker = new RecordingInvoker();
+        // jvm-s not started upon pre-invocation reserve nothing
+        PreforkPool.prefork(candidates, 2, 64L * MB, invoker);
+        assertEquals(list("a", "b"), invoker.preInvoked);
+        assertEquals(0L, PreforkPool.getReserved());
+    }
+
+    @Test
+    public void discard() {
+        add("a", "128m", true);
+        add("b", "128m", true);
+        RecordingInvoker invoker = new RecordingInvoker();
+        PreforkPool.prefork(candidates, 2, Long.MAX_VALUE, invoker);
+        PreforkPool.discard(candidates.get(1).execution);
+        assertEquals(128L * MB, PreforkPool.getReserved());
+        PreforkPool.discard(candidates.get(1).execution);
+        assertEquals(128L * MB, PreforkPool.getReserved());
+    }
+
+    @Test
+    public void parseMemory() {
+        assertEquals(512L * MB, PreforkPool.parseMemory("512m"));
+        assertEquals(512L * MB, PreforkPool.parseMemory(" 512M "));
+        assertEquals(2L * 1024L * MB, PreforkPool.parseMemory("2G"));
+        assertEquals(64L * 1024L, PreforkPool.parseMemory("64k"));
+        assertEquals(1024L, PreforkPool.parseMemory("1024"));
+        assertEquals(-1L, PreforkPool.parseMemory(""));
+        assertEquals(-1L, PreforkPool.parseMemory(null));
+        assertEquals(-1L, PreforkPool.parseMemory("lots"));
+        assertEquals(-1L, PreforkPool.parseMemory("m"));
+    }
+
+    private void add(String name, String heap, boolean usingJvmPrimer) {
+        Execution execution = new JvmExecution(name, ScriptFixture.create(name, Scope.Default),
+                new String[] { "java", "-Xmx" + heap, "-jar", name + ".jar" }, usingJvmPrimer, false);
+        candidates.add(new PreforkPool.Candidate(execution, null));
+    }
+
+    private static List<String> list(String ... values) {
+        List<String> list = new ArrayList<String>(values.length);
+        for (String value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+}
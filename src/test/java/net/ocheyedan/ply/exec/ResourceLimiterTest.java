@@ -0,0 +1,145 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.cmd.build.ScriptFixture;
+import net.ocheyedan.ply.props.Scope;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 7:35 PM
+ */
+public class ResourceLimiterTest {
+
+    private static final long MB = 1024L * 1024L;
+
+    /**
+     * Acquires an execution on a separate thread, recording its admission.
+     */
+    private static class Acquirer extends Thread {
+
+        private final Execution execution;
+
+        private final long budget;
+
+        private final int cpus;
+
+        private final List<String> admitted;
+
+        private final CountDownLatch admission = new CountDownLatch(1);
+
+        private Acquirer(Execution execution, long budget, int cpus, List<String> admitted) {
+            this.execution = execution;
+            this.budget = budget;
+            this.cpus = cpus;
+            this.admitted = admitted;
+            setDaemon(true);
+            start();
+        }
+
+        @Override public void run() {
+            ResourceLimiter.acquire(execution, budget, cpus);
+            admitted.add(execution.name);
+            admission.countDown();
+        }
+
+        private boolean awaitAdmission(long millis) throws InterruptedException {
+            return admission.await(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final List<Execution> acquired = new ArrayList<Execution>();
+
+    private final List<String> admitted = Collections.synchronizedList(new ArrayList<String>());
+
+    @After
+    public void cleanup() {
+        for (Execution execution : acquired) {
+            ResourceLimiter.release(execution);
+        }
+        assertEquals(0L, ResourceLimiter.getReserved());
+    }
+
+    @Test
+    public void admittedWhenNothingRunning() {
+        Execution execution = jvm("large", "4g");
+        ResourceLimiter.acquire(execution, 512L * MB, 1);
+        acquired.add(execution);
+        assertEquals(4096L * MB, ResourceLimiter.getReserved());
+    }
+
+    @Test
+    public void memoryCap() throws InterruptedException {
+        Execution first = jvm("first", "512m"), second = jvm("second", "768m");
+        ResourceLimiter.acquire(first, 1024L * MB, 4);
+        Acquirer waiting = new Acquirer(second, 1024L * MB, 4, admitted);
+        acquired.add(second);
+        assertFalse(waiting.awaitAdmission(200L));
+        ResourceLimiter.release(first);
+        assertTrue(waiting.awaitAdmission(5000L));
+        assertEquals(768L * MB, ResourceLimiter.getReserved());
+    }
+
+    @Test
+    public void cpuCap() throws InterruptedException {
+        Execution first = jvm("first", "64m"), second = jvm("second", "64m");
+        ResourceLimiter.acquire(first, Long.MAX_VALUE, 1);
+        Acquirer waiting = new Acquirer(second, Long.MAX_VALUE, 1, admitted);
+        acquired.add(second);
+        assertFalse(waiting.awaitAdmission(200L));
+        ResourceLimiter.release(first);
+        assertTrue(waiting.awaitAdmission(5000L));
+    }
+
+    @Test
+    public void firstInFirstOut() throws InterruptedException {
+        Execution first = jvm("first", "512m"), second = jvm("second", "768m"), third = jvm("third", "512m");
+        ResourceLimiter.acquire(first, 1024L * MB, 4);
+        Acquirer waitingSecond = new Acquirer(second, 1024L * MB, 4, admitted);
+        assertFalse(waitingSecond.awaitAdmission(100L));
+        // the third would fit but asked after the second and so waits behind it
+        Acquirer waitingThird = new Acquirer(third, 1024L * MB, 4, admitted);
+        acquired.add(third);
+        assertFalse(waitingThird.awaitAdmission(200L));
+        ResourceLimiter.release(first);
+        assertTrue(waitingSecond.awaitAdmission(5000L));
+        // the third does not fit beside the second and so is admitted only once the second (having recorded its
+        // admission) is released
+        assertFalse(waitingThird.awaitAdmission(200L));
+        assertEquals(768L * MB, ResourceLimiter.getReserved());
+        ResourceLimiter.release(second);
+        assertTrue(waitingThird.awaitAdmission(5000L));
+        assertEquals("second", admitted.get(0));
+        assertEquals("third", admitted.get(1));
+        assertEquals(512L * MB, ResourceLimiter.getReserved());
+    }
+
+    @Test
+    public void getMemory() {
+        assertEquals(512L * MB, ResourceLimiter.getMemory(jvm("mx", "512m")));
+        assertEquals(256L * MB, ResourceLimiter.getMemory(new JvmExecution("ms", ScriptFixture.create("ms", Scope.Default),
+                new String[] { "java", "-Xms256m", "-jar", "ms.jar" }, false, false)));
+        // the maximum is preferred and the last specified wins
+        assertEquals(1024L * MB, ResourceLimiter.getMemory(new JvmExecution("both", ScriptFixture.create("both", Scope.Default),
+                new String[] { "java", "-Xms256m", "-Xmx512m", "-Xmx1g", "-jar", "both.jar" }, false, false)));
+        assertEquals(0L, ResourceLimiter.getMemory(new JvmExecution("none", ScriptFixture.create("none", Scope.Default),
+                new String[] { "java", "-jar", "none.jar" }, false, false)));
+        assertEquals(0L, ResourceLimiter.getMemory(new Execution("script", ScriptFixture.create("script", Scope.Default),
+                new String[] { "script.sh", "-Xmx512m" })));
+    }
+
+    private static Execution jvm(String name, String heap) {
+        return new JvmExecution(name, ScriptFixture.create(name, Scope.Default),
+                new String[] { "java", "-Xmx" + heap, "-jar", name + ".jar" }, false, false);
+    }
+
+}
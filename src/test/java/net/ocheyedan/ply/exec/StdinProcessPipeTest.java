@@ -0,0 +1,255 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.cmd.build.ScriptFixture;
+import net.ocheyedan.ply.props.Scope;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Collections;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 6:55 PM
+ */
+public class StdinProcessPipeTest {
+
+    /**
+     * The {@literal stdin} of a fake child process.
+     */
+    private static class ChildStdin extends OutputStream {
+
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+        private volatile boolean closed = false;
+
+        @Override public synchronized void write(int value) throws IOException {
+            received.write(value);
+        }
+
+        @Override public synchronized void write(byte[] from, int offset, int length) throws IOException {
+            received.write(from, offset, length);
+        }
+
+        @Override public void close() {
+            closed = true;
+        }
+
+        private synchronized String getReceived() {
+            return new String(received.toByteArray());
+        }
+    }
+
+    /**
+     * The {@literal stdin} of a child process which has exited.
+     */
+    private static class ExitedStdin extends OutputStream {
+        @Override public void write(int value) throws IOException {
+            throw new IOException("Broken pipe");
+        }
+    }
+
+    @Test
+    public void latestChildReceives() throws IOException, InterruptedException {
+        PipedOutputStream input = new PipedOutputStream();
+        StdinProcessPipe pipe = new StdinProcessPipe(new PipedInputStream(input));
+        ChildStdin first = new ChildStdin(), second = new ChildStdin();
+        pipe.startPipe(first);
+        write(input, "a\n");
+        awaitReceived(first, "a\n");
+        pipe.startPipe(second);
+        write(input, "b\n");
+        awaitReceived(second, "b\n");
+        pipe.pausePipe(second);
+        write(input, "c\n");
+        awaitReceived(first, "a\nc\n");
+        assertEquals("b\n", second.getReceived());
+        input.close();
+    }
+
+    @Test
+    public void pendingRetainedForNextChild() throws IOException, InterruptedException {
+        PipedOutputStream input = new PipedOutputStream();
+        StdinProcessPipe pipe = new StdinProcessPipe(new PipedInputStream(input));
+        ChildStdin first = new ChildStdin(), second = new ChildStdin();
+        pipe.startPipe(first);
+        pipe.pausePipe(first);
+        // read on behalf of the paused child (or not at all until a child starts) but not lost
+        write(input, "pending\n");
+        Thread.sleep(100);
+        pipe.startPipe(second);
+        awaitReceived(second, "pending\n");
+        assertEquals("", first.getReceived());
+
+        // input which could not be written to an exited child is retained too
+        ExitedStdin exited = new ExitedStdin();
+        ChildStdin third = new ChildStdin();
+        pipe.startPipe(exited);
+        write(input, "retained\n");
+        Thread.sleep(100);
+        pipe.startPipe(third);
+        awaitReceived(third, "retained\n");
+        assertEquals("pending\n", second.getReceived());
+        input.close();
+    }
+
+    @Test
+    public void closedOnEndOfInput() throws IOException, InterruptedException {
+        // the end of input is detectable if it's redirected from a file
+        File file = File.createTempFile("test", "stdin");
+        FileInputStream input = null;
+        try {
+            FileWriter writer = new FileWriter(file);
+            writer.write("last\n");
+            writer.close();
+            input = new FileInputStream(file);
+            StdinProcessPipe pipe = new StdinProcessPipe(input);
+            ChildStdin first = new ChildStdin(), second = new ChildStdin();
+            pipe.startPipe(first);
+            awaitReceived(first, "last\n");
+            awaitClosed(first);
+            // children started after the end of input see the end of input as well
+            pipe.startPipe(second);
+            awaitClosed(second);
+            assertEquals("", second.getReceived());
+        } finally {
+            if (input != null) {
+                input.close();
+            }
+            file.delete();
+        }
+    }
+
+    @Test
+    public void notReadAfterChildPaused() throws IOException, InterruptedException {
+        PipedOutputStream input = new PipedOutputStream();
+        PipedInputStream source = new PipedInputStream(input);
+        StdinProcessPipe pipe = new StdinProcessPipe(source);
+        ChildStdin first = new ChildStdin();
+        pipe.startPipe(first);
+        write(input, "a\n");
+        awaitReceived(first, "a\n");
+        pipe.pausePipe(first);
+        // input typed after the child exited is left for whatever reads the input next
+        write(input, "b\n");
+        Thread.sleep(100);
+        assertEquals(2, source.available());
+        assertEquals("a\n", first.getReceived());
+        input.close();
+    }
+
+    @Test
+    public void writeAppendsNewLine() throws IOException {
+        ChildStdin child = new ChildStdin();
+        new StdinProcessPipe(new ByteArrayInputStream(new byte[0])).write(child, "secret".toCharArray());
+        assertEquals("secret\n", child.getReceived());
+    }
+
+    /**
+     * A child which signals (via {@link StdinProcessPipe#STDIN_REQUEST_TOKEN}) that it's reading its input is then
+     * piped the input.
+     */
+    @Test
+    public void attachedOnRequestToken() throws IOException, InterruptedException {
+        if (!new File("/bin/sh").exists()) {
+            return;
+        }
+        File received = File.createTempFile("test", "stdin");
+        InputStream original = System.in;
+        PipedOutputStream input = new PipedOutputStream();
+        System.setIn(new PipedInputStream(input));
+        try {
+            write(input, "ply\n");
+            assertEquals(0, invokeReadingChild(received));
+            assertEquals("ply", read(received));
+        } finally {
+            System.setIn(original);
+            input.close();
+            received.delete();
+        }
+    }
+
+    /**
+     * Each of two consecutive children reading their input receives the line typed for it; nothing is read on behalf
+     * of the first once it has exited.
+     */
+    @Test
+    public void consecutiveChildren() throws IOException, InterruptedException {
+        if (!new File("/bin/sh").exists()) {
+            return;
+        }
+        File first = File.createTempFile("test", "stdin"), second = File.createTempFile("test", "stdin");
+        InputStream original = System.in;
+        PipedOutputStream input = new PipedOutputStream();
+        PipedInputStream source = new PipedInputStream(input);
+        System.setIn(source);
+        try {
+            write(input, "one\n");
+            assertEquals(0, invokeReadingChild(first));
+            assertEquals("one", read(first));
+            write(input, "two\n");
+            Thread.sleep(100);
+            assertEquals(4, source.available());
+            assertEquals(0, invokeReadingChild(second));
+            assertEquals("two", read(second));
+        } finally {
+            System.setIn(original);
+            input.close();
+            first.delete();
+            second.delete();
+        }
+    }
+
+    /**
+     * Invokes a child which (as with the {@literal JvmPrimer}) requests its input, reads a line and writes it to
+     * {@code received}.
+     * @return the exit code of the child
+     */
+    private static int invokeReadingChild(File received) throws IOException, InterruptedException {
+        String command = String.format("printf 'name? %s\\n'; read name; printf '%%s' \"$name\" > %s",
+                StdinProcessPipe.STDIN_REQUEST_TOKEN, received.getPath());
+        Execution execution = new Execution("stdin", ScriptFixture.create("stdin", Scope.Default),
+                new String[] { "/bin/sh", "-c", command }) {
+            @Override void invoke(String scriptName) throws IOException {
+                // as with the JvmPrimer; the input is only piped once the child requests it
+                Process process = processBuilder.get().start();
+                this.process.set(process);
+                this.processStdout.set(new BufferedReader(new InputStreamReader(process.getInputStream())));
+            }
+        };
+        execution.preInvoke(received.getParentFile(), Collections.<String, String>emptyMap());
+        execution.invoke("stdin");
+        return execution.waitFor("stdin");
+    }
+
+    private static String read(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            return reader.readLine();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void write(OutputStream to, String value) throws IOException {
+        to.write(value.getBytes());
+        to.flush();
+    }
+
+    private static void awaitReceived(ChildStdin child, String expected) throws InterruptedException {
+        for (int i = 0; (i < 200) && !expected.equals(child.getReceived()); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, child.getReceived());
+    }
+
+    private static void awaitClosed(ChildStdin child) throws InterruptedException {
+        for (int i = 0; (i < 200) && !child.closed; i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(child.closed);
+    }
+
+}
@@ -0,0 +1,29 @@
+package net.ocheyedan.ply.exec;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 10:07 PM
+ *
+ * A script, invoked in-process by tests, whose {@literal main} method returns before the (non-daemon) thread it
+ * started prints its output.
+ */
+public final class ThreadProbe {
+
+    public static void main(String[] args) {
+        Thread thread = new Thread(new Runnable() {
+            @Override public void run() {
+                try {
+                    Thread.sleep(200L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                System.out.print("completed");
+            }
+        });
+        thread.start();
+    }
+
+    private ThreadProbe() { }
+
+}
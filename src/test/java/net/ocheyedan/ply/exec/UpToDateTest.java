@@ -0,0 +1,217 @@
+package net.ocheyedan.ply.exec;
+
+import net.ocheyedan.ply.FileUtil;
+import net.ocheyedan.ply.cmd.build.ScriptFixture;
+import net.ocheyedan.ply.props.Context;
+import net.ocheyedan.ply.props.Props;
+import net.ocheyedan.ply.props.PropsExt;
+import net.ocheyedan.ply.props.Scope;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Properties;
+
+import static junit.framework.Assert.*;
+
+/**
+ * User: agent
+ * Date: 10/18/26
+ * Time: 7:15 PM
+ */
+public class UpToDateTest {
+
+    private File projectRoot;
+
+    private File configDirectory;
+
+    private File input;
+
+    private File output;
+
+    private Execution execution;
+
+    @Before
+    public void setup() throws IOException {
+        projectRoot = File.createTempFile("test", "up-to-date");
+        projectRoot.delete();
+        configDirectory = FileUtil.fromParts(projectRoot.getPath(), ".ply", "config");
+        write(new File(configDirectory, "project.properties"), "build.dir=target\n");
+        write(new File(configDirectory, "scripts-jar.properties"), "inputs.compile=src\ninputs.contexts.compile=compiler\n"
+                + "outputs.compile=target/classes\n");
+        write(new File(configDirectory, "compiler.properties"), "debug=true\n");
+        write(new File(configDirectory, "package.properties"), "name=test\n");
+        input = FileUtil.fromParts(projectRoot.getPath(), "src", "Test.java");
+        write(input, "class Test { }\n");
+        output = FileUtil.fromParts(projectRoot.getPath(), "target", "classes", "Test.class");
+        write(output, "compiled");
+        File script = new File(projectRoot, "compile.sh");
+        write(script, "#!/bin/sh\n");
+        execution = new Execution("compile", ScriptFixture.create("compile", Scope.Default),
+                new String[] { script.getPath() });
+        PropsExt.invalidateCaches(configDirectory);
+    }
+
+    @After
+    public void cleanup() {
+        PropsExt.invalidateCaches(configDirectory);
+        FileUtil.delete(projectRoot);
+    }
+
+    @Test
+    public void undeclared() throws IOException {
+        Execution undeclared = new Execution("package", ScriptFixture.create("package", Scope.Default),
+                new String[] { new File(projectRoot, "package.sh").getPath() });
+        assertNull(UpToDate.get(undeclared, projectRoot));
+        // invoked with arguments
+        Execution withArgs = new Execution("compile", ScriptFixture.create("compile", Scope.Default),
+                new String[] { new File(projectRoot, "compile.sh").getPath(), "arg" });
+        assertNull(UpToDate.get(withArgs, projectRoot));
+    }
+
+    @Test
+    public void unchangedInputSkipped() {
+        UpToDate upToDate = UpToDate.get(execution, projectRoot);
+        assertNotNull(upToDate);
+        assertFalse(upToDate.isUpToDate());
+        upToDate.save(null);
+        assertTrue(upToDate.isUpToDate());
+        assertTrue(UpToDate.get(execution, projectRoot).isUpToDate());
+    }
+
+    @Test
+    public void touchedInputReruns() throws IOException {
+        UpToDate upToDate = UpToDate.get(execution, projectRoot);
+        upToDate.save(null);
+        assertTrue(input.setLastModified(input.lastModified() + 2000L));
+        assertFalse(upToDate.isUpToDate());
+        upToDate.save(null);
+        assertTrue(upToDate.isUpToDate());
+        // as does an added input
+        write(FileUtil.fromParts(projectRoot.getPath(), "src", "Other.java"), "class Other { }\n");
+        assertFalse(upToDate.isUpToDate());
+    }
+
+    @Test
+    public void changedPropertyReruns() throws IOException {
+        UpToDate upToDate = UpToDate.get(execution, projectRoot);
+        upToDate.save(null);
+        // a changed property of an undeclared context is not an input
+        write(new File(configDirectory, "package.properties"), "name=changed\n");
+        PropsExt.invalidateCaches(configDirectory);
+        assertTrue(upToDate.isUpToDate());
+        write(new File(configDirectory, "compiler.properties"), "debug=false\n");
+        PropsExt.invalidateCaches(configDirectory);
+        assertFalse(upToDate.isUpToDate());
+    }
+
+    @Test
+    public void deletedOutputReruns() {
+        UpToDate upToDate = UpToDate.get(execution, projectRoot);
+        upToDate.save(null);
+        assertTrue(upToDate.outputsExist());
+        assertTrue(output.delete());
+        assertFalse(upToDate.isUpToDate());
+        upToDate.save(null);
+        assertTrue(upToDate.isUpToDate());
+        // as does the declared output itself
+        FileUtil.delete(output.getParentFile());
+        assertFalse(upToDate.outputsExist());
+        assertFalse(upToDate.isUpToDate());
+    }
+
+    @Test
+    public void failedRunInvalidates() {
+        UpToDate upToDate = UpToDate.get(execution, projectRoot);
+        upToDate.save("key");
+        assertTrue(upToDate.isUpToDate());
+        assertEquals("key", upToDate.getLastCacheKey());
+        upToDate.invalidate();
+        assertFalse(upToDate.isUpToDate());
+        assertNull(upToDate.getLastCacheKey());
+    }
+
+    /**
+     * {@literal ply-filter-file} filters the outputs of {@literal ply-resources} in place, so once filtered they no
+     * longer contain the property references.  A changed filtered property must therefore re-run {@literal ply-resources}
+     * (to copy the unfiltered resources anew) before {@literal ply-filter-file}, whichever context it belongs to.
+     */
+    @Test
+    public void changedFilteredPropertyRerunsResources() throws IOException {
+        Properties shipped = new Properties();
+        FileInputStream stream = new FileInputStream(FileUtil.fromParts("dist", "ply", "config", "scripts-jar.properties"));
+        try {
+            shipped.load(stream);
+        } finally {
+            stream.close();
+        }
+        StringBuilder declarations = new StringBuilder();
+        for (String name : shipped.stringPropertyNames()) {
+            if (name.endsWith(".ply-resources-1.0.jar") || name.endsWith(".ply-filter-file-1.0.jar")) {
+                declarations.append(name).append('=').append(shipped.getProperty(name)).append('\n');
+            }
+        }
+        write(new File(configDirectory, "scripts-jar.properties"), declarations.toString());
+        write(new File(configDirectory, "project.properties"), "build.dir=target\nres.dir=src/main/resources\n"
+                + "res.build.dir=${build.dir}/resources\nfilter.dir=${res.build.dir}\n");
+        write(new File(configDirectory, "custom.properties"), "greeting=hello\n");
+        write(FileUtil.fromParts(projectRoot.getPath(), "src", "main", "resources", "greeting.txt"), "${custom.greeting}");
+        File filtered = FileUtil.fromParts(projectRoot.getPath(), "target", "resources", "greeting.txt");
+        PropsExt.invalidateCaches(configDirectory);
+
+        build();
+        assertEquals("hello", read(filtered));
+        write(new File(configDirectory, "custom.properties"), "greeting=hi\n");
+        PropsExt.invalidateCaches(configDirectory);
+        build();
+        assertEquals("hi", read(filtered));
+    }
+
+    /**
+     * Runs {@literal ply-resources} and then {@literal ply-filter-file}, unless up-to-date, emulating each.
+     */
+    private void build() throws IOException {
+        UpToDate resources = UpToDate.get(jar("ply-resources-1.0.jar"), projectRoot);
+        if (!resources.isUpToDate()) {
+            File from = FileUtil.fromParts(projectRoot.getPath(), "src", "main", "resources", "greeting.txt");
+            write(FileUtil.fromParts(projectRoot.getPath(), "target", "resources", "greeting.txt"), read(from));
+            resources.save(null);
+        }
+        UpToDate filterFile = UpToDate.get(jar("ply-filter-file-1.0.jar"), projectRoot);
+        if (!filterFile.isUpToDate()) {
+            File file = FileUtil.fromParts(projectRoot.getPath(), "target", "resources", "greeting.txt");
+            String greeting = Props.get("greeting", Context.named("custom"), Scope.Default, configDirectory).value();
+            write(file, read(file).replace("${custom.greeting}", greeting));
+            filterFile.save(null);
+        }
+    }
+
+    private Execution jar(String name) throws IOException {
+        File jar = new File(projectRoot, name);
+        if (!jar.exists()) {
+            write(jar, name);
+        }
+        return new Execution(name, ScriptFixture.create(name, Scope.Default), new String[] { jar.getPath() });
+    }
+
+    private static String read(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            return reader.readLine();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -1,11 +1,15 @@
 package net.ocheyedan.ply.submodules;
 
+import net.ocheyedan.ply.graph.DirectedAcyclicGraph;
+import net.ocheyedan.ply.graph.Vertex;
 import org.junit.Test;
 
 import java.io.File;
 import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 
 /**
  * User: blangel
@@ -28,4 +32,23 @@ public class SubmodulesTest {
 
     }
 
+    @Test
+    public void getSubmoduleGraph() {
+        File configDir = new File("./src/test/resources/dot-ply/config");
+        List<Submodule> submodules = Submodules.getSubmodules(configDir);
+        DirectedAcyclicGraph<Submodule> graph = Submodules.getSubmoduleGraph(configDir, submodules);
+        assertEquals(3, graph.getVertices().size());
+        assertEquals("child-1", graph.getVertices().get(0).getValue().name);
+        List<Vertex<Submodule>> roots = graph.getRootVertices();
+        assertEquals(1, roots.size());
+        assertEquals("child-1", roots.get(0).getValue().name);
+        Vertex<Submodule> child1 = graph.getVertex(submodules.get(0));
+        Vertex<Submodule> child2 = graph.getVertex(submodules.get(1));
+        Vertex<Submodule> child3 = graph.getVertex(submodules.get(2));
+        assertTrue(graph.hasEdge(child1, child2));
+        assertTrue(graph.hasEdge(child2, child3));
+        assertFalse(graph.hasEdge(child1, child3));
+        assertTrue(child3.isLeaf());
+    }
+
 }